@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Arc-length parameterization table for Bezier curves and Catmull-Rom chains. Used
+ * to move along a curve at constant speed: {@link #param(float)} maps distance along
+ * the curve to the curve parameter in constant time.
+ * <p>
+ * Tables are built by integrating curve speed with adaptive Gauss-Legendre quadrature,
+ * then inverting the cumulative length with Newton iteration at uniformly spaced distances.
+ * Lookups linearly interpolate the inverted table, so accuracy depends on table size and
+ * how much speed varies along the curve. For typical curves, 64 entries per segment keep
+ * position error well under 1E-4 of curve length.
+ * <p>
+ * Bezier curves are parameterized over [0,1], matching {@link Interp#bezier}. A Catmull-Rom
+ * chain through {@code n} points is parameterized over [0,n-1]: the integer part selects the
+ * segment, and the fraction is the parameter passed to {@link Interp#catmull}. Missing
+ * neighbors at the ends of a chain are taken to be copies of the end points.
+ * <p>
+ * Tables are immutable once built and may be shared between threads.
+ *
+ * @author Philip DeCamp
+ */
+public final class ArcLength {
+
+    /**
+     * Builds table for a quadratic Bezier curve.
+     *
+     * @param begin     Start point
+     * @param control   Control point
+     * @param end       End point
+     * @param tableSize Number of table entries, 2 or more.
+     */
+    public static ArcLength quadBezier( float[] begin, float[] control, float[] end, int tableSize ) {
+        final int dim = begin.length;
+        double[] coef = new double[dim * 4];
+        for( int d = 0; d < dim; d++ ) {
+            double p0 = begin[d];
+            double p1 = control[d];
+            double p2 = end[d];
+            coef[d * 4    ] = p0;
+            coef[d * 4 + 1] = 2.0 * ( p1 - p0 );
+            coef[d * 4 + 2] = p0 - 2.0 * p1 + p2;
+        }
+        return new ArcLength( coef, 1, dim, tableSize );
+    }
+
+    /**
+     * Builds table for a cubic Bezier curve.
+     *
+     * @param begin     Start point
+     * @param control0  First control point
+     * @param control1  Second control point
+     * @param end       End point
+     * @param tableSize Number of table entries, 2 or more.
+     */
+    public static ArcLength cubicBezier( float[] begin, float[] control0, float[] control1, float[] end, int tableSize ) {
+        final int dim = begin.length;
+        double[] coef = new double[dim * 4];
+        for( int d = 0; d < dim; d++ ) {
+            double p0 = begin[d];
+            double p1 = control0[d];
+            double p2 = control1[d];
+            double p3 = end[d];
+            coef[d * 4    ] = p0;
+            coef[d * 4 + 1] = 3.0 * ( p1 - p0 );
+            coef[d * 4 + 2] = 3.0 * ( p0 - 2.0 * p1 + p2 );
+            coef[d * 4 + 3] = p3 - 3.0 * p2 + 3.0 * p1 - p0;
+        }
+        return new ArcLength( coef, 1, dim, tableSize );
+    }
+
+    /**
+     * Builds table for a Catmull-Rom chain.
+     *
+     * @param points    Points packed with {@code dim} values per point.
+     * @param off       Offset into points
+     * @param count     Number of points, 2 or more.
+     * @param dim       Dimensionality of points
+     * @param tableSize Number of table entries, 2 or more.
+     */
+    public static ArcLength catmull( float[] points, int off, int count, int dim, int tableSize ) {
+        if( count < 2 ) {
+            throw new IllegalArgumentException( "Catmull-Rom chain requires at least two points." );
+        }
+        final int segCount = count - 1;
+        double[] coef = new double[segCount * dim * 4];
+        for( int s = 0; s < segCount; s++ ) {
+            final int k0 = Math.max( 0, s - 1 );
+            final int k3 = Math.min( count - 1, s + 2 );
+            for( int d = 0; d < dim; d++ ) {
+                double x0 = points[off + k0 * dim + d];
+                double x1 = points[off + s * dim + d];
+                double x2 = points[off + ( s + 1 ) * dim + d];
+                double x3 = points[off + k3 * dim + d];
+                int c = ( s * dim + d ) * 4;
+                coef[c    ] = x1;
+                coef[c + 1] = -0.5 * x0 + 0.5 * x2;
+                coef[c + 2] = x0 - 2.5 * x1 + 2.0 * x2 - 0.5 * x3;
+                coef[c + 3] = -0.5 * x0 + 1.5 * x1 - 1.5 * x2 + 0.5 * x3;
+            }
+        }
+        return new ArcLength( coef, segCount, dim, tableSize );
+    }
+
+
+    private final int mDim;
+    private final int mSegCount;
+    /** Power-basis coefficients, indexed {@code ( seg * dim + d ) * 4 + power}. **/
+    private final double[] mCoef;
+    private final float mLength;
+
+    /** Curve parameter at uniformly spaced distances. **/
+    private final float[] mParam;
+    private final float mDistToIndex;
+
+    /** Distance at uniformly spaced curve parameters. **/
+    private final float[] mDist;
+    private final float mParamToIndex;
+
+
+    private ArcLength( double[] coef, int segCount, int dim, int tableSize ) {
+        if( tableSize < 2 ) {
+            throw new IllegalArgumentException( "Table size must be at least 2." );
+        }
+        mDim      = dim;
+        mSegCount = segCount;
+        mCoef     = coef;
+
+        // Forward table: cumulative length at uniform parameter steps within each segment.
+        final int perSeg = Math.max( 1, ( tableSize - 1 + segCount - 1 ) / segCount );
+        final int fwdSize = segCount * perSeg + 1;
+        final double h = 1.0 / perSeg;
+        final double[] cum = new double[fwdSize];
+
+        double total = 0.0;
+        for( int s = 0; s < segCount; s++ ) {
+            double est = 0.0;
+            for( int j = 0; j < perSeg; j++ ) {
+                est += gauss( s, j * h, ( j + 1 ) * h );
+            }
+            final double tol = Math.max( est, MIN_LEN ) * INTEGRATION_TOL / perSeg;
+            for( int j = 0; j < perSeg; j++ ) {
+                double a = j * h;
+                total += adaptive( s, a, a + h, gauss( s, a, a + h ), tol, MAX_DEPTH );
+                cum[s * perSeg + j + 1] = total;
+            }
+        }
+
+        mLength = (float)total;
+        mDist   = new float[fwdSize];
+        for( int i = 0; i < fwdSize; i++ ) {
+            mDist[i] = (float)cum[i];
+        }
+        mParamToIndex = perSeg;
+
+        // Inverse table: parameter at uniform distance steps.
+        mParam = new float[tableSize];
+        mDistToIndex = total > 0.0 ? (float)( ( tableSize - 1 ) / total ) : 0f;
+        int j = 0;
+        for( int k = 0; k < tableSize; k++ ) {
+            if( !( total > 0.0 ) ) {
+                mParam[k] = (float)( (double)k * segCount / ( tableSize - 1 ) );
+                continue;
+            }
+            final double target = total * k / ( tableSize - 1 );
+            while( j < fwdSize - 2 && cum[j + 1] <= target ) {
+                j++;
+            }
+            final int s = j / perSeg;
+            final double a = ( j - s * perSeg ) * h;
+            final double b = a + h;
+            final double span = cum[j + 1] - cum[j];
+            double u = span > 0.0 ? a + h * Math.min( 1.0, ( target - cum[j] ) / span ) : a;
+            for( int iter = 0; iter < NEWTON_ITERS; iter++ ) {
+                double f = cum[j] + gauss( s, a, u ) - target;
+                double v = speed( s, u );
+                if( !( v > 0.0 ) ) {
+                    break;
+                }
+                u = Math.max( a, Math.min( b, u - f / v ) );
+            }
+            mParam[k] = (float)( s + u );
+        }
+        mParam[tableSize - 1] = segCount;
+    }
+
+
+    public int dim() {
+        return mDim;
+    }
+
+    /**
+     * @return number of curve segments. 1 for Bezier curves.
+     */
+    public int segmentCount() {
+        return mSegCount;
+    }
+
+    /**
+     * @return total length of curve
+     */
+    public float length() {
+        return mLength;
+    }
+
+    /**
+     * @param dist Distance along curve. Clamped to [0,length()].
+     * @return curve parameter at distance {@code dist} along curve.
+     */
+    public float param( float dist ) {
+        return lookup( mParam, dist * mDistToIndex );
+    }
+
+    /**
+     * Batch version of {@link #param(float)}.
+     *
+     * @param dist    Distances along curve
+     * @param distOff Offset into dist
+     * @param len     Number of distances to convert
+     * @param out     Receives curve parameters
+     * @param outOff  Offset into out
+     */
+    public void param( float[] dist, int distOff, int len, float[] out, int outOff ) {
+        final float[] table = mParam;
+        final float scale   = mDistToIndex;
+        for( int i = 0; i < len; i++ ) {
+            out[outOff + i] = lookup( table, dist[distOff + i] * scale );
+        }
+    }
+
+    /**
+     * @param param Curve parameter
+     * @return distance along curve at {@code param}.
+     */
+    public float dist( float param ) {
+        return lookup( mDist, param * mParamToIndex );
+    }
+
+    /**
+     * Computes point on curve at a given distance along it.
+     *
+     * @param dist   Distance along curve. Clamped to [0,length()].
+     * @param out    Receives {@code dim()} values
+     * @param outOff Offset into out
+     */
+    public void point( float dist, float[] out, int outOff ) {
+        pointAt( param( dist ), out, outOff );
+    }
+
+    /**
+     * Evaluates curve.
+     *
+     * @param param  Curve parameter. Clamped to valid range.
+     * @param out    Receives {@code dim()} values
+     * @param outOff Offset into out
+     */
+    public void pointAt( float param, float[] out, int outOff ) {
+        int s = (int)Math.floor( param );
+        s = s < 0 ? 0 : s >= mSegCount ? mSegCount - 1 : s;
+        double u = param - s;
+        u = u <= 0.0 ? 0.0 : u >= 1.0 ? 1.0 : u;
+
+        final double[] coef = mCoef;
+        int c = s * mDim * 4;
+        for( int d = 0; d < mDim; d++, c += 4 ) {
+            out[outOff + d] = (float)( ( ( coef[c + 3] * u + coef[c + 2] ) * u + coef[c + 1] ) * u + coef[c] );
+        }
+    }
+
+
+    private static float lookup( float[] table, float x ) {
+        final int last = table.length - 1;
+        if( !( x > 0f ) ) {
+            return table[0];
+        }
+        if( x >= last ) {
+            return table[last];
+        }
+        int i = (int)x;
+        float f = x - i;
+        return table[i] + ( table[i + 1] - table[i] ) * f;
+    }
+
+
+    private double speed( int seg, double u ) {
+        final double[] coef = mCoef;
+        double sum = 0.0;
+        int c = seg * mDim * 4;
+        for( int d = 0; d < mDim; d++, c += 4 ) {
+            double v = ( 3.0 * coef[c + 3] * u + 2.0 * coef[c + 2] ) * u + coef[c + 1];
+            sum += v * v;
+        }
+        return Math.sqrt( sum );
+    }
+
+    /**
+     * Five-point Gauss-Legendre integration of speed over [a,b].
+     */
+    private double gauss( int seg, double a, double b ) {
+        final double half = 0.5 * ( b - a );
+        final double mid  = 0.5 * ( a + b );
+        double sum = 0.0;
+        for( int i = 0; i < GL_NODES.length; i++ ) {
+            sum += GL_WEIGHTS[i] * speed( seg, mid + half * GL_NODES[i] );
+        }
+        return sum * half;
+    }
+
+
+    private double adaptive( int seg, double a, double b, double whole, double tol, int depth ) {
+        final double m = 0.5 * ( a + b );
+        final double left  = gauss( seg, a, m );
+        final double right = gauss( seg, m, b );
+        final double sum = left + right;
+        if( depth <= 0 || Math.abs( sum - whole ) <= tol ) {
+            return sum;
+        }
+        return adaptive( seg, a, m, left, 0.5 * tol, depth - 1 ) +
+               adaptive( seg, m, b, right, 0.5 * tol, depth - 1 );
+    }
+
+
+    private static final double INTEGRATION_TOL = 1E-10;
+    private static final double MIN_LEN = 1E-30;
+    private static final int MAX_DEPTH    = 24;
+    private static final int NEWTON_ITERS = 4;
+
+    private static final double[] GL_NODES = {
+            0.0,
+            -0.5384693101056831, 0.5384693101056831,
+            -0.9061798459386640, 0.9061798459386640
+    };
+
+    private static final double[] GL_WEIGHTS = {
+            0.5688888888888889,
+            0.4786286704993665, 0.4786286704993665,
+            0.2369268850561891, 0.2369268850561891
+    };
+
+}
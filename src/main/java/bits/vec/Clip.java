@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Set of spline tracks that are sampled together, such as all the channels of an animation
+ * clip. Key times, inverse segment durations and coefficients for every track are packed
+ * into shared arrays, so sampling a clip at time {@code t} is one streaming loop over
+ * the tracks that writes a contiguous pose.
+ * <p>
+ * The output for track {@code i} is {@code tracks[i].dim()} values starting at
+ * {@link #channelOffset(int)}. Each track keeps its own segment cursor, as described
+ * in {@link Spline}, so playback locates segments in constant time.
+ *
+ * @author Philip DeCamp
+ */
+public final class Clip {
+
+    private final int mTrackCount;
+    private final int mChannelCount;
+
+    private final float[] mTimes;
+    private final float[] mInvDur;
+    private final float[] mCoef;
+
+    /** Offset of each track's keys into mTimes. Segment offsets into mInvDur are the same. **/
+    private final int[] mTimeOff;
+    private final int[] mKeyCount;
+    /** Offset of each track's coefficients into mCoef. **/
+    private final int[] mCoefOff;
+    private final int[] mDim;
+    /** Offset of each track into output. Holds {@code trackCount + 1} entries. **/
+    private final int[] mOutOff;
+    private final int[] mCursor;
+
+    private final float mStartTime;
+    private final float mEndTime;
+
+
+    /**
+     * @param tracks Splines to sample. Coefficients are copied, so splines may be discarded afterward.
+     */
+    public Clip( Spline... tracks ) {
+        final int count = tracks.length;
+        mTrackCount = count;
+        mTimeOff    = new int[count];
+        mKeyCount   = new int[count];
+        mCoefOff    = new int[count];
+        mDim        = new int[count];
+        mOutOff     = new int[count + 1];
+        mCursor     = new int[count];
+
+        int timeLen = 0;
+        int coefLen = 0;
+        float start = Float.POSITIVE_INFINITY;
+        float end   = Float.NEGATIVE_INFINITY;
+
+        for( int i = 0; i < count; i++ ) {
+            Spline s = tracks[i];
+            mTimeOff[i]    = timeLen;
+            mKeyCount[i]   = s.keyCount();
+            mCoefOff[i]    = coefLen;
+            mDim[i]        = s.dim();
+            mOutOff[i + 1] = mOutOff[i] + s.dim();
+            // A track never has more segments than keys, so inverse durations can share time offsets.
+            timeLen += s.keyTimes().length;
+            coefLen += s.coefficients().length;
+            start = Math.min( start, s.startTime() );
+            end   = Math.max( end, s.endTime() );
+        }
+
+        mChannelCount = mOutOff[count];
+        mTimes  = new float[timeLen];
+        mInvDur = new float[timeLen];
+        mCoef   = new float[coefLen];
+        for( int i = 0; i < count; i++ ) {
+            Spline s = tracks[i];
+            System.arraycopy( s.keyTimes(), 0, mTimes, mTimeOff[i], s.keyCount() );
+            System.arraycopy( s.invDurations(), 0, mInvDur, mTimeOff[i], s.invDurations().length );
+            System.arraycopy( s.coefficients(), 0, mCoef, mCoefOff[i], s.coefficients().length );
+        }
+
+        mStartTime = count > 0 ? start : 0f;
+        mEndTime   = count > 0 ? end : 0f;
+    }
+
+
+    public int trackCount() {
+        return mTrackCount;
+    }
+
+    /**
+     * @return number of values in a pose, which is the sum of track dimensions.
+     */
+    public int channelCount() {
+        return mChannelCount;
+    }
+
+    /**
+     * @return offset of track's values within a pose.
+     */
+    public int channelOffset( int track ) {
+        return mOutOff[track];
+    }
+
+    /**
+     * @return earliest key time of any track
+     */
+    public float startTime() {
+        return mStartTime;
+    }
+
+    /**
+     * @return latest key time of any track
+     */
+    public float endTime() {
+        return mEndTime;
+    }
+
+    /**
+     * Samples all tracks.
+     *
+     * @param t      Time to sample
+     * @param out    Receives {@code channelCount()} values
+     * @param outOff Offset into out
+     */
+    public void eval( float t, float[] out, int outOff ) {
+        evalTracks( t, 0, mTrackCount, out, outOff );
+    }
+
+    /**
+     * Samples all tracks, optionally splitting tracks across threads.
+     *
+     * @param t      Time to sample
+     * @param out    Receives {@code channelCount()} values
+     * @param outOff Offset into out
+     * @param pool   Pool used to sample disjoint ranges of tracks in parallel. If null, runs on the calling thread.
+     */
+    public void eval( float t, float[] out, int outOff, ForkJoinPool pool ) {
+        if( pool == null || mChannelCount <= PARALLEL_CHANNELS ) {
+            evalTracks( t, 0, mTrackCount, out, outOff );
+        } else {
+            pool.invoke( new EvalTask( this, t, 0, mTrackCount, out, outOff ) );
+        }
+    }
+
+    /**
+     * Samples a range of tracks.
+     *
+     * @param t      Time to sample
+     * @param start  First track to sample
+     * @param stop   One past last track to sample
+     * @param out    Receives values for tracks, with track {@code start} written to {@code outOff}.
+     * @param outOff Offset into out
+     */
+    public void evalTracks( float t, int start, int stop, float[] out, int outOff ) {
+        final float[] times   = mTimes;
+        final float[] invDur  = mInvDur;
+        final float[] coef    = mCoef;
+        final int[] timeOff   = mTimeOff;
+        final int[] keyCount  = mKeyCount;
+        final int[] coefOff   = mCoefOff;
+        final int[] dims      = mDim;
+        final int[] cursors   = mCursor;
+        int pos = outOff;
+
+        for( int i = start; i < stop; i++ ) {
+            final int off    = timeOff[i];
+            final int cursor = cursors[i];
+            final int seg    = Spline.findSegment( times, off, keyCount[i], cursor, t );
+            if( seg != cursor ) {
+                cursors[i] = seg;
+            }
+
+            float u = ( t - times[off + seg] ) * invDur[off + seg];
+            u = u <= 0f ? 0f : u >= 1f ? 1f : u;
+
+            final int dim = dims[i];
+            int c = coefOff[i] + seg * dim * 4;
+            for( int d = 0; d < dim; d++, c += 4 ) {
+                out[pos++] = ( ( coef[c + 3] * u + coef[c + 2] ) * u + coef[c + 1] ) * u + coef[c];
+            }
+        }
+    }
+
+
+    /**
+     * @param rate Samples per unit time
+     * @return number of samples needed to cover {@code [startTime(),endTime()]} at {@code rate}.
+     */
+    public int bakeCount( double rate ) {
+        return (int)Math.floor( ( (double)mEndTime - mStartTime ) * rate + BAKE_EPS ) + 1;
+    }
+
+    /**
+     * Equivalent to {@code bake( start, rate, count, out, outOff, null )}.
+     */
+    public void bake( double start, double rate, int count, float[] out, int outOff ) {
+        bake( start, rate, count, out, outOff, null );
+    }
+
+    /**
+     * Resamples all tracks at a uniform rate. Sample {@code k} is taken at time
+     * {@code start + k / rate} and written as a pose of {@code channelCount()} values
+     * at {@code outOff + k * channelCount()}.
+     * <p>
+     * Each segment is walked with forward differences of its polynomial, so each sample
+     * costs a few additions per channel, with no powers of {@code t}. Differences are kept
+     * in double precision. Results agree with {@link #eval} to within float rounding.
+     * Like {@code eval}, each pose is written as one contiguous row before the next sample
+     * is taken. This method does not use or modify segment cursors.
+     *
+     * @param start  Time of first sample
+     * @param rate   Samples per unit time. Must be positive.
+     * @param count  Number of samples
+     * @param out    Receives {@code count * channelCount()} values
+     * @param outOff Offset into out
+     * @param pool   Pool used to bake disjoint ranges of tracks in parallel, each writing its own span of every pose.
+     *               If null, runs on the calling thread.
+     */
+    public void bake( double start, double rate, int count, float[] out, int outOff, ForkJoinPool pool ) {
+        if( !( rate > 0.0 ) ) {
+            throw new IllegalArgumentException( "Invalid sample rate: " + rate );
+        }
+        if( pool == null || (long)mChannelCount * count <= PARALLEL_CHANNELS ) {
+            bakeTracks( start, rate, count, 0, mTrackCount, out, outOff );
+        } else {
+            pool.invoke( new BakeTask( this, start, rate, count, 0, mTrackCount, out, outOff ) );
+        }
+    }
+
+
+    private void bakeTracks( double start, double rate, int count, int trackStart, int trackStop, float[] out, int outOff ) {
+        if( count <= 0 ) {
+            return;
+        }
+
+        final int[] outOffs  = mOutOff;
+        final int chanStart  = outOffs[trackStart];
+        final int stride     = mChannelCount;
+        final int[] phase    = new int[trackStop - trackStart];
+        final int[] phaseEnd = new int[trackStop - trackStart];
+        // Forward differences {f, d1, d2, d3} for each channel in range.
+        final double[] diff  = new double[( outOffs[trackStop] - chanStart ) * 4];
+
+        for( int i = trackStart; i < trackStop; i++ ) {
+            enterPhase( i, -1, 0, start, rate, count, phase, phaseEnd, i - trackStart, diff, ( outOffs[i] - chanStart ) * 4 );
+        }
+
+        // Poses are written one at a time, as in evalTracks, so output is a single forward stream.
+        int pos = outOff + chanStart;
+        for( int k = 0; k < count; k++, pos += stride ) {
+            int p = pos;
+            for( int i = trackStart; i < trackStop; i++ ) {
+                final int j  = i - trackStart;
+                final int q0 = ( outOffs[i] - chanStart ) * 4;
+                if( k >= phaseEnd[j] ) {
+                    enterPhase( i, phase[j] + 1, k, start, rate, count, phase, phaseEnd, j, diff, q0 );
+                }
+                for( int q = q0, qEnd = ( outOffs[i + 1] - chanStart ) * 4; q < qEnd; q += 4 ) {
+                    out[p++] = (float)diff[q];
+                    diff[q    ] += diff[q + 1];
+                    diff[q + 1] += diff[q + 2];
+                    diff[q + 2] += diff[q + 3];
+                }
+            }
+        }
+    }
+
+    /**
+     * Bakes each track as a sequence of phases. Phase {@code -1} holds the first key,
+     * phases {@code 0 ... segs-1} walk segments, and phase {@code segs} holds the last key.
+     * This advances a track to the first phase at or after {@code s} that contains sample
+     * {@code k}, and loads the forward differences for that sample.
+     */
+    private void enterPhase( int track,
+                             int s,
+                             int k,
+                             double start,
+                             double rate,
+                             int count,
+                             int[] phase,
+                             int[] phaseEnd,
+                             int j,
+                             double[] diff,
+                             int q )
+    {
+        final float[] coef = mCoef;
+        final int off  = mTimeOff[track];
+        final int keys = mKeyCount[track];
+        final int segs = Math.max( 1, keys - 1 );
+        final int dim  = mDim[track];
+
+        int kEnd = phaseEnd( off, keys, segs, s, start, rate, count );
+        while( k >= kEnd ) {
+            kEnd = phaseEnd( off, keys, segs, ++s, start, rate, count );
+        }
+        phase[j]    = s;
+        phaseEnd[j] = kEnd;
+
+        if( s >= 0 && s < segs ) {
+            final double h = mInvDur[off + s] / rate;
+            final double u = ( start + k / rate - mTimes[off + s] ) * mInvDur[off + s];
+            int c = mCoefOff[track] + s * dim * 4;
+            for( int d = 0; d < dim; d++, c += 4, q += 4 ) {
+                final double a0 = coef[c    ];
+                final double a1 = coef[c + 1];
+                final double a2 = coef[c + 2];
+                final double a3 = coef[c + 3];
+                diff[q    ] = ( ( a3 * u + a2 ) * u + a1 ) * u + a0;
+                diff[q + 1] = a1 * h + a2 * ( 2.0 * u + h ) * h + a3 * ( ( 3.0 * u + 3.0 * h ) * u + h * h ) * h;
+                diff[q + 2] = ( 2.0 * a2 + a3 * 6.0 * ( u + h ) ) * h * h;
+                diff[q + 3] = 6.0 * a3 * h * h * h;
+            }
+        } else {
+            int c = mCoefOff[track] + ( s < 0 ? 0 : segs - 1 ) * dim * 4;
+            for( int d = 0; d < dim; d++, c += 4, q += 4 ) {
+                diff[q    ] = s < 0 || keys == 1 ? coef[c] : coef[c] + coef[c + 1] + coef[c + 2] + coef[c + 3];
+                diff[q + 1] = 0.0;
+                diff[q + 2] = 0.0;
+                diff[q + 3] = 0.0;
+            }
+        }
+    }
+
+    /**
+     * @return index one past last sample of phase {@code s}, as described in {@link #enterPhase}.
+     */
+    private int phaseEnd( int off, int keys, int segs, int s, double start, double rate, int count ) {
+        if( s < 0 ) {
+            return firstSample( mTimes[off], start, rate, count );
+        }
+        if( s < segs - 1 ) {
+            return firstSample( mTimes[off + s + 1], start, rate, count );
+        }
+        if( s == segs - 1 ) {
+            return lastSample( mTimes[off + keys - 1], start, rate, count );
+        }
+        return count;
+    }
+
+    /**
+     * @return index of first sample at or after time {@code t}, clamped to [0,count].
+     */
+    private static int firstSample( double t, double start, double rate, int count ) {
+        double k = Math.ceil( ( t - start ) * rate - BAKE_EPS );
+        return k <= 0.0 ? 0 : k >= count ? count : (int)k;
+    }
+
+    /**
+     * @return index one past last sample at or before time {@code t}, clamped to [0,count].
+     */
+    private static int lastSample( double t, double start, double rate, int count ) {
+        double k = Math.floor( ( t - start ) * rate + BAKE_EPS ) + 1.0;
+        return k <= 0.0 ? 0 : k >= count ? count : (int)k;
+    }
+
+
+
+    private static final double BAKE_EPS = 1E-9;
+    private static final int PARALLEL_CHANNELS = 1 << 14;
+
+
+    @SuppressWarnings( "serial" )
+    private static final class BakeTask extends RecursiveAction {
+
+        final Clip mClip;
+        final double mStartTime;
+        final double mRate;
+        final int mCount;
+        final int mStart;
+        final int mStop;
+        final float[] mOut;
+        final int mOff;
+
+        BakeTask( Clip clip, double startTime, double rate, int count, int start, int stop, float[] out, int off ) {
+            mClip      = clip;
+            mStartTime = startTime;
+            mRate      = rate;
+            mCount     = count;
+            mStart     = start;
+            mStop      = stop;
+            mOut       = out;
+            mOff       = off;
+        }
+
+        @Override
+        protected void compute() {
+            final int[] outOff = mClip.mOutOff;
+            if( (long)( outOff[mStop] - outOff[mStart] ) * mCount > PARALLEL_CHANNELS && mStop - mStart > 1 ) {
+                int mid = ( mStart + mStop ) >>> 1;
+                // Tracks write adjacent spans of the same poses, so both halves share offset.
+                invokeAll( new BakeTask( mClip, mStartTime, mRate, mCount, mStart, mid, mOut, mOff ),
+                           new BakeTask( mClip, mStartTime, mRate, mCount, mid, mStop, mOut, mOff ) );
+                return;
+            }
+            mClip.bakeTracks( mStartTime, mRate, mCount, mStart, mStop, mOut, mOff );
+        }
+    }
+
+
+    @SuppressWarnings( "serial" )
+    private static final class EvalTask extends RecursiveAction {
+
+        final Clip mClip;
+        final float mTime;
+        final int mStart;
+        final int mStop;
+        final float[] mOut;
+        final int mOff;
+
+        EvalTask( Clip clip, float time, int start, int stop, float[] out, int off ) {
+            mClip  = clip;
+            mTime  = time;
+            mStart = start;
+            mStop  = stop;
+            mOut   = out;
+            mOff   = off;
+        }
+
+        @Override
+        protected void compute() {
+            final int[] outOff = mClip.mOutOff;
+            if( outOff[mStop] - outOff[mStart] > PARALLEL_CHANNELS && mStop - mStart > 1 ) {
+                int mid = ( mStart + mStop ) >>> 1;
+                invokeAll( new EvalTask( mClip, mTime, mStart, mid, mOut, mOff ),
+                           new EvalTask( mClip, mTime, mid, mStop, mOut, mOff + outOff[mid] - outOff[mStart] ) );
+                return;
+            }
+            mClip.evalTracks( mTime, mStart, mStop, mOut, mOff );
+        }
+    }
+
+}
@@ -330,6 +330,79 @@ public class Frac implements Comparable<Frac> {
         return multLong( val, frac.mDen, frac.mNum, ROUND_NEAR_INF );
     }
 
+    /**
+     * Converts a value from one time base to another, computing {@code val * from / to}
+     * with 128-bit intermediate precision. Equivalent to FFMPEG's {@code av_rescale_q_rnd}.
+     * Results that cannot be represented saturate to Long.MIN_VALUE or Long.MAX_VALUE.
+     *
+     * @param val   Value in units of {@code from}
+     * @param from  Time base of {@code val}
+     * @param to    Time base of result
+     * @param round Rounding method, from ROUND_*, optionally combined with ROUND_PASS_MINMAX.
+     * @return val in units of {@code to}
+     */
+    public static long rescale( long val, Frac from, Frac to, int round ) {
+        return rescale( val, (long)from.mNum * to.mDen, (long)from.mDen * to.mNum, round );
+    }
+
+    /**
+     * Batch version of {@link #rescale(long, Frac, Frac, int)}. The ratio between time bases is
+     * reduced once, and values whose product fits in 64 bits take a single multiply and divide.
+     * Source and destination may be the same array.
+     *
+     * @param src    Input values in units of {@code from}
+     * @param srcOff Offset into src
+     * @param dst    Receives values in units of {@code to}
+     * @param dstOff Offset into dst
+     * @param len    Number of values
+     * @param from   Time base of input
+     * @param to     Time base of output
+     * @param round  Rounding method, from ROUND_*, optionally combined with ROUND_PASS_MINMAX.
+     */
+    public static void rescale( long[] src, int srcOff, long[] dst, int dstOff, int len, Frac from, Frac to, int round ) {
+        long num = (long)from.mNum * to.mDen;
+        long den = (long)from.mDen * to.mNum;
+
+        if( num == 0 || den == 0 ) {
+            for( int i = 0; i < len; i++ ) {
+                dst[dstOff + i] = rescale( src[srcOff + i], num, den, round );
+            }
+            return;
+        }
+
+        final boolean passMinMax = ( round & ROUND_PASS_MINMAX ) != 0;
+        round &= ~ROUND_PASS_MINMAX;
+
+        if( den < 0 ) {
+            num = -num;
+            den = -den;
+        }
+        long gcd = gcd( num, den );
+        num /= gcd;
+        den /= gcd;
+
+        final long absNum = Math.abs( num );
+        final long addPos = roundAdd( round, den, false );
+        final long addNeg = roundAdd( round, den, true );
+        final long limit  = ( Long.MAX_VALUE - den ) / absNum;
+
+        for( int i = 0; i < len; i++ ) {
+            long v = src[srcOff + i];
+            if( passMinMax && ( v == Long.MIN_VALUE || v == Long.MAX_VALUE ) ) {
+                dst[dstOff + i] = v;
+                continue;
+            }
+            boolean neg = ( v ^ num ) < 0;
+            long mag = v < 0 ? -v : v;
+            if( mag >= 0 && mag <= limit ) {
+                long q = ( mag * absNum + ( neg ? addNeg : addPos ) ) / den;
+                dst[dstOff + i] = neg ? -q : q;
+            } else {
+                dst[dstOff + i] = rescale( v, num, den, round );
+            }
+        }
+    }
+
     /**
      * Multiply two rationals.
      *
@@ -465,12 +538,67 @@ public class Frac implements Comparable<Frac> {
     /**
      * Convert a double precision floating point number to a rational.
      * inf is expressed as {1,0} or {-1,0} depending on the mSign.
+     * <p>
+     * Results for common frame rates, sample rates and their ratios and reciprocals are
+     * precomputed, and recent results are cached, so repeated conversions of the same values
+     * usually skip the continued fraction search. A precomputed result is used for any
+     * {@code max} that its numerator and denominator fit within, which covers the default
+     * bound and most custom bounds. Results are identical either way.
      *
      * @param d double to convert
      * @param max the maximum allowed numerator and denominator
      * @param out receives rational version of {@code d} on return.
      */
     public static void doubleToRational( double d, int max, Frac out ) {
+        final long bits = Double.doubleToLongBits( d );
+        RateEntry e = findKnownRate( bits );
+        // The best approximation within a larger bound is also the best within any
+        // smaller bound that it fits, so the precomputed result applies.
+        if( e == null || e.mDen > max || e.mNum > max || -e.mNum > max ) {
+            final long hash = rateHash( bits, max );
+            final int slot  = (int)( hash >>> ( 64 - RATE_CACHE_BITS ) );
+            e = RATE_CACHE[slot];
+            if( e == null || e.mBits != bits || e.mMax != max ) {
+                searchRational( d, max, out );
+                // Entries are immutable, so they may be published without synchronization.
+                RATE_CACHE[slot] = new RateEntry( bits, max, out.mNum, out.mDen );
+                return;
+            }
+        }
+        out.mNum = e.mNum;
+        out.mDen = e.mDen;
+    }
+
+    /**
+     * Converts an array of doubles to rationals, as with {@link #doubleToRational(double, int, Frac)}.
+     *
+     * @param src    Input values
+     * @param srcOff Offset into src
+     * @param max    the maximum allowed numerator and denominator
+     * @param dst    Receives {@code 2 * len} values, with the numerator and denominator of each result stored consecutively
+     * @param dstOff Offset into dst
+     * @param len    Number of values to convert
+     */
+    public static void doubleToRational( double[] src, int srcOff, int max, int[] dst, int dstOff, int len ) {
+        Frac tmp = new Frac();
+        long prevBits = 0;
+        for( int i = 0; i < len; i++ ) {
+            double d = src[srcOff + i];
+            long bits = Double.doubleToLongBits( d );
+            // Streams often contain runs of the same value.
+            if( i == 0 || bits != prevBits ) {
+                doubleToRational( d, max, tmp );
+                prevBits = bits;
+            }
+            dst[dstOff + 2 * i    ] = tmp.mNum;
+            dst[dstOff + 2 * i + 1] = tmp.mDen;
+        }
+    }
+
+    /**
+     * Continued fraction search used by {@link #doubleToRational(double, int, Frac)}.
+     */
+    static void searchRational( double d, int max, Frac out ) {
         long den;
         if( Double.isNaN( d ) ) {
             out.mNum = 0;
@@ -494,6 +622,94 @@ public class Frac implements Comparable<Frac> {
 
 
 
+    /**
+     * Computes {@code val * num / den}, where the magnitudes of num and den are at most 2^62.
+     */
+    private static long rescale( long val, long num, long den, int round ) {
+        if( ( round & ROUND_PASS_MINMAX ) != 0 ) {
+            if( val == Long.MIN_VALUE || val == Long.MAX_VALUE ) {
+                return val;
+            }
+            round &= ~ROUND_PASS_MINMAX;
+        }
+
+        if( val == 0 || num == 0 ) {
+            return 0;
+        }
+
+        if( den == 0 ) {
+            return ( val ^ num ) < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+
+        if( den < 0 ) {
+            num = -num;
+            den = -den;
+        }
+
+        boolean neg = ( val ^ num ) < 0;
+        // Magnitude of val is treated as unsigned, so Long.MIN_VALUE is exact.
+        long a = val < 0 ? -val : val;
+        long b = Math.abs( num );
+        long add = roundAdd( round, den, neg );
+        long q;
+
+        if( a >= 0 && a <= ( Long.MAX_VALUE - add ) / b ) {
+            q = ( a * b + add ) / den;
+        } else {
+            // 128-bit product as unsigned hi:lo.
+            long a0 = a & 0xFFFFFFFFL;
+            long a1 = a >>> 32;
+            long b0 = b & 0xFFFFFFFFL;
+            long b1 = b >>> 32;
+            long mid   = a0 * b1 + a1 * b0;
+            long midLo = mid << 32;
+            long lo    = a0 * b0 + midLo;
+            long hi    = a1 * b1 + ( mid >>> 32 ) + ( unsignedLess( lo, midLo ) ? 1 : 0 );
+            lo += add;
+            if( unsignedLess( lo, add ) ) {
+                hi++;
+            }
+
+            if( hi >= den ) {
+                return neg ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+
+            // Long division. hi < den <= 2^62, so shifting hi cannot overflow.
+            q = 0;
+            for( int i = 63; i >= 0; i-- ) {
+                hi = ( hi << 1 ) | ( ( lo >>> i ) & 1 );
+                q <<= 1;
+                if( hi >= den ) {
+                    hi -= den;
+                    q |= 1;
+                }
+            }
+            if( q < 0 ) {
+                return neg ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+        }
+
+        return neg ? -q : q;
+    }
+
+    /**
+     * @return amount added to a nonnegative dividend before truncating division by den to
+     *         achieve a given rounding of a result with the given sign.
+     */
+    private static long roundAdd( int round, long den, boolean negative ) {
+        if( ( round & 0b1100 ) != 0 ) {
+            return den >> 1;
+        }
+        return ( ( round >> ( negative ? 1 : 0 ) ) & 1 ) != 0 ? den - 1 : 0;
+    }
+
+
+    private static boolean unsignedLess( long a, long b ) {
+        return ( a ^ Long.MIN_VALUE ) < ( b ^ Long.MIN_VALUE );
+    }
+
+
+
     public int mNum;
     public int mDen;
 
@@ -560,4 +776,83 @@ public class Frac implements Comparable<Frac> {
         return compare( mNum, mDen, r.mNum, r.mDen );
     }
 
+
+    private static final class RateEntry {
+        final long mBits;
+        final int mMax;
+        final int mNum;
+        final int mDen;
+
+        RateEntry( long bits, int max, int num, int den ) {
+            mBits = bits;
+            mMax  = max;
+            mNum  = num;
+            mDen  = den;
+        }
+    }
+
+
+    private static final int RATE_CACHE_BITS = 10;
+    private static final int KNOWN_RATE_BITS = 9;
+
+    /** Direct-mapped cache of recent doubleToRational results. Racy by design. **/
+    private static final RateEntry[] RATE_CACHE = new RateEntry[1 << RATE_CACHE_BITS];
+    /** Open-addressed table of precomputed results. Never modified after initialization. **/
+    private static final RateEntry[] KNOWN_RATES = createKnownRates();
+
+
+    private static long rateHash( long bits, int max ) {
+        return ( bits ^ ( (long)max << 32 ) ) * 0x9E3779B97F4A7C15L;
+    }
+
+
+    /**
+     * @return precomputed result for {@code bits} with a bound of {@code Integer.MAX_VALUE}, or null.
+     */
+    private static RateEntry findKnownRate( long bits ) {
+        final RateEntry[] table = KNOWN_RATES;
+        final int mask = table.length - 1;
+        int i = (int)( rateHash( bits, Integer.MAX_VALUE ) >>> ( 64 - KNOWN_RATE_BITS ) );
+        while( true ) {
+            RateEntry e = table[i];
+            if( e == null || e.mBits == bits ) {
+                return e;
+            }
+            i = ( i + 1 ) & mask;
+        }
+    }
+
+
+    private static RateEntry[] createKnownRates() {
+        final double[] rates = {
+                // Video frame rates, exact and as commonly written.
+                24000 / 1001.0, 30000 / 1001.0, 48000 / 1001.0, 60000 / 1001.0, 120000 / 1001.0,
+                23.976, 23.98, 29.97, 47.952, 59.94, 119.88,
+                10, 12, 12.5, 15, 20, 24, 25, 30, 48, 50, 60, 72, 90, 96, 100, 120, 144, 240,
+                // Audio sample rates.
+                8000, 11025, 16000, 22050, 24000, 32000, 44100, 48000, 88200, 96000, 176400, 192000,
+                // Common ratios.
+                44100 / 48000.0, 48000 / 44100.0, 25 / 24.0, 24 / 25.0, 1001 / 1000.0, 1000 / 1001.0,
+                // Time bases.
+                90000, 1000, 1000000, 1000000000
+        };
+
+        final RateEntry[] table = new RateEntry[1 << KNOWN_RATE_BITS];
+        final int mask = table.length - 1;
+        final Frac tmp = new Frac();
+        for( int k = 0; k < 2 * rates.length; k++ ) {
+            double d = k < rates.length ? rates[k] : 1.0 / rates[k - rates.length];
+            long bits = Double.doubleToLongBits( d );
+            int i = (int)( rateHash( bits, Integer.MAX_VALUE ) >>> ( 64 - KNOWN_RATE_BITS ) );
+            while( table[i] != null && table[i].mBits != bits ) {
+                i = ( i + 1 ) & mask;
+            }
+            if( table[i] == null ) {
+                searchRational( d, Integer.MAX_VALUE, tmp );
+                table[i] = new RateEntry( bits, Integer.MAX_VALUE, tmp.mNum, tmp.mDen );
+            }
+        }
+        return table;
+    }
+
 }
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Fractal noise built from octaves of {@link SimplexNoised}.
+ * <p>
+ * Supports fractional Brownian motion (FBM), ridged multifractal (RIDGED) and turbulence
+ * (TURBULENCE). Octave {@code i} is sampled at {@code frequency * lacunarity^i} and weighted
+ * by {@code gain^i}. Results are divided by the sum of octave weights, so FBM stays in
+ * [-1,1] and RIDGED and TURBULENCE stay in [0,1].
+ * <p>
+ * Lattice fills evaluate every octave for a row while that row sits in a small buffer,
+ * so each output sample is written once. When given a ForkJoinPool, fills are split into
+ * bands of rows that are generated in parallel. Instances may be shared across threads
+ * as long as their parameters are not modified during a fill.
+ *
+ * @author Philip DeCamp
+ */
+public class FractalNoise {
+
+    /** Sum of octaves. **/
+    public static final int FBM        = 0;
+    /** Ridged multifractal: sharp crests where noise crosses zero. **/
+    public static final int RIDGED     = 1;
+    /** Sum of absolute values of octaves. **/
+    public static final int TURBULENCE = 2;
+
+    /** Minimum number of samples generated by a single parallel task. **/
+    private static final int TASK_SAMPLES = 1 << 16;
+
+
+    /** Source of each octave. Use a seeded generator to decorrelate layers. **/
+    public SimplexNoised mSource = SimplexNoised.DEFAULT;
+
+    public int    mType       = FBM;
+    public int    mOctaves    = 6;
+    public double mFrequency  = 1.0;
+    public double mLacunarity = 2.0;
+    public double mGain       = 0.5;
+    /** RIDGED only: value from which absolute noise is subtracted. **/
+    public double mRidgeOffset = 1.0;
+    /** RIDGED only: scales how strongly each octave attenuates the next. **/
+    public double mRidgeWeight = 2.0;
+
+
+    public FractalNoise() {}
+
+
+    public FractalNoise( int type, int octaves, double lacunarity, double gain ) {
+        mType       = type;
+        mOctaves    = octaves;
+        mLacunarity = lacunarity;
+        mGain       = gain;
+    }
+
+
+    public FractalNoise( FractalNoise copy ) {
+        set( copy );
+    }
+
+
+    public void set( FractalNoise copy ) {
+        mSource      = copy.mSource;
+        mType        = copy.mType;
+        mOctaves     = copy.mOctaves;
+        mFrequency   = copy.mFrequency;
+        mLacunarity  = copy.mLacunarity;
+        mGain        = copy.mGain;
+        mRidgeOffset = copy.mRidgeOffset;
+        mRidgeWeight = copy.mRidgeWeight;
+    }
+
+    /**
+     * Computes fractal noise at a single 2D point.
+     */
+    public double noise( double x, double y ) {
+        final int type = checkType();
+        double freq   = mFrequency;
+        double amp    = 1.0;
+        double norm   = 0.0;
+        double sum    = 0.0;
+        double weight = 1.0;
+        final SimplexNoised src = mSource;
+
+        for( int i = 0; i < mOctaves; i++ ) {
+            double n = src.noise( x * freq, y * freq );
+            if( type == FBM ) {
+                sum += n * amp;
+            } else if( type == TURBULENCE ) {
+                sum += ( n < 0 ? -n : n ) * amp;
+            } else {
+                double s = mRidgeOffset - ( n < 0 ? -n : n );
+                s *= s * weight;
+                weight = clamp01( s * mRidgeWeight );
+                sum += s * amp;
+            }
+            norm += amp;
+            freq *= mLacunarity;
+            amp  *= mGain;
+        }
+
+        return norm > 0 ? sum * ( 1.0 / norm ) : 0.0;
+    }
+
+    /**
+     * Computes fractal noise at a single 3D point.
+     */
+    public double noise( double x, double y, double z ) {
+        final int type = checkType();
+        double freq   = mFrequency;
+        double amp    = 1.0;
+        double norm   = 0.0;
+        double sum    = 0.0;
+        double weight = 1.0;
+        final SimplexNoised src = mSource;
+
+        for( int i = 0; i < mOctaves; i++ ) {
+            double n = src.noise( x * freq, y * freq, z * freq );
+            if( type == FBM ) {
+                sum += n * amp;
+            } else if( type == TURBULENCE ) {
+                sum += ( n < 0 ? -n : n ) * amp;
+            } else {
+                double s = mRidgeOffset - ( n < 0 ? -n : n );
+                s *= s * weight;
+                weight = clamp01( s * mRidgeWeight );
+                sum += s * amp;
+            }
+            norm += amp;
+            freq *= mLacunarity;
+            amp  *= mGain;
+        }
+
+        return norm > 0 ? sum * ( 1.0 / norm ) : 0.0;
+    }
+
+    /**
+     * Computes fractal noise over a regular 2D lattice.
+     *
+     * @param x0   X-coordinate of first sample
+     * @param y0   Y-coordinate of first sample
+     * @param dx   Distance between samples along x-axis
+     * @param dy   Distance between samples along y-axis
+     * @param w    Number of samples along x-axis
+     * @param h    Number of samples along y-axis
+     * @param out  Receives {@code w * h} samples in row-major order.
+     * @param off  Offset into out
+     * @param pool Pool on which to generate bands of rows in parallel, or {@code null} to run on calling thread.
+     */
+    public void fill2( double x0, double y0, double dx, double dy, int w, int h, float[] out, int off, ForkJoinPool pool ) {
+        run( new FillTask( this, x0, y0, 0, dx, dy, 0, w, h, false, out, null, off, 0, h ), pool );
+    }
+
+    /**
+     * Double version of {@link #fill2(double, double, double, double, int, int, float[], int, ForkJoinPool)}.
+     */
+    public void fill2( double x0, double y0, double dx, double dy, int w, int h, double[] out, int off, ForkJoinPool pool ) {
+        run( new FillTask( this, x0, y0, 0, dx, dy, 0, w, h, false, null, out, off, 0, h ), pool );
+    }
+
+    /**
+     * Computes fractal noise over a regular 3D lattice.
+     *
+     * @param x0   X-coordinate of first sample
+     * @param y0   Y-coordinate of first sample
+     * @param z0   Z-coordinate of first sample
+     * @param dx   Distance between samples along x-axis
+     * @param dy   Distance between samples along y-axis
+     * @param dz   Distance between samples along z-axis
+     * @param w    Number of samples along x-axis
+     * @param h    Number of samples along y-axis
+     * @param d    Number of samples along z-axis
+     * @param out  Receives {@code w * h * d} samples, indexed {@code off + col + w * ( row + h * layer )}.
+     * @param off  Offset into out
+     * @param pool Pool on which to generate bands of rows in parallel, or {@code null} to run on calling thread.
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       float[] out,
+                       int off,
+                       ForkJoinPool pool )
+    {
+        run( new FillTask( this, x0, y0, z0, dx, dy, dz, w, h, true, out, null, off, 0, h * d ), pool );
+    }
+
+    /**
+     * Double version of {@link #fill3(double, double, double, double, double, double, int, int, int, float[], int, ForkJoinPool)}.
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       double[] out,
+                       int off,
+                       ForkJoinPool pool )
+    {
+        run( new FillTask( this, x0, y0, z0, dx, dy, dz, w, h, true, null, out, off, 0, h * d ), pool );
+    }
+
+
+    private int checkType() {
+        if( mType < FBM || mType > TURBULENCE ) {
+            throw new IllegalArgumentException( "Unknown fractal type: " + mType );
+        }
+        return mType;
+    }
+
+
+    private static void run( FillTask task, ForkJoinPool pool ) {
+        task.mParams.checkType();
+        if( pool == null ) {
+            task.compute();
+        } else {
+            pool.invoke( task );
+        }
+    }
+
+
+    private static double clamp01( double v ) {
+        return v <= 0.0 ? 0.0 : v >= 1.0 ? 1.0 : v;
+    }
+
+
+    /**
+     * Generates a band of rows {@code [mRow0, mRow1)}. For 3D fills, rows are numbered
+     * {@code row + h * layer}.
+     */
+    @SuppressWarnings( "serial" )
+    private static final class FillTask extends RecursiveAction {
+
+        final FractalNoise mParams;
+        final double mX0;
+        final double mY0;
+        final double mZ0;
+        final double mDx;
+        final double mDy;
+        final double mDz;
+        final int mW;
+        final int mH;
+        final boolean mIs3d;
+        final float[] mFloatOut;
+        final double[] mDoubleOut;
+        final int mOff;
+        final int mRow0;
+        final int mRow1;
+
+        FillTask( FractalNoise params,
+                  double x0,
+                  double y0,
+                  double z0,
+                  double dx,
+                  double dy,
+                  double dz,
+                  int w,
+                  int h,
+                  boolean is3d,
+                  float[] floatOut,
+                  double[] doubleOut,
+                  int off,
+                  int row0,
+                  int row1 )
+        {
+            mParams    = params;
+            mX0        = x0;
+            mY0        = y0;
+            mZ0        = z0;
+            mDx        = dx;
+            mDy        = dy;
+            mDz        = dz;
+            mW         = w;
+            mH         = h;
+            mIs3d      = is3d;
+            mFloatOut  = floatOut;
+            mDoubleOut = doubleOut;
+            mOff       = off;
+            mRow0      = row0;
+            mRow1      = row1;
+        }
+
+
+        FillTask split( int row0, int row1 ) {
+            return new FillTask( mParams, mX0, mY0, mZ0, mDx, mDy, mDz, mW, mH, mIs3d,
+                                 mFloatOut, mDoubleOut, mOff, row0, row1 );
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = mRow1 - mRow0;
+            if( rows > 1 && (long)rows * mW > TASK_SAMPLES && getPool() != null ) {
+                int mid = mRow0 + rows / 2;
+                invokeAll( split( mRow0, mid ), split( mid, mRow1 ) );
+                return;
+            }
+
+            final FractalNoise p = mParams;
+            final int w = mW;
+            final int octaves = p.mOctaves;
+            final SimplexNoised src = p.mSource;
+            double[] acc    = new double[w];
+            double[] noise  = new double[w];
+            double[] weight = p.mType == RIDGED ? new double[w] : null;
+
+            for( int r = mRow0; r < mRow1; r++ ) {
+                final int row   = mIs3d ? r % mH : r;
+                final double y  = mY0 + row * mDy;
+                final double z  = mIs3d ? mZ0 + ( r / mH ) * mDz : 0.0;
+                double freq = p.mFrequency;
+                double amp  = 1.0;
+                double norm = 0.0;
+
+                Arrays.fill( acc, 0.0 );
+                if( weight != null ) {
+                    Arrays.fill( weight, 1.0 );
+                }
+
+                for( int oct = 0; oct < octaves; oct++ ) {
+                    if( mIs3d ) {
+                        src.fill3( mX0 * freq, y * freq, z * freq, mDx * freq, 0, 0, w, 1, 1, noise, 0 );
+                    } else {
+                        src.fill2( mX0 * freq, y * freq, mDx * freq, 0, w, 1, noise, 0 );
+                    }
+
+                    switch( p.mType ) {
+                    case FBM:
+                        for( int i = 0; i < w; i++ ) {
+                            acc[i] += noise[i] * amp;
+                        }
+                        break;
+                    case TURBULENCE:
+                        for( int i = 0; i < w; i++ ) {
+                            double n = noise[i];
+                            acc[i] += ( n < 0 ? -n : n ) * amp;
+                        }
+                        break;
+                    default:
+                    {
+                        final double offset = p.mRidgeOffset;
+                        final double ridgeWeight = p.mRidgeWeight;
+                        for( int i = 0; i < w; i++ ) {
+                            double n = noise[i];
+                            double s = offset - ( n < 0 ? -n : n );
+                            s *= s * weight[i];
+                            weight[i] = clamp01( s * ridgeWeight );
+                            acc[i] += s * amp;
+                        }
+                        break;
+                    }}
+
+                    norm += amp;
+                    freq *= p.mLacunarity;
+                    amp  *= p.mGain;
+                }
+
+                final double scale = norm > 0 ? 1.0 / norm : 0.0;
+                final int outOff = mOff + r * w;
+                if( mFloatOut != null ) {
+                    for( int i = 0; i < w; i++ ) {
+                        mFloatOut[outOff + i] = (float)( acc[i] * scale );
+                    }
+                } else {
+                    for( int i = 0; i < w; i++ ) {
+                        mDoubleOut[outOff + i] = acc[i] * scale;
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Halton sequence. Coordinate {@code d} of point {@code n} is the radical inverse of
+ * {@code n} in the {@code d}th prime base.
+ * <p>
+ * Radical inverses are kept as exact integer numerators over a power of each base no
+ * greater than 2<sup>52</sup>, which also bounds {@link #length()}. Starting at any index
+ * costs one digit expansion per coordinate; consecutive points are produced by incrementing
+ * the digits, which usually changes only the lowest one.
+ * <p>
+ * Correlation between coordinates becomes visible in high dimensions with the plain
+ * sequence, so {@link Sobol} is usually preferable beyond about 8 dimensions.
+ * <p>
+ * The first point is the origin. {@link #fillGaussian} rotates each coordinate by a fixed
+ * offset, modulo 1, before mapping, so the origin becomes an ordinary point and Gaussian
+ * ranges may start at 0.
+ *
+ * @author Philip DeCamp
+ */
+public final class Halton extends QuasiRandom {
+
+    public static final int MAX_DIMS = 32;
+
+
+    private final int mDims;
+    private final int[] mBase;
+    /** {@code base ^ ( digits - 1 - k )} for each digit {@code k}, indexed {@code dim * MAX_DIGITS + k}. **/
+    private final long[] mPlace;
+    private final long[] mScale;
+    private final double[] mInvScale;
+    /** Rotation applied in centered mode, as a numerator over {@code mScale}. **/
+    private final long[] mShift;
+    private final long mLength;
+
+
+    /**
+     * @param dims Number of dimensions, from 1 to {@link #MAX_DIMS}
+     */
+    public Halton( int dims ) {
+        if( dims < 1 || dims > MAX_DIMS ) {
+            throw new IllegalArgumentException( "Invalid number of dimensions: " + dims );
+        }
+        mDims     = dims;
+        mBase     = new int[dims];
+        mPlace    = new long[dims * MAX_DIGITS];
+        mScale    = new long[dims];
+        mInvScale = new double[dims];
+        mShift    = new long[dims];
+
+        long length = Long.MAX_VALUE;
+        for( int d = 0; d < dims; d++ ) {
+            final int b = PRIMES[d];
+            int digits = 0;
+            long scale = 1;
+            while( scale <= MAX_SCALE / b ) {
+                scale *= b;
+                digits++;
+            }
+            mBase[d]     = b;
+            mScale[d]    = scale;
+            mInvScale[d] = 1.0 / scale;
+            mShift[d]    = ( shiftBits( d ) >>> 1 ) % scale;
+            long place = scale;
+            for( int k = 0; k < digits; k++ ) {
+                place /= b;
+                mPlace[d * MAX_DIGITS + k] = place;
+            }
+            length = Math.min( length, scale );
+        }
+        mLength = length;
+    }
+
+
+    @Override
+    public int dims() {
+        return mDims;
+    }
+
+    @Override
+    public long length() {
+        return mLength;
+    }
+
+    /**
+     * @return prime base used for a coordinate.
+     */
+    public int base( int dim ) {
+        return mBase[dim];
+    }
+
+    @Override
+    void generate( long index, int count, boolean centered, double[] out, int off ) {
+        final int dims      = mDims;
+        final long[] place  = mPlace;
+        final int[] digit   = new int[dims * MAX_DIGITS];
+        final long[] num    = new long[dims];
+        final long[] scale  = mScale;
+        final long[] rot    = centered ? mShift : new long[dims];
+        final double bias   = centered ? 0.5 : 0.0;
+
+        for( int d = 0; d < dims; d++ ) {
+            final int b = mBase[d];
+            final int p = d * MAX_DIGITS;
+            long n = index;
+            long v = 0;
+            for( int k = 0; n != 0; k++ ) {
+                int r = (int)( n % b );
+                n /= b;
+                digit[p + k] = r;
+                v += r * place[p + k];
+            }
+            num[d] = v;
+        }
+
+        for( int i = 0; i < count; i++ ) {
+            for( int d = 0; d < dims; d++ ) {
+                long v = num[d] + rot[d];
+                if( v >= scale[d] ) {
+                    v -= scale[d];
+                }
+                // Exact value is below 1, but the product may round up to it.
+                out[off++] = Math.min( ( v + bias ) * mInvScale[d], ONE_BELOW );
+            }
+            if( i + 1 == count ) {
+                break;
+            }
+            for( int d = 0; d < dims; d++ ) {
+                final int b = mBase[d];
+                int p = d * MAX_DIGITS;
+                long v = num[d] + place[p];
+                while( ++digit[p] == b ) {
+                    digit[p] = 0;
+                    v -= b * place[p];
+                    v += place[++p];
+                }
+                num[d] = v;
+            }
+        }
+    }
+
+
+    private static final long MAX_SCALE  = 1L << 52;
+    private static final int  MAX_DIGITS = 53;
+    private static final double ONE_BELOW = 1.0 - 1.0 / ( 1L << 53 );
+
+    private static final int[] PRIMES = {   2,   3,   5,   7,  11,  13,  17,  19,  23,  29,  31,
+                                           37,  41,  43,  47,  53,  59,  61,  67,  71,  73,  79,
+                                           83,  89,  97, 101, 103, 107, 109, 113, 127, 131 };
+
+}
@@ -29,7 +29,7 @@ public final class Interp {
 
     public static float bezier( float begin, float control, float end, float t ) {
         final float s = 1f - t;
-        return s * s * begin + s * t * control + t * t * end;
+        return s * s * begin + 2f * s * t * control + t * t * end;
     }
 
 
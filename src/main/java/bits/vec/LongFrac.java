@@ -0,0 +1,522 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Rational numbers with 64-bit numerator and denominator.
+ * <p>
+ * Arithmetic forms products with full 128-bit precision, so operations are exact whenever
+ * the result fits. To keep the common case fast, results are not reduced by default:
+ * a GCD is only computed when a numerator or denominator would otherwise overflow, and
+ * results are only rounded when even the reduced value does not fit. Rounded results
+ * have a relative error below {@code 2^-61 * max( |x|, 1/|x| )}. Adding values with
+ * the same denominator, as when accumulating durations in a common time base, never
+ * changes the denominator. Call {@link #reduce()} for canonical form.
+ * <p>
+ * As with {@link Frac}, infinities are represented as {@code 1/0} and {@code -1/0},
+ * and NaN as {@code 0/0}. Results are written to caller-supplied objects, which may be
+ * the same as the arguments. Long.MIN_VALUE is not supported in either field.
+ *
+ * @author Philip DeCamp
+ */
+public class LongFrac implements Comparable<LongFrac> {
+
+    /**
+     * Multiply two rationals.
+     *
+     * @param a   Fraction
+     * @param b   Fraction
+     * @param out Receives answer a * b
+     * @return true iff result is exact
+     */
+    public static boolean mult( LongFrac a, LongFrac b, LongFrac out ) {
+        return mult( a.mNum, a.mDen, b.mNum, b.mDen, out );
+    }
+
+    /**
+     * Multiply two rationals.
+     *
+     * @param aNum Numerator of first rational
+     * @param aDen Denominator of first rational
+     * @param bNum Numerator of second rational
+     * @param bDen Denominator of second rational
+     * @param out  Receives answer aNum * bNum / aDen / bDen
+     * @return true iff result is exact
+     */
+    public static boolean mult( long aNum, long aDen, long bNum, long bDen, LongFrac out ) {
+        long nLo = aNum * bNum;
+        long nHi = mulHigh( aNum, bNum );
+        long dLo = aDen * bDen;
+        long dHi = mulHigh( aDen, bDen );
+        if( fits( nHi, nLo ) && fits( dHi, dLo ) ) {
+            return setSigned( nLo, dLo, out );
+        }
+
+        // Cancel common factors across terms and retry.
+        long g = Frac.gcd( aNum, bDen );
+        if( g > 1 ) {
+            aNum /= g;
+            bDen /= g;
+        }
+        g = Frac.gcd( bNum, aDen );
+        if( g > 1 ) {
+            bNum /= g;
+            aDen /= g;
+        }
+        nLo = aNum * bNum;
+        nHi = mulHigh( aNum, bNum );
+        dLo = aDen * bDen;
+        dHi = mulHigh( aDen, bDen );
+        return setWide( nHi, nLo, dHi, dLo, out );
+    }
+
+    /**
+     * Divide two rationals.
+     *
+     * @param a   Fraction
+     * @param b   Fraction
+     * @param out Receives answer a / b
+     * @return true iff result is exact
+     */
+    public static boolean div( LongFrac a, LongFrac b, LongFrac out ) {
+        return mult( a.mNum, a.mDen, b.mDen, b.mNum, out );
+    }
+
+    /**
+     * Add two rationals.
+     *
+     * @param a   Fraction
+     * @param b   Fraction
+     * @param out Receives answer a + b
+     * @return true iff result is exact
+     */
+    public static boolean add( LongFrac a, LongFrac b, LongFrac out ) {
+        return add( a.mNum, a.mDen, b.mNum, b.mDen, out );
+    }
+
+    /**
+     * Subtract two rationals.
+     *
+     * @param a   Fraction
+     * @param b   Fraction
+     * @param out Receives answer a - b
+     * @return true iff result is exact
+     */
+    public static boolean sub( LongFrac a, LongFrac b, LongFrac out ) {
+        return add( a.mNum, a.mDen, -b.mNum, b.mDen, out );
+    }
+
+    /**
+     * Add two rationals.
+     *
+     * @param aNum Numerator of first rational
+     * @param aDen Denominator of first rational
+     * @param bNum Numerator of second rational
+     * @param bDen Denominator of second rational
+     * @param out  Receives answer aNum / aDen + bNum / bDen
+     * @return true iff result is exact
+     */
+    public static boolean add( long aNum, long aDen, long bNum, long bDen, LongFrac out ) {
+        if( aDen == bDen && aDen != 0 ) {
+            long sum = aNum + bNum;
+            // Overflow iff both operands have the same sign and the sum does not.
+            if( ( ( aNum ^ sum ) & ( bNum ^ sum ) ) >= 0 && sum != Long.MIN_VALUE ) {
+                return setSigned( sum, aDen, out );
+            }
+            long hi = ( aNum >> 63 ) + ( bNum >> 63 ) + ( unsignedLess( sum, aNum ) ? 1 : 0 );
+            return setWide( hi, sum, aDen >> 63, aDen, out );
+        }
+
+        // Reduce denominators only if the full cross products do not fit.
+        long g = 1;
+        if( !fits( mulHigh( aDen, bDen ), aDen * bDen ) ) {
+            g = Frac.gcd( aDen, bDen );
+            if( g == 0 ) {
+                g = 1;
+            }
+        }
+        final long ad = aDen / g;
+        final long bd = bDen / g;
+
+        long xLo = aNum * bd;
+        long xHi = mulHigh( aNum, bd );
+        long yLo = bNum * ad;
+        long yHi = mulHigh( bNum, ad );
+        long nLo = xLo + yLo;
+        long nHi = xHi + yHi + ( unsignedLess( nLo, xLo ) ? 1 : 0 );
+        long dLo = aDen * bd;
+        long dHi = mulHigh( aDen, bd );
+        return setWide( nHi, nLo, dHi, dLo, out );
+    }
+
+    /**
+     * Compare two rationals exactly.
+     *
+     * @param aNum Numerator of first rational
+     * @param aDen Denominator of first rational
+     * @param bNum Numerator of second rational
+     * @param bDen Denominator of second rational
+     * @return 0 if a==b or if one of the values is of the form 0/0, 1 if a > b, -1 if a < b.
+     */
+    public static int compare( long aNum, long aDen, long bNum, long bDen ) {
+        long xLo = aNum * bDen;
+        long xHi = mulHigh( aNum, bDen );
+        long yLo = bNum * aDen;
+        long yHi = mulHigh( bNum, aDen );
+        int c = xHi != yHi ? ( xHi < yHi ? -1 : 1 ) : xLo != yLo ? ( unsignedLess( xLo, yLo ) ? -1 : 1 ) : 0;
+        if( c != 0 ) {
+            return ( aDen ^ bDen ) < 0 ? -c : c;
+        } else if( aDen != 0 && bDen != 0 ) {
+            return 0;
+        } else if( aNum != 0 && bNum != 0 ) {
+            return (int)( ( aNum >> 63 ) - ( bNum >> 63 ) );
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Reduces a ratio to canonical form.
+     *
+     * @param num Numerator
+     * @param den Denominator
+     * @param out Receives canonical ratio
+     */
+    public static void reduce( long num, long den, LongFrac out ) {
+        if( den == 0 ) {
+            out.mNum = Long.signum( num );
+            out.mDen = 0;
+            return;
+        }
+        if( num == 0 ) {
+            out.mNum = 0;
+            out.mDen = 1;
+            return;
+        }
+        long g = Frac.gcd( num, den );
+        if( den < 0 ) {
+            g = -g;
+        }
+        out.mNum = num / g;
+        out.mDen = den / g;
+    }
+
+    /**
+     * A ratio is canonical if {@code mDen >= 0}, zero is {@code 0/1}, the only values with
+     * a zero denominator are {@code -1/0}, {@code 0/0} and {@code 1/0}, and the greatest
+     * common divisor of numerator and denominator is 1.
+     */
+    public static boolean isCanonical( long num, long den ) {
+        if( den == 0 ) {
+            return num >= -1 && num <= 1;
+        }
+        if( num == 0 ) {
+            return den == 1;
+        }
+        return den > 0 && Frac.gcd( num, den ) == 1;
+    }
+
+
+
+    public long mNum;
+    public long mDen;
+
+
+    public LongFrac() {}
+
+
+    public LongFrac( long num, long den ) {
+        mNum = num;
+        mDen = den;
+    }
+
+
+    public LongFrac( LongFrac copy ) {
+        set( copy );
+    }
+
+
+    public LongFrac( Frac copy ) {
+        set( copy );
+    }
+
+
+
+    public void set( long num, long den ) {
+        mNum = num;
+        mDen = den;
+    }
+
+
+    public void set( LongFrac r ) {
+        mNum = r.mNum;
+        mDen = r.mDen;
+    }
+
+
+    public void set( Frac r ) {
+        mNum = r.mNum;
+        mDen = r.mDen;
+    }
+
+
+    public boolean isCanonical() {
+        return isCanonical( mNum, mDen );
+    }
+
+
+    public void reduce() {
+        reduce( mNum, mDen, this );
+    }
+
+    /**
+     * @param round Rounding method, from Frac.ROUND_*
+     * @return this value rounded to an integer. Infinities and NaN map to Long.MAX_VALUE, Long.MIN_VALUE and 0.
+     */
+    public long toLong( int round ) {
+        if( mDen == 0 ) {
+            return mNum > 0 ? Long.MAX_VALUE : mNum < 0 ? Long.MIN_VALUE : 0;
+        }
+        long num = mNum;
+        long den = mDen;
+        if( den < 0 ) {
+            num = -num;
+            den = -den;
+        }
+        long q = num / den;
+        long r = num - q * den;
+        if( r == 0 ) {
+            return q;
+        }
+
+        boolean neg = num < 0;
+        boolean away;
+        if( ( round & 0b1100 ) != 0 ) {
+            long absR = Math.abs( r );
+            away = absR >= den - absR;
+        } else {
+            away = ( ( round >> ( neg ? 1 : 0 ) ) & 1 ) != 0;
+        }
+        return away ? ( neg ? q - 1 : q + 1 ) : q;
+    }
+
+
+    public double toDouble() {
+        if( mDen != 0 ) {
+            return (double)mNum / mDen;
+        }
+        return mNum == 0 ? Double.NaN : mNum < 0 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "%d/%d", mNum, mDen );
+    }
+
+    /**
+     * @return true iff obj is a LongFrac of equal value. NaN values are equal to each other.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+        if( !( obj instanceof LongFrac ) ) {
+            return false;
+        }
+        LongFrac r = (LongFrac)obj;
+        if( ( mNum == 0 && mDen == 0 ) || ( r.mNum == 0 && r.mDen == 0 ) ) {
+            return mNum == r.mNum && mDen == r.mDen;
+        }
+        return compare( mNum, mDen, r.mNum, r.mDen ) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        LongFrac r = new LongFrac();
+        reduce( mNum, mDen, r );
+        long h = r.mNum * 31 + r.mDen;
+        return (int)( h ^ ( h >>> 32 ) );
+    }
+
+    @Override
+    public int compareTo( LongFrac r ) {
+        return compare( mNum, mDen, r.mNum, r.mDen );
+    }
+
+
+    /**
+     * Writes num/den, negating both if den is negative. Both terms must be greater than Long.MIN_VALUE.
+     *
+     * @return true
+     */
+    private static boolean setSigned( long num, long den, LongFrac out ) {
+        if( den < 0 ) {
+            num = -num;
+            den = -den;
+        } else if( den == 0 ) {
+            num = Long.signum( num );
+        }
+        out.mNum = num;
+        out.mDen = den;
+        return true;
+    }
+
+    /**
+     * Writes a ratio of two signed 128-bit values, given as high and low words. If either
+     * term does not fit, the ratio is reduced, and if still too large, rounded.
+     *
+     * @return true iff result is exact
+     */
+    private static boolean setWide( long nHi, long nLo, long dHi, long dLo, LongFrac out ) {
+        if( fits( nHi, nLo ) && fits( dHi, dLo ) ) {
+            return setSigned( nLo, dLo, out );
+        }
+
+        // Move to magnitudes.
+        boolean neg = ( nHi ^ dHi ) < 0;
+        if( nHi < 0 ) {
+            nLo = -nLo;
+            nHi = ~nHi + ( nLo == 0 ? 1 : 0 );
+        }
+        if( dHi < 0 ) {
+            dLo = -dLo;
+            dHi = ~dHi + ( dLo == 0 ? 1 : 0 );
+        }
+
+        if( ( dHi | dLo ) == 0 ) {
+            out.mNum = neg ? -1 : ( nHi | nLo ) == 0 ? 0 : 1;
+            out.mDen = 0;
+            return true;
+        }
+
+        if( ( nHi | nLo ) == 0 ) {
+            out.mNum = 0;
+            out.mDen = 1;
+            return true;
+        }
+
+        // If one term fits, cancel common factors exactly and check whether the other then fits.
+        if( nHi == 0 && nLo > 0 ) {
+            long g = Frac.gcd( nLo, remWide( dHi, dLo, nLo ) );
+            if( g > 1 && dHi < g ) {
+                long q = divWide( dHi, dLo, g );
+                if( q > 0 ) {
+                    out.mNum = neg ? -( nLo / g ) : nLo / g;
+                    out.mDen = q;
+                    return true;
+                }
+            }
+        } else if( dHi == 0 && dLo > 0 ) {
+            long g = Frac.gcd( dLo, remWide( nHi, nLo, dLo ) );
+            if( g > 1 && nHi < g ) {
+                long q = divWide( nHi, nLo, g );
+                if( q > 0 ) {
+                    out.mNum = neg ? -q : q;
+                    out.mDen = dLo / g;
+                    return true;
+                }
+            }
+        }
+
+        // Round both terms to 62 bits.
+        int bits  = Math.max( bitLength( nHi, nLo ), bitLength( dHi, dLo ) );
+        int shift = bits - 62;
+        long num  = shiftRound( nHi, nLo, shift );
+        long den  = shiftRound( dHi, dLo, shift );
+        if( den == 0 ) {
+            out.mNum = neg ? -1 : 1;
+            out.mDen = 0;
+            return false;
+        }
+        reduce( neg ? -num : num, den, out );
+        return false;
+    }
+
+    /**
+     * High 64 bits of signed 128-bit product.
+     */
+    static long mulHigh( long x, long y ) {
+        long x1 = x >> 32;
+        long x0 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long w0 = x0 * y0;
+        long t  = x1 * y0 + ( w0 >>> 32 );
+        long w1 = ( t & 0xFFFFFFFFL ) + x0 * y1;
+        long w2 = t >> 32;
+        return x1 * y1 + w2 + ( w1 >> 32 );
+    }
+
+    /**
+     * @return true iff a signed 128-bit value lies within [-Long.MAX_VALUE, Long.MAX_VALUE].
+     */
+    private static boolean fits( long hi, long lo ) {
+        return hi == ( lo >> 63 ) && lo != Long.MIN_VALUE;
+    }
+
+
+    private static boolean unsignedLess( long a, long b ) {
+        return ( a ^ Long.MIN_VALUE ) < ( b ^ Long.MIN_VALUE );
+    }
+
+
+    /**
+     * @return remainder of unsigned 128-bit value, with {@code hi >= 0}, divided by {@code div > 0}.
+     */
+    private static long remWide( long hi, long lo, long div ) {
+        long r = hi % div;
+        for( int i = 63; i >= 0; i-- ) {
+            r = ( r << 1 ) | ( ( lo >>> i ) & 1 );
+            if( !unsignedLess( r, div ) ) {
+                r -= div;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return quotient of unsigned 128-bit value divided by {@code div > 0}, where {@code hi < div}.
+     */
+    private static long divWide( long hi, long lo, long div ) {
+        long r = hi;
+        long q = 0;
+        for( int i = 63; i >= 0; i-- ) {
+            boolean carry = r < 0;
+            r = ( r << 1 ) | ( ( lo >>> i ) & 1 );
+            q <<= 1;
+            if( carry || !unsignedLess( r, div ) ) {
+                r -= div;
+                q |= 1;
+            }
+        }
+        return q;
+    }
+
+
+    private static int bitLength( long hi, long lo ) {
+        return hi != 0 ? 128 - Long.numberOfLeadingZeros( hi ) : 64 - Long.numberOfLeadingZeros( lo );
+    }
+
+    /**
+     * @return unsigned 128-bit value shifted right with rounding. Result must fit in 63 bits.
+     */
+    private static long shiftRound( long hi, long lo, int shift ) {
+        if( shift <= 0 ) {
+            return lo;
+        }
+        long v;
+        long half;
+        if( shift < 64 ) {
+            v = ( lo >>> shift ) | ( hi << ( 64 - shift ) );
+            half = ( lo >>> ( shift - 1 ) ) & 1;
+        } else {
+            v = hi >>> ( shift - 64 );
+            half = shift == 64 ? lo >>> 63 : ( hi >>> ( shift - 65 ) ) & 1;
+        }
+        return v + half;
+    }
+
+}
@@ -407,6 +407,171 @@ public final class Mat {
     }
 
 
+    /**
+     * Computes the singular value decomposition {@code mat = U * diag(sigma) * V^T}.
+     * <p>
+     * Uses Jacobi rotations on {@code mat^T * mat}, accumulated as a quaternion, followed by
+     * a Givens QR decomposition, as described by McAdams et al. U and V are always rotations.
+     * Singular values are ordered by decreasing magnitude, and the last is negative when
+     * {@code mat} has a negative determinant.
+     *
+     * @param mat      Input matrix
+     * @param outU     Receives left rotation. May be same object as {@code mat}.
+     * @param outSigma Receives singular values
+     * @param outV     Receives right rotation. May be same object as {@code mat}.
+     */
+    public static void svd( Mat3 mat, Mat3 outU, Vec3 outSigma, Mat3 outV ) {
+        svd3( mat.m00, mat.m01, mat.m02,
+              mat.m10, mat.m11, mat.m12,
+              mat.m20, mat.m21, mat.m22,
+              false, outU, outSigma, outV );
+    }
+
+    /**
+     * Computes the polar decomposition {@code mat = R * S}, where R is the rotation nearest to
+     * {@code mat} and S is symmetric. Unlike {@link #normalizeRotationMatrix(Mat3)}, the result
+     * does not depend on axis order. Matrices with negative determinants produce a rotation and
+     * a stretch with a negative eigenvalue, rather than a reflection.
+     *
+     * @param mat        Input matrix
+     * @param outRot     Receives rotation. May be same object as {@code mat}.
+     * @param outStretch Receives symmetric stretch. May be {@code null} or same object as {@code mat}.
+     */
+    public static void polar( Mat3 mat, Mat3 outRot, Mat3 outStretch ) {
+        svd3( mat.m00, mat.m01, mat.m02,
+              mat.m10, mat.m11, mat.m12,
+              mat.m20, mat.m21, mat.m22,
+              true, outRot, null, outStretch );
+    }
+
+    /**
+     * Batch version of {@link #svd(Mat3, Mat3, Vec3, Mat3)}. Matrices are packed in column-major
+     * order, 9 values per matrix, and singular values are packed 3 per matrix.
+     *
+     * @param src      Input matrices
+     * @param srcOff   Offset into src
+     * @param outU     Receives left rotations
+     * @param uOff     Offset into outU
+     * @param outSigma Receives singular values
+     * @param sigmaOff Offset into outSigma
+     * @param outV     Receives right rotations
+     * @param vOff     Offset into outV
+     * @param count    Number of matrices
+     */
+    public static void svd( float[] src,
+                            int srcOff,
+                            float[] outU,
+                            int uOff,
+                            float[] outSigma,
+                            int sigmaOff,
+                            float[] outV,
+                            int vOff,
+                            int count )
+    {
+        final Mat3 u     = new Mat3();
+        final Vec3 sigma = new Vec3();
+        final Mat3 v     = new Mat3();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 9;
+            final int g = sigmaOff + i * 3;
+            svd3( src[s], src[s + 3], src[s + 6],
+                  src[s + 1], src[s + 4], src[s + 7],
+                  src[s + 2], src[s + 5], src[s + 8],
+                  false, u, sigma, v );
+            store3( u, outU, uOff + i * 9 );
+            outSigma[g    ] = sigma.x;
+            outSigma[g + 1] = sigma.y;
+            outSigma[g + 2] = sigma.z;
+            store3( v, outV, vOff + i * 9 );
+        }
+    }
+
+    /**
+     * Batch version of {@link #polar(Mat3, Mat3, Mat3)}. Matrices are packed in column-major
+     * order, 9 values per matrix.
+     *
+     * @param src        Input matrices
+     * @param srcOff     Offset into src
+     * @param outRot     Receives rotations. May be same array as src if offsets are equal.
+     * @param rotOff     Offset into outRot
+     * @param outStretch Receives stretch matrices. May be {@code null}.
+     * @param stretchOff Offset into outStretch
+     * @param count      Number of matrices
+     */
+    public static void polar( float[] src,
+                              int srcOff,
+                              float[] outRot,
+                              int rotOff,
+                              float[] outStretch,
+                              int stretchOff,
+                              int count )
+    {
+        final Mat3 rot     = new Mat3();
+        final Mat3 stretch = outStretch == null ? null : new Mat3();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 9;
+            svd3( src[s], src[s + 3], src[s + 6],
+                  src[s + 1], src[s + 4], src[s + 7],
+                  src[s + 2], src[s + 5], src[s + 8],
+                  true, rot, null, stretch );
+            store3( rot, outRot, rotOff + i * 9 );
+            if( stretch != null ) {
+                store3( stretch, outStretch, stretchOff + i * 9 );
+            }
+        }
+    }
+
+
+    /**
+     * Computes eigenvalues and eigenvectors of a symmetric matrix with cyclic Jacobi rotations.
+     * Only the upper triangle of {@code mat} is read.
+     *
+     * @param mat        Symmetric input matrix
+     * @param outValues  Receives eigenvalues in decreasing order
+     * @param outVectors Receives eigenvectors as columns, in the same order as eigenvalues.
+     *                   Forms a rotation matrix. May be same object as {@code mat}.
+     */
+    public static void symmetricEigen( Mat3 mat, Vec3 outValues, Mat3 outVectors ) {
+        symmetricEigen3( mat.m00, mat.m01, mat.m02, mat.m11, mat.m12, mat.m22, outValues, outVectors );
+    }
+
+    /**
+     * Batch version of {@link #symmetricEigen(Mat3, Vec3, Mat3)}. Each symmetric input matrix is
+     * packed as 6 values, {@code [m00, m01, m02, m11, m12, m22]}, and eigenvalues are packed 3 per matrix.
+     * Eigenvectors are written as column-major matrices, 9 values per matrix.
+     *
+     * @param src        Input symmetric matrices
+     * @param srcOff     Offset into src
+     * @param outValues  Receives eigenvalues in decreasing order
+     * @param valuesOff  Offset into outValues
+     * @param outVectors Receives eigenvectors. May be {@code null}.
+     * @param vectorsOff Offset into outVectors
+     * @param count      Number of matrices
+     */
+    public static void symmetricEigen( float[] src,
+                                       int srcOff,
+                                       float[] outValues,
+                                       int valuesOff,
+                                       float[] outVectors,
+                                       int vectorsOff,
+                                       int count )
+    {
+        final Vec3 val = new Vec3();
+        final Mat3 vec = new Mat3();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 6;
+            final int v = valuesOff + i * 3;
+            symmetricEigen3( src[s], src[s + 1], src[s + 2], src[s + 3], src[s + 4], src[s + 5], val, vec );
+            outValues[v    ] = val.x;
+            outValues[v + 1] = val.y;
+            outValues[v + 2] = val.z;
+            if( outVectors != null ) {
+                store3( vec, outVectors, vectorsOff + i * 9 );
+            }
+        }
+    }
+
+
     public static void basisVecsToRotation( Vec3 x, Vec3 y, Mat3 out ) {
         out.m00 = x.x;
         out.m10 = x.y;
@@ -849,11 +1014,18 @@ public final class Mat {
     }
 
     /**
+     * Inverts matrix. Affine matrices, with a bottom row of exactly {@code [0 0 0 1]},
+     * are detected and passed to {@link #invertAffine(Mat4, Mat4)}.
+     *
      * @param mat Input matrix
      * @param out Array to hold inverted matrix on return.
      * @return true if matrix determinant is not near zero and accurate invert was found.
      */
     public static boolean invert( Mat4 mat, Mat4 out ) {
+        if( mat.m30 == 0 && mat.m31 == 0 && mat.m32 == 0 && mat.m33 == 1 ) {
+            return invertAffine( mat, out );
+        }
+
         float s0 = mat.m00 * mat.m11 - mat.m10 * mat.m01;
         float s1 = mat.m00 * mat.m12 - mat.m10 * mat.m02;
         float s2 = mat.m00 * mat.m13 - mat.m10 * mat.m03;
@@ -912,6 +1084,88 @@ public final class Mat {
         return ret;
     }
 
+    /**
+     * Inverts an affine matrix, which has a bottom row of {@code [0 0 0 1]}. The bottom
+     * row of {@code mat} is not read. About twice as fast as the general inverse.
+     *
+     * @param mat Input matrix
+     * @param out Matrix to hold inverted matrix on return. May be same object as {@code mat}.
+     * @return true if matrix determinant is not near zero and accurate invert was found.
+     */
+    public static boolean invertAffine( Mat4 mat, Mat4 out ) {
+        final float a00 = mat.m00, a01 = mat.m01, a02 = mat.m02;
+        final float a10 = mat.m10, a11 = mat.m11, a12 = mat.m12;
+        final float a20 = mat.m20, a21 = mat.m21, a22 = mat.m22;
+        final float tx  = mat.m03, ty  = mat.m13, tz  = mat.m23;
+
+        final float c00 = a11 * a22 - a12 * a21;
+        final float c01 = a12 * a20 - a10 * a22;
+        final float c02 = a10 * a21 - a11 * a20;
+        final float det = a00 * c00 + a01 * c01 + a02 * c02;
+        final boolean ret = det > FSQRT_ABS_TOL || -det > FSQRT_ABS_TOL;
+        final float inv = 1.0f / det;
+
+        final float i00 = c00 * inv;
+        final float i01 = ( a02 * a21 - a01 * a22 ) * inv;
+        final float i02 = ( a01 * a12 - a02 * a11 ) * inv;
+        final float i10 = c01 * inv;
+        final float i11 = ( a00 * a22 - a02 * a20 ) * inv;
+        final float i12 = ( a02 * a10 - a00 * a12 ) * inv;
+        final float i20 = c02 * inv;
+        final float i21 = ( a01 * a20 - a00 * a21 ) * inv;
+        final float i22 = ( a00 * a11 - a01 * a10 ) * inv;
+
+        out.m00 = i00;
+        out.m01 = i01;
+        out.m02 = i02;
+        out.m10 = i10;
+        out.m11 = i11;
+        out.m12 = i12;
+        out.m20 = i20;
+        out.m21 = i21;
+        out.m22 = i22;
+        out.m03 = -( i00 * tx + i01 * ty + i02 * tz );
+        out.m13 = -( i10 * tx + i11 * ty + i12 * tz );
+        out.m23 = -( i20 * tx + i21 * ty + i22 * tz );
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+        return ret;
+    }
+
+    /**
+     * Inverts a rigid transform, which has an orthonormal rotation in the upper 3x3 and a
+     * translation in the last column, by transposing the rotation. Equivalent to
+     * {@link Trans#orthoInvert}. Results are undefined for matrices with scale or shear.
+     *
+     * @param mat Input matrix
+     * @param out Matrix to hold inverted matrix on return. May be same object as {@code mat}.
+     */
+    public static void invertRigid( Mat4 mat, Mat4 out ) {
+        final float a00 = mat.m00, a01 = mat.m01, a02 = mat.m02;
+        final float a10 = mat.m10, a11 = mat.m11, a12 = mat.m12;
+        final float a20 = mat.m20, a21 = mat.m21, a22 = mat.m22;
+        final float tx  = mat.m03, ty  = mat.m13, tz  = mat.m23;
+
+        out.m00 = a00;
+        out.m01 = a10;
+        out.m02 = a20;
+        out.m10 = a01;
+        out.m11 = a11;
+        out.m12 = a21;
+        out.m20 = a02;
+        out.m21 = a12;
+        out.m22 = a22;
+        out.m03 = -( a00 * tx + a10 * ty + a20 * tz );
+        out.m13 = -( a01 * tx + a11 * ty + a21 * tz );
+        out.m23 = -( a02 * tx + a12 * ty + a22 * tz );
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+    }
+
 
     public static void transpose( Mat4 mat, Mat4 out ) {
         // About 15% faster without local copies.
@@ -1597,6 +1851,196 @@ public final class Mat {
     }
 
 
+    /**
+     * Decomposes an affine matrix into translation, rotation and scale, such that
+     * {@code mat = T * R * S}. Equivalent to {@code decompose( mat, false, outTrans, outRot, outScale )}.
+     *
+     * @see #decompose(Mat4, boolean, Vec3, Quat, Vec3)
+     */
+    public static boolean decompose( Mat4 mat, Vec3 outTrans, Quat outRot, Vec3 outScale ) {
+        return decompose( mat, false, outTrans, outRot, outScale );
+    }
+
+    /**
+     * Decomposes an affine matrix into translation, rotation and scale, such that
+     * {@code mat = T * R * S}. The bottom row of {@code mat} is not read.
+     * <p>
+     * Without {@code polar}, scale is taken from the lengths of the axes, which is exact for
+     * matrices without shear. With {@code polar}, rotation is the nearest rotation to the
+     * upper 3x3, found by polar decomposition, and scale is the diagonal of the remaining
+     * stretch. Shear is discarded, but rotation is stable when shear is present.
+     * <p>
+     * Matrices with negative determinants are given negative scale on all axes. The output
+     * quaternion is normalized and has {@code w >= 0}.
+     *
+     * @param mat      Input matrix
+     * @param polar    Find rotation with polar decomposition
+     * @param outTrans Receives translation
+     * @param outRot   Receives rotation
+     * @param outScale Receives scale. May be {@code null}.
+     * @return true if upper 3x3 is invertible. If false, rotation is arbitrary.
+     */
+    public static boolean decompose( Mat4 mat, boolean polar, Vec3 outTrans, Quat outRot, Vec3 outScale ) {
+        final boolean ret = decompose4( mat.m00, mat.m01, mat.m02,
+                                        mat.m10, mat.m11, mat.m12,
+                                        mat.m20, mat.m21, mat.m22,
+                                        polar, outRot, outScale );
+        outTrans.x = mat.m03;
+        outTrans.y = mat.m13;
+        outTrans.z = mat.m23;
+        return ret;
+    }
+
+    /**
+     * Decomposes an affine matrix into translation, rotation and symmetric stretch with polar
+     * decomposition, such that {@code mat = T * R * S}. Unlike decomposing to a scale vector,
+     * this preserves shear, and {@link #compose(Vec3, Quat, Mat3, Mat4)} recovers
+     * the original matrix.
+     *
+     * @param mat        Input matrix
+     * @param outTrans   Receives translation
+     * @param outRot     Receives rotation
+     * @param outStretch Receives symmetric stretch matrix
+     * @return true if upper 3x3 is invertible. If false, rotation is arbitrary.
+     */
+    public static boolean decompose( Mat4 mat, Vec3 outTrans, Quat outRot, Mat3 outStretch ) {
+        boolean ret = decompose( mat, true, outTrans, outRot, null );
+        Quat.quatToMat( outRot, outStretch );
+        final float r00 = outStretch.m00, r01 = outStretch.m01, r02 = outStretch.m02;
+        final float r10 = outStretch.m10, r11 = outStretch.m11, r12 = outStretch.m12;
+        final float r20 = outStretch.m20, r21 = outStretch.m21, r22 = outStretch.m22;
+
+        // Stretch is R^T * mat, symmetrized to remove rounding.
+        outStretch.m00 = r00 * mat.m00 + r10 * mat.m10 + r20 * mat.m20;
+        outStretch.m01 = 0.5f * ( r00 * mat.m01 + r10 * mat.m11 + r20 * mat.m21 +
+                                  r01 * mat.m00 + r11 * mat.m10 + r21 * mat.m20 );
+        outStretch.m02 = 0.5f * ( r00 * mat.m02 + r10 * mat.m12 + r20 * mat.m22 +
+                                  r02 * mat.m00 + r12 * mat.m10 + r22 * mat.m20 );
+        outStretch.m11 = r01 * mat.m01 + r11 * mat.m11 + r21 * mat.m21;
+        outStretch.m12 = 0.5f * ( r01 * mat.m02 + r11 * mat.m12 + r21 * mat.m22 +
+                                  r02 * mat.m01 + r12 * mat.m11 + r22 * mat.m21 );
+        outStretch.m22 = r02 * mat.m02 + r12 * mat.m12 + r22 * mat.m22;
+        outStretch.m10 = outStretch.m01;
+        outStretch.m20 = outStretch.m02;
+        outStretch.m21 = outStretch.m12;
+        return ret;
+    }
+
+    /**
+     * Composes matrix from translation, rotation and scale: {@code out = T * R * S}.
+     *
+     * @param trans Translation
+     * @param rot   Unit quaternion
+     * @param scale Scale
+     * @param out   Receives matrix
+     */
+    public static void compose( Vec3 trans, Quat rot, Vec3 scale, Mat4 out ) {
+        compose4( trans.x, trans.y, trans.z, rot.x, rot.y, rot.z, rot.w, scale.x, scale.y, scale.z, out );
+    }
+
+    /**
+     * Composes matrix from translation, rotation and stretch: {@code out = T * R * S}.
+     *
+     * @param trans   Translation
+     * @param rot     Unit quaternion
+     * @param stretch Stretch matrix
+     * @param out     Receives matrix. May not be same object as {@code stretch}.
+     */
+    public static void compose( Vec3 trans, Quat rot, Mat3 stretch, Mat4 out ) {
+        final float x = rot.x, y = rot.y, z = rot.z, w = rot.w;
+        final float r00 = 1 - 2 * ( y * y + z * z );
+        final float r10 =     2 * ( x * y + z * w );
+        final float r20 =     2 * ( x * z - y * w );
+        final float r01 =     2 * ( x * y - z * w );
+        final float r11 = 1 - 2 * ( x * x + z * z );
+        final float r21 =     2 * ( y * z + x * w );
+        final float r02 =     2 * ( x * z + y * w );
+        final float r12 =     2 * ( y * z - x * w );
+        final float r22 = 1 - 2 * ( x * x + y * y );
+        final float s00 = stretch.m00, s01 = stretch.m01, s02 = stretch.m02;
+        final float s10 = stretch.m10, s11 = stretch.m11, s12 = stretch.m12;
+        final float s20 = stretch.m20, s21 = stretch.m21, s22 = stretch.m22;
+
+        out.m00 = r00 * s00 + r01 * s10 + r02 * s20;
+        out.m01 = r00 * s01 + r01 * s11 + r02 * s21;
+        out.m02 = r00 * s02 + r01 * s12 + r02 * s22;
+        out.m10 = r10 * s00 + r11 * s10 + r12 * s20;
+        out.m11 = r10 * s01 + r11 * s11 + r12 * s21;
+        out.m12 = r10 * s02 + r11 * s12 + r12 * s22;
+        out.m20 = r20 * s00 + r21 * s10 + r22 * s20;
+        out.m21 = r20 * s01 + r21 * s11 + r22 * s21;
+        out.m22 = r20 * s02 + r21 * s12 + r22 * s22;
+        out.m03 = trans.x;
+        out.m13 = trans.y;
+        out.m23 = trans.z;
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+    }
+
+    /**
+     * Batch version of {@link #decompose(Mat4, boolean, Vec3, Quat, Vec3)}. Matrices are packed
+     * in column-major order, 16 values per matrix. Each decomposition is written as 10 values:
+     * {@code [tx, ty, tz, qx, qy, qz, qw, sx, sy, sz]}.
+     *
+     * @param src    Input matrices
+     * @param srcOff Offset into src
+     * @param dst    Receives decompositions
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     * @param polar  Find rotation with polar decomposition
+     * @return true if every matrix had an invertible upper 3x3.
+     */
+    public static boolean decompose( float[] src, int srcOff, float[] dst, int dstOff, int count, boolean polar ) {
+        final Quat rot   = new Quat();
+        final Vec3 scale = new Vec3();
+        boolean ret = true;
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 16;
+            final int d = dstOff + i * 10;
+            ret &= decompose4( src[s], src[s + 4], src[s +  8],
+                               src[s + 1], src[s + 5], src[s +  9],
+                               src[s + 2], src[s + 6], src[s + 10],
+                               polar, rot, scale );
+            dst[d    ] = src[s + 12];
+            dst[d + 1] = src[s + 13];
+            dst[d + 2] = src[s + 14];
+            dst[d + 3] = rot.x;
+            dst[d + 4] = rot.y;
+            dst[d + 5] = rot.z;
+            dst[d + 6] = rot.w;
+            dst[d + 7] = scale.x;
+            dst[d + 8] = scale.y;
+            dst[d + 9] = scale.z;
+        }
+        return ret;
+    }
+
+    /**
+     * Batch version of {@link #compose(Vec3, Quat, Vec3, Mat4)}. Reads 10 values per transform,
+     * {@code [tx, ty, tz, qx, qy, qz, qw, sx, sy, sz]}, and writes column-major matrices,
+     * 16 values per matrix.
+     *
+     * @param src    Input transforms
+     * @param srcOff Offset into src
+     * @param dst    Receives matrices
+     * @param dstOff Offset into dst
+     * @param count  Number of transforms
+     */
+    public static void compose( float[] src, int srcOff, float[] dst, int dstOff, int count ) {
+        final Mat4 mat = new Mat4();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 10;
+            compose4( src[s    ], src[s + 1], src[s + 2],
+                      src[s + 3], src[s + 4], src[s + 5], src[s + 6],
+                      src[s + 7], src[s + 8], src[s + 9],
+                      mat );
+            store4( mat, dst, dstOff + i * 16 );
+        }
+    }
+
+
     public static void axesToTransform( Vec3 x, Vec3 y, Mat4 out ) {
         Vec3 z = new Vec3();
         Vec.cross( x, y, z );
@@ -2363,6 +2807,171 @@ public final class Mat {
     }
 
 
+    /**
+     * Computes the singular value decomposition {@code mat = U * diag(sigma) * V^T}.
+     * <p>
+     * Uses Jacobi rotations on {@code mat^T * mat}, accumulated as a quaternion, followed by
+     * a Givens QR decomposition, as described by McAdams et al. U and V are always rotations.
+     * Singular values are ordered by decreasing magnitude, and the last is negative when
+     * {@code mat} has a negative determinant.
+     *
+     * @param mat      Input matrix
+     * @param outU     Receives left rotation. May be same object as {@code mat}.
+     * @param outSigma Receives singular values
+     * @param outV     Receives right rotation. May be same object as {@code mat}.
+     */
+    public static void svd( Mat3d mat, Mat3d outU, Vec3d outSigma, Mat3d outV ) {
+        svd3( mat.m00, mat.m01, mat.m02,
+              mat.m10, mat.m11, mat.m12,
+              mat.m20, mat.m21, mat.m22,
+              false, outU, outSigma, outV );
+    }
+
+    /**
+     * Computes the polar decomposition {@code mat = R * S}, where R is the rotation nearest to
+     * {@code mat} and S is symmetric. Unlike {@link #normalizeRotationMatrix(Mat3d)}, the result
+     * does not depend on axis order. Matrices with negative determinants produce a rotation and
+     * a stretch with a negative eigenvalue, rather than a reflection.
+     *
+     * @param mat        Input matrix
+     * @param outRot     Receives rotation. May be same object as {@code mat}.
+     * @param outStretch Receives symmetric stretch. May be {@code null} or same object as {@code mat}.
+     */
+    public static void polar( Mat3d mat, Mat3d outRot, Mat3d outStretch ) {
+        svd3( mat.m00, mat.m01, mat.m02,
+              mat.m10, mat.m11, mat.m12,
+              mat.m20, mat.m21, mat.m22,
+              true, outRot, null, outStretch );
+    }
+
+    /**
+     * Batch version of {@link #svd(Mat3d, Mat3d, Vec3d, Mat3d)}. Matrices are packed in column-major
+     * order, 9 values per matrix, and singular values are packed 3 per matrix.
+     *
+     * @param src      Input matrices
+     * @param srcOff   Offset into src
+     * @param outU     Receives left rotations
+     * @param uOff     Offset into outU
+     * @param outSigma Receives singular values
+     * @param sigmaOff Offset into outSigma
+     * @param outV     Receives right rotations
+     * @param vOff     Offset into outV
+     * @param count    Number of matrices
+     */
+    public static void svd( double[] src,
+                            int srcOff,
+                            double[] outU,
+                            int uOff,
+                            double[] outSigma,
+                            int sigmaOff,
+                            double[] outV,
+                            int vOff,
+                            int count )
+    {
+        final Mat3d u     = new Mat3d();
+        final Vec3d sigma = new Vec3d();
+        final Mat3d v     = new Mat3d();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 9;
+            final int g = sigmaOff + i * 3;
+            svd3( src[s], src[s + 3], src[s + 6],
+                  src[s + 1], src[s + 4], src[s + 7],
+                  src[s + 2], src[s + 5], src[s + 8],
+                  false, u, sigma, v );
+            store3( u, outU, uOff + i * 9 );
+            outSigma[g    ] = sigma.x;
+            outSigma[g + 1] = sigma.y;
+            outSigma[g + 2] = sigma.z;
+            store3( v, outV, vOff + i * 9 );
+        }
+    }
+
+    /**
+     * Batch version of {@link #polar(Mat3d, Mat3d, Mat3d)}. Matrices are packed in column-major
+     * order, 9 values per matrix.
+     *
+     * @param src        Input matrices
+     * @param srcOff     Offset into src
+     * @param outRot     Receives rotations. May be same array as src if offsets are equal.
+     * @param rotOff     Offset into outRot
+     * @param outStretch Receives stretch matrices. May be {@code null}.
+     * @param stretchOff Offset into outStretch
+     * @param count      Number of matrices
+     */
+    public static void polar( double[] src,
+                              int srcOff,
+                              double[] outRot,
+                              int rotOff,
+                              double[] outStretch,
+                              int stretchOff,
+                              int count )
+    {
+        final Mat3d rot     = new Mat3d();
+        final Mat3d stretch = outStretch == null ? null : new Mat3d();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 9;
+            svd3( src[s], src[s + 3], src[s + 6],
+                  src[s + 1], src[s + 4], src[s + 7],
+                  src[s + 2], src[s + 5], src[s + 8],
+                  true, rot, null, stretch );
+            store3( rot, outRot, rotOff + i * 9 );
+            if( stretch != null ) {
+                store3( stretch, outStretch, stretchOff + i * 9 );
+            }
+        }
+    }
+
+
+    /**
+     * Computes eigenvalues and eigenvectors of a symmetric matrix with cyclic Jacobi rotations.
+     * Only the upper triangle of {@code mat} is read.
+     *
+     * @param mat        Symmetric input matrix
+     * @param outValues  Receives eigenvalues in decreasing order
+     * @param outVectors Receives eigenvectors as columns, in the same order as eigenvalues.
+     *                   Forms a rotation matrix. May be same object as {@code mat}.
+     */
+    public static void symmetricEigen( Mat3d mat, Vec3d outValues, Mat3d outVectors ) {
+        symmetricEigen3( mat.m00, mat.m01, mat.m02, mat.m11, mat.m12, mat.m22, outValues, outVectors );
+    }
+
+    /**
+     * Batch version of {@link #symmetricEigen(Mat3d, Vec3d, Mat3d)}. Each symmetric input matrix is
+     * packed as 6 values, {@code [m00, m01, m02, m11, m12, m22]}, and eigenvalues are packed 3 per matrix.
+     * Eigenvectors are written as column-major matrices, 9 values per matrix.
+     *
+     * @param src        Input symmetric matrices
+     * @param srcOff     Offset into src
+     * @param outValues  Receives eigenvalues in decreasing order
+     * @param valuesOff  Offset into outValues
+     * @param outVectors Receives eigenvectors. May be {@code null}.
+     * @param vectorsOff Offset into outVectors
+     * @param count      Number of matrices
+     */
+    public static void symmetricEigen( double[] src,
+                                       int srcOff,
+                                       double[] outValues,
+                                       int valuesOff,
+                                       double[] outVectors,
+                                       int vectorsOff,
+                                       int count )
+    {
+        final Vec3d val = new Vec3d();
+        final Mat3d vec = new Mat3d();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 6;
+            final int v = valuesOff + i * 3;
+            symmetricEigen3( src[s], src[s + 1], src[s + 2], src[s + 3], src[s + 4], src[s + 5], val, vec );
+            outValues[v    ] = val.x;
+            outValues[v + 1] = val.y;
+            outValues[v + 2] = val.z;
+            if( outVectors != null ) {
+                store3( vec, outVectors, vectorsOff + i * 9 );
+            }
+        }
+    }
+
+
     public static void basisVecsToRotation( Vec3d x, Vec3d y, Mat3d out ) {
         out.m00 = x.x;
         out.m10 = x.y;
@@ -2645,11 +3254,18 @@ public final class Mat {
     }
 
     /**
+     * Inverts matrix. Affine matrices, with a bottom row of exactly {@code [0 0 0 1]},
+     * are detected and passed to {@link #invertAffine(Mat4d, Mat4d)}.
+     *
      * @param mat Input matrix
      * @param out Array to hold inverted matrix on return.
      * @return true if matrix determinant is not near zero and accurate invert was found.
      */
     public static boolean invert( Mat4d mat, Mat4d out ) {
+        if( mat.m30 == 0 && mat.m31 == 0 && mat.m32 == 0 && mat.m33 == 1 ) {
+            return invertAffine( mat, out );
+        }
+
         double s0 = mat.m00 * mat.m11 - mat.m10 * mat.m01;
         double s1 = mat.m00 * mat.m12 - mat.m10 * mat.m02;
         double s2 = mat.m00 * mat.m13 - mat.m10 * mat.m03;
@@ -2708,6 +3324,88 @@ public final class Mat {
         return ret;
     }
 
+    /**
+     * Inverts an affine matrix, which has a bottom row of {@code [0 0 0 1]}. The bottom
+     * row of {@code mat} is not read. About twice as fast as the general inverse.
+     *
+     * @param mat Input matrix
+     * @param out Matrix to hold inverted matrix on return. May be same object as {@code mat}.
+     * @return true if matrix determinant is not near zero and accurate invert was found.
+     */
+    public static boolean invertAffine( Mat4d mat, Mat4d out ) {
+        final double a00 = mat.m00, a01 = mat.m01, a02 = mat.m02;
+        final double a10 = mat.m10, a11 = mat.m11, a12 = mat.m12;
+        final double a20 = mat.m20, a21 = mat.m21, a22 = mat.m22;
+        final double tx  = mat.m03, ty  = mat.m13, tz  = mat.m23;
+
+        final double c00 = a11 * a22 - a12 * a21;
+        final double c01 = a12 * a20 - a10 * a22;
+        final double c02 = a10 * a21 - a11 * a20;
+        final double det = a00 * c00 + a01 * c01 + a02 * c02;
+        final boolean ret = det > SQRT_ABS_TOL || -det > SQRT_ABS_TOL;
+        final double inv = 1.0 / det;
+
+        final double i00 = c00 * inv;
+        final double i01 = ( a02 * a21 - a01 * a22 ) * inv;
+        final double i02 = ( a01 * a12 - a02 * a11 ) * inv;
+        final double i10 = c01 * inv;
+        final double i11 = ( a00 * a22 - a02 * a20 ) * inv;
+        final double i12 = ( a02 * a10 - a00 * a12 ) * inv;
+        final double i20 = c02 * inv;
+        final double i21 = ( a01 * a20 - a00 * a21 ) * inv;
+        final double i22 = ( a00 * a11 - a01 * a10 ) * inv;
+
+        out.m00 = i00;
+        out.m01 = i01;
+        out.m02 = i02;
+        out.m10 = i10;
+        out.m11 = i11;
+        out.m12 = i12;
+        out.m20 = i20;
+        out.m21 = i21;
+        out.m22 = i22;
+        out.m03 = -( i00 * tx + i01 * ty + i02 * tz );
+        out.m13 = -( i10 * tx + i11 * ty + i12 * tz );
+        out.m23 = -( i20 * tx + i21 * ty + i22 * tz );
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+        return ret;
+    }
+
+    /**
+     * Inverts a rigid transform, which has an orthonormal rotation in the upper 3x3 and a
+     * translation in the last column, by transposing the rotation. Equivalent to
+     * {@link Trans#orthoInvert}. Results are undefined for matrices with scale or shear.
+     *
+     * @param mat Input matrix
+     * @param out Matrix to hold inverted matrix on return. May be same object as {@code mat}.
+     */
+    public static void invertRigid( Mat4d mat, Mat4d out ) {
+        final double a00 = mat.m00, a01 = mat.m01, a02 = mat.m02;
+        final double a10 = mat.m10, a11 = mat.m11, a12 = mat.m12;
+        final double a20 = mat.m20, a21 = mat.m21, a22 = mat.m22;
+        final double tx  = mat.m03, ty  = mat.m13, tz  = mat.m23;
+
+        out.m00 = a00;
+        out.m01 = a10;
+        out.m02 = a20;
+        out.m10 = a01;
+        out.m11 = a11;
+        out.m12 = a21;
+        out.m20 = a02;
+        out.m21 = a12;
+        out.m22 = a22;
+        out.m03 = -( a00 * tx + a10 * ty + a20 * tz );
+        out.m13 = -( a01 * tx + a11 * ty + a21 * tz );
+        out.m23 = -( a02 * tx + a12 * ty + a22 * tz );
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+    }
+
 
     public static void transpose( Mat4d mat, Mat4d out ) {
         // About 15% faster without local copies.
@@ -3393,6 +4091,196 @@ public final class Mat {
     }
 
 
+    /**
+     * Decomposes an affine matrix into translation, rotation and scale, such that
+     * {@code mat = T * R * S}. Equivalent to {@code decompose( mat, false, outTrans, outRot, outScale )}.
+     *
+     * @see #decompose(Mat4d, boolean, Vec3d, Quatd, Vec3d)
+     */
+    public static boolean decompose( Mat4d mat, Vec3d outTrans, Quatd outRot, Vec3d outScale ) {
+        return decompose( mat, false, outTrans, outRot, outScale );
+    }
+
+    /**
+     * Decomposes an affine matrix into translation, rotation and scale, such that
+     * {@code mat = T * R * S}. The bottom row of {@code mat} is not read.
+     * <p>
+     * Without {@code polar}, scale is taken from the lengths of the axes, which is exact for
+     * matrices without shear. With {@code polar}, rotation is the nearest rotation to the
+     * upper 3x3, found by polar decomposition, and scale is the diagonal of the remaining
+     * stretch. Shear is discarded, but rotation is stable when shear is present.
+     * <p>
+     * Matrices with negative determinants are given negative scale on all axes. The output
+     * quaternion is normalized and has {@code w >= 0}.
+     *
+     * @param mat      Input matrix
+     * @param polar    Find rotation with polar decomposition
+     * @param outTrans Receives translation
+     * @param outRot   Receives rotation
+     * @param outScale Receives scale. May be {@code null}.
+     * @return true if upper 3x3 is invertible. If false, rotation is arbitrary.
+     */
+    public static boolean decompose( Mat4d mat, boolean polar, Vec3d outTrans, Quatd outRot, Vec3d outScale ) {
+        final boolean ret = decompose4( mat.m00, mat.m01, mat.m02,
+                                        mat.m10, mat.m11, mat.m12,
+                                        mat.m20, mat.m21, mat.m22,
+                                        polar, outRot, outScale );
+        outTrans.x = mat.m03;
+        outTrans.y = mat.m13;
+        outTrans.z = mat.m23;
+        return ret;
+    }
+
+    /**
+     * Decomposes an affine matrix into translation, rotation and symmetric stretch with polar
+     * decomposition, such that {@code mat = T * R * S}. Unlike decomposing to a scale vector,
+     * this preserves shear, and {@link #compose(Vec3d, Quatd, Mat3d, Mat4d)} recovers
+     * the original matrix.
+     *
+     * @param mat        Input matrix
+     * @param outTrans   Receives translation
+     * @param outRot     Receives rotation
+     * @param outStretch Receives symmetric stretch matrix
+     * @return true if upper 3x3 is invertible. If false, rotation is arbitrary.
+     */
+    public static boolean decompose( Mat4d mat, Vec3d outTrans, Quatd outRot, Mat3d outStretch ) {
+        boolean ret = decompose( mat, true, outTrans, outRot, null );
+        Quat.quatToMat( outRot, outStretch );
+        final double r00 = outStretch.m00, r01 = outStretch.m01, r02 = outStretch.m02;
+        final double r10 = outStretch.m10, r11 = outStretch.m11, r12 = outStretch.m12;
+        final double r20 = outStretch.m20, r21 = outStretch.m21, r22 = outStretch.m22;
+
+        // Stretch is R^T * mat, symmetrized to remove rounding.
+        outStretch.m00 = r00 * mat.m00 + r10 * mat.m10 + r20 * mat.m20;
+        outStretch.m01 = 0.5 * ( r00 * mat.m01 + r10 * mat.m11 + r20 * mat.m21 +
+                                 r01 * mat.m00 + r11 * mat.m10 + r21 * mat.m20 );
+        outStretch.m02 = 0.5 * ( r00 * mat.m02 + r10 * mat.m12 + r20 * mat.m22 +
+                                 r02 * mat.m00 + r12 * mat.m10 + r22 * mat.m20 );
+        outStretch.m11 = r01 * mat.m01 + r11 * mat.m11 + r21 * mat.m21;
+        outStretch.m12 = 0.5 * ( r01 * mat.m02 + r11 * mat.m12 + r21 * mat.m22 +
+                                 r02 * mat.m01 + r12 * mat.m11 + r22 * mat.m21 );
+        outStretch.m22 = r02 * mat.m02 + r12 * mat.m12 + r22 * mat.m22;
+        outStretch.m10 = outStretch.m01;
+        outStretch.m20 = outStretch.m02;
+        outStretch.m21 = outStretch.m12;
+        return ret;
+    }
+
+    /**
+     * Composes matrix from translation, rotation and scale: {@code out = T * R * S}.
+     *
+     * @param trans Translation
+     * @param rot   Unit quaternion
+     * @param scale Scale
+     * @param out   Receives matrix
+     */
+    public static void compose( Vec3d trans, Quatd rot, Vec3d scale, Mat4d out ) {
+        compose4( trans.x, trans.y, trans.z, rot.x, rot.y, rot.z, rot.w, scale.x, scale.y, scale.z, out );
+    }
+
+    /**
+     * Composes matrix from translation, rotation and stretch: {@code out = T * R * S}.
+     *
+     * @param trans   Translation
+     * @param rot     Unit quaternion
+     * @param stretch Stretch matrix
+     * @param out     Receives matrix. May not be same object as {@code stretch}.
+     */
+    public static void compose( Vec3d trans, Quatd rot, Mat3d stretch, Mat4d out ) {
+        final double x = rot.x, y = rot.y, z = rot.z, w = rot.w;
+        final double r00 = 1 - 2 * ( y * y + z * z );
+        final double r10 =     2 * ( x * y + z * w );
+        final double r20 =     2 * ( x * z - y * w );
+        final double r01 =     2 * ( x * y - z * w );
+        final double r11 = 1 - 2 * ( x * x + z * z );
+        final double r21 =     2 * ( y * z + x * w );
+        final double r02 =     2 * ( x * z + y * w );
+        final double r12 =     2 * ( y * z - x * w );
+        final double r22 = 1 - 2 * ( x * x + y * y );
+        final double s00 = stretch.m00, s01 = stretch.m01, s02 = stretch.m02;
+        final double s10 = stretch.m10, s11 = stretch.m11, s12 = stretch.m12;
+        final double s20 = stretch.m20, s21 = stretch.m21, s22 = stretch.m22;
+
+        out.m00 = r00 * s00 + r01 * s10 + r02 * s20;
+        out.m01 = r00 * s01 + r01 * s11 + r02 * s21;
+        out.m02 = r00 * s02 + r01 * s12 + r02 * s22;
+        out.m10 = r10 * s00 + r11 * s10 + r12 * s20;
+        out.m11 = r10 * s01 + r11 * s11 + r12 * s21;
+        out.m12 = r10 * s02 + r11 * s12 + r12 * s22;
+        out.m20 = r20 * s00 + r21 * s10 + r22 * s20;
+        out.m21 = r20 * s01 + r21 * s11 + r22 * s21;
+        out.m22 = r20 * s02 + r21 * s12 + r22 * s22;
+        out.m03 = trans.x;
+        out.m13 = trans.y;
+        out.m23 = trans.z;
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+    }
+
+    /**
+     * Batch version of {@link #decompose(Mat4d, boolean, Vec3d, Quatd, Vec3d)}. Matrices are packed
+     * in column-major order, 16 values per matrix. Each decomposition is written as 10 values:
+     * {@code [tx, ty, tz, qx, qy, qz, qw, sx, sy, sz]}.
+     *
+     * @param src    Input matrices
+     * @param srcOff Offset into src
+     * @param dst    Receives decompositions
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     * @param polar  Find rotation with polar decomposition
+     * @return true if every matrix had an invertible upper 3x3.
+     */
+    public static boolean decompose( double[] src, int srcOff, double[] dst, int dstOff, int count, boolean polar ) {
+        final Quatd rot   = new Quatd();
+        final Vec3d scale = new Vec3d();
+        boolean ret = true;
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 16;
+            final int d = dstOff + i * 10;
+            ret &= decompose4( src[s], src[s + 4], src[s +  8],
+                               src[s + 1], src[s + 5], src[s +  9],
+                               src[s + 2], src[s + 6], src[s + 10],
+                               polar, rot, scale );
+            dst[d    ] = src[s + 12];
+            dst[d + 1] = src[s + 13];
+            dst[d + 2] = src[s + 14];
+            dst[d + 3] = rot.x;
+            dst[d + 4] = rot.y;
+            dst[d + 5] = rot.z;
+            dst[d + 6] = rot.w;
+            dst[d + 7] = scale.x;
+            dst[d + 8] = scale.y;
+            dst[d + 9] = scale.z;
+        }
+        return ret;
+    }
+
+    /**
+     * Batch version of {@link #compose(Vec3d, Quatd, Vec3d, Mat4d)}. Reads 10 values per transform,
+     * {@code [tx, ty, tz, qx, qy, qz, qw, sx, sy, sz]}, and writes column-major matrices,
+     * 16 values per matrix.
+     *
+     * @param src    Input transforms
+     * @param srcOff Offset into src
+     * @param dst    Receives matrices
+     * @param dstOff Offset into dst
+     * @param count  Number of transforms
+     */
+    public static void compose( double[] src, int srcOff, double[] dst, int dstOff, int count ) {
+        final Mat4d mat = new Mat4d();
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 10;
+            compose4( src[s    ], src[s + 1], src[s + 2],
+                      src[s + 3], src[s + 4], src[s + 5], src[s + 6],
+                      src[s + 7], src[s + 8], src[s + 9],
+                      mat );
+            store4( mat, dst, dstOff + i * 16 );
+        }
+    }
+
+
     public static void axesToTransform( Vec3d x, Vec3d y, Mat4d out ) {
         Vec3d z = new Vec3d();
         Vec.cross( x, y, z );
@@ -3679,19 +4567,33 @@ public final class Mat {
      * @return true if matrix determinant is not near zero and accurate invert was found.
      */
     public static boolean invert4( double[] mat, double[] out ) {
-        double s0 = mat[0+0*4] * mat[1+1*4] - mat[1+0*4] * mat[0+1*4];
-        double s1 = mat[0+0*4] * mat[1+2*4] - mat[1+0*4] * mat[0+2*4];
-        double s2 = mat[0+0*4] * mat[1+3*4] - mat[1+0*4] * mat[0+3*4];
-        double s3 = mat[0+1*4] * mat[1+2*4] - mat[1+1*4] * mat[0+2*4];
-        double s4 = mat[0+1*4] * mat[1+3*4] - mat[1+1*4] * mat[0+3*4];
-        double s5 = mat[0+2*4] * mat[1+3*4] - mat[1+2*4] * mat[0+3*4];
-
-        double c5 = mat[2+2*4] * mat[3+3*4] - mat[3+2*4] * mat[2+3*4];
-        double c4 = mat[2+1*4] * mat[3+3*4] - mat[3+1*4] * mat[2+3*4];
-        double c3 = mat[2+1*4] * mat[3+2*4] - mat[3+1*4] * mat[2+2*4];
-        double c2 = mat[2+0*4] * mat[3+3*4] - mat[3+0*4] * mat[2+3*4];
-        double c1 = mat[2+0*4] * mat[3+2*4] - mat[3+0*4] * mat[2+2*4];
-        double c0 = mat[2+0*4] * mat[3+1*4] - mat[3+0*4] * mat[2+1*4];
+        return invert4( mat, 0, out, 0 );
+    }
+
+
+    /**
+     * Inverts matrix.
+     *
+     * @param mat    Input matrix, packed in column-major order.
+     * @param matOff Offset into mat
+     * @param out    Receives inverted matrix. May be same array as {@code mat} if offsets are equal.
+     * @param outOff Offset into out
+     * @return true if matrix determinant is not near zero and accurate invert was found.
+     */
+    public static boolean invert4( double[] mat, int matOff, double[] out, int outOff ) {
+        double s0 = mat[0+0*4+matOff] * mat[1+1*4+matOff] - mat[1+0*4+matOff] * mat[0+1*4+matOff];
+        double s1 = mat[0+0*4+matOff] * mat[1+2*4+matOff] - mat[1+0*4+matOff] * mat[0+2*4+matOff];
+        double s2 = mat[0+0*4+matOff] * mat[1+3*4+matOff] - mat[1+0*4+matOff] * mat[0+3*4+matOff];
+        double s3 = mat[0+1*4+matOff] * mat[1+2*4+matOff] - mat[1+1*4+matOff] * mat[0+2*4+matOff];
+        double s4 = mat[0+1*4+matOff] * mat[1+3*4+matOff] - mat[1+1*4+matOff] * mat[0+3*4+matOff];
+        double s5 = mat[0+2*4+matOff] * mat[1+3*4+matOff] - mat[1+2*4+matOff] * mat[0+3*4+matOff];
+
+        double c5 = mat[2+2*4+matOff] * mat[3+3*4+matOff] - mat[3+2*4+matOff] * mat[2+3*4+matOff];
+        double c4 = mat[2+1*4+matOff] * mat[3+3*4+matOff] - mat[3+1*4+matOff] * mat[2+3*4+matOff];
+        double c3 = mat[2+1*4+matOff] * mat[3+2*4+matOff] - mat[3+1*4+matOff] * mat[2+2*4+matOff];
+        double c2 = mat[2+0*4+matOff] * mat[3+3*4+matOff] - mat[3+0*4+matOff] * mat[2+3*4+matOff];
+        double c1 = mat[2+0*4+matOff] * mat[3+2*4+matOff] - mat[3+0*4+matOff] * mat[2+2*4+matOff];
+        double c0 = mat[2+0*4+matOff] * mat[3+1*4+matOff] - mat[3+0*4+matOff] * mat[2+1*4+matOff];
 
         // Compute determinant
         double invdet = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
@@ -3700,44 +4602,409 @@ public final class Mat {
         // Invert determinant
         invdet = 1.0 / invdet;
 
-        double t00 = ( mat[1+1*4] * c5 - mat[1+2*4] * c4 + mat[1+3*4] * c3) * invdet;
-        double t01 = (-mat[1+0*4] * c5 + mat[1+2*4] * c2 - mat[1+3*4] * c1) * invdet;
-        double t02 = ( mat[1+0*4] * c4 - mat[1+1*4] * c2 + mat[1+3*4] * c0) * invdet;
-        double t03 = (-mat[1+0*4] * c3 + mat[1+1*4] * c1 - mat[1+2*4] * c0) * invdet;
-        double t04 = (-mat[0+1*4] * c5 + mat[0+2*4] * c4 - mat[0+3*4] * c3) * invdet;
-        double t05 = ( mat[0+0*4] * c5 - mat[0+2*4] * c2 + mat[0+3*4] * c1) * invdet;
-        double t06 = (-mat[0+0*4] * c4 + mat[0+1*4] * c2 - mat[0+3*4] * c0) * invdet;
-        double t07 = ( mat[0+0*4] * c3 - mat[0+1*4] * c1 + mat[0+2*4] * c0) * invdet;
-        double t08 = ( mat[3+1*4] * s5 - mat[3+2*4] * s4 + mat[3+3*4] * s3) * invdet;
-        double t09 = (-mat[3+0*4] * s5 + mat[3+2*4] * s2 - mat[3+3*4] * s1) * invdet;
-        double t10 = ( mat[3+0*4] * s4 - mat[3+1*4] * s2 + mat[3+3*4] * s0) * invdet;
-        double t11 = (-mat[3+0*4] * s3 + mat[3+1*4] * s1 - mat[3+2*4] * s0) * invdet;
-        double t12 = (-mat[2+1*4] * s5 + mat[2+2*4] * s4 - mat[2+3*4] * s3) * invdet;
-        double t13 = ( mat[2+0*4] * s5 - mat[2+2*4] * s2 + mat[2+3*4] * s1) * invdet;
-        double t14 = (-mat[2+0*4] * s4 + mat[2+1*4] * s2 - mat[2+3*4] * s0) * invdet;
-        double t15 = ( mat[2+0*4] * s3 - mat[2+1*4] * s1 + mat[2+2*4] * s0) * invdet;
-
-        out[ 0] = t00;
-        out[ 1] = t01;
-        out[ 2] = t02;
-        out[ 3] = t03;
-        out[ 4] = t04;
-        out[ 5] = t05;
-        out[ 6] = t06;
-        out[ 7] = t07;
-        out[ 8] = t08;
-        out[ 9] = t09;
-        out[10] = t10;
-        out[11] = t11;
-        out[12] = t12;
-        out[13] = t13;
-        out[14] = t14;
-        out[15] = t15;
+        double t00 = ( mat[1+1*4+matOff] * c5 - mat[1+2*4+matOff] * c4 + mat[1+3*4+matOff] * c3) * invdet;
+        double t01 = (-mat[1+0*4+matOff] * c5 + mat[1+2*4+matOff] * c2 - mat[1+3*4+matOff] * c1) * invdet;
+        double t02 = ( mat[1+0*4+matOff] * c4 - mat[1+1*4+matOff] * c2 + mat[1+3*4+matOff] * c0) * invdet;
+        double t03 = (-mat[1+0*4+matOff] * c3 + mat[1+1*4+matOff] * c1 - mat[1+2*4+matOff] * c0) * invdet;
+        double t04 = (-mat[0+1*4+matOff] * c5 + mat[0+2*4+matOff] * c4 - mat[0+3*4+matOff] * c3) * invdet;
+        double t05 = ( mat[0+0*4+matOff] * c5 - mat[0+2*4+matOff] * c2 + mat[0+3*4+matOff] * c1) * invdet;
+        double t06 = (-mat[0+0*4+matOff] * c4 + mat[0+1*4+matOff] * c2 - mat[0+3*4+matOff] * c0) * invdet;
+        double t07 = ( mat[0+0*4+matOff] * c3 - mat[0+1*4+matOff] * c1 + mat[0+2*4+matOff] * c0) * invdet;
+        double t08 = ( mat[3+1*4+matOff] * s5 - mat[3+2*4+matOff] * s4 + mat[3+3*4+matOff] * s3) * invdet;
+        double t09 = (-mat[3+0*4+matOff] * s5 + mat[3+2*4+matOff] * s2 - mat[3+3*4+matOff] * s1) * invdet;
+        double t10 = ( mat[3+0*4+matOff] * s4 - mat[3+1*4+matOff] * s2 + mat[3+3*4+matOff] * s0) * invdet;
+        double t11 = (-mat[3+0*4+matOff] * s3 + mat[3+1*4+matOff] * s1 - mat[3+2*4+matOff] * s0) * invdet;
+        double t12 = (-mat[2+1*4+matOff] * s5 + mat[2+2*4+matOff] * s4 - mat[2+3*4+matOff] * s3) * invdet;
+        double t13 = ( mat[2+0*4+matOff] * s5 - mat[2+2*4+matOff] * s2 + mat[2+3*4+matOff] * s1) * invdet;
+        double t14 = (-mat[2+0*4+matOff] * s4 + mat[2+1*4+matOff] * s2 - mat[2+3*4+matOff] * s0) * invdet;
+        double t15 = ( mat[2+0*4+matOff] * s3 - mat[2+1*4+matOff] * s1 + mat[2+2*4+matOff] * s0) * invdet;
+
+        out[ 0+outOff] = t00;
+        out[ 1+outOff] = t01;
+        out[ 2+outOff] = t02;
+        out[ 3+outOff] = t03;
+        out[ 4+outOff] = t04;
+        out[ 5+outOff] = t05;
+        out[ 6+outOff] = t06;
+        out[ 7+outOff] = t07;
+        out[ 8+outOff] = t08;
+        out[ 9+outOff] = t09;
+        out[10+outOff] = t10;
+        out[11+outOff] = t11;
+        out[12+outOff] = t12;
+        out[13+outOff] = t13;
+        out[14+outOff] = t14;
+        out[15+outOff] = t15;
+
+        return ret;
+    }
+
+
+    /**
+     * Inverts matrix.
+     *
+     * @param mat    Input matrix, packed in column-major order.
+     * @param matOff Offset into mat
+     * @param out    Receives inverted matrix. May be same array as {@code mat} if offsets are equal.
+     * @param outOff Offset into out
+     * @return true if matrix determinant is not near zero and accurate invert was found.
+     */
+    public static boolean invert4( float[] mat, int matOff, float[] out, int outOff ) {
+        float s0 = mat[0+0*4+matOff] * mat[1+1*4+matOff] - mat[1+0*4+matOff] * mat[0+1*4+matOff];
+        float s1 = mat[0+0*4+matOff] * mat[1+2*4+matOff] - mat[1+0*4+matOff] * mat[0+2*4+matOff];
+        float s2 = mat[0+0*4+matOff] * mat[1+3*4+matOff] - mat[1+0*4+matOff] * mat[0+3*4+matOff];
+        float s3 = mat[0+1*4+matOff] * mat[1+2*4+matOff] - mat[1+1*4+matOff] * mat[0+2*4+matOff];
+        float s4 = mat[0+1*4+matOff] * mat[1+3*4+matOff] - mat[1+1*4+matOff] * mat[0+3*4+matOff];
+        float s5 = mat[0+2*4+matOff] * mat[1+3*4+matOff] - mat[1+2*4+matOff] * mat[0+3*4+matOff];
+
+        float c5 = mat[2+2*4+matOff] * mat[3+3*4+matOff] - mat[3+2*4+matOff] * mat[2+3*4+matOff];
+        float c4 = mat[2+1*4+matOff] * mat[3+3*4+matOff] - mat[3+1*4+matOff] * mat[2+3*4+matOff];
+        float c3 = mat[2+1*4+matOff] * mat[3+2*4+matOff] - mat[3+1*4+matOff] * mat[2+2*4+matOff];
+        float c2 = mat[2+0*4+matOff] * mat[3+3*4+matOff] - mat[3+0*4+matOff] * mat[2+3*4+matOff];
+        float c1 = mat[2+0*4+matOff] * mat[3+2*4+matOff] - mat[3+0*4+matOff] * mat[2+2*4+matOff];
+        float c0 = mat[2+0*4+matOff] * mat[3+1*4+matOff] - mat[3+0*4+matOff] * mat[2+1*4+matOff];
+
+        // Compute determinant
+        float invdet = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        // Check if invertible.
+        boolean ret  = invdet > FSQRT_ABS_TOL || -invdet > FSQRT_ABS_TOL;
+        // Invert determinant
+        invdet = 1.0f / invdet;
+
+        float t00 = ( mat[1+1*4+matOff] * c5 - mat[1+2*4+matOff] * c4 + mat[1+3*4+matOff] * c3) * invdet;
+        float t01 = (-mat[1+0*4+matOff] * c5 + mat[1+2*4+matOff] * c2 - mat[1+3*4+matOff] * c1) * invdet;
+        float t02 = ( mat[1+0*4+matOff] * c4 - mat[1+1*4+matOff] * c2 + mat[1+3*4+matOff] * c0) * invdet;
+        float t03 = (-mat[1+0*4+matOff] * c3 + mat[1+1*4+matOff] * c1 - mat[1+2*4+matOff] * c0) * invdet;
+        float t04 = (-mat[0+1*4+matOff] * c5 + mat[0+2*4+matOff] * c4 - mat[0+3*4+matOff] * c3) * invdet;
+        float t05 = ( mat[0+0*4+matOff] * c5 - mat[0+2*4+matOff] * c2 + mat[0+3*4+matOff] * c1) * invdet;
+        float t06 = (-mat[0+0*4+matOff] * c4 + mat[0+1*4+matOff] * c2 - mat[0+3*4+matOff] * c0) * invdet;
+        float t07 = ( mat[0+0*4+matOff] * c3 - mat[0+1*4+matOff] * c1 + mat[0+2*4+matOff] * c0) * invdet;
+        float t08 = ( mat[3+1*4+matOff] * s5 - mat[3+2*4+matOff] * s4 + mat[3+3*4+matOff] * s3) * invdet;
+        float t09 = (-mat[3+0*4+matOff] * s5 + mat[3+2*4+matOff] * s2 - mat[3+3*4+matOff] * s1) * invdet;
+        float t10 = ( mat[3+0*4+matOff] * s4 - mat[3+1*4+matOff] * s2 + mat[3+3*4+matOff] * s0) * invdet;
+        float t11 = (-mat[3+0*4+matOff] * s3 + mat[3+1*4+matOff] * s1 - mat[3+2*4+matOff] * s0) * invdet;
+        float t12 = (-mat[2+1*4+matOff] * s5 + mat[2+2*4+matOff] * s4 - mat[2+3*4+matOff] * s3) * invdet;
+        float t13 = ( mat[2+0*4+matOff] * s5 - mat[2+2*4+matOff] * s2 + mat[2+3*4+matOff] * s1) * invdet;
+        float t14 = (-mat[2+0*4+matOff] * s4 + mat[2+1*4+matOff] * s2 - mat[2+3*4+matOff] * s0) * invdet;
+        float t15 = ( mat[2+0*4+matOff] * s3 - mat[2+1*4+matOff] * s1 + mat[2+2*4+matOff] * s0) * invdet;
+
+        out[ 0+outOff] = t00;
+        out[ 1+outOff] = t01;
+        out[ 2+outOff] = t02;
+        out[ 3+outOff] = t03;
+        out[ 4+outOff] = t04;
+        out[ 5+outOff] = t05;
+        out[ 6+outOff] = t06;
+        out[ 7+outOff] = t07;
+        out[ 8+outOff] = t08;
+        out[ 9+outOff] = t09;
+        out[10+outOff] = t10;
+        out[11+outOff] = t11;
+        out[12+outOff] = t12;
+        out[13+outOff] = t13;
+        out[14+outOff] = t14;
+        out[15+outOff] = t15;
+
+        return ret;
+    }
+
+
+    /**
+     * Inverts an affine matrix, which has a bottom row of {@code [0 0 0 1]}. The bottom
+     * row of {@code mat} is not read.
+     *
+     * @param mat    Input matrix, packed in column-major order.
+     * @param matOff Offset into mat
+     * @param out    Receives inverted matrix. May be same array as {@code mat} if offsets are equal.
+     * @param outOff Offset into out
+     * @return true if matrix determinant is not near zero and accurate invert was found.
+     */
+    public static boolean invertAffine4( double[] mat, int matOff, double[] out, int outOff ) {
+        final double a00 = mat[matOff], a01 = mat[matOff + 4], a02 = mat[matOff + 8];
+        final double a10 = mat[matOff + 1], a11 = mat[matOff + 5], a12 = mat[matOff + 9];
+        final double a20 = mat[matOff + 2], a21 = mat[matOff + 6], a22 = mat[matOff + 10];
+        final double tx  = mat[matOff + 12], ty  = mat[matOff + 13], tz  = mat[matOff + 14];
+
+        final double c00 = a11 * a22 - a12 * a21;
+        final double c01 = a12 * a20 - a10 * a22;
+        final double c02 = a10 * a21 - a11 * a20;
+        final double det = a00 * c00 + a01 * c01 + a02 * c02;
+        final boolean ret = det > SQRT_ABS_TOL || -det > SQRT_ABS_TOL;
+        final double inv = 1.0 / det;
+
+        final double i00 = c00 * inv;
+        final double i01 = ( a02 * a21 - a01 * a22 ) * inv;
+        final double i02 = ( a01 * a12 - a02 * a11 ) * inv;
+        final double i10 = c01 * inv;
+        final double i11 = ( a00 * a22 - a02 * a20 ) * inv;
+        final double i12 = ( a02 * a10 - a00 * a12 ) * inv;
+        final double i20 = c02 * inv;
+        final double i21 = ( a01 * a20 - a00 * a21 ) * inv;
+        final double i22 = ( a00 * a11 - a01 * a10 ) * inv;
+
+        out[outOff] = i00;
+        out[outOff + 4] = i01;
+        out[outOff + 8] = i02;
+        out[outOff + 1] = i10;
+        out[outOff + 5] = i11;
+        out[outOff + 9] = i12;
+        out[outOff + 2] = i20;
+        out[outOff + 6] = i21;
+        out[outOff + 10] = i22;
+        out[outOff + 12] = -( i00 * tx + i01 * ty + i02 * tz );
+        out[outOff + 13] = -( i10 * tx + i11 * ty + i12 * tz );
+        out[outOff + 14] = -( i20 * tx + i21 * ty + i22 * tz );
+        out[outOff + 3] = 0;
+        out[outOff + 7] = 0;
+        out[outOff + 11] = 0;
+        out[outOff + 15] = 1;
+        return ret;
+    }
+
+
+    /**
+     * Inverts a rigid transform, which has an orthonormal rotation in the upper 3x3 and a
+     * translation in the last column, by transposing the rotation.
+     *
+     * @param mat    Input matrix, packed in column-major order.
+     * @param matOff Offset into mat
+     * @param out    Receives inverted matrix. May be same array as {@code mat} if offsets are equal.
+     * @param outOff Offset into out
+     */
+    public static void invertRigid4( double[] mat, int matOff, double[] out, int outOff ) {
+        final double a00 = mat[matOff], a01 = mat[matOff + 4], a02 = mat[matOff + 8];
+        final double a10 = mat[matOff + 1], a11 = mat[matOff + 5], a12 = mat[matOff + 9];
+        final double a20 = mat[matOff + 2], a21 = mat[matOff + 6], a22 = mat[matOff + 10];
+        final double tx  = mat[matOff + 12], ty  = mat[matOff + 13], tz  = mat[matOff + 14];
+
+        out[outOff] = a00;
+        out[outOff + 4] = a10;
+        out[outOff + 8] = a20;
+        out[outOff + 1] = a01;
+        out[outOff + 5] = a11;
+        out[outOff + 9] = a21;
+        out[outOff + 2] = a02;
+        out[outOff + 6] = a12;
+        out[outOff + 10] = a22;
+        out[outOff + 12] = -( a00 * tx + a10 * ty + a20 * tz );
+        out[outOff + 13] = -( a01 * tx + a11 * ty + a21 * tz );
+        out[outOff + 14] = -( a02 * tx + a12 * ty + a22 * tz );
+        out[outOff + 3] = 0;
+        out[outOff + 7] = 0;
+        out[outOff + 11] = 0;
+        out[outOff + 15] = 1;
+    }
+
+
+    /**
+     * Inverts an affine matrix, which has a bottom row of {@code [0 0 0 1]}. The bottom
+     * row of {@code mat} is not read.
+     *
+     * @param mat    Input matrix, packed in column-major order.
+     * @param matOff Offset into mat
+     * @param out    Receives inverted matrix. May be same array as {@code mat} if offsets are equal.
+     * @param outOff Offset into out
+     * @return true if matrix determinant is not near zero and accurate invert was found.
+     */
+    public static boolean invertAffine4( float[] mat, int matOff, float[] out, int outOff ) {
+        final float a00 = mat[matOff], a01 = mat[matOff + 4], a02 = mat[matOff + 8];
+        final float a10 = mat[matOff + 1], a11 = mat[matOff + 5], a12 = mat[matOff + 9];
+        final float a20 = mat[matOff + 2], a21 = mat[matOff + 6], a22 = mat[matOff + 10];
+        final float tx  = mat[matOff + 12], ty  = mat[matOff + 13], tz  = mat[matOff + 14];
+
+        final float c00 = a11 * a22 - a12 * a21;
+        final float c01 = a12 * a20 - a10 * a22;
+        final float c02 = a10 * a21 - a11 * a20;
+        final float det = a00 * c00 + a01 * c01 + a02 * c02;
+        final boolean ret = det > FSQRT_ABS_TOL || -det > FSQRT_ABS_TOL;
+        final float inv = 1.0f / det;
+
+        final float i00 = c00 * inv;
+        final float i01 = ( a02 * a21 - a01 * a22 ) * inv;
+        final float i02 = ( a01 * a12 - a02 * a11 ) * inv;
+        final float i10 = c01 * inv;
+        final float i11 = ( a00 * a22 - a02 * a20 ) * inv;
+        final float i12 = ( a02 * a10 - a00 * a12 ) * inv;
+        final float i20 = c02 * inv;
+        final float i21 = ( a01 * a20 - a00 * a21 ) * inv;
+        final float i22 = ( a00 * a11 - a01 * a10 ) * inv;
+
+        out[outOff] = i00;
+        out[outOff + 4] = i01;
+        out[outOff + 8] = i02;
+        out[outOff + 1] = i10;
+        out[outOff + 5] = i11;
+        out[outOff + 9] = i12;
+        out[outOff + 2] = i20;
+        out[outOff + 6] = i21;
+        out[outOff + 10] = i22;
+        out[outOff + 12] = -( i00 * tx + i01 * ty + i02 * tz );
+        out[outOff + 13] = -( i10 * tx + i11 * ty + i12 * tz );
+        out[outOff + 14] = -( i20 * tx + i21 * ty + i22 * tz );
+        out[outOff + 3] = 0;
+        out[outOff + 7] = 0;
+        out[outOff + 11] = 0;
+        out[outOff + 15] = 1;
+        return ret;
+    }
+
+
+    /**
+     * Inverts a rigid transform, which has an orthonormal rotation in the upper 3x3 and a
+     * translation in the last column, by transposing the rotation.
+     *
+     * @param mat    Input matrix, packed in column-major order.
+     * @param matOff Offset into mat
+     * @param out    Receives inverted matrix. May be same array as {@code mat} if offsets are equal.
+     * @param outOff Offset into out
+     */
+    public static void invertRigid4( float[] mat, int matOff, float[] out, int outOff ) {
+        final float a00 = mat[matOff], a01 = mat[matOff + 4], a02 = mat[matOff + 8];
+        final float a10 = mat[matOff + 1], a11 = mat[matOff + 5], a12 = mat[matOff + 9];
+        final float a20 = mat[matOff + 2], a21 = mat[matOff + 6], a22 = mat[matOff + 10];
+        final float tx  = mat[matOff + 12], ty  = mat[matOff + 13], tz  = mat[matOff + 14];
+
+        out[outOff] = a00;
+        out[outOff + 4] = a10;
+        out[outOff + 8] = a20;
+        out[outOff + 1] = a01;
+        out[outOff + 5] = a11;
+        out[outOff + 9] = a21;
+        out[outOff + 2] = a02;
+        out[outOff + 6] = a12;
+        out[outOff + 10] = a22;
+        out[outOff + 12] = -( a00 * tx + a10 * ty + a20 * tz );
+        out[outOff + 13] = -( a01 * tx + a11 * ty + a21 * tz );
+        out[outOff + 14] = -( a02 * tx + a12 * ty + a22 * tz );
+        out[outOff + 3] = 0;
+        out[outOff + 7] = 0;
+        out[outOff + 11] = 0;
+        out[outOff + 15] = 1;
+    }
+
 
+    /**
+     * Inverts many matrices. Each matrix is checked for an affine bottom row and
+     * inverted with {@link #invertAffine4(double[], int, double[], int)} when possible.
+     *
+     * @param src    Input matrices, packed in column-major order with 16 values per matrix.
+     * @param srcOff Offset into src
+     * @param dst    Receives inverted matrices. May be same array as src if offsets are equal.
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     * @return true if every matrix was accurately inverted.
+     */
+    public static boolean invert4( double[] src, int srcOff, double[] dst, int dstOff, int count ) {
+        boolean ret = true;
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 16;
+            final int d = dstOff + i * 16;
+            if( src[s + 3] == 0 && src[s + 7] == 0 && src[s + 11] == 0 && src[s + 15] == 1 ) {
+                ret &= invertAffine4( src, s, dst, d );
+            } else {
+                ret &= invert4( src, s, dst, d );
+            }
+        }
+        return ret;
+    }
+
+
+    /**
+     * Batch version of {@link #invertAffine4(double[], int, double[], int)}.
+     *
+     * @param src    Input matrices, packed in column-major order with 16 values per matrix.
+     * @param srcOff Offset into src
+     * @param dst    Receives inverted matrices. May be same array as src if offsets are equal.
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     * @return true if every matrix was accurately inverted.
+     */
+    public static boolean invertAffine4( double[] src, int srcOff, double[] dst, int dstOff, int count ) {
+        boolean ret = true;
+        for( int i = 0; i < count; i++ ) {
+            ret &= invertAffine4( src, srcOff + i * 16, dst, dstOff + i * 16 );
+        }
         return ret;
     }
 
 
+    /**
+     * Batch version of {@link #invertRigid4(double[], int, double[], int)}.
+     *
+     * @param src    Input matrices, packed in column-major order with 16 values per matrix.
+     * @param srcOff Offset into src
+     * @param dst    Receives inverted matrices. May be same array as src if offsets are equal.
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     */
+    public static void invertRigid4( double[] src, int srcOff, double[] dst, int dstOff, int count ) {
+        for( int i = 0; i < count; i++ ) {
+            invertRigid4( src, srcOff + i * 16, dst, dstOff + i * 16 );
+        }
+    }
+
+
+    /**
+     * Inverts many matrices. Each matrix is checked for an affine bottom row and
+     * inverted with {@link #invertAffine4(float[], int, float[], int)} when possible.
+     *
+     * @param src    Input matrices, packed in column-major order with 16 values per matrix.
+     * @param srcOff Offset into src
+     * @param dst    Receives inverted matrices. May be same array as src if offsets are equal.
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     * @return true if every matrix was accurately inverted.
+     */
+    public static boolean invert4( float[] src, int srcOff, float[] dst, int dstOff, int count ) {
+        boolean ret = true;
+        for( int i = 0; i < count; i++ ) {
+            final int s = srcOff + i * 16;
+            final int d = dstOff + i * 16;
+            if( src[s + 3] == 0 && src[s + 7] == 0 && src[s + 11] == 0 && src[s + 15] == 1 ) {
+                ret &= invertAffine4( src, s, dst, d );
+            } else {
+                ret &= invert4( src, s, dst, d );
+            }
+        }
+        return ret;
+    }
+
+
+    /**
+     * Batch version of {@link #invertAffine4(float[], int, float[], int)}.
+     *
+     * @param src    Input matrices, packed in column-major order with 16 values per matrix.
+     * @param srcOff Offset into src
+     * @param dst    Receives inverted matrices. May be same array as src if offsets are equal.
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     * @return true if every matrix was accurately inverted.
+     */
+    public static boolean invertAffine4( float[] src, int srcOff, float[] dst, int dstOff, int count ) {
+        boolean ret = true;
+        for( int i = 0; i < count; i++ ) {
+            ret &= invertAffine4( src, srcOff + i * 16, dst, dstOff + i * 16 );
+        }
+        return ret;
+    }
+
+
+    /**
+     * Batch version of {@link #invertRigid4(float[], int, float[], int)}.
+     *
+     * @param src    Input matrices, packed in column-major order with 16 values per matrix.
+     * @param srcOff Offset into src
+     * @param dst    Receives inverted matrices. May be same array as src if offsets are equal.
+     * @param dstOff Offset into dst
+     * @param count  Number of matrices
+     */
+    public static void invertRigid4( float[] src, int srcOff, float[] dst, int dstOff, int count ) {
+        for( int i = 0; i < count; i++ ) {
+            invertRigid4( src, srcOff + i * 16, dst, dstOff + i * 16 );
+        }
+    }
+
+
     public static void transpose4( double[] mat, double[] out ) {
         // About 15% faster without local copies.
         double a00 = mat[ 0];
@@ -4475,6 +5742,943 @@ public final class Mat {
     }
 
 
+    private static void store4( Mat4 mat, float[] out, int off ) {
+        out[off     ] = mat.m00;
+        out[off +  1] = mat.m10;
+        out[off +  2] = mat.m20;
+        out[off +  3] = mat.m30;
+        out[off +  4] = mat.m01;
+        out[off +  5] = mat.m11;
+        out[off +  6] = mat.m21;
+        out[off +  7] = mat.m31;
+        out[off +  8] = mat.m02;
+        out[off +  9] = mat.m12;
+        out[off + 10] = mat.m22;
+        out[off + 11] = mat.m32;
+        out[off + 12] = mat.m03;
+        out[off + 13] = mat.m13;
+        out[off + 14] = mat.m23;
+        out[off + 15] = mat.m33;
+    }
+
+
+    private static void store4( Mat4d mat, double[] out, int off ) {
+        out[off     ] = mat.m00;
+        out[off +  1] = mat.m10;
+        out[off +  2] = mat.m20;
+        out[off +  3] = mat.m30;
+        out[off +  4] = mat.m01;
+        out[off +  5] = mat.m11;
+        out[off +  6] = mat.m21;
+        out[off +  7] = mat.m31;
+        out[off +  8] = mat.m02;
+        out[off +  9] = mat.m12;
+        out[off + 10] = mat.m22;
+        out[off + 11] = mat.m32;
+        out[off + 12] = mat.m03;
+        out[off + 13] = mat.m13;
+        out[off + 14] = mat.m23;
+        out[off + 15] = mat.m33;
+    }
+
+
+    /**
+     * Shared by object and packed decompose. Writes rotation and scale of the upper 3x3 of a matrix.
+     */
+    private static boolean decompose4( float a00, float a01, float a02,
+                                       float a10, float a11, float a12,
+                                       float a20, float a21, float a22,
+                                       boolean polar, Quat outRot, Vec3 outScale ) {
+        final float det = a00 * ( a11 * a22 - a12 * a21 ) +
+                          a01 * ( a12 * a20 - a10 * a22 ) +
+                          a02 * ( a10 * a21 - a11 * a20 );
+        final float sign = det < 0 ? -1 : 1;
+        final boolean ret = det > FSQRT_ABS_TOL || -det > FSQRT_ABS_TOL;
+
+        float r00, r01, r02, r10, r11, r12, r20, r21, r22;
+        float sx, sy, sz;
+        if( polar && ret ) {
+            // Scaled Newton iteration converges to nearest rotation of sign * mat.
+            r00 = sign * a00; r01 = sign * a01; r02 = sign * a02;
+            r10 = sign * a10; r11 = sign * a11; r12 = sign * a12;
+            r20 = sign * a20; r21 = sign * a21; r22 = sign * a22;
+            for( int iter = 0; iter < POLAR_MAX_ITERS; iter++ ) {
+                final float c00 = r11 * r22 - r12 * r21;
+                final float c01 = r12 * r20 - r10 * r22;
+                final float c02 = r10 * r21 - r11 * r20;
+                final float c10 = r02 * r21 - r01 * r22;
+                final float c11 = r00 * r22 - r02 * r20;
+                final float c12 = r01 * r20 - r00 * r21;
+                final float c20 = r01 * r12 - r02 * r11;
+                final float c21 = r02 * r10 - r00 * r12;
+                final float c22 = r00 * r11 - r01 * r10;
+                final float rd = r00 * c00 + r01 * c01 + r02 * c02;
+                if( !( rd > FSQRT_ABS_TOL ) ) {
+                    break;
+                }
+                final float rn = r00 * r00 + r01 * r01 + r02 * r02 + r10 * r10 + r11 * r11 + r12 * r12 + r20 * r20 + r21 * r21 + r22 * r22;
+                final float cn = c00 * c00 + c01 * c01 + c02 * c02 + c10 * c10 + c11 * c11 + c12 * c12 + c20 * c20 + c21 * c21 + c22 * c22;
+                final float g  = (float)Math.sqrt( Math.sqrt( cn / rn ) / rd );
+                final float ga = 0.5f * g;
+                final float gb = 0.5f / ( g * rd );
+                final float n00 = ga * r00 + gb * c00;
+                final float n01 = ga * r01 + gb * c01;
+                final float n02 = ga * r02 + gb * c02;
+                final float n10 = ga * r10 + gb * c10;
+                final float n11 = ga * r11 + gb * c11;
+                final float n12 = ga * r12 + gb * c12;
+                final float n20 = ga * r20 + gb * c20;
+                final float n21 = ga * r21 + gb * c21;
+                final float n22 = ga * r22 + gb * c22;
+                float e = 0;
+                e += ( n00 - r00 ) * ( n00 - r00 );
+                e += ( n01 - r01 ) * ( n01 - r01 );
+                e += ( n02 - r02 ) * ( n02 - r02 );
+                e += ( n10 - r10 ) * ( n10 - r10 );
+                e += ( n11 - r11 ) * ( n11 - r11 );
+                e += ( n12 - r12 ) * ( n12 - r12 );
+                e += ( n20 - r20 ) * ( n20 - r20 );
+                e += ( n21 - r21 ) * ( n21 - r21 );
+                e += ( n22 - r22 ) * ( n22 - r22 );
+                r00 = n00; r01 = n01; r02 = n02;
+                r10 = n10; r11 = n11; r12 = n12;
+                r20 = n20; r21 = n21; r22 = n22;
+                if( e <= FREL_TOL ) {
+                    break;
+                }
+            }
+            // Scale is diagonal of stretch, R^T * mat.
+            sx = r00 * a00 + r10 * a10 + r20 * a20;
+            sy = r01 * a01 + r11 * a11 + r21 * a21;
+            sz = r02 * a02 + r12 * a12 + r22 * a22;
+        } else {
+            sx = sign * (float)Math.sqrt( a00 * a00 + a10 * a10 + a20 * a20 );
+            sy = sign * (float)Math.sqrt( a01 * a01 + a11 * a11 + a21 * a21 );
+            sz = sign * (float)Math.sqrt( a02 * a02 + a12 * a12 + a22 * a22 );
+            final float ix = sx == 0 ? 0 : 1 / sx;
+            final float iy = sy == 0 ? 0 : 1 / sy;
+            final float iz = sz == 0 ? 0 : 1 / sz;
+            r00 = a00 * ix; r01 = a01 * iy; r02 = a02 * iz;
+            r10 = a10 * ix; r11 = a11 * iy; r12 = a12 * iz;
+            r20 = a20 * ix; r21 = a21 * iy; r22 = a22 * iz;
+        }
+
+        float qx, qy, qz, qw;
+        final float tr = r00 + r11 + r22;
+        if( tr > 0 ) {
+            qx = r21 - r12;
+            qy = r02 - r20;
+            qz = r10 - r01;
+            qw = tr + 1;
+        } else if( r00 > r11 && r00 > r22 ) {
+            qx = 1 + r00 - r11 - r22;
+            qy = r01 + r10;
+            qz = r02 + r20;
+            qw = r21 - r12;
+        } else if( r11 > r22 ) {
+            qx = r01 + r10;
+            qy = 1 + r11 - r00 - r22;
+            qz = r12 + r21;
+            qw = r02 - r20;
+        } else {
+            qx = r02 + r20;
+            qy = r12 + r21;
+            qz = 1 + r22 - r00 - r11;
+            qw = r10 - r01;
+        }
+        final float qs = ( qw < 0 ? -1 : 1 ) / (float)Math.sqrt( qx * qx + qy * qy + qz * qz + qw * qw );
+
+        outRot.x = qx * qs;
+        outRot.y = qy * qs;
+        outRot.z = qz * qs;
+        outRot.w = qw * qs;
+        if( outScale != null ) {
+            outScale.x = sx;
+            outScale.y = sy;
+            outScale.z = sz;
+        }
+        return ret;
+    }
+
+
+    private static void compose4( float tx, float ty, float tz,
+                                  float x, float y, float z, float w,
+                                  float sx, float sy, float sz,
+                                  Mat4 out ) {
+        final float r00 = 1 - 2 * ( y * y + z * z );
+        final float r10 =     2 * ( x * y + z * w );
+        final float r20 =     2 * ( x * z - y * w );
+        final float r01 =     2 * ( x * y - z * w );
+        final float r11 = 1 - 2 * ( x * x + z * z );
+        final float r21 =     2 * ( y * z + x * w );
+        final float r02 =     2 * ( x * z + y * w );
+        final float r12 =     2 * ( y * z - x * w );
+        final float r22 = 1 - 2 * ( x * x + y * y );
+
+        out.m00 = r00 * sx;
+        out.m01 = r01 * sy;
+        out.m02 = r02 * sz;
+        out.m03 = tx;
+        out.m10 = r10 * sx;
+        out.m11 = r11 * sy;
+        out.m12 = r12 * sz;
+        out.m13 = ty;
+        out.m20 = r20 * sx;
+        out.m21 = r21 * sy;
+        out.m22 = r22 * sz;
+        out.m23 = tz;
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+    }
+
+
+    /**
+     * Shared by object and packed decompose. Writes rotation and scale of the upper 3x3 of a matrix.
+     */
+    private static boolean decompose4( double a00, double a01, double a02,
+                                       double a10, double a11, double a12,
+                                       double a20, double a21, double a22,
+                                       boolean polar, Quatd outRot, Vec3d outScale ) {
+        final double det = a00 * ( a11 * a22 - a12 * a21 ) +
+                           a01 * ( a12 * a20 - a10 * a22 ) +
+                           a02 * ( a10 * a21 - a11 * a20 );
+        final double sign = det < 0 ? -1 : 1;
+        final boolean ret = det > SQRT_ABS_TOL || -det > SQRT_ABS_TOL;
+
+        double r00, r01, r02, r10, r11, r12, r20, r21, r22;
+        double sx, sy, sz;
+        if( polar && ret ) {
+            // Scaled Newton iteration converges to nearest rotation of sign * mat.
+            r00 = sign * a00; r01 = sign * a01; r02 = sign * a02;
+            r10 = sign * a10; r11 = sign * a11; r12 = sign * a12;
+            r20 = sign * a20; r21 = sign * a21; r22 = sign * a22;
+            for( int iter = 0; iter < POLAR_MAX_ITERS; iter++ ) {
+                final double c00 = r11 * r22 - r12 * r21;
+                final double c01 = r12 * r20 - r10 * r22;
+                final double c02 = r10 * r21 - r11 * r20;
+                final double c10 = r02 * r21 - r01 * r22;
+                final double c11 = r00 * r22 - r02 * r20;
+                final double c12 = r01 * r20 - r00 * r21;
+                final double c20 = r01 * r12 - r02 * r11;
+                final double c21 = r02 * r10 - r00 * r12;
+                final double c22 = r00 * r11 - r01 * r10;
+                final double rd = r00 * c00 + r01 * c01 + r02 * c02;
+                if( !( rd > SQRT_ABS_TOL ) ) {
+                    break;
+                }
+                final double rn = r00 * r00 + r01 * r01 + r02 * r02 + r10 * r10 + r11 * r11 + r12 * r12 + r20 * r20 + r21 * r21 + r22 * r22;
+                final double cn = c00 * c00 + c01 * c01 + c02 * c02 + c10 * c10 + c11 * c11 + c12 * c12 + c20 * c20 + c21 * c21 + c22 * c22;
+                final double g  = Math.sqrt( Math.sqrt( cn / rn ) / rd );
+                final double ga = 0.5 * g;
+                final double gb = 0.5 / ( g * rd );
+                final double n00 = ga * r00 + gb * c00;
+                final double n01 = ga * r01 + gb * c01;
+                final double n02 = ga * r02 + gb * c02;
+                final double n10 = ga * r10 + gb * c10;
+                final double n11 = ga * r11 + gb * c11;
+                final double n12 = ga * r12 + gb * c12;
+                final double n20 = ga * r20 + gb * c20;
+                final double n21 = ga * r21 + gb * c21;
+                final double n22 = ga * r22 + gb * c22;
+                double e = 0;
+                e += ( n00 - r00 ) * ( n00 - r00 );
+                e += ( n01 - r01 ) * ( n01 - r01 );
+                e += ( n02 - r02 ) * ( n02 - r02 );
+                e += ( n10 - r10 ) * ( n10 - r10 );
+                e += ( n11 - r11 ) * ( n11 - r11 );
+                e += ( n12 - r12 ) * ( n12 - r12 );
+                e += ( n20 - r20 ) * ( n20 - r20 );
+                e += ( n21 - r21 ) * ( n21 - r21 );
+                e += ( n22 - r22 ) * ( n22 - r22 );
+                r00 = n00; r01 = n01; r02 = n02;
+                r10 = n10; r11 = n11; r12 = n12;
+                r20 = n20; r21 = n21; r22 = n22;
+                if( e <= REL_TOL ) {
+                    break;
+                }
+            }
+            // Scale is diagonal of stretch, R^T * mat.
+            sx = r00 * a00 + r10 * a10 + r20 * a20;
+            sy = r01 * a01 + r11 * a11 + r21 * a21;
+            sz = r02 * a02 + r12 * a12 + r22 * a22;
+        } else {
+            sx = sign * Math.sqrt( a00 * a00 + a10 * a10 + a20 * a20 );
+            sy = sign * Math.sqrt( a01 * a01 + a11 * a11 + a21 * a21 );
+            sz = sign * Math.sqrt( a02 * a02 + a12 * a12 + a22 * a22 );
+            final double ix = sx == 0 ? 0 : 1 / sx;
+            final double iy = sy == 0 ? 0 : 1 / sy;
+            final double iz = sz == 0 ? 0 : 1 / sz;
+            r00 = a00 * ix; r01 = a01 * iy; r02 = a02 * iz;
+            r10 = a10 * ix; r11 = a11 * iy; r12 = a12 * iz;
+            r20 = a20 * ix; r21 = a21 * iy; r22 = a22 * iz;
+        }
+
+        double qx, qy, qz, qw;
+        final double tr = r00 + r11 + r22;
+        if( tr > 0 ) {
+            qx = r21 - r12;
+            qy = r02 - r20;
+            qz = r10 - r01;
+            qw = tr + 1;
+        } else if( r00 > r11 && r00 > r22 ) {
+            qx = 1 + r00 - r11 - r22;
+            qy = r01 + r10;
+            qz = r02 + r20;
+            qw = r21 - r12;
+        } else if( r11 > r22 ) {
+            qx = r01 + r10;
+            qy = 1 + r11 - r00 - r22;
+            qz = r12 + r21;
+            qw = r02 - r20;
+        } else {
+            qx = r02 + r20;
+            qy = r12 + r21;
+            qz = 1 + r22 - r00 - r11;
+            qw = r10 - r01;
+        }
+        final double qs = ( qw < 0 ? -1 : 1 ) / Math.sqrt( qx * qx + qy * qy + qz * qz + qw * qw );
+
+        outRot.x = qx * qs;
+        outRot.y = qy * qs;
+        outRot.z = qz * qs;
+        outRot.w = qw * qs;
+        if( outScale != null ) {
+            outScale.x = sx;
+            outScale.y = sy;
+            outScale.z = sz;
+        }
+        return ret;
+    }
+
+
+    private static void compose4( double tx, double ty, double tz,
+                                  double x, double y, double z, double w,
+                                  double sx, double sy, double sz,
+                                  Mat4d out ) {
+        final double r00 = 1 - 2 * ( y * y + z * z );
+        final double r10 =     2 * ( x * y + z * w );
+        final double r20 =     2 * ( x * z - y * w );
+        final double r01 =     2 * ( x * y - z * w );
+        final double r11 = 1 - 2 * ( x * x + z * z );
+        final double r21 =     2 * ( y * z + x * w );
+        final double r02 =     2 * ( x * z + y * w );
+        final double r12 =     2 * ( y * z - x * w );
+        final double r22 = 1 - 2 * ( x * x + y * y );
+
+        out.m00 = r00 * sx;
+        out.m01 = r01 * sy;
+        out.m02 = r02 * sz;
+        out.m03 = tx;
+        out.m10 = r10 * sx;
+        out.m11 = r11 * sy;
+        out.m12 = r12 * sz;
+        out.m13 = ty;
+        out.m20 = r20 * sx;
+        out.m21 = r21 * sy;
+        out.m22 = r22 * sz;
+        out.m23 = tz;
+        out.m30 = 0;
+        out.m31 = 0;
+        out.m32 = 0;
+        out.m33 = 1;
+    }
+
+
+    private static void store3( Mat3 mat, float[] out, int off ) {
+        out[off    ] = mat.m00;
+        out[off + 1] = mat.m10;
+        out[off + 2] = mat.m20;
+        out[off + 3] = mat.m01;
+        out[off + 4] = mat.m11;
+        out[off + 5] = mat.m21;
+        out[off + 6] = mat.m02;
+        out[off + 7] = mat.m12;
+        out[off + 8] = mat.m22;
+    }
+
+
+    private static void store3( Mat3d mat, double[] out, int off ) {
+        out[off    ] = mat.m00;
+        out[off + 1] = mat.m10;
+        out[off + 2] = mat.m20;
+        out[off + 3] = mat.m01;
+        out[off + 4] = mat.m11;
+        out[off + 5] = mat.m21;
+        out[off + 6] = mat.m02;
+        out[off + 7] = mat.m12;
+        out[off + 8] = mat.m22;
+    }
+
+
+    /**
+     * SVD kernel shared by svd and polar. With {@code polar} false, writes U to {@code outA},
+     * sigma to {@code outSigma} and V to {@code outB}. With {@code polar} true, writes
+     * {@code R = U * V^T} to {@code outA} and {@code S = V * diag(sigma) * V^T} to {@code outB},
+     * which may be {@code null}, and ignores {@code outSigma}.
+     */
+    private static void svd3( float a00, float a01, float a02,
+                              float a10, float a11, float a12,
+                              float a20, float a21, float a22,
+                              boolean polar, Mat3 outA, Vec3 outSigma, Mat3 outB ) {
+        // Find V from eigenvectors of A^T * A. outA is free until the end, so it holds V.
+        symmetricEigen3( a00 * a00 + a10 * a10 + a20 * a20,
+                         a00 * a01 + a10 * a11 + a20 * a21,
+                         a00 * a02 + a10 * a12 + a20 * a22,
+                         a01 * a01 + a11 * a11 + a21 * a21,
+                         a01 * a02 + a11 * a12 + a21 * a22,
+                         a02 * a02 + a12 * a12 + a22 * a22,
+                         null, outA );
+        final float v00 = outA.m00, v01 = outA.m01, v02 = outA.m02;
+        final float v10 = outA.m10, v11 = outA.m11, v12 = outA.m12;
+        final float v20 = outA.m20, v21 = outA.m21, v22 = outA.m22;
+
+        // B = A * V has orthogonal columns, already sorted by decreasing length.
+        float b00 = a00 * v00 + a01 * v10 + a02 * v20;
+        float b01 = a00 * v01 + a01 * v11 + a02 * v21;
+        float b02 = a00 * v02 + a01 * v12 + a02 * v22;
+        float b10 = a10 * v00 + a11 * v10 + a12 * v20;
+        float b11 = a10 * v01 + a11 * v11 + a12 * v21;
+        float b12 = a10 * v02 + a11 * v12 + a12 * v22;
+        float b20 = a20 * v00 + a21 * v10 + a22 * v20;
+        float b21 = a20 * v01 + a21 * v11 + a22 * v21;
+        float b22 = a20 * v02 + a21 * v12 + a22 * v22;
+
+        // QR decomposition of B with Givens rotations. U = Q and R is diagonal.
+        float u00 = 1, u01 = 0, u02 = 0;
+        float u10 = 0, u11 = 1, u12 = 0;
+        float u20 = 0, u21 = 0, u22 = 1;
+        {
+            final float h = (float)Math.sqrt( b00 * b00 + b10 * b10 );
+            final float c = h == 0 ? 1 : b00 / h;
+            final float s = h == 0 ? 0 : b10 / h;
+            final float bi0 = b00, bj0 = b10;
+            b00 = c * bi0 + s * bj0;
+            b10 = c * bj0 - s * bi0;
+            final float bi1 = b01, bj1 = b11;
+            b01 = c * bi1 + s * bj1;
+            b11 = c * bj1 - s * bi1;
+            final float bi2 = b02, bj2 = b12;
+            b02 = c * bi2 + s * bj2;
+            b12 = c * bj2 - s * bi2;
+            final float ui0 = u00, uj0 = u01;
+            u00 = c * ui0 + s * uj0;
+            u01 = c * uj0 - s * ui0;
+            final float ui1 = u10, uj1 = u11;
+            u10 = c * ui1 + s * uj1;
+            u11 = c * uj1 - s * ui1;
+            final float ui2 = u20, uj2 = u21;
+            u20 = c * ui2 + s * uj2;
+            u21 = c * uj2 - s * ui2;
+        }
+        {
+            final float h = (float)Math.sqrt( b00 * b00 + b20 * b20 );
+            final float c = h == 0 ? 1 : b00 / h;
+            final float s = h == 0 ? 0 : b20 / h;
+            final float bi0 = b00, bj0 = b20;
+            b00 = c * bi0 + s * bj0;
+            b20 = c * bj0 - s * bi0;
+            final float bi1 = b01, bj1 = b21;
+            b01 = c * bi1 + s * bj1;
+            b21 = c * bj1 - s * bi1;
+            final float bi2 = b02, bj2 = b22;
+            b02 = c * bi2 + s * bj2;
+            b22 = c * bj2 - s * bi2;
+            final float ui0 = u00, uj0 = u02;
+            u00 = c * ui0 + s * uj0;
+            u02 = c * uj0 - s * ui0;
+            final float ui1 = u10, uj1 = u12;
+            u10 = c * ui1 + s * uj1;
+            u12 = c * uj1 - s * ui1;
+            final float ui2 = u20, uj2 = u22;
+            u20 = c * ui2 + s * uj2;
+            u22 = c * uj2 - s * ui2;
+        }
+        {
+            final float h = (float)Math.sqrt( b11 * b11 + b21 * b21 );
+            final float c = h == 0 ? 1 : b11 / h;
+            final float s = h == 0 ? 0 : b21 / h;
+            final float bi1 = b11, bj1 = b21;
+            b11 = c * bi1 + s * bj1;
+            b21 = c * bj1 - s * bi1;
+            final float bi2 = b12, bj2 = b22;
+            b12 = c * bi2 + s * bj2;
+            b22 = c * bj2 - s * bi2;
+            final float ui0 = u01, uj0 = u02;
+            u01 = c * ui0 + s * uj0;
+            u02 = c * uj0 - s * ui0;
+            final float ui1 = u11, uj1 = u12;
+            u11 = c * ui1 + s * uj1;
+            u12 = c * uj1 - s * ui1;
+            final float ui2 = u21, uj2 = u22;
+            u21 = c * ui2 + s * uj2;
+            u22 = c * uj2 - s * ui2;
+        }
+
+        if( polar ) {
+            final float s0 = b00, s1 = b11, s2 = b22;
+            outA.m00 = u00 * v00 + u01 * v01 + u02 * v02;
+            outA.m01 = u00 * v10 + u01 * v11 + u02 * v12;
+            outA.m02 = u00 * v20 + u01 * v21 + u02 * v22;
+            outA.m10 = u10 * v00 + u11 * v01 + u12 * v02;
+            outA.m11 = u10 * v10 + u11 * v11 + u12 * v12;
+            outA.m12 = u10 * v20 + u11 * v21 + u12 * v22;
+            outA.m20 = u20 * v00 + u21 * v01 + u22 * v02;
+            outA.m21 = u20 * v10 + u21 * v11 + u22 * v12;
+            outA.m22 = u20 * v20 + u21 * v21 + u22 * v22;
+            if( outB != null ) {
+                outB.m00 = v00 * s0 * v00 + v01 * s1 * v01 + v02 * s2 * v02;
+                outB.m01 = v00 * s0 * v10 + v01 * s1 * v11 + v02 * s2 * v12;
+                outB.m02 = v00 * s0 * v20 + v01 * s1 * v21 + v02 * s2 * v22;
+                outB.m10 = v10 * s0 * v00 + v11 * s1 * v01 + v12 * s2 * v02;
+                outB.m11 = v10 * s0 * v10 + v11 * s1 * v11 + v12 * s2 * v12;
+                outB.m12 = v10 * s0 * v20 + v11 * s1 * v21 + v12 * s2 * v22;
+                outB.m20 = v20 * s0 * v00 + v21 * s1 * v01 + v22 * s2 * v02;
+                outB.m21 = v20 * s0 * v10 + v21 * s1 * v11 + v22 * s2 * v12;
+                outB.m22 = v20 * s0 * v20 + v21 * s1 * v21 + v22 * s2 * v22;
+            }
+            return;
+        }
+
+        outA.m00 = u00;
+        outA.m01 = u01;
+        outA.m02 = u02;
+        outA.m10 = u10;
+        outA.m11 = u11;
+        outA.m12 = u12;
+        outA.m20 = u20;
+        outA.m21 = u21;
+        outA.m22 = u22;
+        outSigma.x = b00;
+        outSigma.y = b11;
+        outSigma.z = b22;
+        outB.m00 = v00;
+        outB.m01 = v01;
+        outB.m02 = v02;
+        outB.m10 = v10;
+        outB.m11 = v11;
+        outB.m12 = v12;
+        outB.m20 = v20;
+        outB.m21 = v21;
+        outB.m22 = v22;
+    }
+
+
+    /**
+     * SVD kernel shared by svd and polar. With {@code polar} false, writes U to {@code outA},
+     * sigma to {@code outSigma} and V to {@code outB}. With {@code polar} true, writes
+     * {@code R = U * V^T} to {@code outA} and {@code S = V * diag(sigma) * V^T} to {@code outB},
+     * which may be {@code null}, and ignores {@code outSigma}.
+     */
+    private static void svd3( double a00, double a01, double a02,
+                              double a10, double a11, double a12,
+                              double a20, double a21, double a22,
+                              boolean polar, Mat3d outA, Vec3d outSigma, Mat3d outB ) {
+        // Find V from eigenvectors of A^T * A. outA is free until the end, so it holds V.
+        symmetricEigen3( a00 * a00 + a10 * a10 + a20 * a20,
+                         a00 * a01 + a10 * a11 + a20 * a21,
+                         a00 * a02 + a10 * a12 + a20 * a22,
+                         a01 * a01 + a11 * a11 + a21 * a21,
+                         a01 * a02 + a11 * a12 + a21 * a22,
+                         a02 * a02 + a12 * a12 + a22 * a22,
+                         null, outA );
+        final double v00 = outA.m00, v01 = outA.m01, v02 = outA.m02;
+        final double v10 = outA.m10, v11 = outA.m11, v12 = outA.m12;
+        final double v20 = outA.m20, v21 = outA.m21, v22 = outA.m22;
+
+        // B = A * V has orthogonal columns, already sorted by decreasing length.
+        double b00 = a00 * v00 + a01 * v10 + a02 * v20;
+        double b01 = a00 * v01 + a01 * v11 + a02 * v21;
+        double b02 = a00 * v02 + a01 * v12 + a02 * v22;
+        double b10 = a10 * v00 + a11 * v10 + a12 * v20;
+        double b11 = a10 * v01 + a11 * v11 + a12 * v21;
+        double b12 = a10 * v02 + a11 * v12 + a12 * v22;
+        double b20 = a20 * v00 + a21 * v10 + a22 * v20;
+        double b21 = a20 * v01 + a21 * v11 + a22 * v21;
+        double b22 = a20 * v02 + a21 * v12 + a22 * v22;
+
+        // QR decomposition of B with Givens rotations. U = Q and R is diagonal.
+        double u00 = 1, u01 = 0, u02 = 0;
+        double u10 = 0, u11 = 1, u12 = 0;
+        double u20 = 0, u21 = 0, u22 = 1;
+        {
+            final double h = Math.sqrt( b00 * b00 + b10 * b10 );
+            final double c = h == 0 ? 1 : b00 / h;
+            final double s = h == 0 ? 0 : b10 / h;
+            final double bi0 = b00, bj0 = b10;
+            b00 = c * bi0 + s * bj0;
+            b10 = c * bj0 - s * bi0;
+            final double bi1 = b01, bj1 = b11;
+            b01 = c * bi1 + s * bj1;
+            b11 = c * bj1 - s * bi1;
+            final double bi2 = b02, bj2 = b12;
+            b02 = c * bi2 + s * bj2;
+            b12 = c * bj2 - s * bi2;
+            final double ui0 = u00, uj0 = u01;
+            u00 = c * ui0 + s * uj0;
+            u01 = c * uj0 - s * ui0;
+            final double ui1 = u10, uj1 = u11;
+            u10 = c * ui1 + s * uj1;
+            u11 = c * uj1 - s * ui1;
+            final double ui2 = u20, uj2 = u21;
+            u20 = c * ui2 + s * uj2;
+            u21 = c * uj2 - s * ui2;
+        }
+        {
+            final double h = Math.sqrt( b00 * b00 + b20 * b20 );
+            final double c = h == 0 ? 1 : b00 / h;
+            final double s = h == 0 ? 0 : b20 / h;
+            final double bi0 = b00, bj0 = b20;
+            b00 = c * bi0 + s * bj0;
+            b20 = c * bj0 - s * bi0;
+            final double bi1 = b01, bj1 = b21;
+            b01 = c * bi1 + s * bj1;
+            b21 = c * bj1 - s * bi1;
+            final double bi2 = b02, bj2 = b22;
+            b02 = c * bi2 + s * bj2;
+            b22 = c * bj2 - s * bi2;
+            final double ui0 = u00, uj0 = u02;
+            u00 = c * ui0 + s * uj0;
+            u02 = c * uj0 - s * ui0;
+            final double ui1 = u10, uj1 = u12;
+            u10 = c * ui1 + s * uj1;
+            u12 = c * uj1 - s * ui1;
+            final double ui2 = u20, uj2 = u22;
+            u20 = c * ui2 + s * uj2;
+            u22 = c * uj2 - s * ui2;
+        }
+        {
+            final double h = Math.sqrt( b11 * b11 + b21 * b21 );
+            final double c = h == 0 ? 1 : b11 / h;
+            final double s = h == 0 ? 0 : b21 / h;
+            final double bi1 = b11, bj1 = b21;
+            b11 = c * bi1 + s * bj1;
+            b21 = c * bj1 - s * bi1;
+            final double bi2 = b12, bj2 = b22;
+            b12 = c * bi2 + s * bj2;
+            b22 = c * bj2 - s * bi2;
+            final double ui0 = u01, uj0 = u02;
+            u01 = c * ui0 + s * uj0;
+            u02 = c * uj0 - s * ui0;
+            final double ui1 = u11, uj1 = u12;
+            u11 = c * ui1 + s * uj1;
+            u12 = c * uj1 - s * ui1;
+            final double ui2 = u21, uj2 = u22;
+            u21 = c * ui2 + s * uj2;
+            u22 = c * uj2 - s * ui2;
+        }
+
+        if( polar ) {
+            final double s0 = b00, s1 = b11, s2 = b22;
+            outA.m00 = u00 * v00 + u01 * v01 + u02 * v02;
+            outA.m01 = u00 * v10 + u01 * v11 + u02 * v12;
+            outA.m02 = u00 * v20 + u01 * v21 + u02 * v22;
+            outA.m10 = u10 * v00 + u11 * v01 + u12 * v02;
+            outA.m11 = u10 * v10 + u11 * v11 + u12 * v12;
+            outA.m12 = u10 * v20 + u11 * v21 + u12 * v22;
+            outA.m20 = u20 * v00 + u21 * v01 + u22 * v02;
+            outA.m21 = u20 * v10 + u21 * v11 + u22 * v12;
+            outA.m22 = u20 * v20 + u21 * v21 + u22 * v22;
+            if( outB != null ) {
+                outB.m00 = v00 * s0 * v00 + v01 * s1 * v01 + v02 * s2 * v02;
+                outB.m01 = v00 * s0 * v10 + v01 * s1 * v11 + v02 * s2 * v12;
+                outB.m02 = v00 * s0 * v20 + v01 * s1 * v21 + v02 * s2 * v22;
+                outB.m10 = v10 * s0 * v00 + v11 * s1 * v01 + v12 * s2 * v02;
+                outB.m11 = v10 * s0 * v10 + v11 * s1 * v11 + v12 * s2 * v12;
+                outB.m12 = v10 * s0 * v20 + v11 * s1 * v21 + v12 * s2 * v22;
+                outB.m20 = v20 * s0 * v00 + v21 * s1 * v01 + v22 * s2 * v02;
+                outB.m21 = v20 * s0 * v10 + v21 * s1 * v11 + v22 * s2 * v12;
+                outB.m22 = v20 * s0 * v20 + v21 * s1 * v21 + v22 * s2 * v22;
+            }
+            return;
+        }
+
+        outA.m00 = u00;
+        outA.m01 = u01;
+        outA.m02 = u02;
+        outA.m10 = u10;
+        outA.m11 = u11;
+        outA.m12 = u12;
+        outA.m20 = u20;
+        outA.m21 = u21;
+        outA.m22 = u22;
+        outSigma.x = b00;
+        outSigma.y = b11;
+        outSigma.z = b22;
+        outB.m00 = v00;
+        outB.m01 = v01;
+        outB.m02 = v02;
+        outB.m10 = v10;
+        outB.m11 = v11;
+        outB.m12 = v12;
+        outB.m20 = v20;
+        outB.m21 = v21;
+        outB.m22 = v22;
+    }
+
+
+    /**
+     * Jacobi eigensolver shared by symmetricEigen and svd3. Rotations are accumulated as a
+     * quaternion, and eigenvalues are sorted in decreasing order while keeping the basis a rotation.
+     *
+     * @param outValues Receives eigenvalues. May be {@code null}.
+     */
+    private static void symmetricEigen3( float s00, float s01, float s02,
+                                         float s11, float s12,
+                                         float s22,
+                                         Vec3 outValues, Mat3 outVectors ) {
+        float qx = 0, qy = 0, qz = 0, qw = 1;
+        for( int sweep = 0; sweep < JACOBI_SWEEPS; sweep++ ) {
+            if( s01 * s01 + s02 * s02 + s12 * s12 <= FEPS * FEPS * ( s00 * s00 + s11 * s11 + s22 * s22 ) ) {
+                break;
+            }
+            if( s01 != 0 ) {
+                final float tau = ( s11 - s00 ) / ( 2 * s01 );
+                final float t   = ( tau >= 0 ? 1 : -1 ) / ( Math.abs( tau ) + (float)Math.sqrt( 1 + tau * tau ) );
+                final float c   = 1 / (float)Math.sqrt( 1 + t * t );
+                final float s   = t * c;
+                final float rp  = s02;
+                final float rq  = s12;
+                s00 -= t * s01;
+                s11 += t * s01;
+                s01 = 0;
+                s02 = c * rp - s * rq;
+                s12 = s * rp + c * rq;
+                final float ch = (float)Math.sqrt( 0.5f * ( 1 + c ) );
+                final float sh = 0.5f * s / ch;
+                final float x = qx, y = qy, z = qz, w = qw;
+                qx = x * ch - y * sh;
+                qy = x * sh + y * ch;
+                qz = z * ch - w * sh;
+                qw = w * ch + z * sh;
+            }
+            if( s12 != 0 ) {
+                final float tau = ( s22 - s11 ) / ( 2 * s12 );
+                final float t   = ( tau >= 0 ? 1 : -1 ) / ( Math.abs( tau ) + (float)Math.sqrt( 1 + tau * tau ) );
+                final float c   = 1 / (float)Math.sqrt( 1 + t * t );
+                final float s   = t * c;
+                final float rp  = s01;
+                final float rq  = s02;
+                s11 -= t * s12;
+                s22 += t * s12;
+                s12 = 0;
+                s01 = c * rp - s * rq;
+                s02 = s * rp + c * rq;
+                final float ch = (float)Math.sqrt( 0.5f * ( 1 + c ) );
+                final float sh = 0.5f * s / ch;
+                final float x = qx, y = qy, z = qz, w = qw;
+                qx = x * ch - w * sh;
+                qy = y * ch - z * sh;
+                qz = z * ch + y * sh;
+                qw = w * ch + x * sh;
+            }
+            if( s02 != 0 ) {
+                final float tau = ( s22 - s00 ) / ( 2 * s02 );
+                final float t   = ( tau >= 0 ? 1 : -1 ) / ( Math.abs( tau ) + (float)Math.sqrt( 1 + tau * tau ) );
+                final float c   = 1 / (float)Math.sqrt( 1 + t * t );
+                final float s   = t * c;
+                final float rp  = s01;
+                final float rq  = s12;
+                s00 -= t * s02;
+                s22 += t * s02;
+                s02 = 0;
+                s01 = c * rp - s * rq;
+                s12 = s * rp + c * rq;
+                final float ch = (float)Math.sqrt( 0.5f * ( 1 + c ) );
+                final float sh = 0.5f * s / ch;
+                final float x = qx, y = qy, z = qz, w = qw;
+                qx = x * ch - z * sh;
+                qy = y * ch + w * sh;
+                qz = z * ch + x * sh;
+                qw = w * ch - y * sh;
+            }
+        }
+        final float qn = 1 / (float)Math.sqrt( qx * qx + qy * qy + qz * qz + qw * qw );
+        qx *= qn;
+        qy *= qn;
+        qz *= qn;
+        qw *= qn;
+        float v00 = 1 - 2 * ( qy * qy + qz * qz );
+        float v10 =     2 * ( qx * qy + qz * qw );
+        float v20 =     2 * ( qx * qz - qy * qw );
+        float v01 =     2 * ( qx * qy - qz * qw );
+        float v11 = 1 - 2 * ( qx * qx + qz * qz );
+        float v21 =     2 * ( qy * qz + qx * qw );
+        float v02 =     2 * ( qx * qz + qy * qw );
+        float v12 =     2 * ( qy * qz - qx * qw );
+        float v22 = 1 - 2 * ( qx * qx + qy * qy );
+
+        // Sort by decreasing eigenvalue, keeping basis a rotation.
+        float tmp;
+        if( s00 < s11 ) {
+            tmp = v00; v00 = v01; v01 = -tmp;
+            tmp = v10; v10 = v11; v11 = -tmp;
+            tmp = v20; v20 = v21; v21 = -tmp;
+            tmp = s00; s00 = s11; s11 = tmp;
+        }
+        if( s00 < s22 ) {
+            tmp = v00; v00 = v02; v02 = -tmp;
+            tmp = v10; v10 = v12; v12 = -tmp;
+            tmp = v20; v20 = v22; v22 = -tmp;
+            tmp = s00; s00 = s22; s22 = tmp;
+        }
+        if( s11 < s22 ) {
+            tmp = v01; v01 = v02; v02 = -tmp;
+            tmp = v11; v11 = v12; v12 = -tmp;
+            tmp = v21; v21 = v22; v22 = -tmp;
+            tmp = s11; s11 = s22; s22 = tmp;
+        }
+
+        if( outValues != null ) {
+            outValues.x = s00;
+            outValues.y = s11;
+            outValues.z = s22;
+        }
+        outVectors.m00 = v00;
+        outVectors.m01 = v01;
+        outVectors.m02 = v02;
+        outVectors.m10 = v10;
+        outVectors.m11 = v11;
+        outVectors.m12 = v12;
+        outVectors.m20 = v20;
+        outVectors.m21 = v21;
+        outVectors.m22 = v22;
+    }
+
+
+    /**
+     * Jacobi eigensolver shared by symmetricEigen and svd3. Rotations are accumulated as a
+     * quaternion, and eigenvalues are sorted in decreasing order while keeping the basis a rotation.
+     *
+     * @param outValues Receives eigenvalues. May be {@code null}.
+     */
+    private static void symmetricEigen3( double s00, double s01, double s02,
+                                         double s11, double s12,
+                                         double s22,
+                                         Vec3d outValues, Mat3d outVectors ) {
+        double qx = 0, qy = 0, qz = 0, qw = 1;
+        for( int sweep = 0; sweep < JACOBI_SWEEPS; sweep++ ) {
+            if( s01 * s01 + s02 * s02 + s12 * s12 <= EPS * EPS * ( s00 * s00 + s11 * s11 + s22 * s22 ) ) {
+                break;
+            }
+            if( s01 != 0 ) {
+                final double tau = ( s11 - s00 ) / ( 2 * s01 );
+                final double t   = ( tau >= 0 ? 1 : -1 ) / ( Math.abs( tau ) + Math.sqrt( 1 + tau * tau ) );
+                final double c   = 1 / Math.sqrt( 1 + t * t );
+                final double s   = t * c;
+                final double rp  = s02;
+                final double rq  = s12;
+                s00 -= t * s01;
+                s11 += t * s01;
+                s01 = 0;
+                s02 = c * rp - s * rq;
+                s12 = s * rp + c * rq;
+                final double ch = Math.sqrt( 0.5 * ( 1 + c ) );
+                final double sh = 0.5 * s / ch;
+                final double x = qx, y = qy, z = qz, w = qw;
+                qx = x * ch - y * sh;
+                qy = x * sh + y * ch;
+                qz = z * ch - w * sh;
+                qw = w * ch + z * sh;
+            }
+            if( s12 != 0 ) {
+                final double tau = ( s22 - s11 ) / ( 2 * s12 );
+                final double t   = ( tau >= 0 ? 1 : -1 ) / ( Math.abs( tau ) + Math.sqrt( 1 + tau * tau ) );
+                final double c   = 1 / Math.sqrt( 1 + t * t );
+                final double s   = t * c;
+                final double rp  = s01;
+                final double rq  = s02;
+                s11 -= t * s12;
+                s22 += t * s12;
+                s12 = 0;
+                s01 = c * rp - s * rq;
+                s02 = s * rp + c * rq;
+                final double ch = Math.sqrt( 0.5 * ( 1 + c ) );
+                final double sh = 0.5 * s / ch;
+                final double x = qx, y = qy, z = qz, w = qw;
+                qx = x * ch - w * sh;
+                qy = y * ch - z * sh;
+                qz = z * ch + y * sh;
+                qw = w * ch + x * sh;
+            }
+            if( s02 != 0 ) {
+                final double tau = ( s22 - s00 ) / ( 2 * s02 );
+                final double t   = ( tau >= 0 ? 1 : -1 ) / ( Math.abs( tau ) + Math.sqrt( 1 + tau * tau ) );
+                final double c   = 1 / Math.sqrt( 1 + t * t );
+                final double s   = t * c;
+                final double rp  = s01;
+                final double rq  = s12;
+                s00 -= t * s02;
+                s22 += t * s02;
+                s02 = 0;
+                s01 = c * rp - s * rq;
+                s12 = s * rp + c * rq;
+                final double ch = Math.sqrt( 0.5 * ( 1 + c ) );
+                final double sh = 0.5 * s / ch;
+                final double x = qx, y = qy, z = qz, w = qw;
+                qx = x * ch - z * sh;
+                qy = y * ch + w * sh;
+                qz = z * ch + x * sh;
+                qw = w * ch - y * sh;
+            }
+        }
+        final double qn = 1 / Math.sqrt( qx * qx + qy * qy + qz * qz + qw * qw );
+        qx *= qn;
+        qy *= qn;
+        qz *= qn;
+        qw *= qn;
+        double v00 = 1 - 2 * ( qy * qy + qz * qz );
+        double v10 =     2 * ( qx * qy + qz * qw );
+        double v20 =     2 * ( qx * qz - qy * qw );
+        double v01 =     2 * ( qx * qy - qz * qw );
+        double v11 = 1 - 2 * ( qx * qx + qz * qz );
+        double v21 =     2 * ( qy * qz + qx * qw );
+        double v02 =     2 * ( qx * qz + qy * qw );
+        double v12 =     2 * ( qy * qz - qx * qw );
+        double v22 = 1 - 2 * ( qx * qx + qy * qy );
+
+        // Sort by decreasing eigenvalue, keeping basis a rotation.
+        double tmp;
+        if( s00 < s11 ) {
+            tmp = v00; v00 = v01; v01 = -tmp;
+            tmp = v10; v10 = v11; v11 = -tmp;
+            tmp = v20; v20 = v21; v21 = -tmp;
+            tmp = s00; s00 = s11; s11 = tmp;
+        }
+        if( s00 < s22 ) {
+            tmp = v00; v00 = v02; v02 = -tmp;
+            tmp = v10; v10 = v12; v12 = -tmp;
+            tmp = v20; v20 = v22; v22 = -tmp;
+            tmp = s00; s00 = s22; s22 = tmp;
+        }
+        if( s11 < s22 ) {
+            tmp = v01; v01 = v02; v02 = -tmp;
+            tmp = v11; v11 = v12; v12 = -tmp;
+            tmp = v21; v21 = v22; v22 = -tmp;
+            tmp = s11; s11 = s22; s22 = tmp;
+        }
+
+        if( outValues != null ) {
+            outValues.x = s00;
+            outValues.y = s11;
+            outValues.z = s22;
+        }
+        outVectors.m00 = v00;
+        outVectors.m01 = v01;
+        outVectors.m02 = v02;
+        outVectors.m10 = v10;
+        outVectors.m11 = v11;
+        outVectors.m12 = v12;
+        outVectors.m20 = v20;
+        outVectors.m21 = v21;
+        outVectors.m22 = v22;
+    }
+
+
+    private static final int POLAR_MAX_ITERS = 16;
+    private static final int JACOBI_SWEEPS   = 8;
+
 
     private Mat() {}
 
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import static bits.vec.Convolutions.*;
+
+
+/**
+ * Running min and max filters (erosion and dilation with flat, rectangular
+ * structuring elements).
+ * <p>
+ * Uses the van Herk/Gil-Werman algorithm, which costs about three comparisons
+ * per sample regardless of window size. Window placement, strides and
+ * border behaviors follow the same conventions as {@link Convolutions}: the
+ * output sample at {@code col} covers source samples
+ * {@code [col - win/2, col - win/2 + win)}.
+ * <p>
+ * Because each row is copied into a work buffer before filtering, {@code src}
+ * and {@code dst} may be the same array.
+ *
+ * @author Philip DeCamp
+ */
+public final class Morphology {
+
+    /**
+     * Computes the minimum of each window along the x-axis of a 2-dimensional matrix.
+     *
+     * @param src            Source matrix.
+     * @param srcOff         Offset into source array.
+     * @param w              Width of source matrix.
+     * @param h              Height of source matrix.
+     * @param xStride        Number of array indices between a sample and the sample to the left.
+     * @param yStride        Number of array indices between a sample and the sample above.
+     * @param win            Window length. Must be positive.
+     * @param borderBehavior Specifies how to treat borders. See Convolutions.BORDER_* constants.
+     * @param borderConstant Value used for BORDER_CONSTANT.
+     * @param dst            Array to hold output matrix. Must use same xStride and yStride as src.
+     * @param dstOff         Offset into dst array.
+     */
+    public static void erode1(
+            float[] src,
+            int srcOff,
+            int w,
+            int h,
+            int xStride,
+            int yStride,
+            int win,
+            int borderBehavior,
+            float borderConstant,
+            float[] dst,
+            int dstOff
+    ) {
+        filter1( src, srcOff, w, h, xStride, yStride, win, borderBehavior, borderConstant, false, null, dst, dstOff );
+    }
+
+    /**
+     * Computes the maximum of each window along the x-axis of a 2-dimensional matrix.
+     *
+     * @see #erode1
+     */
+    public static void dilate1(
+            float[] src,
+            int srcOff,
+            int w,
+            int h,
+            int xStride,
+            int yStride,
+            int win,
+            int borderBehavior,
+            float borderConstant,
+            float[] dst,
+            int dstOff
+    ) {
+        filter1( src, srcOff, w, h, xStride, yStride, win, borderBehavior, borderConstant, true, null, dst, dstOff );
+    }
+
+    /**
+     * Computes the minimum over a {@code winW x winH} rectangle around each sample.
+     * The filter is separable, so this costs two passes of {@link #erode1}.
+     *
+     * @param src            Source matrix.
+     * @param srcOff         Offset into source array.
+     * @param w              Width of source matrix.
+     * @param h              Height of source matrix.
+     * @param xStride        Number of array indices between a sample and the sample to the left.
+     * @param yStride        Number of array indices between a sample and the sample above.
+     * @param winW           Window width. Must be positive.
+     * @param winH           Window height. Must be positive.
+     * @param borderBehavior Specifies how to treat borders. See Convolutions.BORDER_* constants.
+     * @param borderConstant Value used for BORDER_CONSTANT.
+     * @param dst            Array to hold output matrix. Must use same xStride and yStride as src.
+     * @param dstOff         Offset into dst array.
+     */
+    public static void erode2(
+            float[] src,
+            int srcOff,
+            int w,
+            int h,
+            int xStride,
+            int yStride,
+            int winW,
+            int winH,
+            int borderBehavior,
+            float borderConstant,
+            float[] dst,
+            int dstOff
+    ) {
+        float[] work = new float[ 3 * ( Math.max( w + winW, h + winH ) ) ];
+        filter1( src, srcOff, w, h, xStride, yStride, winW, borderBehavior, borderConstant, false, work, dst, dstOff );
+        filter1( dst, dstOff, h, w, yStride, xStride, winH, borderBehavior, borderConstant, false, work, dst, dstOff );
+    }
+
+    /**
+     * Computes the maximum over a {@code winW x winH} rectangle around each sample.
+     *
+     * @see #erode2
+     */
+    public static void dilate2(
+            float[] src,
+            int srcOff,
+            int w,
+            int h,
+            int xStride,
+            int yStride,
+            int winW,
+            int winH,
+            int borderBehavior,
+            float borderConstant,
+            float[] dst,
+            int dstOff
+    ) {
+        float[] work = new float[ 3 * ( Math.max( w + winW, h + winH ) ) ];
+        filter1( src, srcOff, w, h, xStride, yStride, winW, borderBehavior, borderConstant, true, work, dst, dstOff );
+        filter1( dst, dstOff, h, w, yStride, xStride, winH, borderBehavior, borderConstant, true, work, dst, dstOff );
+    }
+
+    /**
+     * Maps a column that may lie outside of {@code [0,w)} onto a source column.
+     *
+     * @return source column, or -1 if the sample comes from a border constant.
+     */
+    static int borderCol( int col, int w, int borderBehavior ) {
+        if( col >= 0 && col < w ) {
+            return col;
+        }
+
+        switch( borderBehavior ) {
+        case BORDER_ZERO:
+        case BORDER_CONSTANT:
+            return -1;
+
+        case BORDER_REPEAT:
+            return col < 0 ? 0 : w - 1;
+
+        case BORDER_REFLECT_INNER:
+        {
+            if( w == 1 ) {
+                return 0;
+            }
+            int cycle = 2 * ( w - 1 );
+            col = mod( col, cycle );
+            return col < w ? col : cycle - col;
+        }
+
+        case BORDER_REFLECT_OUTER:
+        {
+            int cycle = 2 * w;
+            col = mod( col, cycle );
+            return col < w ? col : cycle - 1 - col;
+        }
+
+        case BORDER_WRAP:
+            return mod( col, w );
+
+        default:
+            throw new IllegalArgumentException( "Unknown border behavior: " + borderBehavior );
+        }
+    }
+
+
+    private static void filter1(
+            float[] src,
+            int srcOff,
+            int w,
+            int h,
+            int xStride,
+            int yStride,
+            int win,
+            int borderBehavior,
+            float borderConstant,
+            boolean isMax,
+            float[] work,
+            float[] dst,
+            int dstOff
+    ) {
+        if( win <= 0 ) {
+            throw new IllegalArgumentException( "Window length must be positive: " + win );
+        }
+        if( w <= 0 || h <= 0 ) {
+            return;
+        }
+
+        final float fill = borderBehavior == BORDER_ZERO ? 0f : borderConstant;
+        final int left   = win / 2;
+        final int extLen = w + win - 1;
+
+        if( work == null || work.length < 3 * extLen ) {
+            work = new float[ 3 * extLen ];
+        }
+
+        // Padded row is stored in [0,extLen), prefix extrema in [extLen,2*extLen),
+        // and suffix extrema in [2*extLen,3*extLen).
+        final int gOff = extLen;
+        final int hOff = extLen * 2;
+
+        for( int row = 0; row < h; row++ ) {
+            final int srcRowInd = row * yStride + srcOff;
+            final int dstRowInd = row * yStride + dstOff;
+
+            // Copy row into work buffer, resolving borders.
+            for( int i = 0; i < extLen; i++ ) {
+                int col = borderCol( i - left, w, borderBehavior );
+                work[i] = col < 0 ? fill : src[ col * xStride + srcRowInd ];
+            }
+
+            if( isMax ) {
+                for( int b0 = 0; b0 < extLen; b0 += win ) {
+                    final int b1 = Math.min( b0 + win, extLen );
+                    float v = work[b0];
+                    work[gOff + b0] = v;
+                    for( int i = b0 + 1; i < b1; i++ ) {
+                        float s = work[i];
+                        v = s > v ? s : v;
+                        work[gOff + i] = v;
+                    }
+                    v = work[b1 - 1];
+                    work[hOff + b1 - 1] = v;
+                    for( int i = b1 - 2; i >= b0; i-- ) {
+                        float s = work[i];
+                        v = s > v ? s : v;
+                        work[hOff + i] = v;
+                    }
+                }
+
+                for( int col = 0; col < w; col++ ) {
+                    float a = work[hOff + col];
+                    float b = work[gOff + col + win - 1];
+                    dst[ col * xStride + dstRowInd ] = a > b ? a : b;
+                }
+
+            } else {
+                for( int b0 = 0; b0 < extLen; b0 += win ) {
+                    final int b1 = Math.min( b0 + win, extLen );
+                    float v = work[b0];
+                    work[gOff + b0] = v;
+                    for( int i = b0 + 1; i < b1; i++ ) {
+                        float s = work[i];
+                        v = s < v ? s : v;
+                        work[gOff + i] = v;
+                    }
+                    v = work[b1 - 1];
+                    work[hOff + b1 - 1] = v;
+                    for( int i = b1 - 2; i >= b0; i-- ) {
+                        float s = work[i];
+                        v = s < v ? s : v;
+                        work[hOff + i] = v;
+                    }
+                }
+
+                for( int col = 0; col < w; col++ ) {
+                    float a = work[hOff + col];
+                    float b = work[gOff + col + win - 1];
+                    dst[ col * xStride + dstRowInd ] = a < b ? a : b;
+                }
+            }
+        }
+    }
+
+
+    private static int mod( int a, int b ) {
+        int m = a % b;
+        return m < 0 ? m + b : m;
+    }
+
+
+    private Morphology() {}
+
+}
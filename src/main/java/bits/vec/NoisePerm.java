@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Random;
+
+
+/**
+ * Permutation table used to hash lattice coordinates for procedural noise.
+ * <p>
+ * Tables are immutable after construction and may be shared freely between threads
+ * and between noise generators. Two generators built on equal tables produce
+ * identical output.
+ *
+ * @author Philip DeCamp
+ */
+public final class NoisePerm {
+
+    /**
+     * Ken Perlin's reference permutation. Used by the static {@link SimplexNoise} methods.
+     */
+    public static final NoisePerm DEFAULT = new NoisePerm( new int[]{
+            151, 160, 137, 91, 90, 15, 131, 13, 201,
+            95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142, 8, 99, 37,
+            240, 21, 10, 23, 190, 6, 148, 247, 120, 234, 75, 0, 26, 197, 62,
+            94, 252, 219, 203, 117, 35, 11, 32, 57, 177, 33, 88, 237, 149, 56,
+            87, 174, 20, 125, 136, 171, 168, 68, 175, 74, 165, 71, 134, 139,
+            48, 27, 166, 77, 146, 158, 231, 83, 111, 229, 122, 60, 211, 133,
+            230, 220, 105, 92, 41, 55, 46, 245, 40, 244, 102, 143, 54, 65, 25,
+            63, 161, 1, 216, 80, 73, 209, 76, 132, 187, 208, 89, 18, 169, 200,
+            196, 135, 130, 116, 188, 159, 86, 164, 100, 109, 198, 173, 186, 3,
+            64, 52, 217, 226, 250, 124, 123, 5, 202, 38, 147, 118, 126, 255,
+            82, 85, 212, 207, 206, 59, 227, 47, 16, 58, 17, 182, 189, 28, 42,
+            223, 183, 170, 213, 119, 248, 152, 2, 44, 154, 163, 70, 221, 153,
+            101, 155, 167, 43, 172, 9, 129, 22, 39, 253, 19, 98, 108, 110, 79,
+            113, 224, 232, 178, 185, 112, 104, 218, 246, 97, 228, 251, 34, 242,
+            193, 238, 210, 144, 12, 191, 179, 162, 241, 81, 51, 145, 235, 249,
+            14, 239, 107, 49, 192, 214, 31, 181, 199, 106, 157, 184, 84, 204,
+            176, 115, 121, 50, 45, 127, 4, 150, 254, 138, 236, 205, 93, 222,
+            114, 67, 29, 24, 72, 243, 141, 128, 195, 78, 66, 215, 61, 156, 180 } );
+
+
+    /**
+     * Permutation of [0,256), repeated twice so that sums of two table entries
+     * can be used as indices without masking.
+     */
+    final int[] mPerm      = new int[512];
+    /** {@code mPerm[i] % 12}, for selecting among 12 gradients. **/
+    final int[] mPermMod12 = new int[512];
+
+
+    /**
+     * Creates a table by shuffling [0,256) with {@code java.util.Random}.
+     *
+     * @param seed Random seed. Equal seeds produce equal tables.
+     */
+    public NoisePerm( long seed ) {
+        Random rand = new Random( seed );
+        int[] p = new int[256];
+        for( int i = 0; i < 256; i++ ) {
+            p[i] = i;
+        }
+        for( int i = 255; i > 0; i-- ) {
+            int j = rand.nextInt( i + 1 );
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        init( p );
+    }
+
+    /**
+     * @param perm256 Permutation of the integers [0,256).
+     * @throws IllegalArgumentException if {@code perm256} is not a permutation of [0,256).
+     */
+    public NoisePerm( int[] perm256 ) {
+        if( perm256.length != 256 ) {
+            throw new IllegalArgumentException( "Permutation must have 256 entries." );
+        }
+        boolean[] seen = new boolean[256];
+        for( int v : perm256 ) {
+            if( v < 0 || v > 255 || seen[v] ) {
+                throw new IllegalArgumentException( "Not a permutation of [0,256)." );
+            }
+            seen[v] = true;
+        }
+        init( perm256 );
+    }
+
+    /**
+     * @return entry {@code i & 0xFF} of the permutation.
+     */
+    public int perm( int i ) {
+        return mPerm[ i & 0xFF ];
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        if( !( obj instanceof NoisePerm ) ) {
+            return false;
+        }
+        int[] a = mPerm;
+        int[] b = ((NoisePerm)obj).mPerm;
+        for( int i = 0; i < 256; i++ ) {
+            if( a[i] != b[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for( int i = 0; i < 256; i++ ) {
+            hash = hash * 31 + mPerm[i];
+        }
+        return hash;
+    }
+
+
+    private void init( int[] perm256 ) {
+        for( int i = 0; i < 512; i++ ) {
+            int v = perm256[ i & 0xFF ];
+            mPerm[i]      = v;
+            mPermMod12[i] = v % 12;
+        }
+    }
+
+}
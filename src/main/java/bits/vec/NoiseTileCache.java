@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+
+/**
+ * Caches fixed-size square tiles of noise that are generated on demand.
+ * <p>
+ * Tiles are held in a least-recently-used map bounded by a byte budget. When several
+ * threads request a tile that is not yet cached, it is generated once by the first
+ * thread, and the others wait for that result. Generation happens outside the cache
+ * lock, so different tiles may be generated concurrently.
+ * <p>
+ * Returned tile arrays are shared between callers and must not be modified.
+ *
+ * @author Philip DeCamp
+ */
+public class NoiseTileCache {
+
+    /**
+     * Generates the contents of a tile.
+     */
+    public interface Source {
+        /**
+         * @param tileX Tile column
+         * @param tileY Tile row
+         * @param size  Width and height of tile in samples
+         * @param out   Receives {@code size * size} samples in row-major order
+         */
+        void fillTile( int tileX, int tileY, int size, float[] out );
+    }
+
+
+    /**
+     * Creates a source that samples 2D simplex noise. Sample {@code (col,row)} of the
+     * lattice, which is sample {@code (col % size, row % size)} of tile {@code (col / size, row / size)},
+     * is located at {@code (col * step, row * step)}.
+     */
+    public static Source simplexSource( final SimplexNoised noise, final double step ) {
+        return new Source() {
+            @Override
+            public void fillTile( int tileX, int tileY, int size, float[] out ) {
+                noise.fill2( (double)tileX * size * step, (double)tileY * size * step, step, step, size, size, out, 0 );
+            }
+        };
+    }
+
+    /**
+     * Creates a source that samples 2D fractal noise, located as in {@link #simplexSource}.
+     * The FractalNoise must not be modified while the cache is in use.
+     */
+    public static Source fractalSource( final FractalNoise noise, final double step ) {
+        return new Source() {
+            @Override
+            public void fillTile( int tileX, int tileY, int size, float[] out ) {
+                noise.fill2( (double)tileX * size * step, (double)tileY * size * step, step, step, size, size, out, 0, null );
+            }
+        };
+    }
+
+
+    private final Source mSource;
+    private final int mTileSize;
+    private final long mTileBytes;
+    private final long mMaxBytes;
+
+    // All fields below are guarded by mMap.
+    private final LinkedHashMap<Long, FutureTask<float[]>> mMap;
+    private long mBytes     = 0;
+    private long mHits      = 0;
+    private long mMisses    = 0;
+    private long mEvictions = 0;
+
+
+    /**
+     * @param source   Generates tile contents
+     * @param tileSize Width and height of each tile in samples
+     * @param maxBytes Maximum number of bytes of sample data held by the cache. Must fit at least one tile.
+     */
+    public NoiseTileCache( Source source, int tileSize, long maxBytes ) {
+        if( tileSize <= 0 ) {
+            throw new IllegalArgumentException( "Invalid tile size: " + tileSize );
+        }
+        mSource    = source;
+        mTileSize  = tileSize;
+        mTileBytes = 4L * tileSize * tileSize;
+        mMaxBytes  = maxBytes;
+        if( maxBytes < mTileBytes ) {
+            throw new IllegalArgumentException( "Byte budget smaller than a single tile." );
+        }
+        mMap = new LinkedHashMap<Long, FutureTask<float[]>>( 16, 0.75f, true );
+    }
+
+
+
+    public int tileSize() {
+        return mTileSize;
+    }
+
+    /**
+     * Retrieves a tile, generating it if necessary.
+     *
+     * @param tileX Tile column
+     * @param tileY Tile row
+     * @return array of {@code tileSize() * tileSize()} samples in row-major order. Must not be modified.
+     */
+    public float[] tile( final int tileX, final int tileY ) {
+        final Long key = ( (long)tileX << 32 ) | ( tileY & 0xFFFFFFFFL );
+        FutureTask<float[]> task;
+        boolean owner = false;
+
+        synchronized( mMap ) {
+            task = mMap.get( key );
+            if( task != null ) {
+                mHits++;
+            } else {
+                mMisses++;
+                owner = true;
+                task = new FutureTask<float[]>( new Callable<float[]>() {
+                    @Override
+                    public float[] call() {
+                        float[] out = new float[mTileSize * mTileSize];
+                        mSource.fillTile( tileX, tileY, mTileSize, out );
+                        return out;
+                    }
+                } );
+                mMap.put( key, task );
+                mBytes += mTileBytes;
+                evict();
+            }
+        }
+
+        if( owner ) {
+            task.run();
+            synchronized( mMap ) {
+                evict();
+            }
+        }
+
+        try {
+            return await( task );
+        } catch( ExecutionException e ) {
+            synchronized( mMap ) {
+                if( mMap.get( key ) == task ) {
+                    mMap.remove( key );
+                    mBytes -= mTileBytes;
+                }
+            }
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException ) {
+                throw (RuntimeException)cause;
+            }
+            if( cause instanceof Error ) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException( cause );
+        }
+    }
+
+    /**
+     * Retrieves a single sample from the tiled lattice.
+     *
+     * @param col Global sample column
+     * @param row Global sample row
+     * @return sample {@code (col mod tileSize, row mod tileSize)} of tile {@code (floor(col / tileSize), floor(row / tileSize))}.
+     */
+    public float sample( long col, long row ) {
+        final int size = mTileSize;
+        long tx = col / size;
+        long ty = row / size;
+        int x = (int)( col - tx * size );
+        int y = (int)( row - ty * size );
+        if( x < 0 ) {
+            x += size;
+            tx--;
+        }
+        if( y < 0 ) {
+            y += size;
+            ty--;
+        }
+        return tile( (int)tx, (int)ty )[ x + y * size ];
+    }
+
+    /**
+     * Removes all tiles. Does not reset counters.
+     */
+    public void clear() {
+        synchronized( mMap ) {
+            mMap.clear();
+            mBytes = 0;
+        }
+    }
+
+
+    public long maxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * @return bytes of sample data currently held, including tiles being generated.
+     */
+    public long bytes() {
+        synchronized( mMap ) {
+            return mBytes;
+        }
+    }
+
+
+    public int tileCount() {
+        synchronized( mMap ) {
+            return mMap.size();
+        }
+    }
+
+    /**
+     * @return number of requests satisfied by a cached or in-progress tile.
+     */
+    public long hitCount() {
+        synchronized( mMap ) {
+            return mHits;
+        }
+    }
+
+    /**
+     * @return number of requests that caused a tile to be generated.
+     */
+    public long missCount() {
+        synchronized( mMap ) {
+            return mMisses;
+        }
+    }
+
+
+    public long evictionCount() {
+        synchronized( mMap ) {
+            return mEvictions;
+        }
+    }
+
+
+    /**
+     * Removes least recently used tiles until within budget. Must hold lock on mMap.
+     * Tiles still being generated are kept, since other threads may be waiting on them.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Long, FutureTask<float[]>>> iter = mMap.entrySet().iterator();
+        while( mBytes > mMaxBytes && iter.hasNext() ) {
+            FutureTask<float[]> task = iter.next().getValue();
+            if( task.isDone() ) {
+                iter.remove();
+                mBytes -= mTileBytes;
+                mEvictions++;
+            }
+        }
+    }
+
+
+    private static float[] await( FutureTask<float[]> task ) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while( true ) {
+                try {
+                    return task.get();
+                } catch( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
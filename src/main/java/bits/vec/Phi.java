@@ -1,5 +1,9 @@
 package bits.vec;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
 /**
  * Class contains the implementation of: <br>
  * - Normal Cumulative Distribution Function <br>
@@ -139,6 +143,128 @@ public class Phi {
     public static double erfInvFast( double y ) {
         return INV_SQRT_2 * ncdfInvFast( 0.5 * ( y + 1.0 ) );
     }
+
+    //=== Array Functions ===
+    //
+    // Each function evaluates its scalar counterpart over len consecutive values and
+    // produces bit-identical results. src and dst may be the same array if srcOff == dstOff.
+    //
+    // Values are processed in blocks. Within a block, the rational approximation for the
+    // central region is first evaluated for every element in a branch-free loop that the
+    // JIT can unroll and vectorize, and only elements outside that region take the scalar
+    // path. Versions that take a ForkJoinPool split long inputs into sections that are
+    // evaluated in parallel. A null pool runs on the calling thread.
+
+    public static void n( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            double x = src[srcOff + i];
+            dst[dstOff + i] = INV_SQRT2PI * Math.exp( -0.5 * x * x );
+        }
+    }
+
+
+    public static void ncdf( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        double[] arg = new double[BLOCK];
+        double[] buf = new double[BLOCK];
+        for( int b = 0; b < len; b += BLOCK ) {
+            ncdfBlock( src, srcOff + b, dst, dstOff + b, Math.min( BLOCK, len - b ), arg, buf );
+        }
+    }
+
+
+    public static void ncdfInv( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        double[] z   = new double[BLOCK];
+        double[] cdf = new double[BLOCK];
+        double[] arg = new double[BLOCK];
+        double[] buf = new double[BLOCK];
+
+        for( int b = 0; b < len; b += BLOCK ) {
+            final int n = Math.min( BLOCK, len - b );
+            final int s = srcOff + b;
+            final int d = dstOff + b;
+            ncdfInvFastBlock( src, s, z, n );
+            ncdfBlock( z, 0, cdf, 0, n, arg, buf );
+
+            for( int i = 0; i < n; i++ ) {
+                double y = src[s + i];
+                double r = z[i];
+                if( y > 0 && y < 1 ) {
+                    // Same refinement as refineNcdfInv().
+                    double u = ( cdf[i] - y ) * Math.sqrt( 2.0 * Math.PI ) * Math.exp( 0.5 * r * r );
+                    r = r - u / ( 1.0 + r * u / 2.0 );
+                }
+                dst[d + i] = r;
+            }
+        }
+    }
+
+
+    public static void ncdfInvFast( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        double[] buf = new double[BLOCK];
+        for( int b = 0; b < len; b += BLOCK ) {
+            final int n = Math.min( BLOCK, len - b );
+            ncdfInvFastBlock( src, srcOff + b, buf, n );
+            System.arraycopy( buf, 0, dst, dstOff + b, n );
+        }
+    }
+
+
+    public static void erf( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        double[] buf = new double[BLOCK];
+        for( int b = 0; b < len; b += BLOCK ) {
+            erfBlock( src, srcOff + b, dst, dstOff + b, Math.min( BLOCK, len - b ), buf );
+        }
+    }
+
+
+    public static void erfc( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            dst[dstOff + i] = calerf( src[srcOff + i], 1 );
+        }
+    }
+
+
+    public static void erfcx( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            dst[dstOff + i] = calerf( src[srcOff + i], 2 );
+        }
+    }
+
+
+    public static void n( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_N, src, srcOff, dst, dstOff, len ), pool );
+    }
+
+
+    public static void ncdf( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_NCDF, src, srcOff, dst, dstOff, len ), pool );
+    }
+
+
+    public static void ncdfInv( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_NCDF_INV, src, srcOff, dst, dstOff, len ), pool );
+    }
+
+
+    public static void ncdfInvFast( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_NCDF_INV_FAST, src, srcOff, dst, dstOff, len ), pool );
+    }
+
+
+    public static void erf( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_ERF, src, srcOff, dst, dstOff, len ), pool );
+    }
+
+
+    public static void erfc( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_ERFC, src, srcOff, dst, dstOff, len ), pool );
+    }
+
+
+    public static void erfcx( double[] src, int srcOff, double[] dst, int dstOff, int len, ForkJoinPool pool ) {
+        run( new BatchTask( FUNC_ERFCX, src, srcOff, dst, dstOff, len ), pool );
+    }
+
     
     
         
@@ -153,6 +279,7 @@ public class Phi {
 
     private static final double INV_SQRT_2  = 1.0 / Math.sqrt( 2.0 );
     private static final double SQRT_PI     = Math.sqrt( Math.PI );
+    private static final double INV_SQRT_PI = 1.0 / Math.sqrt( Math.PI );
     private static final double INV_SQRT2PI = 1.0 / Math.sqrt( Math.PI * 2.0 );
     private static final double P_LOW       = 0.02425;
     private static final double P_HIGH      = 1.0 - P_LOW;
@@ -245,9 +372,9 @@ public class Phi {
      * ************************************* */
 //    private static final double X_MIN   = Double.MIN_VALUE;
 //    private static final double X_INF   = Double.MAX_VALUE;
-    private static final double X_NEG   = -9.38241396824444;
+    private static final double X_NEG   = -26.628;
     private static final double X_SMALL = 1.110223024625156663E-16;
-    private static final double X_BIG   = 9.194E0;
+    private static final double X_BIG   = 26.543;
     private static final double X_HUGE  = 1 / ( 2 * Math.sqrt( X_SMALL ) );
     private static final double X_MAX   = 1 / ( SQRT_PI * Double.MIN_VALUE );
 
@@ -338,7 +465,7 @@ public class Phi {
             if( mag >= X_BIG && (type != 2 || mag >= X_MAX) ) {
 
             } else if( mag >= X_BIG && mag >= X_HUGE ) {
-                result = SQRT_PI / mag;
+                result = INV_SQRT_PI / mag;
             } else {
                 magMag = 1.0 / (mag * mag);
                 xNum = ERF_P[5] * magMag;
@@ -348,7 +475,7 @@ public class Phi {
                     xDen = (xDen + ERF_Q[i]) * magMag;
                 }
                 result = magMag * ( xNum + ERF_P[4] ) / ( xDen + ERF_Q[4] );
-                result = ( SQRT_PI - result ) / mag;
+                result = ( INV_SQRT_PI - result ) / mag;
                 if( type != 2 ) {
                     magMag = Math.round( mag * 16.0 ) / 16.0;
                     double del = (mag - magMag) * (mag + magMag);
@@ -399,4 +526,146 @@ public class Phi {
         return result;
     }
 
+    private static final int BLOCK = 256;
+
+    /** Minimum number of values evaluated by a single parallel task. **/
+    private static final int PARALLEL_MIN = 1 << 15;
+
+    private static final int FUNC_N             = 0;
+    private static final int FUNC_NCDF          = 1;
+    private static final int FUNC_NCDF_INV      = 2;
+    private static final int FUNC_NCDF_INV_FAST = 3;
+    private static final int FUNC_ERF           = 4;
+    private static final int FUNC_ERFC          = 5;
+    private static final int FUNC_ERFCX         = 6;
+
+
+    /**
+     * @param arg Scratch buffer of at least n values
+     * @param buf Scratch buffer of at least n values
+     */
+    private static void ncdfBlock( double[] src, int srcOff, double[] dst, int dstOff, int n, double[] arg, double[] buf ) {
+        for( int i = 0; i < n; i++ ) {
+            arg[i] = src[srcOff + i] * INV_SQRT_2;
+        }
+        erfBlock( arg, 0, arg, 0, n, buf );
+        for( int i = 0; i < n; i++ ) {
+            dst[dstOff + i] = 0.5 * ( 1.0 + arg[i] );
+        }
+    }
+
+    /**
+     * @param dst Receives n values starting at index 0. Must not be src.
+     */
+    private static void ncdfInvFastBlock( double[] src, int srcOff, double[] dst, int n ) {
+        final double a0 = ICDF_A[0], a1 = ICDF_A[1], a2 = ICDF_A[2], a3 = ICDF_A[3], a4 = ICDF_A[4], a5 = ICDF_A[5];
+        final double b0 = ICDF_B[0], b1 = ICDF_B[1], b2 = ICDF_B[2], b3 = ICDF_B[3], b4 = ICDF_B[4];
+
+        for( int i = 0; i < n; i++ ) {
+            double q = src[srcOff + i] - 0.5D;
+            double r = q * q;
+            dst[i] = ( ( ( ( ( a0 * r + a1 ) * r + a2 ) * r + a3 ) * r + a4 ) * r + a5 ) * q /
+                     ( ( ( ( ( b0 * r + b1 ) * r + b2 ) * r + b3 ) * r + b4 ) * r + 1 );
+        }
+
+        for( int i = 0; i < n; i++ ) {
+            double y = src[srcOff + i];
+            if( !( y >= P_LOW && y <= P_HIGH ) ) {
+                dst[i] = ncdfInvFast( y );
+            }
+        }
+    }
+
+    /**
+     * @param buf Scratch buffer of at least n values. Must not be src or dst.
+     */
+    private static void erfBlock( double[] src, int srcOff, double[] dst, int dstOff, int n, double[] buf ) {
+        final double a0 = ERF_A[0], a1 = ERF_A[1], a2 = ERF_A[2], a3 = ERF_A[3], a4 = ERF_A[4];
+        final double b0 = ERF_B[0], b1 = ERF_B[1], b2 = ERF_B[2], b3 = ERF_B[3];
+
+        // Same operations as first interval of calerf(), unrolled.
+        for( int i = 0; i < n; i++ ) {
+            double x   = src[srcOff + i];
+            double mag = Math.abs( x );
+            double m   = mag > X_SMALL ? mag * mag : 0.0;
+            double num = ( ( ( a4 * m + a0 ) * m + a1 ) * m + a2 ) * m;
+            double den = ( ( ( m + b0 ) * m + b1 ) * m + b2 ) * m;
+            buf[i] = x * ( num + a3 ) / ( den + b3 );
+        }
+
+        for( int i = 0; i < n; i++ ) {
+            double x = src[srcOff + i];
+            dst[dstOff + i] = Math.abs( x ) <= THRESHOLD ? buf[i] : calerf( x, 0 );
+        }
+    }
+
+
+    private static void runSerial( int func, double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        switch( func ) {
+        case FUNC_N:
+            n( src, srcOff, dst, dstOff, len );
+            break;
+        case FUNC_NCDF:
+            ncdf( src, srcOff, dst, dstOff, len );
+            break;
+        case FUNC_NCDF_INV:
+            ncdfInv( src, srcOff, dst, dstOff, len );
+            break;
+        case FUNC_NCDF_INV_FAST:
+            ncdfInvFast( src, srcOff, dst, dstOff, len );
+            break;
+        case FUNC_ERF:
+            erf( src, srcOff, dst, dstOff, len );
+            break;
+        case FUNC_ERFC:
+            erfc( src, srcOff, dst, dstOff, len );
+            break;
+        default:
+            erfcx( src, srcOff, dst, dstOff, len );
+            break;
+        }
+    }
+
+
+    private static void run( BatchTask task, ForkJoinPool pool ) {
+        if( pool == null ) {
+            task.compute();
+        } else {
+            pool.invoke( task );
+        }
+    }
+
+
+    @SuppressWarnings( "serial" )
+    private static final class BatchTask extends RecursiveAction {
+
+        final int mFunc;
+        final double[] mSrc;
+        final int mSrcOff;
+        final double[] mDst;
+        final int mDstOff;
+        final int mLen;
+
+        BatchTask( int func, double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+            mFunc   = func;
+            mSrc    = src;
+            mSrcOff = srcOff;
+            mDst    = dst;
+            mDstOff = dstOff;
+            mLen    = len;
+        }
+
+        @Override
+        protected void compute() {
+            if( mLen > PARALLEL_MIN && getPool() != null ) {
+                // Split on block boundaries.
+                int half = ( mLen / 2 + BLOCK - 1 ) / BLOCK * BLOCK;
+                invokeAll( new BatchTask( mFunc, mSrc, mSrcOff, mDst, mDstOff, half ),
+                           new BatchTask( mFunc, mSrc, mSrcOff + half, mDst, mDstOff + half, mLen - half ) );
+                return;
+            }
+            runSerial( mFunc, mSrc, mSrcOff, mDst, mDstOff, mLen );
+        }
+    }
+
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Arrays;
+
+
+/**
+ * Table-driven approximations of the error function and the normal CDF with a selectable
+ * maximum absolute error.
+ * <p>
+ * Each function is represented by uniform segments, each holding a polynomial fit
+ * to the precise {@link Phi} implementation at Chebyshev nodes. An evaluation costs one
+ * table lookup and a short Horner loop. The inverse CDF is fit over {@code p} in the
+ * central region and over {@code sqrt(-2 ln p)} in the tails, where it is nearly linear.
+ * <p>
+ * Segment counts are chosen at construction by doubling until the error measured
+ * between nodes is at most half the requested bound. Construction therefore takes a few
+ * milliseconds, so instances should be shared. They are immutable and thread-safe.
+ * {@link #forError(double)} returns shared instances for the standard bounds.
+ * <p>
+ * The bound is on absolute error. For {@code ncdfInv}, it applies for
+ * {@code p >= 1E-300} and {@code 1 - p >= 1E-300}; beyond that, values are refined
+ * directly from {@link Phi#erfcx(double)}.
+ *
+ * @author Philip DeCamp
+ */
+public final class PhiApprox {
+
+    public static final double ERR_LOW    = 1E-4;
+    public static final double ERR_MEDIUM = 1E-7;
+    public static final double ERR_HIGH   = 1E-12;
+
+
+    /**
+     * @param maxErr Maximum absolute error required.
+     * @return shared instance for the loosest of ERR_LOW, ERR_MEDIUM or ERR_HIGH that does not exceed {@code maxErr}.
+     * @throws IllegalArgumentException if {@code maxErr < ERR_HIGH}
+     */
+    public static PhiApprox forError( double maxErr ) {
+        if( maxErr >= ERR_LOW ) {
+            return LowHolder.INSTANCE;
+        }
+        if( maxErr >= ERR_MEDIUM ) {
+            return MediumHolder.INSTANCE;
+        }
+        if( maxErr >= ERR_HIGH ) {
+            return HighHolder.INSTANCE;
+        }
+        throw new IllegalArgumentException( "Error bound must be at least " + ERR_HIGH + ": " + maxErr );
+    }
+
+
+    private final double mMaxErr;
+
+    private final Segments mErf;
+    private final Segments mInvCenter;
+    private final Segments mInvTail;
+
+
+    /**
+     * Builds tables for a given error bound.
+     *
+     * @param maxErr Maximum absolute error, between {@code 1E-13} and {@code 0.01}.
+     */
+    public PhiApprox( double maxErr ) {
+        if( !( maxErr >= 1E-13 && maxErr <= 1E-2 ) ) {
+            throw new IllegalArgumentException( "Unsupported error bound: " + maxErr );
+        }
+        mMaxErr = maxErr;
+
+        final int deg = maxErr >= 1E-5 ? 3 : maxErr >= 1E-9 ? 5 : 9;
+        final double fitErr = 0.5 * maxErr;
+
+        // Beyond xMax, erf(x) is within a quarter of the bound from 1.
+        double xMax = 1.0;
+        while( Phi.erfc( xMax ) > 0.25 * maxErr ) {
+            xMax += 0.25;
+        }
+
+        mErf       = Segments.fit( FUNC_ERF, 0.0, xMax, deg, fitErr );
+        mInvCenter = Segments.fit( FUNC_INV_CENTER, 0.5, 1.0 - P_LOW, deg, fitErr );
+        mInvTail   = Segments.fit( FUNC_INV_TAIL, Q_LOW, Q_HIGH, deg, fitErr );
+    }
+
+
+    public double maxError() {
+        return mMaxErr;
+    }
+
+    /**
+     * Approximates {@link Phi#erf(double)}.
+     */
+    public double erf( double x ) {
+        if( x >= 0 ) {
+            return x < mErf.mX1 ? mErf.eval( x ) : 1.0;
+        } else if( x < 0 ) {
+            return x > -mErf.mX1 ? -mErf.eval( -x ) : -1.0;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Approximates {@link Phi#erfc(double)}.
+     */
+    public double erfc( double x ) {
+        return 1.0 - erf( x );
+    }
+
+    /**
+     * Approximates {@link Phi#ncdf(double)}.
+     */
+    public double ncdf( double x ) {
+        return 0.5 * ( 1.0 + erf( x * INV_SQRT_2 ) );
+    }
+
+    /**
+     * Approximates {@link Phi#ncdfInv(double)}.
+     *
+     * @param p Value between 0 and 1.
+     * @return x such that ncdf( x ) == p.
+     */
+    public double ncdfInv( double p ) {
+        if( p >= 0.5 ) {
+            if( p <= 1.0 - P_LOW ) {
+                return mInvCenter.eval( p );
+            }
+            if( p < 1.0 ) {
+                return -tail( 1.0 - p );
+            }
+            return p == 1.0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else if( p >= P_LOW ) {
+            return -mInvCenter.eval( 1.0 - p );
+        } else if( p > 0 ) {
+            return tail( p );
+        }
+        return p == 0 ? Double.NEGATIVE_INFINITY : Double.NaN;
+    }
+
+
+    public void erf( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            dst[dstOff + i] = erf( src[srcOff + i] );
+        }
+    }
+
+
+    public void erfc( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            dst[dstOff + i] = 1.0 - erf( src[srcOff + i] );
+        }
+    }
+
+
+    public void ncdf( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            dst[dstOff + i] = 0.5 * ( 1.0 + erf( src[srcOff + i] * INV_SQRT_2 ) );
+        }
+    }
+
+
+    public void ncdfInv( double[] src, int srcOff, double[] dst, int dstOff, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            dst[dstOff + i] = ncdfInv( src[srcOff + i] );
+        }
+    }
+
+
+    /**
+     * @param p Value in (0, P_LOW)
+     * @return ncdfInv( p )
+     */
+    private double tail( double p ) {
+        if( p < P_MIN ) {
+            return preciseInvLower( p );
+        }
+        return mInvTail.eval( Math.sqrt( -2.0 * Math.log( p ) ) );
+    }
+
+
+    private static final double INV_SQRT_2  = 1.0 / Math.sqrt( 2.0 );
+    private static final double SQRT_2PI    = Math.sqrt( 2.0 * Math.PI );
+
+    /** Boundary between central and tail regions of ncdfInv. **/
+    private static final double P_LOW  = 0.02425;
+    /** Smallest tail value covered by table. **/
+    private static final double P_MIN  = 1E-300;
+    private static final double Q_LOW  = Math.sqrt( -2.0 * Math.log( P_LOW ) );
+    private static final double Q_HIGH = Math.sqrt( -2.0 * Math.log( P_MIN ) );
+
+    private static final int FUNC_ERF        = 0;
+    private static final int FUNC_INV_CENTER = 1;
+    private static final int FUNC_INV_TAIL   = 2;
+
+
+    /**
+     * Reference values used for fitting.
+     */
+    private static double reference( int func, double x ) {
+        switch( func ) {
+        case FUNC_ERF:
+            return Phi.erf( x );
+        case FUNC_INV_CENTER:
+            return -preciseInvLower( 1.0 - x );
+        default:
+            return preciseInvLower( Math.exp( -0.5 * x * x ) );
+        }
+    }
+
+    /**
+     * Inverse normal CDF for {@code 0 < p <= 0.5}. Refinement evaluates the CDF through the
+     * scaled complementary error function, which remains accurate deep in the tail where
+     * {@code erfc} underflows.
+     */
+    private static double preciseInvLower( double p ) {
+        final double logP = Math.log( p );
+        double z = Phi.ncdfInvFast( p );
+        for( int i = 0; i < 2; i++ ) {
+            // ( ncdf( z ) - p ) / n( z ), with ncdf( z ) = 0.5 * erfcx( a ) * e^(-a^2) and a = -z / sqrt(2)
+            double u = SQRT_2PI * ( 0.5 * Phi.erfcx( -z * INV_SQRT_2 ) - Math.exp( 0.5 * z * z + logP ) );
+            z = z - u / ( 1.0 + z * u / 2.0 );
+        }
+        return z;
+    }
+
+
+    private static final class LowHolder {
+        static final PhiApprox INSTANCE = new PhiApprox( ERR_LOW );
+    }
+
+    private static final class MediumHolder {
+        static final PhiApprox INSTANCE = new PhiApprox( ERR_MEDIUM );
+    }
+
+    private static final class HighHolder {
+        static final PhiApprox INSTANCE = new PhiApprox( ERR_HIGH );
+    }
+
+
+    /**
+     * Uniform segments over [x0,x1), each with a polynomial in the local coordinate
+     * {@code t} in [-1,1].
+     */
+    private static final class Segments {
+
+        final double mX0;
+        final double mX1;
+        final double mScale;
+        final int mCount;
+        final int mStride;
+        final double[] mCoef;
+
+        static Segments fit( int func, double x0, double x1, int deg, double maxErr ) {
+            for( int count = 4; count <= 1 << 16; count *= 2 ) {
+                Segments seg = new Segments( func, x0, x1, deg, count );
+                if( seg.measureError( func ) <= maxErr ) {
+                    return seg;
+                }
+            }
+            throw new IllegalStateException( "Could not fit approximation." );
+        }
+
+
+        Segments( int func, double x0, double x1, int deg, int count ) {
+            final int n = deg + 1;
+            mX0     = x0;
+            mX1     = x1;
+            mScale  = count / ( x1 - x0 );
+            mCount  = count;
+            mStride = n;
+            mCoef   = new double[count * n];
+
+            double[] nodes = new double[n];
+            double[] vals  = new double[n];
+            double[] cheb  = new double[n];
+            double[] tPrev = new double[n];
+            double[] tCurr = new double[n];
+            double[] tNext = new double[n];
+
+            for( int m = 0; m < n; m++ ) {
+                nodes[m] = Math.cos( Math.PI * ( m + 0.5 ) / n );
+            }
+
+            for( int s = 0; s < count; s++ ) {
+                double a = x0 + s / mScale;
+                double h = 0.5 / mScale;
+                for( int m = 0; m < n; m++ ) {
+                    vals[m] = reference( func, a + h * ( nodes[m] + 1.0 ) );
+                }
+
+                // Chebyshev coefficients from values at nodes.
+                for( int j = 0; j < n; j++ ) {
+                    double sum = 0.0;
+                    for( int m = 0; m < n; m++ ) {
+                        sum += vals[m] * Math.cos( Math.PI * j * ( m + 0.5 ) / n );
+                    }
+                    cheb[j] = ( j == 0 ? 1.0 : 2.0 ) * sum / n;
+                }
+
+                // Convert to monomial coefficients in t using T[k+1] = 2t T[k] - T[k-1].
+                final int off = s * n;
+                Arrays.fill( tPrev, 0.0 );
+                Arrays.fill( tCurr, 0.0 );
+                tPrev[0] = 1.0;
+                mCoef[off] = cheb[0];
+                if( n > 1 ) {
+                    tCurr[1] = 1.0;
+                }
+                for( int j = 1; j < n; j++ ) {
+                    for( int k = 0; k < n; k++ ) {
+                        mCoef[off + k] += cheb[j] * tCurr[k];
+                    }
+                    for( int k = 0; k < n; k++ ) {
+                        tNext[k] = ( k > 0 ? 2.0 * tCurr[k - 1] : 0.0 ) - tPrev[k];
+                    }
+                    double[] tmp = tPrev;
+                    tPrev = tCurr;
+                    tCurr = tNext;
+                    tNext = tmp;
+                }
+            }
+        }
+
+
+        double eval( double x ) {
+            double u = ( x - mX0 ) * mScale;
+            int s = (int)u;
+            if( s >= mCount ) {
+                s = mCount - 1;
+            }
+            double t = 2.0 * ( u - s ) - 1.0;
+            final double[] c = mCoef;
+            int i = s * mStride + mStride - 1;
+            double v = c[i];
+            while( i > s * mStride ) {
+                v = v * t + c[--i];
+            }
+            return v;
+        }
+
+
+        double measureError( int func ) {
+            final int samples = 4 * mStride;
+            double max = 0.0;
+            for( int s = 0; s < mCount; s++ ) {
+                for( int m = 0; m <= samples; m++ ) {
+                    double x = mX0 + ( s + (double)m / samples ) / mScale;
+                    if( x >= mX1 ) {
+                        x = Math.nextAfter( mX1, mX0 );
+                    }
+                    double err = Math.abs( eval( x ) - reference( func, x ) );
+                    if( !( err <= max ) ) {
+                        max = err;
+                    }
+                }
+            }
+            return max;
+        }
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Arrays;
+
+
+/**
+ * Growable buffer of polyline vertices, packed with {@code dim()} values per vertex,
+ * with methods for flattening Bezier curves into it.
+ * <p>
+ * Flattening picks the number of segments for each curve from the bound on its second
+ * derivative (Wang's formula), so the polyline is within the given tolerance of the curve
+ * everywhere. Flat curves produce a single segment and sharply bent curves produce more.
+ * The count is capped at {@link #MAX_SEGMENTS} per curve, so a curve that would need more,
+ * because the tolerance is tiny relative to the curve's size, is flattened with that many
+ * segments and may exceed the tolerance. Flattening methods return the segment count, so a
+ * return value of {@code MAX_SEGMENTS} signals that the cap was hit.
+ * Vertices are then generated with forward differences. Other than growing the buffer,
+ * flattening does not allocate.
+ * <p>
+ * Curve methods append the vertices that follow the start point of the curve, so that
+ * consecutive curves in a path share end points. Begin a path by adding its first point
+ * with {@link #add(float[], int)}.
+ *
+ * @author Philip DeCamp
+ */
+public final class Polyline {
+
+    /** Maximum number of segments produced for a single curve. **/
+    public static final int MAX_SEGMENTS = 1 << 16;
+
+
+    private final int mDim;
+    private float[] mVerts;
+    private int mSize = 0;
+
+    private final double[] mWork;
+
+
+    /**
+     * @param dim Dimensionality of vertices, 1 or more.
+     */
+    public Polyline( int dim ) {
+        this( dim, 64 );
+    }
+
+    /**
+     * @param dim      Dimensionality of vertices, 1 or more.
+     * @param capacity Initial capacity in vertices
+     */
+    public Polyline( int dim, int capacity ) {
+        if( dim < 1 ) {
+            throw new IllegalArgumentException( "Invalid dimensionality: " + dim );
+        }
+        mDim   = dim;
+        mVerts = new float[Math.max( 1, capacity ) * dim];
+        mWork  = new double[dim * 4];
+    }
+
+
+    public int dim() {
+        return mDim;
+    }
+
+
+    public int vertexCount() {
+        return mSize / mDim;
+    }
+
+    /**
+     * @return backing array, holding {@code vertexCount() * dim()} values. The array is replaced when the buffer grows.
+     */
+    public float[] array() {
+        return mVerts;
+    }
+
+
+    public void clear() {
+        mSize = 0;
+    }
+
+
+    public void ensureCapacity( int minVertexCount ) {
+        int minSize = minVertexCount * mDim;
+        int oldSize = mVerts.length;
+        if( minSize > oldSize ) {
+            int newSize = ( oldSize * 3 ) / 2 + mDim;
+            if( newSize < minSize ) {
+                newSize = minSize;
+            }
+            mVerts = Arrays.copyOf( mVerts, newSize );
+        }
+    }
+
+    /**
+     * Appends a single vertex.
+     *
+     * @param vert Array holding vertex
+     * @param off  Offset into vert
+     */
+    public void add( float[] vert, int off ) {
+        ensureCapacity( mSize / mDim + 1 );
+        System.arraycopy( vert, off, mVerts, mSize, mDim );
+        mSize += mDim;
+    }
+
+    /**
+     * Flattens quadratic Bezier curve, appending all vertices after {@code begin}.
+     *
+     * @param begin   Start point
+     * @param control Control point
+     * @param end     End point
+     * @param tol     Maximum distance between polyline and curve
+     * @return number of vertices appended, at most {@link #MAX_SEGMENTS}. At the cap, tolerance may not be met.
+     */
+    public int quadBezier( float[] begin, float[] control, float[] end, float tol ) {
+        return quadBezier( begin, 0, control, 0, end, 0, tol );
+    }
+
+    /**
+     * Flattens quadratic Bezier curve, appending all vertices after the start point.
+     *
+     * @param pts Array holding start point, control point, and end point, packed.
+     * @param off Offset into pts
+     * @param tol Maximum distance between polyline and curve
+     * @return number of vertices appended, at most {@link #MAX_SEGMENTS}. At the cap, tolerance may not be met.
+     */
+    public int quadBezier( float[] pts, int off, float tol ) {
+        return quadBezier( pts, off, pts, off + mDim, pts, off + 2 * mDim, tol );
+    }
+
+    /**
+     * Flattens cubic Bezier curve, appending all vertices after {@code begin}.
+     *
+     * @param begin    Start point
+     * @param control0 First control point
+     * @param control1 Second control point
+     * @param end      End point
+     * @param tol      Maximum distance between polyline and curve
+     * @return number of vertices appended, at most {@link #MAX_SEGMENTS}. At the cap, tolerance may not be met.
+     */
+    public int cubicBezier( float[] begin, float[] control0, float[] control1, float[] end, float tol ) {
+        return cubicBezier( begin, 0, control0, 0, control1, 0, end, 0, tol );
+    }
+
+    /**
+     * Flattens cubic Bezier curve, appending all vertices after the start point.
+     *
+     * @param pts Array holding start point, two control points, and end point, packed.
+     * @param off Offset into pts
+     * @param tol Maximum distance between polyline and curve
+     * @return number of vertices appended, at most {@link #MAX_SEGMENTS}. At the cap, tolerance may not be met.
+     */
+    public int cubicBezier( float[] pts, int off, float tol ) {
+        return cubicBezier( pts, off, pts, off + mDim, pts, off + 2 * mDim, pts, off + 3 * mDim, tol );
+    }
+
+    /**
+     * Computes number of segments needed to flatten a quadratic Bezier curve.
+     *
+     * @param pts Array holding start point, control point, and end point, packed.
+     * @param off Offset into pts
+     * @param dim Dimensionality of points
+     * @param tol Maximum distance between polyline and curve
+     * @return number of segments, from 1 to {@link #MAX_SEGMENTS}.
+     */
+    public static int quadSegments( float[] pts, int off, int dim, float tol ) {
+        double dd = 0.0;
+        for( int d = 0; d < dim; d++ ) {
+            double v = pts[off + d] - 2.0 * pts[off + dim + d] + pts[off + 2 * dim + d];
+            dd += v * v;
+        }
+        // |B''| = 2|dd|, and error <= |B''| / ( 8 n^2 ).
+        return segments( Math.sqrt( dd ) * 0.25, tol );
+    }
+
+    /**
+     * Computes number of segments needed to flatten a cubic Bezier curve.
+     *
+     * @param pts Array holding start point, two control points, and end point, packed.
+     * @param off Offset into pts
+     * @param dim Dimensionality of points
+     * @param tol Maximum distance between polyline and curve
+     * @return number of segments, from 1 to {@link #MAX_SEGMENTS}.
+     */
+    public static int cubicSegments( float[] pts, int off, int dim, float tol ) {
+        double dd0 = 0.0;
+        double dd1 = 0.0;
+        for( int d = 0; d < dim; d++ ) {
+            double a = pts[off + d] - 2.0 * pts[off + dim + d] + pts[off + 2 * dim + d];
+            double b = pts[off + dim + d] - 2.0 * pts[off + 2 * dim + d] + pts[off + 3 * dim + d];
+            dd0 += a * a;
+            dd1 += b * b;
+        }
+        // |B''| <= 6 max|dd|, and error <= |B''| / ( 8 n^2 ).
+        return segments( Math.sqrt( Math.max( dd0, dd1 ) ) * 0.75, tol );
+    }
+
+
+    private int quadBezier( float[] p0, int off0, float[] p1, int off1, float[] p2, int off2, float tol ) {
+        final int dim = mDim;
+        final double[] w = mWork;
+        double dd = 0.0;
+        for( int d = 0; d < dim; d++ ) {
+            double v = p0[off0 + d] - 2.0 * p1[off1 + d] + p2[off2 + d];
+            dd += v * v;
+        }
+        final int n = segments( Math.sqrt( dd ) * 0.25, tol );
+        final double h = 1.0 / n;
+
+        // Forward differences of B(t) = p0 + 2( p1 - p0 ) t + ( p0 - 2 p1 + p2 ) t^2
+        for( int d = 0; d < dim; d++ ) {
+            double a = p0[off0 + d] - 2.0 * p1[off1 + d] + p2[off2 + d];
+            double b = 2.0 * ( p1[off1 + d] - p0[off0 + d] );
+            w[d          ] = p0[off0 + d];
+            w[d + dim    ] = ( a * h + b ) * h;
+            w[d + dim * 2] = 2.0 * a * h * h;
+        }
+
+        ensureCapacity( mSize / dim + n );
+        final float[] out = mVerts;
+        int pos = mSize;
+        for( int i = 1; i < n; i++ ) {
+            for( int d = 0; d < dim; d++ ) {
+                w[d] += w[d + dim];
+                w[d + dim] += w[d + dim * 2];
+                out[pos++] = (float)w[d];
+            }
+        }
+        System.arraycopy( p2, off2, out, pos, dim );
+        mSize = pos + dim;
+        return n;
+    }
+
+
+    private int cubicBezier( float[] p0, int off0,
+                             float[] p1, int off1,
+                             float[] p2, int off2,
+                             float[] p3, int off3,
+                             float tol )
+    {
+        final int dim = mDim;
+        final double[] w = mWork;
+        double dd0 = 0.0;
+        double dd1 = 0.0;
+        for( int d = 0; d < dim; d++ ) {
+            double a = p0[off0 + d] - 2.0 * p1[off1 + d] + p2[off2 + d];
+            double b = p1[off1 + d] - 2.0 * p2[off2 + d] + p3[off3 + d];
+            dd0 += a * a;
+            dd1 += b * b;
+        }
+        final int n = segments( Math.sqrt( Math.max( dd0, dd1 ) ) * 0.75, tol );
+        final double h  = 1.0 / n;
+        final double h2 = h * h;
+        final double h3 = h2 * h;
+
+        // Forward differences of B(t) = p0 + c1 t + c2 t^2 + c3 t^3
+        for( int d = 0; d < dim; d++ ) {
+            double x0 = p0[off0 + d];
+            double x1 = p1[off1 + d];
+            double x2 = p2[off2 + d];
+            double x3 = p3[off3 + d];
+            double c1 = 3.0 * ( x1 - x0 );
+            double c2 = 3.0 * ( x0 - 2.0 * x1 + x2 );
+            double c3 = x3 - 3.0 * x2 + 3.0 * x1 - x0;
+            w[d          ] = x0;
+            w[d + dim    ] = c1 * h + c2 * h2 + c3 * h3;
+            w[d + dim * 2] = 2.0 * c2 * h2 + 6.0 * c3 * h3;
+            w[d + dim * 3] = 6.0 * c3 * h3;
+        }
+
+        ensureCapacity( mSize / dim + n );
+        final float[] out = mVerts;
+        int pos = mSize;
+        for( int i = 1; i < n; i++ ) {
+            for( int d = 0; d < dim; d++ ) {
+                w[d] += w[d + dim];
+                w[d + dim] += w[d + dim * 2];
+                w[d + dim * 2] += w[d + dim * 3];
+                out[pos++] = (float)w[d];
+            }
+        }
+        System.arraycopy( p3, off3, out, pos, dim );
+        mSize = pos + dim;
+        return n;
+    }
+
+    /**
+     * @param k   Error coefficient, such that error {@code <= k / n^2}
+     * @param tol Tolerance
+     */
+    private static int segments( double k, float tol ) {
+        if( !( tol > 0f ) ) {
+            throw new IllegalArgumentException( "Tolerance must be positive: " + tol );
+        }
+        double n = Math.ceil( Math.sqrt( k / tol ) );
+        // Negated test also sends NaN, from non-finite points, to a single segment.
+        return !( n > 1.0 ) ? 1 : n >= MAX_SEGMENTS ? MAX_SEGMENTS : (int)n;
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Base class for low-discrepancy sequences of points in the unit hypercube.
+ * <p>
+ * Points are addressed by index, and any range of points may be generated directly
+ * without generating the points that precede it. Generators are immutable and thread-safe,
+ * so parallel workers can each fill a disjoint range of the same sequence, which is what
+ * the {@link ForkJoinPool} variants do.
+ * <p>
+ * Points are written in point-major order: coordinate {@code d} of the {@code i}th point
+ * generated is written to {@code out[off + i * dims() + d]}.
+ *
+ * @see Sobol
+ * @see Halton
+ * @see Roberts
+ * @author Philip DeCamp
+ */
+public abstract class QuasiRandom {
+
+    /**
+     * @return number of coordinates per point.
+     */
+    public abstract int dims();
+
+    /**
+     * @return number of points available. Valid indices are {@code 0 ... length() - 1}.
+     */
+    public abstract long length();
+
+    /**
+     * Generates points with coordinates in [0,1).
+     *
+     * @param index Index of first point
+     * @param count Number of points
+     * @param out   Receives {@code count * dims()} values
+     * @param off   Offset into out
+     */
+    public void fill( long index, int count, double[] out, int off ) {
+        checkRange( index, count );
+        generate( index, count, false, out, off );
+    }
+
+    /**
+     * Parallel version of {@link #fill(long, int, double[], int)}.
+     *
+     * @param pool Pool used to fill disjoint ranges of points in parallel. If null, runs on the calling thread.
+     */
+    public void fill( long index, int count, double[] out, int off, ForkJoinPool pool ) {
+        checkRange( index, count );
+        run( new FillTask( this, false, null, index, count, out, off ), pool );
+    }
+
+    /**
+     * Generates points with coordinates drawn from the standard normal distribution by mapping
+     * each coordinate through {@link Phi#ncdfInv(double)}. Uniform values are taken from
+     * the centers of the cells resolved by the generator, so they never reach 0 or 1, and
+     * the output is always finite.
+     * <p>
+     * Sequences that start at the origin apply a fixed shift to the uniform values first,
+     * so that point 0 is an ordinary sample rather than the cell nearest the origin, which
+     * would map to about -8.2 on every coordinate. Output is therefore not the same as
+     * mapping the result of {@link #fill} through the inverse CDF, but ranges may start at
+     * any index, including 0.
+     *
+     * @param index Index of first point
+     * @param count Number of points
+     * @param out   Receives {@code count * dims()} values
+     * @param off   Offset into out
+     */
+    public void fillGaussian( long index, int count, double[] out, int off ) {
+        fillGaussian( index, count, out, off, null, null );
+    }
+
+    /**
+     * @param approx Approximation to use for inverse CDF. If null, uses {@link Phi#ncdfInv(double)}.
+     * @see #fillGaussian(long, int, double[], int)
+     */
+    public void fillGaussian( long index, int count, double[] out, int off, PhiApprox approx ) {
+        fillGaussian( index, count, out, off, approx, null );
+    }
+
+    /**
+     * @param approx Approximation to use for inverse CDF. If null, uses {@link Phi#ncdfInv(double)}.
+     * @param pool   Pool used to fill disjoint ranges of points in parallel. If null, runs on the calling thread.
+     * @see #fillGaussian(long, int, double[], int)
+     */
+    public void fillGaussian( long index, int count, double[] out, int off, PhiApprox approx, ForkJoinPool pool ) {
+        checkRange( index, count );
+        run( new FillTask( this, true, approx, index, count, out, off ), pool );
+    }
+
+    /**
+     * Generates points. Range has already been checked.
+     *
+     * @param centered If true, values must lie strictly within (0,1), and a sequence that
+     *                 starts at the origin must shift its values away from it.
+     */
+    abstract void generate( long index, int count, boolean centered, double[] out, int off );
+
+
+    /**
+     * @return fixed pseudorandom bits for shifting coordinate {@code dim} in centered mode.
+     */
+    static long shiftBits( int dim ) {
+        // SplitMix64 finalizer.
+        long z = SHIFT_SEED + ( dim + 1 ) * 0x9E3779B97F4A7C15L;
+        z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+        z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+        return z ^ ( z >>> 31 );
+    }
+
+
+    private void checkRange( long index, int count ) {
+        if( index < 0 || count < 0 || index > length() - count ) {
+            throw new IllegalArgumentException( "Invalid range: " + index + " + " + count );
+        }
+    }
+
+
+    private void fillSerial( long index, int count, boolean gaussian, PhiApprox approx, double[] out, int off ) {
+        if( !gaussian ) {
+            generate( index, count, false, out, off );
+            return;
+        }
+
+        // Transform in blocks while values are still in cache.
+        final int dims  = dims();
+        final int block = Math.max( 1, BLOCK_VALUES / dims );
+        while( count > 0 ) {
+            int n = Math.min( count, block );
+            generate( index, n, true, out, off );
+            if( approx == null ) {
+                Phi.ncdfInv( out, off, out, off, n * dims );
+            } else {
+                approx.ncdfInv( out, off, out, off, n * dims );
+            }
+            index += n;
+            count -= n;
+            off   += n * dims;
+        }
+    }
+
+
+    private static void run( FillTask task, ForkJoinPool pool ) {
+        if( pool == null ) {
+            task.compute();
+        } else {
+            pool.invoke( task );
+        }
+    }
+
+
+    private static final int BLOCK_VALUES    = 1024;
+    private static final int PARALLEL_VALUES = 1 << 15;
+    private static final long SHIFT_SEED     = 0x5EEDC0FFEE123457L;
+
+
+    @SuppressWarnings( "serial" )
+    private static final class FillTask extends RecursiveAction {
+
+        final QuasiRandom mSeq;
+        final boolean mGaussian;
+        final PhiApprox mApprox;
+        final long mIndex;
+        final int mCount;
+        final double[] mOut;
+        final int mOff;
+
+        FillTask( QuasiRandom seq, boolean gaussian, PhiApprox approx, long index, int count, double[] out, int off ) {
+            mSeq      = seq;
+            mGaussian = gaussian;
+            mApprox   = approx;
+            mIndex    = index;
+            mCount    = count;
+            mOut      = out;
+            mOff      = off;
+        }
+
+        @Override
+        protected void compute() {
+            final int dims = mSeq.dims();
+            if( (long)mCount * dims > PARALLEL_VALUES && getPool() != null ) {
+                int half = mCount / 2;
+                invokeAll( new FillTask( mSeq, mGaussian, mApprox, mIndex, half, mOut, mOff ),
+                           new FillTask( mSeq, mGaussian, mApprox, mIndex + half, mCount - half, mOut, mOff + half * dims ) );
+                return;
+            }
+            mSeq.fillSerial( mIndex, mCount, mGaussian, mApprox, mOut, mOff );
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Roberts' additive recurrence sequence R<sub>d</sub>, or R2 in two dimensions. Point
+ * {@code n} is {@code frac( 0.5 + n * alpha )}, where {@code alpha[j] = phi^-(j+1)} and
+ * {@code phi} is the positive root of {@code x^(d+1) = x + 1}.
+ * <p>
+ * Coordinates are kept as 64-bit fixed-point fractions, so the recurrence is exact,
+ * jumping to any index is a single multiply per coordinate, and every nonnegative
+ * {@code long} index is valid.
+ *
+ * @author Philip DeCamp
+ */
+public final class Roberts extends QuasiRandom {
+
+    private final int mDims;
+    private final long[] mStep;
+
+
+    /**
+     * @param dims Number of dimensions, 1 or more.
+     */
+    public Roberts( int dims ) {
+        if( dims < 1 ) {
+            throw new IllegalArgumentException( "Invalid number of dimensions: " + dims );
+        }
+        mDims = dims;
+        mStep = new long[dims];
+
+        double phi = 2.0;
+        for( int i = 0; i < 64; i++ ) {
+            double f = Math.pow( phi, dims + 1 ) - phi - 1.0;
+            double df = ( dims + 1 ) * Math.pow( phi, dims ) - 1.0;
+            phi -= f / df;
+        }
+
+        double alpha = 1.0;
+        for( int d = 0; d < dims; d++ ) {
+            alpha /= phi;
+            // Fixed-point with 64 fractional bits.
+            mStep[d] = (long)( alpha * ( 1L << 62 ) ) << 2;
+        }
+    }
+
+
+    @Override
+    public int dims() {
+        return mDims;
+    }
+
+    @Override
+    public long length() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return increment applied to a coordinate between consecutive points.
+     */
+    public double alpha( int dim ) {
+        return ( mStep[dim] >>> 11 ) * SCALE;
+    }
+
+    @Override
+    void generate( long index, int count, boolean centered, double[] out, int off ) {
+        final int dims      = mDims;
+        final long[] step   = mStep;
+        final long[] x      = new long[dims];
+        // Centered values keep one bit less so that adding one half is exact.
+        final int shift     = centered ? 12 : 11;
+        final double bias   = centered ? 0.5 : 0.0;
+        final double scale  = centered ? SCALE_CENTERED : SCALE;
+
+        for( int d = 0; d < dims; d++ ) {
+            // Arithmetic is modulo 2^64, which discards the integer part.
+            x[d] = HALF + index * step[d];
+        }
+
+        for( int i = 0; i < count; i++ ) {
+            for( int d = 0; d < dims; d++ ) {
+                out[off++] = ( ( x[d] >>> shift ) + bias ) * scale;
+                x[d] += step[d];
+            }
+        }
+    }
+
+
+    private static final long HALF = 1L << 63;
+    private static final double SCALE          = 1.0 / ( 1L << 53 );
+    private static final double SCALE_CENTERED = 1.0 / ( 1L << 52 );
+
+}
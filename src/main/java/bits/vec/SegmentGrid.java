@@ -0,0 +1,702 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Uniform grid over a set of 2D line segments, used to find all intersecting pairs
+ * or the nearest segment to a point without testing every segment.
+ * <p>
+ * Segments are packed as {@code [x0, y0, x1, y1]}. Each segment is registered with every
+ * cell its bounding box overlaps, and cell contents are stored in two flat arrays. A pair
+ * of segments that shares several cells is only tested in the cell at the lower corner
+ * of the overlap of their bounding boxes, so each pair is reported at most once without
+ * any bookkeeping.
+ * <p>
+ * The grid keeps a reference to the segment array, which must not be modified while the
+ * grid is in use. A grid is immutable after construction and may be shared between threads.
+ *
+ * @author Philip DeCamp
+ */
+public final class SegmentGrid {
+
+    /**
+     * Growable list of intersections.
+     */
+    public static final class Hits {
+        public int mCount = 0;
+        /** Indices of intersecting segments, two per intersection, with lower index first. **/
+        public int[] mPairs = new int[32];
+        /** Points of intersection, two values per intersection. **/
+        public double[] mPoints = new double[32];
+        /** Parameters of intersection along each segment, two values per intersection. **/
+        public double[] mParams = new double[32];
+
+
+        public void clear() {
+            mCount = 0;
+        }
+
+
+        public void ensureCapacity( int minCount ) {
+            if( minCount * 2 > mPairs.length ) {
+                int size = Math.max( minCount * 2, mPairs.length * 3 / 2 + 2 );
+                mPairs  = Arrays.copyOf( mPairs, size );
+                mPoints = Arrays.copyOf( mPoints, size );
+                mParams = Arrays.copyOf( mParams, size );
+            }
+        }
+
+
+        void add( int a, int b, double x, double y, double t, double u ) {
+            ensureCapacity( mCount + 1 );
+            int i = mCount++ * 2;
+            mPairs[i]      = a;
+            mPairs[i + 1]  = b;
+            mPoints[i]     = x;
+            mPoints[i + 1] = y;
+            mParams[i]     = t;
+            mParams[i + 1] = u;
+        }
+
+
+        void addAll( Hits h ) {
+            ensureCapacity( mCount + h.mCount );
+            int n = h.mCount * 2;
+            System.arraycopy( h.mPairs, 0, mPairs, mCount * 2, n );
+            System.arraycopy( h.mPoints, 0, mPoints, mCount * 2, n );
+            System.arraycopy( h.mParams, 0, mParams, mCount * 2, n );
+            mCount += h.mCount;
+        }
+    }
+
+
+    /**
+     * Computes distance between each point and corresponding segment.
+     *
+     * @param segs     Segments, packed {@code [x0, y0, x1, y1]}.
+     * @param segsOff  Offset into segs
+     * @param pts      Points, packed {@code [x, y]}.
+     * @param ptsOff   Offset into pts
+     * @param count    Number of segment-point pairs
+     * @param outDist  Receives distance between each point and segment. May be null.
+     * @param outT     Receives parameter of closest point on each segment, in [0,1]. May be null.
+     * @param outPoint Receives closest point on each segment, packed. May be null.
+     * @param outOff   Offset, in pairs, into output arrays
+     */
+    public static void segmentPointDistance( double[] segs,
+                                             int segsOff,
+                                             double[] pts,
+                                             int ptsOff,
+                                             int count,
+                                             double[] outDist,
+                                             double[] outT,
+                                             double[] outPoint,
+                                             int outOff )
+    {
+        pointDistance( segs, segsOff, pts, ptsOff, count, true, outDist, outT, outPoint, outOff );
+    }
+
+    /**
+     * Computes distance between each point and corresponding line, where each line is given
+     * by two points packed as a segment.
+     *
+     * @param lines    Lines, packed {@code [x0, y0, x1, y1]}.
+     * @param linesOff Offset into lines
+     * @param pts      Points, packed {@code [x, y]}.
+     * @param ptsOff   Offset into pts
+     * @param count    Number of line-point pairs
+     * @param outDist  Receives distance between each point and line. May be null.
+     * @param outT     Receives parameter of closest point on each line, where 0 is the first point and 1 is the second. May be null.
+     * @param outPoint Receives closest point on each line, packed. May be null.
+     * @param outOff   Offset, in pairs, into output arrays
+     */
+    public static void linePointDistance( double[] lines,
+                                          int linesOff,
+                                          double[] pts,
+                                          int ptsOff,
+                                          int count,
+                                          double[] outDist,
+                                          double[] outT,
+                                          double[] outPoint,
+                                          int outOff )
+    {
+        pointDistance( lines, linesOff, pts, ptsOff, count, false, outDist, outT, outPoint, outOff );
+    }
+
+
+    private final double[] mSegs;
+    private final int mOff;
+    private final int mCount;
+
+    private final double mMinX;
+    private final double mMinY;
+    private final double mCellSize;
+    private final double mInvCell;
+    private final int mCols;
+    private final int mRows;
+
+    /** Start of each cell in mItems. Holds {@code cols * rows + 1} entries. **/
+    private final int[] mCellStart;
+    /** Segment indices, in increasing order within each cell. **/
+    private final int[] mItems;
+
+
+    /**
+     * Builds grid with cell size chosen from the extent and density of segments.
+     *
+     * @param segs  Segments, packed {@code [x0, y0, x1, y1]}.
+     * @param off   Offset into segs
+     * @param count Number of segments
+     */
+    public SegmentGrid( double[] segs, int off, int count ) {
+        this( segs, off, count, 0.0 );
+    }
+
+    /**
+     * @param segs     Segments, packed {@code [x0, y0, x1, y1]}.
+     * @param off      Offset into segs
+     * @param count    Number of segments
+     * @param cellSize Width of grid cells. If not positive, a size is chosen from the extent and density of segments.
+     */
+    public SegmentGrid( double[] segs, int off, int count, double cellSize ) {
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        double extent = 0.0;
+
+        for( int i = 0; i < count; i++ ) {
+            int p = off + i * 4;
+            double ax = segs[p], ay = segs[p + 1], bx = segs[p + 2], by = segs[p + 3];
+            x0 = Math.min( x0, Math.min( ax, bx ) );
+            y0 = Math.min( y0, Math.min( ay, by ) );
+            x1 = Math.max( x1, Math.max( ax, bx ) );
+            y1 = Math.max( y1, Math.max( ay, by ) );
+            extent += Math.max( Math.abs( bx - ax ), Math.abs( by - ay ) );
+        }
+        if( count == 0 ) {
+            x0 = y0 = x1 = y1 = 0.0;
+        }
+        if( !( x1 - x0 < Double.POSITIVE_INFINITY && y1 - y0 < Double.POSITIVE_INFINITY ) ) {
+            throw new IllegalArgumentException( "Segments must be finite." );
+        }
+
+        final double w = x1 - x0;
+        final double h = y1 - y0;
+        if( !( cellSize > 0.0 ) ) {
+            // Aim for a few segments per cell, without cutting typical segments into many cells.
+            cellSize = Math.max( Math.sqrt( w * h / Math.max( 1, count ) ), extent / Math.max( 1, count ) );
+        }
+        double maxCells = Math.min( MAX_CELLS, Math.max( 4.0 * count, 1024.0 ) );
+        double minSize  = Math.max( w, h ) / Math.sqrt( maxCells );
+        if( !( cellSize >= minSize ) ) {
+            cellSize = minSize;
+        }
+        if( !( cellSize > 0.0 ) ) {
+            cellSize = 1.0;
+        }
+
+        mSegs     = segs;
+        mOff      = off;
+        mCount    = count;
+        mMinX     = x0;
+        mMinY     = y0;
+        mCellSize = cellSize;
+        mInvCell  = 1.0 / cellSize;
+        mCols     = (int)Math.min( MAX_CELLS, Math.floor( w * mInvCell ) + 1 );
+        mRows     = (int)Math.min( MAX_CELLS / mCols, Math.floor( h * mInvCell ) + 1 );
+
+        // Count items per cell, convert counts to offsets, then fill.
+        final int cells = mCols * mRows;
+        final int[] start = new int[cells + 1];
+        long total = 0;
+        for( int i = 0; i < count; i++ ) {
+            int p = off + i * 4;
+            int cx0 = cellX( Math.min( segs[p], segs[p + 2] ) );
+            int cx1 = cellX( Math.max( segs[p], segs[p + 2] ) );
+            int cy0 = cellY( Math.min( segs[p + 1], segs[p + 3] ) );
+            int cy1 = cellY( Math.max( segs[p + 1], segs[p + 3] ) );
+            for( int cy = cy0; cy <= cy1; cy++ ) {
+                for( int cx = cx0; cx <= cx1; cx++ ) {
+                    start[cy * mCols + cx + 1]++;
+                }
+            }
+            total += ( cx1 - cx0 + 1L ) * ( cy1 - cy0 + 1L );
+        }
+        if( total > Integer.MAX_VALUE - 8 ) {
+            throw new IllegalArgumentException( "Too many grid entries. Use a larger cell size." );
+        }
+        for( int c = 0; c < cells; c++ ) {
+            start[c + 1] += start[c];
+        }
+
+        final int[] items = new int[(int)total];
+        final int[] pos   = Arrays.copyOf( start, cells );
+        for( int i = 0; i < count; i++ ) {
+            int p = off + i * 4;
+            int cx0 = cellX( Math.min( segs[p], segs[p + 2] ) );
+            int cx1 = cellX( Math.max( segs[p], segs[p + 2] ) );
+            int cy0 = cellY( Math.min( segs[p + 1], segs[p + 3] ) );
+            int cy1 = cellY( Math.max( segs[p + 1], segs[p + 3] ) );
+            for( int cy = cy0; cy <= cy1; cy++ ) {
+                for( int cx = cx0; cx <= cx1; cx++ ) {
+                    items[pos[cy * mCols + cx]++] = i;
+                }
+            }
+        }
+
+        mCellStart = start;
+        mItems     = items;
+    }
+
+
+    public int segmentCount() {
+        return mCount;
+    }
+
+
+    public double cellSize() {
+        return mCellSize;
+    }
+
+
+    public int cols() {
+        return mCols;
+    }
+
+
+    public int rows() {
+        return mRows;
+    }
+
+    /**
+     * Equivalent to {@code intersections( skipSharedEndpoints, out, null )}.
+     */
+    public void intersections( boolean skipSharedEndpoints, Hits out ) {
+        intersections( skipSharedEndpoints, out, null );
+    }
+
+    /**
+     * Finds all pairs of intersecting segments. Results are appended to {@code out} in cell order.
+     * <p>
+     * Parallel segments, including collinear overlapping segments, are not reported,
+     * which matches {@link Vec#segmentIntersection}. A pair is considered parallel when
+     * the cross product of their directions is zero relative to their lengths, within
+     * {@link Tol#REL_TOL}. Intersection parameters may fall outside [0,1] by up to
+     * {@link Tol#SQRT_REL_TOL}, so that segments that touch at an end are not missed
+     * due to rounding.
+     *
+     * @param skipSharedEndpoints If true, pairs that only meet where an endpoint of one segment meets an
+     *                            endpoint of the other, such as consecutive segments of a polyline, are not reported.
+     * @param out  Receives intersections
+     * @param pool Pool used to search disjoint ranges of grid rows in parallel. If null, runs on the calling thread.
+     */
+    public void intersections( boolean skipSharedEndpoints, Hits out, ForkJoinPool pool ) {
+        if( pool == null || mItems.length <= PARALLEL_ITEMS ) {
+            intersectRows( 0, mRows, skipSharedEndpoints, out );
+        } else {
+            IntersectTask task = new IntersectTask( this, 0, mRows, skipSharedEndpoints );
+            pool.invoke( task );
+            out.addAll( task.mHits );
+        }
+    }
+
+
+    /**
+     * Equivalent to {@code nearest( pts, ptsOff, count, maxDist, outIndex, outDist, outT, outPoint, outOff, null )}.
+     */
+    public int nearest( double[] pts,
+                        int ptsOff,
+                        int count,
+                        double maxDist,
+                        int[] outIndex,
+                        double[] outDist,
+                        double[] outT,
+                        double[] outPoint,
+                        int outOff )
+    {
+        return nearest( pts, ptsOff, count, maxDist, outIndex, outDist, outT, outPoint, outOff, null );
+    }
+
+    /**
+     * Finds the nearest segment to each of a set of points. Cells are searched in rings of
+     * increasing size around each point, stopping when no unsearched cell can be closer than
+     * the best segment found, so only nearby segments are tested.
+     *
+     * @param pts      Points, packed {@code [x, y]}.
+     * @param ptsOff   Offset into pts
+     * @param count    Number of points
+     * @param maxDist  Maximum distance to search. Points with no segment within this distance receive index -1.
+     *                 Use {@code Double.POSITIVE_INFINITY} for no limit.
+     * @param outIndex Receives index of nearest segment for each point, or -1.
+     * @param outDist  Receives distance to nearest segment. May be null.
+     * @param outT     Receives parameter of closest point on nearest segment. May be null.
+     * @param outPoint Receives closest point on nearest segment, packed. May be null.
+     * @param outOff   Offset, in points, into output arrays
+     * @param pool     Pool used to search disjoint ranges of points in parallel. If null, runs on the calling thread.
+     * @return number of points for which a segment was found.
+     */
+    public int nearest( double[] pts,
+                        int ptsOff,
+                        int count,
+                        double maxDist,
+                        int[] outIndex,
+                        double[] outDist,
+                        double[] outT,
+                        double[] outPoint,
+                        int outOff,
+                        ForkJoinPool pool )
+    {
+        if( pool == null || count <= PARALLEL_POINTS ) {
+            return nearestSerial( pts, ptsOff, count, maxDist, outIndex, outDist, outT, outPoint, outOff );
+        }
+        NearestTask task = new NearestTask( this, pts, ptsOff, count, maxDist, outIndex, outDist, outT, outPoint, outOff );
+        pool.invoke( task );
+        return task.mFound;
+    }
+
+
+    private int cellX( double x ) {
+        int c = (int)( ( x - mMinX ) * mInvCell );
+        return c < 0 ? 0 : c >= mCols ? mCols - 1 : c;
+    }
+
+
+    private int cellY( double y ) {
+        int c = (int)( ( y - mMinY ) * mInvCell );
+        return c < 0 ? 0 : c >= mRows ? mRows - 1 : c;
+    }
+
+
+    private void intersectRows( int row0, int row1, boolean skipShared, Hits out ) {
+        final double[] segs = mSegs;
+        final int off       = mOff;
+        final int[] start   = mCellStart;
+        final int[] items   = mItems;
+        final int cols      = mCols;
+
+        for( int cy = row0; cy < row1; cy++ ) {
+            for( int cx = 0; cx < cols; cx++ ) {
+                final int cell = cy * cols + cx;
+                final int end  = start[cell + 1];
+                for( int ia = start[cell]; ia < end; ia++ ) {
+                    final int a  = items[ia];
+                    final int pa = off + a * 4;
+                    final double ax0 = segs[pa], ay0 = segs[pa + 1], ax1 = segs[pa + 2], ay1 = segs[pa + 3];
+                    final double aMinX = Math.min( ax0, ax1 ), aMaxX = Math.max( ax0, ax1 );
+                    final double aMinY = Math.min( ay0, ay1 ), aMaxY = Math.max( ay0, ay1 );
+                    final int acx = cellX( aMinX );
+                    final int acy = cellY( aMinY );
+
+                    for( int ib = ia + 1; ib < end; ib++ ) {
+                        final int b  = items[ib];
+                        final int pb = off + b * 4;
+                        final double bx0 = segs[pb], by0 = segs[pb + 1], bx1 = segs[pb + 2], by1 = segs[pb + 3];
+                        final double bMinX = Math.min( bx0, bx1 ), bMinY = Math.min( by0, by1 );
+                        if( bMinX > aMaxX || bMinY > aMaxY ||
+                            Math.max( bx0, bx1 ) < aMinX || Math.max( by0, by1 ) < aMinY )
+                        {
+                            continue;
+                        }
+                        // Only test pair in first cell shared by both bounding boxes.
+                        if( Math.max( acx, cellX( bMinX ) ) != cx || Math.max( acy, cellY( bMinY ) ) != cy ) {
+                            continue;
+                        }
+                        intersect( a, ax0, ay0, ax1, ay1, b, bx0, by0, bx1, by1, skipShared, out );
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static void intersect( int a, double ax0, double ay0, double ax1, double ay1,
+                                   int b, double bx0, double by0, double bx1, double by1,
+                                   boolean skipShared,
+                                   Hits out )
+    {
+        final double dax = ax1 - ax0;
+        final double day = ay1 - ay0;
+        final double dbx = bx1 - bx0;
+        final double dby = by1 - by0;
+        final double cross = dax * dby - day * dbx;
+        if( Tol.isZero( cross, Math.sqrt( ( dax * dax + day * day ) * ( dbx * dbx + dby * dby ) ) ) ) {
+            return;
+        }
+
+        final double cx = bx0 - ax0;
+        final double cy = by0 - ay0;
+        final double t  = ( cx * dby - cy * dbx ) / cross;
+        final double u  = ( cx * day - cy * dax ) / cross;
+        if( t < -PARAM_TOL || t > 1.0 + PARAM_TOL || u < -PARAM_TOL || u > 1.0 + PARAM_TOL ) {
+            return;
+        }
+        if( skipShared && isEnd( t ) && isEnd( u ) ) {
+            return;
+        }
+
+        final double tc = t <= 0.0 ? 0.0 : t >= 1.0 ? 1.0 : t;
+        out.add( a, b, ax0 + tc * dax, ay0 + tc * day, tc, u <= 0.0 ? 0.0 : u >= 1.0 ? 1.0 : u );
+    }
+
+
+    private int nearestSerial( double[] pts,
+                               int ptsOff,
+                               int count,
+                               double maxDist,
+                               int[] outIndex,
+                               double[] outDist,
+                               double[] outT,
+                               double[] outPoint,
+                               int outOff )
+    {
+        final double[] segs = mSegs;
+        final int off       = mOff;
+        final int[] start   = mCellStart;
+        final int[] items   = mItems;
+        final int cols      = mCols;
+        final int rows      = mRows;
+        final double limitSq = maxDist >= 0.0 ? maxDist * maxDist : 0.0;
+        int found = 0;
+
+        for( int i = 0; i < count; i++ ) {
+            final double px = pts[ptsOff + i * 2];
+            final double py = pts[ptsOff + i * 2 + 1];
+            final int cx = cellX( px );
+            final int cy = cellY( py );
+            int best = -1;
+            double bestSq = limitSq;
+            double bestT  = 0.0;
+
+            for( int r = 0; mCount > 0; r++ ) {
+                final int y0 = Math.max( 0, cy - r );
+                final int y1 = Math.min( rows - 1, cy + r );
+                for( int y = y0; y <= y1; y++ ) {
+                    // Interior rows of ring only contain its left and right cells.
+                    final boolean edgeRow = y == cy - r || y == cy + r;
+                    final int step = edgeRow ? 1 : Math.max( 1, 2 * r );
+                    for( int x = cx - r; x <= cx + r; x += step ) {
+                        if( x < 0 || x >= cols ) {
+                            continue;
+                        }
+                        final int cell = y * cols + x;
+                        for( int k = start[cell], end = start[cell + 1]; k < end; k++ ) {
+                            final int seg = items[k];
+                            final int p = off + seg * 4;
+                            final double ax = segs[p], ay = segs[p + 1];
+                            final double vx = segs[p + 2] - ax, vy = segs[p + 3] - ay;
+                            final double ux = px - ax, uy = py - ay;
+                            final double den = vx * vx + vy * vy;
+                            double t = den > 0.0 ? ( ux * vx + uy * vy ) / den : 0.0;
+                            t = t <= 0.0 ? 0.0 : t >= 1.0 ? 1.0 : t;
+                            final double dx = ux - t * vx, dy = uy - t * vy;
+                            final double dSq = dx * dx + dy * dy;
+                            if( dSq < bestSq || dSq == bestSq && best < 0 ) {
+                                best   = seg;
+                                bestSq = dSq;
+                                bestT  = t;
+                            }
+                        }
+                    }
+                }
+
+                // Lower bound on distance to any cell outside this ring.
+                double bound = Double.POSITIVE_INFINITY;
+                if( cx - r > 0 ) {
+                    bound = Math.min( bound, px - ( mMinX + ( cx - r ) * mCellSize ) );
+                }
+                if( cx + r < cols - 1 ) {
+                    bound = Math.min( bound, mMinX + ( cx + r + 1 ) * mCellSize - px );
+                }
+                if( cy - r > 0 ) {
+                    bound = Math.min( bound, py - ( mMinY + ( cy - r ) * mCellSize ) );
+                }
+                if( cy + r < rows - 1 ) {
+                    bound = Math.min( bound, mMinY + ( cy + r + 1 ) * mCellSize - py );
+                }
+                if( bound == Double.POSITIVE_INFINITY || bound > 0.0 && bound * bound > bestSq ) {
+                    break;
+                }
+            }
+
+            outIndex[outOff + i] = best;
+            if( best >= 0 ) {
+                found++;
+                final int p = off + best * 4;
+                final double qx = segs[p] + bestT * ( segs[p + 2] - segs[p] );
+                final double qy = segs[p + 1] + bestT * ( segs[p + 3] - segs[p + 1] );
+                if( outDist != null ) {
+                    outDist[outOff + i] = Math.sqrt( bestSq );
+                }
+                if( outT != null ) {
+                    outT[outOff + i] = bestT;
+                }
+                if( outPoint != null ) {
+                    outPoint[( outOff + i ) * 2    ] = qx;
+                    outPoint[( outOff + i ) * 2 + 1] = qy;
+                }
+            } else {
+                if( outDist != null ) {
+                    outDist[outOff + i] = Double.NaN;
+                }
+                if( outT != null ) {
+                    outT[outOff + i] = Double.NaN;
+                }
+                if( outPoint != null ) {
+                    outPoint[( outOff + i ) * 2    ] = Double.NaN;
+                    outPoint[( outOff + i ) * 2 + 1] = Double.NaN;
+                }
+            }
+        }
+
+        return found;
+    }
+
+
+    private static void pointDistance( double[] segs,
+                                       int segsOff,
+                                       double[] pts,
+                                       int ptsOff,
+                                       int count,
+                                       boolean clamp,
+                                       double[] outDist,
+                                       double[] outT,
+                                       double[] outPoint,
+                                       int outOff )
+    {
+        for( int i = 0; i < count; i++ ) {
+            final int p = segsOff + i * 4;
+            final double ax = segs[p], ay = segs[p + 1];
+            final double vx = segs[p + 2] - ax, vy = segs[p + 3] - ay;
+            final double ux = pts[ptsOff + i * 2] - ax;
+            final double uy = pts[ptsOff + i * 2 + 1] - ay;
+            final double den = vx * vx + vy * vy;
+            double t = den > 0.0 ? ( ux * vx + uy * vy ) / den : 0.0;
+            if( clamp ) {
+                t = t <= 0.0 ? 0.0 : t >= 1.0 ? 1.0 : t;
+            }
+            final double dx = ux - t * vx;
+            final double dy = uy - t * vy;
+            if( outDist != null ) {
+                outDist[outOff + i] = Math.sqrt( dx * dx + dy * dy );
+            }
+            if( outT != null ) {
+                outT[outOff + i] = t;
+            }
+            if( outPoint != null ) {
+                outPoint[( outOff + i ) * 2    ] = ax + t * vx;
+                outPoint[( outOff + i ) * 2 + 1] = ay + t * vy;
+            }
+        }
+    }
+
+
+    private static boolean isEnd( double t ) {
+        return t <= PARAM_TOL || t >= 1.0 - PARAM_TOL;
+    }
+
+
+    private static final double PARAM_TOL = Tol.SQRT_REL_TOL;
+    private static final int MAX_CELLS = 1 << 26;
+    private static final int PARALLEL_ITEMS = 1 << 14;
+    private static final int PARALLEL_POINTS = 1 << 12;
+
+
+    @SuppressWarnings( "serial" )
+    private static final class IntersectTask extends RecursiveAction {
+
+        final SegmentGrid mGrid;
+        final int mRow0;
+        final int mRow1;
+        final boolean mSkipShared;
+        final Hits mHits = new Hits();
+
+        IntersectTask( SegmentGrid grid, int row0, int row1, boolean skipShared ) {
+            mGrid       = grid;
+            mRow0       = row0;
+            mRow1       = row1;
+            mSkipShared = skipShared;
+        }
+
+        @Override
+        protected void compute() {
+            final int[] start = mGrid.mCellStart;
+            final int cols    = mGrid.mCols;
+            if( mRow1 - mRow0 > 1 && start[mRow1 * cols] - start[mRow0 * cols] > PARALLEL_ITEMS ) {
+                int mid = ( mRow0 + mRow1 ) >>> 1;
+                IntersectTask lo = new IntersectTask( mGrid, mRow0, mid, mSkipShared );
+                IntersectTask hi = new IntersectTask( mGrid, mid, mRow1, mSkipShared );
+                invokeAll( lo, hi );
+                mHits.addAll( lo.mHits );
+                mHits.addAll( hi.mHits );
+                return;
+            }
+            mGrid.intersectRows( mRow0, mRow1, mSkipShared, mHits );
+        }
+    }
+
+
+    @SuppressWarnings( "serial" )
+    private static final class NearestTask extends RecursiveAction {
+
+        final SegmentGrid mGrid;
+        final double[] mPts;
+        final int mPtsOff;
+        final int mCount;
+        final double mMaxDist;
+        final int[] mOutIndex;
+        final double[] mOutDist;
+        final double[] mOutT;
+        final double[] mOutPoint;
+        final int mOutOff;
+        int mFound = 0;
+
+        NearestTask( SegmentGrid grid,
+                     double[] pts,
+                     int ptsOff,
+                     int count,
+                     double maxDist,
+                     int[] outIndex,
+                     double[] outDist,
+                     double[] outT,
+                     double[] outPoint,
+                     int outOff )
+        {
+            mGrid     = grid;
+            mPts      = pts;
+            mPtsOff   = ptsOff;
+            mCount    = count;
+            mMaxDist  = maxDist;
+            mOutIndex = outIndex;
+            mOutDist  = outDist;
+            mOutT     = outT;
+            mOutPoint = outPoint;
+            mOutOff   = outOff;
+        }
+
+        @Override
+        protected void compute() {
+            if( mCount > PARALLEL_POINTS ) {
+                int half = mCount / 2;
+                NearestTask lo = new NearestTask( mGrid, mPts, mPtsOff, half, mMaxDist,
+                                                  mOutIndex, mOutDist, mOutT, mOutPoint, mOutOff );
+                NearestTask hi = new NearestTask( mGrid, mPts, mPtsOff + half * 2, mCount - half, mMaxDist,
+                                                  mOutIndex, mOutDist, mOutT, mOutPoint, mOutOff + half );
+                invokeAll( lo, hi );
+                mFound = lo.mFound + hi.mFound;
+                return;
+            }
+            mFound = mGrid.nearestSerial( mPts, mPtsOff, mCount, mMaxDist, mOutIndex, mOutDist, mOutT, mOutPoint, mOutOff );
+        }
+    }
+
+}
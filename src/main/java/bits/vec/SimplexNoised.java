@@ -0,0 +1,1404 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Seeded Simplex Noise in 2D, 3D and 4D, computed in double precision.
+ * <p>
+ * Each instance hashes lattice points with its own {@link NoisePerm}, so generators
+ * with different seeds can be used concurrently without shared state. Instances are
+ * immutable and thread-safe. An instance built on {@link NoisePerm#DEFAULT} produces
+ * the same output as the static {@link SimplexNoise} methods.
+ * <p>
+ * Based on the example code of Stefan Gustavson, with optimizations by Karsten Schmidt.
+ *
+ * @see SimplexNoisef
+ * @author Philip DeCamp
+ */
+public final class SimplexNoised {
+
+    public static final SimplexNoised DEFAULT = new SimplexNoised( NoisePerm.DEFAULT );
+
+
+    private final NoisePerm mPermTable;
+    private final int[] mPerm;
+    private final int[] mPermMod12;
+
+
+    public SimplexNoised( long seed ) {
+        this( new NoisePerm( seed ) );
+    }
+
+
+    public SimplexNoised( NoisePerm perm ) {
+        mPermTable = perm;
+        mPerm      = perm.mPerm;
+        mPermMod12 = perm.mPermMod12;
+    }
+
+
+
+    public NoisePerm perm() {
+        return mPermTable;
+    }
+
+    /**
+     * Computes 2D Simplex Noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @return noise value in range -1 ... +1.
+     */
+    public double noise( double x, double y ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        // Skew the input space to determine which simplex cell we're in
+        double s = ( x + y ) * F2;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        double t = ( i + j ) * G2;
+        double x0 = x - ( i - t );
+        double y0 = y - ( j - t );
+
+        // Offsets for middle corner of simplex in (i,j)
+        int i1, j1;
+        if( x0 > y0 ) {
+            i1 = 1;
+            j1 = 0;
+        } else {
+            i1 = 0;
+            j1 = 1;
+        }
+
+        double x1 = x0 - i1 + G2;
+        double y1 = y0 - j1 + G2;
+        double x2 = x0 + G22;
+        double y2 = y0 + G22;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        double n = 0;
+
+        double t0 = 0.5 - x0 * x0 - y0 * y0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[jj] ];
+            t0 *= t0;
+            n = t0 * t0 * ( GRAD3_X[g] * x0 + GRAD3_Y[g] * y0 );
+        }
+
+        double t1 = 0.5 - x1 * x1 - y1 * y1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 ] ];
+            t1 *= t1;
+            n += t1 * t1 * ( GRAD3_X[g] * x1 + GRAD3_Y[g] * y1 );
+        }
+
+        double t2 = 0.5 - x2 * x2 - y2 * y2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 ] ];
+            t2 *= t2;
+            n += t2 * t2 * ( GRAD3_X[g] * x2 + GRAD3_Y[g] * y2 );
+        }
+
+        return 70.0 * n;
+    }
+
+    /**
+     * Computes 3D Simplex Noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @param z coordinate
+     * @return noise value in range -1 ... +1
+     */
+    public double noise( double x, double y, double z ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        double s = ( x + y + z ) * F3;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        double t  = ( i + j + k ) * G3;
+        double x0 = x - ( i - t );
+        double y0 = y - ( j - t );
+        double z0 = z - ( k - t );
+
+        int i1, j1, k1;
+        int i2, j2, k2;
+
+        if( x0 >= y0 ) {
+            if( y0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            } else if( x0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+            } else {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+            }
+        } else {
+            if( y0 < z0 ) {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+            } else if( x0 < z0 ) {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+            } else {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            }
+        }
+
+        double x1 = x0 - i1 + G3;
+        double y1 = y0 - j1 + G3;
+        double z1 = z0 - k1 + G3;
+        double x2 = x0 - i2 + F3;
+        double y2 = y0 - j2 + F3;
+        double z2 = z0 - k2 + F3;
+        double x3 = x0 - 0.5;
+        double y3 = y0 - 0.5;
+        double z3 = z0 - 0.5;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        double n = 0;
+
+        double t0 = 0.6 - x0 * x0 - y0 * y0 - z0 * z0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[ jj + perm[kk] ] ];
+            t0 *= t0;
+            n = t0 * t0 * ( GRAD3_X[g] * x0 + GRAD3_Y[g] * y0 + GRAD3_Z[g] * z0 );
+        }
+        double t1 = 0.6 - x1 * x1 - y1 * y1 - z1 * z1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 ] ] ];
+            t1 *= t1;
+            n += t1 * t1 * ( GRAD3_X[g] * x1 + GRAD3_Y[g] * y1 + GRAD3_Z[g] * z1 );
+        }
+        double t2 = 0.6 - x2 * x2 - y2 * y2 - z2 * z2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 ] ] ];
+            t2 *= t2;
+            n += t2 * t2 * ( GRAD3_X[g] * x2 + GRAD3_Y[g] * y2 + GRAD3_Z[g] * z2 );
+        }
+        double t3 = 0.6 - x3 * x3 - y3 * y3 - z3 * z3;
+        if( t3 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 ] ] ];
+            t3 *= t3;
+            n += t3 * t3 * ( GRAD3_X[g] * x3 + GRAD3_Y[g] * y3 + GRAD3_Z[g] * z3 );
+        }
+
+        return 32.0 * n;
+    }
+
+    /**
+     * Computes 4D Simplex Noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @param z coordinate
+     * @param w coordinate
+     * @return noise value in range -1 ... +1
+     */
+    public double noise( double x, double y, double z, double w ) {
+        final int[] perm = mPerm;
+
+        double s = ( x + y + z + w ) * F4;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        int l = fastfloor( w + s );
+        double t = ( i + j + k + l ) * G4;
+        double x0 = x - ( i - t );
+        double y0 = y - ( j - t );
+        double z0 = z - ( k - t );
+        double w0 = w - ( l - t );
+
+        // Rank coordinates to find which of the 24 simplices contains the point.
+        int c = 0;
+        if( x0 > y0 ) {
+            c = 0x20;
+        }
+        if( x0 > z0 ) {
+            c |= 0x10;
+        }
+        if( y0 > z0 ) {
+            c |= 0x08;
+        }
+        if( x0 > w0 ) {
+            c |= 0x04;
+        }
+        if( y0 > w0 ) {
+            c |= 0x02;
+        }
+        if( z0 > w0 ) {
+            c |= 0x01;
+        }
+
+        int[] sc = SIMPLEX[c];
+        int i1 = sc[0] >> 2;
+        int j1 = sc[1] >> 2;
+        int k1 = sc[2] >> 2;
+        int l1 = sc[3] >> 2;
+        int i2 = sc[0] >> 1 & 1;
+        int j2 = sc[1] >> 1 & 1;
+        int k2 = sc[2] >> 1 & 1;
+        int l2 = sc[3] >> 1 & 1;
+        int i3 = sc[0] & 1;
+        int j3 = sc[1] & 1;
+        int k3 = sc[2] & 1;
+        int l3 = sc[3] & 1;
+
+        double x1 = x0 - i1 + G4;
+        double y1 = y0 - j1 + G4;
+        double z1 = z0 - k1 + G4;
+        double w1 = w0 - l1 + G4;
+        double x2 = x0 - i2 + G42;
+        double y2 = y0 - j2 + G42;
+        double z2 = z0 - k2 + G42;
+        double w2 = w0 - l2 + G42;
+        double x3 = x0 - i3 + G43;
+        double y3 = y0 - j3 + G43;
+        double z3 = z0 - k3 + G43;
+        double w3 = w0 - l3 + G43;
+        double x4 = x0 + G44;
+        double y4 = y0 + G44;
+        double z4 = z0 + G44;
+        double w4 = w0 + G44;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        int ll = l & 0xFF;
+        double n = 0;
+
+        double t0 = 0.6 - x0 * x0 - y0 * y0 - z0 * z0 - w0 * w0;
+        if( t0 > 0 ) {
+            t0 *= t0;
+            int g = perm[ ii + perm[ jj + perm[ kk + perm[ll] ] ] ] & 31;
+            n = t0 * t0 * ( GRAD4_X[g] * x0 + GRAD4_Y[g] * y0 + GRAD4_Z[g] * z0 + GRAD4_W[g] * w0 );
+        }
+        double t1 = 0.6 - x1 * x1 - y1 * y1 - z1 * z1 - w1 * w1;
+        if( t1 > 0 ) {
+            t1 *= t1;
+            int g = perm[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 + perm[ ll + l1 ] ] ] ] & 31;
+            n += t1 * t1 * ( GRAD4_X[g] * x1 + GRAD4_Y[g] * y1 + GRAD4_Z[g] * z1 + GRAD4_W[g] * w1 );
+        }
+        double t2 = 0.6 - x2 * x2 - y2 * y2 - z2 * z2 - w2 * w2;
+        if( t2 > 0 ) {
+            t2 *= t2;
+            int g = perm[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 + perm[ ll + l2 ] ] ] ] & 31;
+            n += t2 * t2 * ( GRAD4_X[g] * x2 + GRAD4_Y[g] * y2 + GRAD4_Z[g] * z2 + GRAD4_W[g] * w2 );
+        }
+        double t3 = 0.6 - x3 * x3 - y3 * y3 - z3 * z3 - w3 * w3;
+        if( t3 > 0 ) {
+            t3 *= t3;
+            int g = perm[ ii + i3 + perm[ jj + j3 + perm[ kk + k3 + perm[ ll + l3 ] ] ] ] & 31;
+            n += t3 * t3 * ( GRAD4_X[g] * x3 + GRAD4_Y[g] * y3 + GRAD4_Z[g] * z3 + GRAD4_W[g] * w3 );
+        }
+        double t4 = 0.6 - x4 * x4 - y4 * y4 - z4 * z4 - w4 * w4;
+        if( t4 > 0 ) {
+            t4 *= t4;
+            int g = perm[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 + perm[ ll + 1 ] ] ] ] & 31;
+            n += t4 * t4 * ( GRAD4_X[g] * x4 + GRAD4_Y[g] * y4 + GRAD4_Z[g] * z4 + GRAD4_W[g] * w4 );
+        }
+
+        return 27.0 * n;
+    }
+
+    /**
+     * Computes 2D Simplex Noise and its gradient in a single evaluation.
+     * The returned value is identical to {@link #noise(double, double)}.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param grad    Receives partial derivatives {@code [d/dx, d/dy]}
+     * @param gradOff Offset into grad
+     * @return noise value in range -1 ... +1.
+     */
+    public double noiseGrad( double x, double y, double[] grad, int gradOff ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        double s = ( x + y ) * F2;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        double t = ( i + j ) * G2;
+        double x0 = x - ( i - t );
+        double y0 = y - ( j - t );
+
+        int i1, j1;
+        if( x0 > y0 ) {
+            i1 = 1;
+            j1 = 0;
+        } else {
+            i1 = 0;
+            j1 = 1;
+        }
+
+        double x1 = x0 - i1 + G2;
+        double y1 = y0 - j1 + G2;
+        double x2 = x0 + G22;
+        double y2 = y0 + G22;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        double n  = 0;
+        double nx = 0;
+        double ny = 0;
+
+        // For each corner, n = t^4 (g . p) where t = r^2 - |p|^2, so
+        // dn/dp = t^4 g - 8 t^3 (g . p) p.
+        double t0 = 0.5 - x0 * x0 - y0 * y0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[jj] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gd = gx * x0 + gy * y0;
+            double tt = t0 * t0;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t0 * gd;
+            n   = tq * gd;
+            nx  = tq * gx + a * x0;
+            ny  = tq * gy + a * y0;
+        }
+
+        double t1 = 0.5 - x1 * x1 - y1 * y1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 ] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gd = gx * x1 + gy * y1;
+            double tt = t1 * t1;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t1 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x1;
+            ny += tq * gy + a * y1;
+        }
+
+        double t2 = 0.5 - x2 * x2 - y2 * y2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 ] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gd = gx * x2 + gy * y2;
+            double tt = t2 * t2;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t2 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x2;
+            ny += tq * gy + a * y2;
+        }
+
+        grad[gradOff  ] = 70.0 * nx;
+        grad[gradOff+1] = 70.0 * ny;
+        return 70.0 * n;
+    }
+
+    /**
+     * Computes 3D Simplex Noise and its gradient in a single evaluation.
+     * The returned value is identical to {@link #noise(double, double, double)}.
+     * <p>
+     * Like the noise itself, the gradient has small discontinuities where a kernel
+     * leaves the set of corners considered for a simplex.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param z       coordinate
+     * @param grad    Receives partial derivatives {@code [d/dx, d/dy, d/dz]}
+     * @param gradOff Offset into grad
+     * @return noise value in range -1 ... +1
+     */
+    public double noiseGrad( double x, double y, double z, double[] grad, int gradOff ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        double s = ( x + y + z ) * F3;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        double t  = ( i + j + k ) * G3;
+        double x0 = x - ( i - t );
+        double y0 = y - ( j - t );
+        double z0 = z - ( k - t );
+
+        int i1, j1, k1;
+        int i2, j2, k2;
+
+        if( x0 >= y0 ) {
+            if( y0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            } else if( x0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+            } else {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+            }
+        } else {
+            if( y0 < z0 ) {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+            } else if( x0 < z0 ) {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+            } else {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            }
+        }
+
+        double x1 = x0 - i1 + G3;
+        double y1 = y0 - j1 + G3;
+        double z1 = z0 - k1 + G3;
+        double x2 = x0 - i2 + F3;
+        double y2 = y0 - j2 + F3;
+        double z2 = z0 - k2 + F3;
+        double x3 = x0 - 0.5;
+        double y3 = y0 - 0.5;
+        double z3 = z0 - 0.5;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        double n  = 0;
+        double nx = 0;
+        double ny = 0;
+        double nz = 0;
+
+        double t0 = 0.6 - x0 * x0 - y0 * y0 - z0 * z0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[ jj + perm[kk] ] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gz = GRAD3_Z[g];
+            double gd = gx * x0 + gy * y0 + gz * z0;
+            double tt = t0 * t0;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t0 * gd;
+            n   = tq * gd;
+            nx  = tq * gx + a * x0;
+            ny  = tq * gy + a * y0;
+            nz  = tq * gz + a * z0;
+        }
+        double t1 = 0.6 - x1 * x1 - y1 * y1 - z1 * z1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 ] ] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gz = GRAD3_Z[g];
+            double gd = gx * x1 + gy * y1 + gz * z1;
+            double tt = t1 * t1;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t1 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x1;
+            ny += tq * gy + a * y1;
+            nz += tq * gz + a * z1;
+        }
+        double t2 = 0.6 - x2 * x2 - y2 * y2 - z2 * z2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 ] ] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gz = GRAD3_Z[g];
+            double gd = gx * x2 + gy * y2 + gz * z2;
+            double tt = t2 * t2;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t2 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x2;
+            ny += tq * gy + a * y2;
+            nz += tq * gz + a * z2;
+        }
+        double t3 = 0.6 - x3 * x3 - y3 * y3 - z3 * z3;
+        if( t3 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 ] ] ];
+            double gx = GRAD3_X[g];
+            double gy = GRAD3_Y[g];
+            double gz = GRAD3_Z[g];
+            double gd = gx * x3 + gy * y3 + gz * z3;
+            double tt = t3 * t3;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t3 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x3;
+            ny += tq * gy + a * y3;
+            nz += tq * gz + a * z3;
+        }
+
+        grad[gradOff  ] = 32.0 * nx;
+        grad[gradOff+1] = 32.0 * ny;
+        grad[gradOff+2] = 32.0 * nz;
+        return 32.0 * n;
+    }
+
+    /**
+     * Computes 4D Simplex Noise and its gradient in a single evaluation.
+     * The returned value is identical to {@link #noise(double, double, double, double)}.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param z       coordinate
+     * @param w       coordinate
+     * @param grad    Receives partial derivatives {@code [d/dx, d/dy, d/dz, d/dw]}
+     * @param gradOff Offset into grad
+     * @return noise value in range -1 ... +1
+     */
+    public double noiseGrad( double x, double y, double z, double w, double[] grad, int gradOff ) {
+        final int[] perm = mPerm;
+
+        double s = ( x + y + z + w ) * F4;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        int l = fastfloor( w + s );
+        double t = ( i + j + k + l ) * G4;
+        double x0 = x - ( i - t );
+        double y0 = y - ( j - t );
+        double z0 = z - ( k - t );
+        double w0 = w - ( l - t );
+
+        int c = 0;
+        if( x0 > y0 ) {
+            c = 0x20;
+        }
+        if( x0 > z0 ) {
+            c |= 0x10;
+        }
+        if( y0 > z0 ) {
+            c |= 0x08;
+        }
+        if( x0 > w0 ) {
+            c |= 0x04;
+        }
+        if( y0 > w0 ) {
+            c |= 0x02;
+        }
+        if( z0 > w0 ) {
+            c |= 0x01;
+        }
+
+        int[] sc = SIMPLEX[c];
+        int i1 = sc[0] >> 2;
+        int j1 = sc[1] >> 2;
+        int k1 = sc[2] >> 2;
+        int l1 = sc[3] >> 2;
+        int i2 = sc[0] >> 1 & 1;
+        int j2 = sc[1] >> 1 & 1;
+        int k2 = sc[2] >> 1 & 1;
+        int l2 = sc[3] >> 1 & 1;
+        int i3 = sc[0] & 1;
+        int j3 = sc[1] & 1;
+        int k3 = sc[2] & 1;
+        int l3 = sc[3] & 1;
+
+        double x1 = x0 - i1 + G4;
+        double y1 = y0 - j1 + G4;
+        double z1 = z0 - k1 + G4;
+        double w1 = w0 - l1 + G4;
+        double x2 = x0 - i2 + G42;
+        double y2 = y0 - j2 + G42;
+        double z2 = z0 - k2 + G42;
+        double w2 = w0 - l2 + G42;
+        double x3 = x0 - i3 + G43;
+        double y3 = y0 - j3 + G43;
+        double z3 = z0 - k3 + G43;
+        double w3 = w0 - l3 + G43;
+        double x4 = x0 + G44;
+        double y4 = y0 + G44;
+        double z4 = z0 + G44;
+        double w4 = w0 + G44;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        int ll = l & 0xFF;
+        double n  = 0;
+        double nx = 0;
+        double ny = 0;
+        double nz = 0;
+        double nw = 0;
+
+        double t0 = 0.6 - x0 * x0 - y0 * y0 - z0 * z0 - w0 * w0;
+        if( t0 > 0 ) {
+            int g = perm[ ii + perm[ jj + perm[ kk + perm[ll] ] ] ] & 31;
+            double gx = GRAD4_X[g];
+            double gy = GRAD4_Y[g];
+            double gz = GRAD4_Z[g];
+            double gw = GRAD4_W[g];
+            double gd = gx * x0 + gy * y0 + gz * z0 + gw * w0;
+            double tt = t0 * t0;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t0 * gd;
+            n   = tq * gd;
+            nx  = tq * gx + a * x0;
+            ny  = tq * gy + a * y0;
+            nz  = tq * gz + a * z0;
+            nw  = tq * gw + a * w0;
+        }
+        double t1 = 0.6 - x1 * x1 - y1 * y1 - z1 * z1 - w1 * w1;
+        if( t1 > 0 ) {
+            int g = perm[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 + perm[ ll + l1 ] ] ] ] & 31;
+            double gx = GRAD4_X[g];
+            double gy = GRAD4_Y[g];
+            double gz = GRAD4_Z[g];
+            double gw = GRAD4_W[g];
+            double gd = gx * x1 + gy * y1 + gz * z1 + gw * w1;
+            double tt = t1 * t1;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t1 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x1;
+            ny += tq * gy + a * y1;
+            nz += tq * gz + a * z1;
+            nw += tq * gw + a * w1;
+        }
+        double t2 = 0.6 - x2 * x2 - y2 * y2 - z2 * z2 - w2 * w2;
+        if( t2 > 0 ) {
+            int g = perm[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 + perm[ ll + l2 ] ] ] ] & 31;
+            double gx = GRAD4_X[g];
+            double gy = GRAD4_Y[g];
+            double gz = GRAD4_Z[g];
+            double gw = GRAD4_W[g];
+            double gd = gx * x2 + gy * y2 + gz * z2 + gw * w2;
+            double tt = t2 * t2;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t2 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x2;
+            ny += tq * gy + a * y2;
+            nz += tq * gz + a * z2;
+            nw += tq * gw + a * w2;
+        }
+        double t3 = 0.6 - x3 * x3 - y3 * y3 - z3 * z3 - w3 * w3;
+        if( t3 > 0 ) {
+            int g = perm[ ii + i3 + perm[ jj + j3 + perm[ kk + k3 + perm[ ll + l3 ] ] ] ] & 31;
+            double gx = GRAD4_X[g];
+            double gy = GRAD4_Y[g];
+            double gz = GRAD4_Z[g];
+            double gw = GRAD4_W[g];
+            double gd = gx * x3 + gy * y3 + gz * z3 + gw * w3;
+            double tt = t3 * t3;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t3 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x3;
+            ny += tq * gy + a * y3;
+            nz += tq * gz + a * z3;
+            nw += tq * gw + a * w3;
+        }
+        double t4 = 0.6 - x4 * x4 - y4 * y4 - z4 * z4 - w4 * w4;
+        if( t4 > 0 ) {
+            int g = perm[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 + perm[ ll + 1 ] ] ] ] & 31;
+            double gx = GRAD4_X[g];
+            double gy = GRAD4_Y[g];
+            double gz = GRAD4_Z[g];
+            double gw = GRAD4_W[g];
+            double gd = gx * x4 + gy * y4 + gz * z4 + gw * w4;
+            double tt = t4 * t4;
+            double tq = tt * tt;
+            double a  = -8.0 * tt * t4 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x4;
+            ny += tq * gy + a * y4;
+            nz += tq * gz + a * z4;
+            nw += tq * gw + a * w4;
+        }
+
+        grad[gradOff  ] = 27.0 * nx;
+        grad[gradOff+1] = 27.0 * ny;
+        grad[gradOff+2] = 27.0 * nz;
+        grad[gradOff+3] = 27.0 * nw;
+        return 27.0 * n;
+    }
+
+    /**
+     * Computes 2D Simplex Noise and gradients over a regular lattice. Sample order matches
+     * {@link #fill2(double, double, double, double, int, int, double[], int)}. Output is identical
+     * to calling {@link #noiseGrad(double, double, double[], int)} for each sample, and the same
+     * per-cell gradient selection is shared along each scanline.
+     *
+     * @param x0      X-coordinate of first sample
+     * @param y0      Y-coordinate of first sample
+     * @param dx      Distance between samples along x-axis
+     * @param dy      Distance between samples along y-axis
+     * @param w       Number of samples along x-axis
+     * @param h       Number of samples along y-axis
+     * @param out     Receives {@code w * h} noise values in row-major order, or {@code null} to skip
+     * @param off     Offset into out
+     * @param grad    Receives {@code 2 * w * h} partial derivatives, interleaved {@code [d/dx, d/dy]} per sample
+     * @param gradOff Offset into grad
+     */
+    public void fillGrad2( double x0,
+                           double y0,
+                           double dx,
+                           double dy,
+                           int w,
+                           int h,
+                           double[] out,
+                           int off,
+                           double[] grad,
+                           int gradOff )
+    {
+        for( int row = 0; row < h; row++ ) {
+            fillGradRow2( x0, y0 + row * dy, dx, w, out, off + row * w, grad, gradOff + row * w * 2 );
+        }
+    }
+
+    /**
+     * Computes 3D Simplex Noise and gradients over a regular lattice. Sample order matches
+     * {@link #fill3(double, double, double, double, double, double, int, int, int, double[], int)}.
+     * Output is identical to calling {@link #noiseGrad(double, double, double, double[], int)}
+     * for each sample, and the same per-cell gradient selection is shared along each scanline.
+     *
+     * @param x0      X-coordinate of first sample
+     * @param y0      Y-coordinate of first sample
+     * @param z0      Z-coordinate of first sample
+     * @param dx      Distance between samples along x-axis
+     * @param dy      Distance between samples along y-axis
+     * @param dz      Distance between samples along z-axis
+     * @param w       Number of samples along x-axis
+     * @param h       Number of samples along y-axis
+     * @param d       Number of samples along z-axis
+     * @param out     Receives {@code w * h * d} noise values, or {@code null} to skip
+     * @param off     Offset into out
+     * @param grad    Receives {@code 3 * w * h * d} partial derivatives, interleaved {@code [d/dx, d/dy, d/dz]} per sample
+     * @param gradOff Offset into grad
+     */
+    public void fillGrad3( double x0,
+                           double y0,
+                           double z0,
+                           double dx,
+                           double dy,
+                           double dz,
+                           int w,
+                           int h,
+                           int d,
+                           double[] out,
+                           int off,
+                           double[] grad,
+                           int gradOff )
+    {
+        double[] grads = new double[24];
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                int idx = ( layer * h + row ) * w;
+                fillGradRow3( x0, y0 + row * dy, z, dx, w, grads, out, off + idx, grad, gradOff + idx * 3 );
+            }
+        }
+    }
+
+    /**
+     * Computes 2D Simplex Noise over a regular lattice. Output is identical to calling
+     * {@code noise( x0 + col * dx, y0 + row * dy )} for each sample, but the permutation
+     * lookups and gradient selection for each simplex cell are shared by all samples along
+     * a scanline that fall in that cell.
+     *
+     * @param x0  X-coordinate of first sample
+     * @param y0  Y-coordinate of first sample
+     * @param dx  Distance between samples along x-axis
+     * @param dy  Distance between samples along y-axis
+     * @param w   Number of samples along x-axis
+     * @param h   Number of samples along y-axis
+     * @param out Receives {@code w * h} samples in row-major order.
+     * @param off Offset into out
+     */
+    public void fill2( double x0, double y0, double dx, double dy, int w, int h, double[] out, int off ) {
+        for( int row = 0; row < h; row++ ) {
+            fillRow2( x0, y0 + row * dy, dx, w, out, off + row * w );
+        }
+    }
+
+    /**
+     * Float version of {@link #fill2(double, double, double, double, int, int, double[], int)}.
+     */
+    public void fill2( double x0, double y0, double dx, double dy, int w, int h, float[] out, int off ) {
+        double[] rowBuf = new double[w];
+        for( int row = 0; row < h; row++ ) {
+            fillRow2( x0, y0 + row * dy, dx, w, rowBuf, 0 );
+            Arr.put( rowBuf, 0, out, off + row * w, w );
+        }
+    }
+
+    /**
+     * Computes 3D Simplex Noise over a regular lattice. Output is identical to calling
+     * {@code noise( x0 + col * dx, y0 + row * dy, z0 + layer * dz )} for each sample, but the
+     * permutation lookups and gradient selection for each simplex cell are shared by
+     * all samples along a scanline that fall in that cell.
+     *
+     * @param x0  X-coordinate of first sample
+     * @param y0  Y-coordinate of first sample
+     * @param z0  Z-coordinate of first sample
+     * @param dx  Distance between samples along x-axis
+     * @param dy  Distance between samples along y-axis
+     * @param dz  Distance between samples along z-axis
+     * @param w   Number of samples along x-axis
+     * @param h   Number of samples along y-axis
+     * @param d   Number of samples along z-axis
+     * @param out Receives {@code w * h * d} samples, indexed {@code off + col + w * ( row + h * layer )}.
+     * @param off Offset into out
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       double[] out,
+                       int off )
+    {
+        double[] grads = new double[24];
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                fillRow3( x0, y0 + row * dy, z, dx, w, grads, out, off + ( layer * h + row ) * w );
+            }
+        }
+    }
+
+    /**
+     * Float version of {@link #fill3(double, double, double, double, double, double, int, int, int, double[], int)}.
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       float[] out,
+                       int off )
+    {
+        double[] grads  = new double[24];
+        double[] rowBuf = new double[w];
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                fillRow3( x0, y0 + row * dy, z, dx, w, grads, rowBuf, 0 );
+                Arr.put( rowBuf, 0, out, off + ( layer * h + row ) * w, w );
+            }
+        }
+    }
+
+
+    private void fillRow2( double x0, double y, double dx, int w, double[] out, int off ) {
+        // Gradients of the four corners of the current skewed cell.
+        double gx00 = 0, gy00 = 0, gx10 = 0, gy10 = 0;
+        double gx01 = 0, gy01 = 0, gx11 = 0, gy11 = 0;
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            double x = x0 + col * dx;
+            double s = ( x + y ) * F2;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+
+            if( !hasCell || i != ci || j != cj ) {
+                int g;
+                g = hash( i,     j     );
+                gx00 = GRAD3_X[g];
+                gy00 = GRAD3_Y[g];
+                g = hash( i + 1, j     );
+                gx10 = GRAD3_X[g];
+                gy10 = GRAD3_Y[g];
+                g = hash( i,     j + 1 );
+                gx01 = GRAD3_X[g];
+                gy01 = GRAD3_Y[g];
+                g = hash( i + 1, j + 1 );
+                gx11 = GRAD3_X[g];
+                gy11 = GRAD3_Y[g];
+                hasCell = true;
+                ci = i;
+                cj = j;
+            }
+
+            double t  = ( i + j ) * G2;
+            double xa = x - ( i - t );
+            double ya = y - ( j - t );
+            double xb, yb, gxb, gyb;
+
+            if( xa > ya ) {
+                xb  = xa - 1 + G2;
+                yb  = ya + G2;
+                gxb = gx10;
+                gyb = gy10;
+            } else {
+                xb  = xa + G2;
+                yb  = ya - 1 + G2;
+                gxb = gx01;
+                gyb = gy01;
+            }
+
+            double xc = xa + G22;
+            double yc = ya + G22;
+            double n  = 0;
+
+            double t0 = 0.5 - xa * xa - ya * ya;
+            if( t0 > 0 ) {
+                t0 *= t0;
+                n = t0 * t0 * ( gx00 * xa + gy00 * ya );
+            }
+            double t1 = 0.5 - xb * xb - yb * yb;
+            if( t1 > 0 ) {
+                t1 *= t1;
+                n += t1 * t1 * ( gxb * xb + gyb * yb );
+            }
+            double t2 = 0.5 - xc * xc - yc * yc;
+            if( t2 > 0 ) {
+                t2 *= t2;
+                n += t2 * t2 * ( gx11 * xc + gy11 * yc );
+            }
+
+            out[off + col] = 70.0 * n;
+        }
+    }
+
+
+    private void fillRow3( double x0, double y, double z, double dx, int w, double[] grads, double[] out, int off ) {
+        // Three-dimensional cells are only revisited when the step is well below the cell size.
+        // Otherwise, looking up all eight corners costs more than it saves.
+        if( dx >= 0.5 || dx <= -0.5 ) {
+            for( int col = 0; col < w; col++ ) {
+                out[off + col] = noise( x0 + col * dx, y, z );
+            }
+            return;
+        }
+
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+        int ck = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            double x = x0 + col * dx;
+            double s = ( x + y + z ) * F3;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+            int k = fastfloor( z + s );
+
+            if( !hasCell || i != ci || j != cj || k != ck ) {
+                // Corner (di,dj,dk) is stored at ( di * 4 + dj * 2 + dk ) * 3.
+                for( int c = 0; c < 8; c++ ) {
+                    int g = hash( i + ( c >> 2 ), j + ( c >> 1 & 1 ), k + ( c & 1 ) );
+                    grads[c*3  ] = GRAD3_X[g];
+                    grads[c*3+1] = GRAD3_Y[g];
+                    grads[c*3+2] = GRAD3_Z[g];
+                }
+                hasCell = true;
+                ci = i;
+                cj = j;
+                ck = k;
+            }
+
+            double t  = ( i + j + k ) * G3;
+            double xa = x - ( i - t );
+            double ya = y - ( j - t );
+            double za = z - ( k - t );
+
+            int i1, j1, k1;
+            int i2, j2, k2;
+
+            if( xa >= ya ) {
+                if( ya >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                } else if( xa >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+                }
+            } else {
+                if( ya < za ) {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+                } else if( xa < za ) {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                }
+            }
+
+            double xb = xa - i1 + G3;
+            double yb = ya - j1 + G3;
+            double zb = za - k1 + G3;
+            double xc = xa - i2 + F3;
+            double yc = ya - j2 + F3;
+            double zc = za - k2 + F3;
+            double xd = xa - 0.5;
+            double yd = ya - 0.5;
+            double zd = za - 0.5;
+            double n  = 0;
+            int g;
+
+            double t0 = 0.6 - xa * xa - ya * ya - za * za;
+            if( t0 > 0 ) {
+                t0 *= t0;
+                n = t0 * t0 * ( grads[0] * xa + grads[1] * ya + grads[2] * za );
+            }
+            double t1 = 0.6 - xb * xb - yb * yb - zb * zb;
+            if( t1 > 0 ) {
+                t1 *= t1;
+                g = ( i1 * 4 + j1 * 2 + k1 ) * 3;
+                n += t1 * t1 * ( grads[g] * xb + grads[g+1] * yb + grads[g+2] * zb );
+            }
+            double t2 = 0.6 - xc * xc - yc * yc - zc * zc;
+            if( t2 > 0 ) {
+                t2 *= t2;
+                g = ( i2 * 4 + j2 * 2 + k2 ) * 3;
+                n += t2 * t2 * ( grads[g] * xc + grads[g+1] * yc + grads[g+2] * zc );
+            }
+            double t3 = 0.6 - xd * xd - yd * yd - zd * zd;
+            if( t3 > 0 ) {
+                t3 *= t3;
+                n += t3 * t3 * ( grads[21] * xd + grads[22] * yd + grads[23] * zd );
+            }
+
+            out[off + col] = 32.0 * n;
+        }
+    }
+
+
+    private void fillGradRow2( double x0, double y, double dx, int w, double[] out, int off, double[] grad, int gradOff ) {
+        // Gradients of the four corners of the current skewed cell.
+        double gx00 = 0, gy00 = 0, gx10 = 0, gy10 = 0;
+        double gx01 = 0, gy01 = 0, gx11 = 0, gy11 = 0;
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            double x = x0 + col * dx;
+            double s = ( x + y ) * F2;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+
+            if( !hasCell || i != ci || j != cj ) {
+                int g;
+                g = hash( i,     j     );
+                gx00 = GRAD3_X[g];
+                gy00 = GRAD3_Y[g];
+                g = hash( i + 1, j     );
+                gx10 = GRAD3_X[g];
+                gy10 = GRAD3_Y[g];
+                g = hash( i,     j + 1 );
+                gx01 = GRAD3_X[g];
+                gy01 = GRAD3_Y[g];
+                g = hash( i + 1, j + 1 );
+                gx11 = GRAD3_X[g];
+                gy11 = GRAD3_Y[g];
+                hasCell = true;
+                ci = i;
+                cj = j;
+            }
+
+            double t  = ( i + j ) * G2;
+            double xa = x - ( i - t );
+            double ya = y - ( j - t );
+            double xb, yb, gxb, gyb;
+
+            if( xa > ya ) {
+                xb  = xa - 1 + G2;
+                yb  = ya + G2;
+                gxb = gx10;
+                gyb = gy10;
+            } else {
+                xb  = xa + G2;
+                yb  = ya - 1 + G2;
+                gxb = gx01;
+                gyb = gy01;
+            }
+
+            double xc = xa + G22;
+            double yc = ya + G22;
+            double n  = 0;
+            double nx = 0;
+            double ny = 0;
+
+            double t0 = 0.5 - xa * xa - ya * ya;
+            if( t0 > 0 ) {
+                double gd = gx00 * xa + gy00 * ya;
+                double tt = t0 * t0;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t0 * gd;
+                n   = tq * gd;
+                nx  = tq * gx00 + a * xa;
+                ny  = tq * gy00 + a * ya;
+            }
+            double t1 = 0.5 - xb * xb - yb * yb;
+            if( t1 > 0 ) {
+                double gd = gxb * xb + gyb * yb;
+                double tt = t1 * t1;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t1 * gd;
+                n  += tq * gd;
+                nx += tq * gxb + a * xb;
+                ny += tq * gyb + a * yb;
+            }
+            double t2 = 0.5 - xc * xc - yc * yc;
+            if( t2 > 0 ) {
+                double gd = gx11 * xc + gy11 * yc;
+                double tt = t2 * t2;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t2 * gd;
+                n  += tq * gd;
+                nx += tq * gx11 + a * xc;
+                ny += tq * gy11 + a * yc;
+            }
+
+            if( out != null ) {
+                out[off + col] = 70.0 * n;
+            }
+            grad[gradOff + col * 2    ] = 70.0 * nx;
+            grad[gradOff + col * 2 + 1] = 70.0 * ny;
+        }
+    }
+
+
+    private void fillGradRow3( double x0,
+                               double y,
+                               double z,
+                               double dx,
+                               int w,
+                               double[] grads,
+                               double[] out,
+                               int off,
+                               double[] grad,
+                               int gradOff )
+    {
+        // Same trade-off as fillRow3: wide steps rarely revisit a cell.
+        if( dx >= 0.5 || dx <= -0.5 ) {
+            for( int col = 0; col < w; col++ ) {
+                double v = noiseGrad( x0 + col * dx, y, z, grad, gradOff + col * 3 );
+                if( out != null ) {
+                    out[off + col] = v;
+                }
+            }
+            return;
+        }
+
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+        int ck = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            double x = x0 + col * dx;
+            double s = ( x + y + z ) * F3;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+            int k = fastfloor( z + s );
+
+            if( !hasCell || i != ci || j != cj || k != ck ) {
+                // Corner (di,dj,dk) is stored at ( di * 4 + dj * 2 + dk ) * 3.
+                for( int c = 0; c < 8; c++ ) {
+                    int g = hash( i + ( c >> 2 ), j + ( c >> 1 & 1 ), k + ( c & 1 ) );
+                    grads[c*3  ] = GRAD3_X[g];
+                    grads[c*3+1] = GRAD3_Y[g];
+                    grads[c*3+2] = GRAD3_Z[g];
+                }
+                hasCell = true;
+                ci = i;
+                cj = j;
+                ck = k;
+            }
+
+            double t  = ( i + j + k ) * G3;
+            double xa = x - ( i - t );
+            double ya = y - ( j - t );
+            double za = z - ( k - t );
+
+            int i1, j1, k1;
+            int i2, j2, k2;
+
+            if( xa >= ya ) {
+                if( ya >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                } else if( xa >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+                }
+            } else {
+                if( ya < za ) {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+                } else if( xa < za ) {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                }
+            }
+
+            double xb = xa - i1 + G3;
+            double yb = ya - j1 + G3;
+            double zb = za - k1 + G3;
+            double xc = xa - i2 + F3;
+            double yc = ya - j2 + F3;
+            double zc = za - k2 + F3;
+            double xd = xa - 0.5;
+            double yd = ya - 0.5;
+            double zd = za - 0.5;
+            double n  = 0;
+            double nx = 0;
+            double ny = 0;
+            double nz = 0;
+
+            double t0 = 0.6 - xa * xa - ya * ya - za * za;
+            if( t0 > 0 ) {
+                double gx = grads[0];
+                double gy = grads[1];
+                double gz = grads[2];
+                double gd = gx * xa + gy * ya + gz * za;
+                double tt = t0 * t0;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t0 * gd;
+                n   = tq * gd;
+                nx  = tq * gx + a * xa;
+                ny  = tq * gy + a * ya;
+                nz  = tq * gz + a * za;
+            }
+            double t1 = 0.6 - xb * xb - yb * yb - zb * zb;
+            if( t1 > 0 ) {
+                int g = ( i1 * 4 + j1 * 2 + k1 ) * 3;
+                double gx = grads[g  ];
+                double gy = grads[g+1];
+                double gz = grads[g+2];
+                double gd = gx * xb + gy * yb + gz * zb;
+                double tt = t1 * t1;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t1 * gd;
+                n  += tq * gd;
+                nx += tq * gx + a * xb;
+                ny += tq * gy + a * yb;
+                nz += tq * gz + a * zb;
+            }
+            double t2 = 0.6 - xc * xc - yc * yc - zc * zc;
+            if( t2 > 0 ) {
+                int g = ( i2 * 4 + j2 * 2 + k2 ) * 3;
+                double gx = grads[g  ];
+                double gy = grads[g+1];
+                double gz = grads[g+2];
+                double gd = gx * xc + gy * yc + gz * zc;
+                double tt = t2 * t2;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t2 * gd;
+                n  += tq * gd;
+                nx += tq * gx + a * xc;
+                ny += tq * gy + a * yc;
+                nz += tq * gz + a * zc;
+            }
+            double t3 = 0.6 - xd * xd - yd * yd - zd * zd;
+            if( t3 > 0 ) {
+                double gx = grads[21];
+                double gy = grads[22];
+                double gz = grads[23];
+                double gd = gx * xd + gy * yd + gz * zd;
+                double tt = t3 * t3;
+                double tq = tt * tt;
+                double a  = -8.0 * tt * t3 * gd;
+                n  += tq * gd;
+                nx += tq * gx + a * xd;
+                ny += tq * gy + a * yd;
+                nz += tq * gz + a * zd;
+            }
+
+            if( out != null ) {
+                out[off + col] = 32.0 * n;
+            }
+            grad[gradOff + col * 3    ] = 32.0 * nx;
+            grad[gradOff + col * 3 + 1] = 32.0 * ny;
+            grad[gradOff + col * 3 + 2] = 32.0 * nz;
+        }
+    }
+
+    /**
+     * @return index into GRAD3 tables for lattice point (i,j).
+     */
+    private int hash( int i, int j ) {
+        return mPermMod12[ ( i & 0xFF ) + mPerm[ j & 0xFF ] ];
+    }
+
+    /**
+     * @return index into GRAD3 tables for lattice point (i,j,k).
+     */
+    private int hash( int i, int j, int k ) {
+        return mPermMod12[ ( i & 0xFF ) + mPerm[ ( j & 0xFF ) + mPerm[ k & 0xFF ] ] ];
+    }
+
+
+    private static final double SQRT3 = Math.sqrt( 3.0 );
+    private static final double SQRT5 = Math.sqrt( 5.0 );
+
+    /**
+     * Skewing and unskewing factors for 2D, 3D and 4D, some of them
+     * pre-multiplied.
+     */
+    static final double F2  = 0.5 * ( SQRT3 - 1.0 );
+    static final double G2  = ( 3.0 - SQRT3 ) / 6.0;
+    static final double G22 = G2 * 2.0 - 1;
+
+    static final double F3 = 1.0 / 3.0;
+    static final double G3 = 1.0 / 6.0;
+
+    static final double F4  = ( SQRT5 - 1.0 ) / 4.0;
+    static final double G4  = ( 5.0 - SQRT5 ) / 20.0;
+    static final double G42 = G4 * 2.0;
+    static final double G43 = G4 * 3.0;
+    static final double G44 = G4 * 4.0 - 1.0;
+
+    /**
+     * Gradient vectors for 3D (pointing to mid points of all edges of a unit cube).
+     * The 2D noise uses the x and y components.
+     */
+    static final double[] GRAD3_X = {  1, -1,  1, -1,  1, -1,  1, -1,  0,  0,  0,  0 };
+    static final double[] GRAD3_Y = {  1,  1, -1, -1,  0,  0,  0,  0,  1, -1,  1, -1 };
+    static final double[] GRAD3_Z = {  0,  0,  0,  0,  1,  1, -1, -1,  1,  1, -1, -1 };
+
+    /**
+     * Gradient vectors for 4D (pointing to mid points of all edges of a unit 4D hypercube)
+     */
+    static final double[] GRAD4_X = {  0,  0,  0,  0,  0,  0,  0,  0,  1,  1,  1,  1, -1, -1, -1, -1,
+                                       1,  1,  1,  1, -1, -1, -1, -1,  1,  1,  1,  1, -1, -1, -1, -1 };
+    static final double[] GRAD4_Y = {  1,  1,  1,  1, -1, -1, -1, -1,  0,  0,  0,  0,  0,  0,  0,  0,
+                                       1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1 };
+    static final double[] GRAD4_Z = {  1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1,
+                                       0,  0,  0,  0,  0,  0,  0,  0,  1, -1,  1, -1,  1, -1,  1, -1 };
+    static final double[] GRAD4_W = {  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,
+                                       1, -1,  1, -1,  1, -1,  1, -1,  0,  0,  0,  0,  0,  0,  0,  0 };
+
+    /**
+     * A lookup table to traverse the simplex around a given point in 4D.
+     */
+    static final int[][] SIMPLEX = { { 0, 1, 3, 7 }, { 0, 1, 7, 3 }, { 0, 0, 0, 0 }, { 0, 3, 7, 1 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 1, 3, 7, 0 },
+                                     { 0, 3, 1, 7 }, { 0, 0, 0, 0 }, { 0, 7, 1, 3 }, { 0, 7, 3, 1 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 1, 7, 3, 0 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 1, 3, 0, 7 }, { 0, 0, 0, 0 }, { 1, 7, 0, 3 }, { 0, 0, 0, 0 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 3, 7, 0, 1 }, { 3, 7, 1, 0 },
+                                     { 1, 0, 3, 7 }, { 1, 0, 7, 3 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 0, 0, 0, 0 }, { 3, 0, 7, 1 }, { 0, 0, 0, 0 }, { 3, 1, 7, 0 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 3, 0, 1, 7 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 7, 0, 1, 3 }, { 7, 0, 3, 1 }, { 0, 0, 0, 0 }, { 7, 1, 3, 0 },
+                                     { 3, 1, 0, 7 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 }, { 0, 0, 0, 0 },
+                                     { 7, 1, 0, 3 }, { 0, 0, 0, 0 }, { 7, 3, 0, 1 }, { 7, 3, 1, 0 } };
+
+
+    /**
+     * This method is a *lot* faster than using (int)Math.floor(x).
+     *
+     * @param x value to be floored
+     */
+    static int fastfloor( double x ) {
+        return x >= 0 ? (int)x : (int)x - 1;
+    }
+
+}
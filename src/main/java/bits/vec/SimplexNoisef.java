@@ -0,0 +1,1340 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Seeded Simplex Noise in 2D, 3D and 4D, computed in single precision.
+ * <p>
+ * Uses the same lattice hashing as {@link SimplexNoised}, so generators built on the same
+ * {@link NoisePerm} agree to within float rounding. Working entirely in floats halves the
+ * memory traffic of large fills and keeps the inner loops free of conversions. Instances
+ * are immutable and thread-safe.
+ *
+ * @see SimplexNoised
+ * @author Philip DeCamp
+ */
+public final class SimplexNoisef {
+
+    public static final SimplexNoisef DEFAULT = new SimplexNoisef( NoisePerm.DEFAULT );
+
+
+    private final NoisePerm mPermTable;
+    private final int[] mPerm;
+    private final int[] mPermMod12;
+
+
+    public SimplexNoisef( long seed ) {
+        this( new NoisePerm( seed ) );
+    }
+
+
+    public SimplexNoisef( NoisePerm perm ) {
+        mPermTable = perm;
+        mPerm      = perm.mPerm;
+        mPermMod12 = perm.mPermMod12;
+    }
+
+
+
+    public NoisePerm perm() {
+        return mPermTable;
+    }
+
+    /**
+     * Computes 2D Simplex Noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @return noise value in range -1 ... +1.
+     */
+    public float noise( float x, float y ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        // Skew the input space to determine which simplex cell we're in
+        float s = ( x + y ) * F2;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        float t = ( i + j ) * G2;
+        float x0 = x - ( i - t );
+        float y0 = y - ( j - t );
+
+        // Offsets for middle corner of simplex in (i,j)
+        int i1, j1;
+        if( x0 > y0 ) {
+            i1 = 1;
+            j1 = 0;
+        } else {
+            i1 = 0;
+            j1 = 1;
+        }
+
+        float x1 = x0 - i1 + G2;
+        float y1 = y0 - j1 + G2;
+        float x2 = x0 + G22;
+        float y2 = y0 + G22;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        float n = 0;
+
+        float t0 = 0.5f - x0 * x0 - y0 * y0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[jj] ];
+            t0 *= t0;
+            n = t0 * t0 * ( GRAD3_X[g] * x0 + GRAD3_Y[g] * y0 );
+        }
+
+        float t1 = 0.5f - x1 * x1 - y1 * y1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 ] ];
+            t1 *= t1;
+            n += t1 * t1 * ( GRAD3_X[g] * x1 + GRAD3_Y[g] * y1 );
+        }
+
+        float t2 = 0.5f - x2 * x2 - y2 * y2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 ] ];
+            t2 *= t2;
+            n += t2 * t2 * ( GRAD3_X[g] * x2 + GRAD3_Y[g] * y2 );
+        }
+
+        return 70.0f * n;
+    }
+
+    /**
+     * Computes 3D Simplex Noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @param z coordinate
+     * @return noise value in range -1 ... +1
+     */
+    public float noise( float x, float y, float z ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        float s = ( x + y + z ) * F3;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        float t  = ( i + j + k ) * G3;
+        float x0 = x - ( i - t );
+        float y0 = y - ( j - t );
+        float z0 = z - ( k - t );
+
+        int i1, j1, k1;
+        int i2, j2, k2;
+
+        if( x0 >= y0 ) {
+            if( y0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            } else if( x0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+            } else {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+            }
+        } else {
+            if( y0 < z0 ) {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+            } else if( x0 < z0 ) {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+            } else {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            }
+        }
+
+        float x1 = x0 - i1 + G3;
+        float y1 = y0 - j1 + G3;
+        float z1 = z0 - k1 + G3;
+        float x2 = x0 - i2 + F3;
+        float y2 = y0 - j2 + F3;
+        float z2 = z0 - k2 + F3;
+        float x3 = x0 - 0.5f;
+        float y3 = y0 - 0.5f;
+        float z3 = z0 - 0.5f;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        float n = 0;
+
+        float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[ jj + perm[kk] ] ];
+            t0 *= t0;
+            n = t0 * t0 * ( GRAD3_X[g] * x0 + GRAD3_Y[g] * y0 + GRAD3_Z[g] * z0 );
+        }
+        float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 ] ] ];
+            t1 *= t1;
+            n += t1 * t1 * ( GRAD3_X[g] * x1 + GRAD3_Y[g] * y1 + GRAD3_Z[g] * z1 );
+        }
+        float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 ] ] ];
+            t2 *= t2;
+            n += t2 * t2 * ( GRAD3_X[g] * x2 + GRAD3_Y[g] * y2 + GRAD3_Z[g] * z2 );
+        }
+        float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3;
+        if( t3 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 ] ] ];
+            t3 *= t3;
+            n += t3 * t3 * ( GRAD3_X[g] * x3 + GRAD3_Y[g] * y3 + GRAD3_Z[g] * z3 );
+        }
+
+        return 32.0f * n;
+    }
+
+    /**
+     * Computes 4D Simplex Noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @param z coordinate
+     * @param w coordinate
+     * @return noise value in range -1 ... +1
+     */
+    public float noise( float x, float y, float z, float w ) {
+        final int[] perm = mPerm;
+
+        float s = ( x + y + z + w ) * F4;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        int l = fastfloor( w + s );
+        float t = ( i + j + k + l ) * G4;
+        float x0 = x - ( i - t );
+        float y0 = y - ( j - t );
+        float z0 = z - ( k - t );
+        float w0 = w - ( l - t );
+
+        // Rank coordinates to find which of the 24 simplices contains the point.
+        int c = 0;
+        if( x0 > y0 ) {
+            c = 0x20;
+        }
+        if( x0 > z0 ) {
+            c |= 0x10;
+        }
+        if( y0 > z0 ) {
+            c |= 0x08;
+        }
+        if( x0 > w0 ) {
+            c |= 0x04;
+        }
+        if( y0 > w0 ) {
+            c |= 0x02;
+        }
+        if( z0 > w0 ) {
+            c |= 0x01;
+        }
+
+        int[] sc = SIMPLEX[c];
+        int i1 = sc[0] >> 2;
+        int j1 = sc[1] >> 2;
+        int k1 = sc[2] >> 2;
+        int l1 = sc[3] >> 2;
+        int i2 = sc[0] >> 1 & 1;
+        int j2 = sc[1] >> 1 & 1;
+        int k2 = sc[2] >> 1 & 1;
+        int l2 = sc[3] >> 1 & 1;
+        int i3 = sc[0] & 1;
+        int j3 = sc[1] & 1;
+        int k3 = sc[2] & 1;
+        int l3 = sc[3] & 1;
+
+        float x1 = x0 - i1 + G4;
+        float y1 = y0 - j1 + G4;
+        float z1 = z0 - k1 + G4;
+        float w1 = w0 - l1 + G4;
+        float x2 = x0 - i2 + G42;
+        float y2 = y0 - j2 + G42;
+        float z2 = z0 - k2 + G42;
+        float w2 = w0 - l2 + G42;
+        float x3 = x0 - i3 + G43;
+        float y3 = y0 - j3 + G43;
+        float z3 = z0 - k3 + G43;
+        float w3 = w0 - l3 + G43;
+        float x4 = x0 + G44;
+        float y4 = y0 + G44;
+        float z4 = z0 + G44;
+        float w4 = w0 + G44;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        int ll = l & 0xFF;
+        float n = 0;
+
+        float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0 - w0 * w0;
+        if( t0 > 0 ) {
+            t0 *= t0;
+            int g = perm[ ii + perm[ jj + perm[ kk + perm[ll] ] ] ] & 31;
+            n = t0 * t0 * ( GRAD4_X[g] * x0 + GRAD4_Y[g] * y0 + GRAD4_Z[g] * z0 + GRAD4_W[g] * w0 );
+        }
+        float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1 - w1 * w1;
+        if( t1 > 0 ) {
+            t1 *= t1;
+            int g = perm[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 + perm[ ll + l1 ] ] ] ] & 31;
+            n += t1 * t1 * ( GRAD4_X[g] * x1 + GRAD4_Y[g] * y1 + GRAD4_Z[g] * z1 + GRAD4_W[g] * w1 );
+        }
+        float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2 - w2 * w2;
+        if( t2 > 0 ) {
+            t2 *= t2;
+            int g = perm[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 + perm[ ll + l2 ] ] ] ] & 31;
+            n += t2 * t2 * ( GRAD4_X[g] * x2 + GRAD4_Y[g] * y2 + GRAD4_Z[g] * z2 + GRAD4_W[g] * w2 );
+        }
+        float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3 - w3 * w3;
+        if( t3 > 0 ) {
+            t3 *= t3;
+            int g = perm[ ii + i3 + perm[ jj + j3 + perm[ kk + k3 + perm[ ll + l3 ] ] ] ] & 31;
+            n += t3 * t3 * ( GRAD4_X[g] * x3 + GRAD4_Y[g] * y3 + GRAD4_Z[g] * z3 + GRAD4_W[g] * w3 );
+        }
+        float t4 = 0.6f - x4 * x4 - y4 * y4 - z4 * z4 - w4 * w4;
+        if( t4 > 0 ) {
+            t4 *= t4;
+            int g = perm[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 + perm[ ll + 1 ] ] ] ] & 31;
+            n += t4 * t4 * ( GRAD4_X[g] * x4 + GRAD4_Y[g] * y4 + GRAD4_Z[g] * z4 + GRAD4_W[g] * w4 );
+        }
+
+        return 27.0f * n;
+    }
+
+    /**
+     * Computes 2D Simplex Noise and its gradient in a single evaluation.
+     * The returned value is identical to {@link #noise(float, float)}.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param grad    Receives partial derivatives {@code [d/dx, d/dy]}
+     * @param gradOff Offset into grad
+     * @return noise value in range -1 ... +1.
+     */
+    public float noiseGrad( float x, float y, float[] grad, int gradOff ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        float s = ( x + y ) * F2;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        float t = ( i + j ) * G2;
+        float x0 = x - ( i - t );
+        float y0 = y - ( j - t );
+
+        int i1, j1;
+        if( x0 > y0 ) {
+            i1 = 1;
+            j1 = 0;
+        } else {
+            i1 = 0;
+            j1 = 1;
+        }
+
+        float x1 = x0 - i1 + G2;
+        float y1 = y0 - j1 + G2;
+        float x2 = x0 + G22;
+        float y2 = y0 + G22;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        float n  = 0;
+        float nx = 0;
+        float ny = 0;
+
+        // For each corner, n = t^4 (g . p) where t = r^2 - |p|^2, so
+        // dn/dp = t^4 g - 8 t^3 (g . p) p.
+        float t0 = 0.5f - x0 * x0 - y0 * y0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[jj] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gd = gx * x0 + gy * y0;
+            float tt = t0 * t0;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t0 * gd;
+            n   = tq * gd;
+            nx  = tq * gx + a * x0;
+            ny  = tq * gy + a * y0;
+        }
+
+        float t1 = 0.5f - x1 * x1 - y1 * y1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 ] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gd = gx * x1 + gy * y1;
+            float tt = t1 * t1;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t1 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x1;
+            ny += tq * gy + a * y1;
+        }
+
+        float t2 = 0.5f - x2 * x2 - y2 * y2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 ] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gd = gx * x2 + gy * y2;
+            float tt = t2 * t2;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t2 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x2;
+            ny += tq * gy + a * y2;
+        }
+
+        grad[gradOff  ] = 70.0f * nx;
+        grad[gradOff+1] = 70.0f * ny;
+        return 70.0f * n;
+    }
+
+    /**
+     * Computes 3D Simplex Noise and its gradient in a single evaluation.
+     * The returned value is identical to {@link #noise(float, float, float)}.
+     * <p>
+     * Like the noise itself, the gradient has small discontinuities where a kernel
+     * leaves the set of corners considered for a simplex.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param z       coordinate
+     * @param grad    Receives partial derivatives {@code [d/dx, d/dy, d/dz]}
+     * @param gradOff Offset into grad
+     * @return noise value in range -1 ... +1
+     */
+    public float noiseGrad( float x, float y, float z, float[] grad, int gradOff ) {
+        final int[] perm = mPerm;
+        final int[] mod12 = mPermMod12;
+
+        float s = ( x + y + z ) * F3;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        float t  = ( i + j + k ) * G3;
+        float x0 = x - ( i - t );
+        float y0 = y - ( j - t );
+        float z0 = z - ( k - t );
+
+        int i1, j1, k1;
+        int i2, j2, k2;
+
+        if( x0 >= y0 ) {
+            if( y0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            } else if( x0 >= z0 ) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+            } else {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+            }
+        } else {
+            if( y0 < z0 ) {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+            } else if( x0 < z0 ) {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+            } else {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            }
+        }
+
+        float x1 = x0 - i1 + G3;
+        float y1 = y0 - j1 + G3;
+        float z1 = z0 - k1 + G3;
+        float x2 = x0 - i2 + F3;
+        float y2 = y0 - j2 + F3;
+        float z2 = z0 - k2 + F3;
+        float x3 = x0 - 0.5f;
+        float y3 = y0 - 0.5f;
+        float z3 = z0 - 0.5f;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        float n  = 0;
+        float nx = 0;
+        float ny = 0;
+        float nz = 0;
+
+        float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0;
+        if( t0 > 0 ) {
+            int g = mod12[ ii + perm[ jj + perm[kk] ] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gz = GRAD3_Z[g];
+            float gd = gx * x0 + gy * y0 + gz * z0;
+            float tt = t0 * t0;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t0 * gd;
+            n   = tq * gd;
+            nx  = tq * gx + a * x0;
+            ny  = tq * gy + a * y0;
+            nz  = tq * gz + a * z0;
+        }
+        float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1;
+        if( t1 > 0 ) {
+            int g = mod12[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 ] ] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gz = GRAD3_Z[g];
+            float gd = gx * x1 + gy * y1 + gz * z1;
+            float tt = t1 * t1;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t1 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x1;
+            ny += tq * gy + a * y1;
+            nz += tq * gz + a * z1;
+        }
+        float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2;
+        if( t2 > 0 ) {
+            int g = mod12[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 ] ] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gz = GRAD3_Z[g];
+            float gd = gx * x2 + gy * y2 + gz * z2;
+            float tt = t2 * t2;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t2 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x2;
+            ny += tq * gy + a * y2;
+            nz += tq * gz + a * z2;
+        }
+        float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3;
+        if( t3 > 0 ) {
+            int g = mod12[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 ] ] ];
+            float gx = GRAD3_X[g];
+            float gy = GRAD3_Y[g];
+            float gz = GRAD3_Z[g];
+            float gd = gx * x3 + gy * y3 + gz * z3;
+            float tt = t3 * t3;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t3 * gd;
+            n  += tq * gd;
+            nx += tq * gx + a * x3;
+            ny += tq * gy + a * y3;
+            nz += tq * gz + a * z3;
+        }
+
+        grad[gradOff  ] = 32.0f * nx;
+        grad[gradOff+1] = 32.0f * ny;
+        grad[gradOff+2] = 32.0f * nz;
+        return 32.0f * n;
+    }
+
+    /**
+     * Computes 4D Simplex Noise and its gradient in a single evaluation.
+     * The returned value is identical to {@link #noise(float, float, float, float)}.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param z       coordinate
+     * @param w       coordinate
+     * @param grad    Receives partial derivatives {@code [d/dx, d/dy, d/dz, d/dw]}
+     * @param gradOff Offset into grad
+     * @return noise value in range -1 ... +1
+     */
+    public float noiseGrad( float x, float y, float z, float w, float[] grad, int gradOff ) {
+        final int[] perm = mPerm;
+
+        float s = ( x + y + z + w ) * F4;
+        int i = fastfloor( x + s );
+        int j = fastfloor( y + s );
+        int k = fastfloor( z + s );
+        int l = fastfloor( w + s );
+        float t = ( i + j + k + l ) * G4;
+        float x0 = x - ( i - t );
+        float y0 = y - ( j - t );
+        float z0 = z - ( k - t );
+        float w0 = w - ( l - t );
+
+        int c = 0;
+        if( x0 > y0 ) {
+            c = 0x20;
+        }
+        if( x0 > z0 ) {
+            c |= 0x10;
+        }
+        if( y0 > z0 ) {
+            c |= 0x08;
+        }
+        if( x0 > w0 ) {
+            c |= 0x04;
+        }
+        if( y0 > w0 ) {
+            c |= 0x02;
+        }
+        if( z0 > w0 ) {
+            c |= 0x01;
+        }
+
+        int[] sc = SIMPLEX[c];
+        int i1 = sc[0] >> 2;
+        int j1 = sc[1] >> 2;
+        int k1 = sc[2] >> 2;
+        int l1 = sc[3] >> 2;
+        int i2 = sc[0] >> 1 & 1;
+        int j2 = sc[1] >> 1 & 1;
+        int k2 = sc[2] >> 1 & 1;
+        int l2 = sc[3] >> 1 & 1;
+        int i3 = sc[0] & 1;
+        int j3 = sc[1] & 1;
+        int k3 = sc[2] & 1;
+        int l3 = sc[3] & 1;
+
+        float x1 = x0 - i1 + G4;
+        float y1 = y0 - j1 + G4;
+        float z1 = z0 - k1 + G4;
+        float w1 = w0 - l1 + G4;
+        float x2 = x0 - i2 + G42;
+        float y2 = y0 - j2 + G42;
+        float z2 = z0 - k2 + G42;
+        float w2 = w0 - l2 + G42;
+        float x3 = x0 - i3 + G43;
+        float y3 = y0 - j3 + G43;
+        float z3 = z0 - k3 + G43;
+        float w3 = w0 - l3 + G43;
+        float x4 = x0 + G44;
+        float y4 = y0 + G44;
+        float z4 = z0 + G44;
+        float w4 = w0 + G44;
+
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+        int ll = l & 0xFF;
+        float n  = 0;
+        float nx = 0;
+        float ny = 0;
+        float nz = 0;
+        float nw = 0;
+
+        float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0 - w0 * w0;
+        if( t0 > 0 ) {
+            int g = perm[ ii + perm[ jj + perm[ kk + perm[ll] ] ] ] & 31;
+            float gx = GRAD4_X[g];
+            float gy = GRAD4_Y[g];
+            float gz = GRAD4_Z[g];
+            float gw = GRAD4_W[g];
+            float gd = gx * x0 + gy * y0 + gz * z0 + gw * w0;
+            float tt = t0 * t0;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t0 * gd;
+            n   = tq * gd;
+            nx  = tq * gx + a * x0;
+            ny  = tq * gy + a * y0;
+            nz  = tq * gz + a * z0;
+            nw  = tq * gw + a * w0;
+        }
+        float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1 - w1 * w1;
+        if( t1 > 0 ) {
+            int g = perm[ ii + i1 + perm[ jj + j1 + perm[ kk + k1 + perm[ ll + l1 ] ] ] ] & 31;
+            float gx = GRAD4_X[g];
+            float gy = GRAD4_Y[g];
+            float gz = GRAD4_Z[g];
+            float gw = GRAD4_W[g];
+            float gd = gx * x1 + gy * y1 + gz * z1 + gw * w1;
+            float tt = t1 * t1;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t1 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x1;
+            ny += tq * gy + a * y1;
+            nz += tq * gz + a * z1;
+            nw += tq * gw + a * w1;
+        }
+        float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2 - w2 * w2;
+        if( t2 > 0 ) {
+            int g = perm[ ii + i2 + perm[ jj + j2 + perm[ kk + k2 + perm[ ll + l2 ] ] ] ] & 31;
+            float gx = GRAD4_X[g];
+            float gy = GRAD4_Y[g];
+            float gz = GRAD4_Z[g];
+            float gw = GRAD4_W[g];
+            float gd = gx * x2 + gy * y2 + gz * z2 + gw * w2;
+            float tt = t2 * t2;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t2 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x2;
+            ny += tq * gy + a * y2;
+            nz += tq * gz + a * z2;
+            nw += tq * gw + a * w2;
+        }
+        float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3 - w3 * w3;
+        if( t3 > 0 ) {
+            int g = perm[ ii + i3 + perm[ jj + j3 + perm[ kk + k3 + perm[ ll + l3 ] ] ] ] & 31;
+            float gx = GRAD4_X[g];
+            float gy = GRAD4_Y[g];
+            float gz = GRAD4_Z[g];
+            float gw = GRAD4_W[g];
+            float gd = gx * x3 + gy * y3 + gz * z3 + gw * w3;
+            float tt = t3 * t3;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t3 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x3;
+            ny += tq * gy + a * y3;
+            nz += tq * gz + a * z3;
+            nw += tq * gw + a * w3;
+        }
+        float t4 = 0.6f - x4 * x4 - y4 * y4 - z4 * z4 - w4 * w4;
+        if( t4 > 0 ) {
+            int g = perm[ ii + 1 + perm[ jj + 1 + perm[ kk + 1 + perm[ ll + 1 ] ] ] ] & 31;
+            float gx = GRAD4_X[g];
+            float gy = GRAD4_Y[g];
+            float gz = GRAD4_Z[g];
+            float gw = GRAD4_W[g];
+            float gd = gx * x4 + gy * y4 + gz * z4 + gw * w4;
+            float tt = t4 * t4;
+            float tq = tt * tt;
+            float a  = -8.0f * tt * t4 * gd;
+            n += tq * gd;
+            nx += tq * gx + a * x4;
+            ny += tq * gy + a * y4;
+            nz += tq * gz + a * z4;
+            nw += tq * gw + a * w4;
+        }
+
+        grad[gradOff  ] = 27.0f * nx;
+        grad[gradOff+1] = 27.0f * ny;
+        grad[gradOff+2] = 27.0f * nz;
+        grad[gradOff+3] = 27.0f * nw;
+        return 27.0f * n;
+    }
+
+    /**
+     * Computes 2D Simplex Noise and gradients over a regular lattice. Sample order matches
+     * {@link #fill2(float, float, float, float, int, int, float[], int)}. Output is identical
+     * to calling {@link #noiseGrad(float, float, float[], int)} for each sample, and the same
+     * per-cell gradient selection is shared along each scanline.
+     *
+     * @param x0      X-coordinate of first sample
+     * @param y0      Y-coordinate of first sample
+     * @param dx      Distance between samples along x-axis
+     * @param dy      Distance between samples along y-axis
+     * @param w       Number of samples along x-axis
+     * @param h       Number of samples along y-axis
+     * @param out     Receives {@code w * h} noise values in row-major order, or {@code null} to skip
+     * @param off     Offset into out
+     * @param grad    Receives {@code 2 * w * h} partial derivatives, interleaved {@code [d/dx, d/dy]} per sample
+     * @param gradOff Offset into grad
+     */
+    public void fillGrad2( float x0,
+                           float y0,
+                           float dx,
+                           float dy,
+                           int w,
+                           int h,
+                           float[] out,
+                           int off,
+                           float[] grad,
+                           int gradOff )
+    {
+        for( int row = 0; row < h; row++ ) {
+            fillGradRow2( x0, y0 + row * dy, dx, w, out, off + row * w, grad, gradOff + row * w * 2 );
+        }
+    }
+
+    /**
+     * Computes 3D Simplex Noise and gradients over a regular lattice. Sample order matches
+     * {@link #fill3(float, float, float, float, float, float, int, int, int, float[], int)}.
+     * Output is identical to calling {@link #noiseGrad(float, float, float, float[], int)}
+     * for each sample, and the same per-cell gradient selection is shared along each scanline.
+     *
+     * @param x0      X-coordinate of first sample
+     * @param y0      Y-coordinate of first sample
+     * @param z0      Z-coordinate of first sample
+     * @param dx      Distance between samples along x-axis
+     * @param dy      Distance between samples along y-axis
+     * @param dz      Distance between samples along z-axis
+     * @param w       Number of samples along x-axis
+     * @param h       Number of samples along y-axis
+     * @param d       Number of samples along z-axis
+     * @param out     Receives {@code w * h * d} noise values, or {@code null} to skip
+     * @param off     Offset into out
+     * @param grad    Receives {@code 3 * w * h * d} partial derivatives, interleaved {@code [d/dx, d/dy, d/dz]} per sample
+     * @param gradOff Offset into grad
+     */
+    public void fillGrad3( float x0,
+                           float y0,
+                           float z0,
+                           float dx,
+                           float dy,
+                           float dz,
+                           int w,
+                           int h,
+                           int d,
+                           float[] out,
+                           int off,
+                           float[] grad,
+                           int gradOff )
+    {
+        float[] grads = new float[24];
+        for( int layer = 0; layer < d; layer++ ) {
+            float z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                int idx = ( layer * h + row ) * w;
+                fillGradRow3( x0, y0 + row * dy, z, dx, w, grads, out, off + idx, grad, gradOff + idx * 3 );
+            }
+        }
+    }
+
+    /**
+     * Computes 2D Simplex Noise over a regular lattice. Output is identical to calling
+     * {@code noise( x0 + col * dx, y0 + row * dy )} for each sample, but the permutation
+     * lookups and gradient selection for each simplex cell are shared by all samples along
+     * a scanline that fall in that cell.
+     *
+     * @param x0  X-coordinate of first sample
+     * @param y0  Y-coordinate of first sample
+     * @param dx  Distance between samples along x-axis
+     * @param dy  Distance between samples along y-axis
+     * @param w   Number of samples along x-axis
+     * @param h   Number of samples along y-axis
+     * @param out Receives {@code w * h} samples in row-major order.
+     * @param off Offset into out
+     */
+    public void fill2( float x0, float y0, float dx, float dy, int w, int h, float[] out, int off ) {
+        for( int row = 0; row < h; row++ ) {
+            fillRow2( x0, y0 + row * dy, dx, w, out, off + row * w );
+        }
+    }
+
+    /**
+     * Computes 3D Simplex Noise over a regular lattice. Output is identical to calling
+     * {@code noise( x0 + col * dx, y0 + row * dy, z0 + layer * dz )} for each sample, but the
+     * permutation lookups and gradient selection for each simplex cell are shared by
+     * all samples along a scanline that fall in that cell.
+     *
+     * @param x0  X-coordinate of first sample
+     * @param y0  Y-coordinate of first sample
+     * @param z0  Z-coordinate of first sample
+     * @param dx  Distance between samples along x-axis
+     * @param dy  Distance between samples along y-axis
+     * @param dz  Distance between samples along z-axis
+     * @param w   Number of samples along x-axis
+     * @param h   Number of samples along y-axis
+     * @param d   Number of samples along z-axis
+     * @param out Receives {@code w * h * d} samples, indexed {@code off + col + w * ( row + h * layer )}.
+     * @param off Offset into out
+     */
+    public void fill3( float x0,
+                       float y0,
+                       float z0,
+                       float dx,
+                       float dy,
+                       float dz,
+                       int w,
+                       int h,
+                       int d,
+                       float[] out,
+                       int off )
+    {
+        float[] grads = new float[24];
+        for( int layer = 0; layer < d; layer++ ) {
+            float z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                fillRow3( x0, y0 + row * dy, z, dx, w, grads, out, off + ( layer * h + row ) * w );
+            }
+        }
+    }
+
+
+    private void fillRow2( float x0, float y, float dx, int w, float[] out, int off ) {
+        // Gradients of the four corners of the current skewed cell.
+        float gx00 = 0, gy00 = 0, gx10 = 0, gy10 = 0;
+        float gx01 = 0, gy01 = 0, gx11 = 0, gy11 = 0;
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            float x = x0 + col * dx;
+            float s = ( x + y ) * F2;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+
+            if( !hasCell || i != ci || j != cj ) {
+                int g;
+                g = hash( i,     j     );
+                gx00 = GRAD3_X[g];
+                gy00 = GRAD3_Y[g];
+                g = hash( i + 1, j     );
+                gx10 = GRAD3_X[g];
+                gy10 = GRAD3_Y[g];
+                g = hash( i,     j + 1 );
+                gx01 = GRAD3_X[g];
+                gy01 = GRAD3_Y[g];
+                g = hash( i + 1, j + 1 );
+                gx11 = GRAD3_X[g];
+                gy11 = GRAD3_Y[g];
+                hasCell = true;
+                ci = i;
+                cj = j;
+            }
+
+            float t  = ( i + j ) * G2;
+            float xa = x - ( i - t );
+            float ya = y - ( j - t );
+            float xb, yb, gxb, gyb;
+
+            if( xa > ya ) {
+                xb  = xa - 1 + G2;
+                yb  = ya + G2;
+                gxb = gx10;
+                gyb = gy10;
+            } else {
+                xb  = xa + G2;
+                yb  = ya - 1 + G2;
+                gxb = gx01;
+                gyb = gy01;
+            }
+
+            float xc = xa + G22;
+            float yc = ya + G22;
+            float n  = 0;
+
+            float t0 = 0.5f - xa * xa - ya * ya;
+            if( t0 > 0 ) {
+                t0 *= t0;
+                n = t0 * t0 * ( gx00 * xa + gy00 * ya );
+            }
+            float t1 = 0.5f - xb * xb - yb * yb;
+            if( t1 > 0 ) {
+                t1 *= t1;
+                n += t1 * t1 * ( gxb * xb + gyb * yb );
+            }
+            float t2 = 0.5f - xc * xc - yc * yc;
+            if( t2 > 0 ) {
+                t2 *= t2;
+                n += t2 * t2 * ( gx11 * xc + gy11 * yc );
+            }
+
+            out[off + col] = 70.0f * n;
+        }
+    }
+
+
+    private void fillRow3( float x0, float y, float z, float dx, int w, float[] grads, float[] out, int off ) {
+        // Three-dimensional cells are only revisited when the step is well below the cell size.
+        // Otherwise, looking up all eight corners costs more than it saves.
+        if( dx >= 0.5f || dx <= -0.5f ) {
+            for( int col = 0; col < w; col++ ) {
+                out[off + col] = noise( x0 + col * dx, y, z );
+            }
+            return;
+        }
+
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+        int ck = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            float x = x0 + col * dx;
+            float s = ( x + y + z ) * F3;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+            int k = fastfloor( z + s );
+
+            if( !hasCell || i != ci || j != cj || k != ck ) {
+                // Corner (di,dj,dk) is stored at ( di * 4 + dj * 2 + dk ) * 3.
+                for( int c = 0; c < 8; c++ ) {
+                    int g = hash( i + ( c >> 2 ), j + ( c >> 1 & 1 ), k + ( c & 1 ) );
+                    grads[c*3  ] = GRAD3_X[g];
+                    grads[c*3+1] = GRAD3_Y[g];
+                    grads[c*3+2] = GRAD3_Z[g];
+                }
+                hasCell = true;
+                ci = i;
+                cj = j;
+                ck = k;
+            }
+
+            float t  = ( i + j + k ) * G3;
+            float xa = x - ( i - t );
+            float ya = y - ( j - t );
+            float za = z - ( k - t );
+
+            int i1, j1, k1;
+            int i2, j2, k2;
+
+            if( xa >= ya ) {
+                if( ya >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                } else if( xa >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+                }
+            } else {
+                if( ya < za ) {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+                } else if( xa < za ) {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                }
+            }
+
+            float xb = xa - i1 + G3;
+            float yb = ya - j1 + G3;
+            float zb = za - k1 + G3;
+            float xc = xa - i2 + F3;
+            float yc = ya - j2 + F3;
+            float zc = za - k2 + F3;
+            float xd = xa - 0.5f;
+            float yd = ya - 0.5f;
+            float zd = za - 0.5f;
+            float n  = 0;
+            int g;
+
+            float t0 = 0.6f - xa * xa - ya * ya - za * za;
+            if( t0 > 0 ) {
+                t0 *= t0;
+                n = t0 * t0 * ( grads[0] * xa + grads[1] * ya + grads[2] * za );
+            }
+            float t1 = 0.6f - xb * xb - yb * yb - zb * zb;
+            if( t1 > 0 ) {
+                t1 *= t1;
+                g = ( i1 * 4 + j1 * 2 + k1 ) * 3;
+                n += t1 * t1 * ( grads[g] * xb + grads[g+1] * yb + grads[g+2] * zb );
+            }
+            float t2 = 0.6f - xc * xc - yc * yc - zc * zc;
+            if( t2 > 0 ) {
+                t2 *= t2;
+                g = ( i2 * 4 + j2 * 2 + k2 ) * 3;
+                n += t2 * t2 * ( grads[g] * xc + grads[g+1] * yc + grads[g+2] * zc );
+            }
+            float t3 = 0.6f - xd * xd - yd * yd - zd * zd;
+            if( t3 > 0 ) {
+                t3 *= t3;
+                n += t3 * t3 * ( grads[21] * xd + grads[22] * yd + grads[23] * zd );
+            }
+
+            out[off + col] = 32.0f * n;
+        }
+    }
+
+
+    private void fillGradRow2( float x0, float y, float dx, int w, float[] out, int off, float[] grad, int gradOff ) {
+        // Gradients of the four corners of the current skewed cell.
+        float gx00 = 0, gy00 = 0, gx10 = 0, gy10 = 0;
+        float gx01 = 0, gy01 = 0, gx11 = 0, gy11 = 0;
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            float x = x0 + col * dx;
+            float s = ( x + y ) * F2;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+
+            if( !hasCell || i != ci || j != cj ) {
+                int g;
+                g = hash( i,     j     );
+                gx00 = GRAD3_X[g];
+                gy00 = GRAD3_Y[g];
+                g = hash( i + 1, j     );
+                gx10 = GRAD3_X[g];
+                gy10 = GRAD3_Y[g];
+                g = hash( i,     j + 1 );
+                gx01 = GRAD3_X[g];
+                gy01 = GRAD3_Y[g];
+                g = hash( i + 1, j + 1 );
+                gx11 = GRAD3_X[g];
+                gy11 = GRAD3_Y[g];
+                hasCell = true;
+                ci = i;
+                cj = j;
+            }
+
+            float t  = ( i + j ) * G2;
+            float xa = x - ( i - t );
+            float ya = y - ( j - t );
+            float xb, yb, gxb, gyb;
+
+            if( xa > ya ) {
+                xb  = xa - 1 + G2;
+                yb  = ya + G2;
+                gxb = gx10;
+                gyb = gy10;
+            } else {
+                xb  = xa + G2;
+                yb  = ya - 1 + G2;
+                gxb = gx01;
+                gyb = gy01;
+            }
+
+            float xc = xa + G22;
+            float yc = ya + G22;
+            float n  = 0;
+            float nx = 0;
+            float ny = 0;
+
+            float t0 = 0.5f - xa * xa - ya * ya;
+            if( t0 > 0 ) {
+                float gd = gx00 * xa + gy00 * ya;
+                float tt = t0 * t0;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t0 * gd;
+                n   = tq * gd;
+                nx  = tq * gx00 + a * xa;
+                ny  = tq * gy00 + a * ya;
+            }
+            float t1 = 0.5f - xb * xb - yb * yb;
+            if( t1 > 0 ) {
+                float gd = gxb * xb + gyb * yb;
+                float tt = t1 * t1;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t1 * gd;
+                n  += tq * gd;
+                nx += tq * gxb + a * xb;
+                ny += tq * gyb + a * yb;
+            }
+            float t2 = 0.5f - xc * xc - yc * yc;
+            if( t2 > 0 ) {
+                float gd = gx11 * xc + gy11 * yc;
+                float tt = t2 * t2;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t2 * gd;
+                n  += tq * gd;
+                nx += tq * gx11 + a * xc;
+                ny += tq * gy11 + a * yc;
+            }
+
+            if( out != null ) {
+                out[off + col] = 70.0f * n;
+            }
+            grad[gradOff + col * 2    ] = 70.0f * nx;
+            grad[gradOff + col * 2 + 1] = 70.0f * ny;
+        }
+    }
+
+
+    private void fillGradRow3( float x0,
+                               float y,
+                               float z,
+                               float dx,
+                               int w,
+                               float[] grads,
+                               float[] out,
+                               int off,
+                               float[] grad,
+                               int gradOff )
+    {
+        // Same trade-off as fillRow3: wide steps rarely revisit a cell.
+        if( dx >= 0.5f || dx <= -0.5f ) {
+            for( int col = 0; col < w; col++ ) {
+                float v = noiseGrad( x0 + col * dx, y, z, grad, gradOff + col * 3 );
+                if( out != null ) {
+                    out[off + col] = v;
+                }
+            }
+            return;
+        }
+
+        boolean hasCell = false;
+        int ci = 0;
+        int cj = 0;
+        int ck = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            float x = x0 + col * dx;
+            float s = ( x + y + z ) * F3;
+            int i = fastfloor( x + s );
+            int j = fastfloor( y + s );
+            int k = fastfloor( z + s );
+
+            if( !hasCell || i != ci || j != cj || k != ck ) {
+                // Corner (di,dj,dk) is stored at ( di * 4 + dj * 2 + dk ) * 3.
+                for( int c = 0; c < 8; c++ ) {
+                    int g = hash( i + ( c >> 2 ), j + ( c >> 1 & 1 ), k + ( c & 1 ) );
+                    grads[c*3  ] = GRAD3_X[g];
+                    grads[c*3+1] = GRAD3_Y[g];
+                    grads[c*3+2] = GRAD3_Z[g];
+                }
+                hasCell = true;
+                ci = i;
+                cj = j;
+                ck = k;
+            }
+
+            float t  = ( i + j + k ) * G3;
+            float xa = x - ( i - t );
+            float ya = y - ( j - t );
+            float za = z - ( k - t );
+
+            int i1, j1, k1;
+            int i2, j2, k2;
+
+            if( xa >= ya ) {
+                if( ya >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                } else if( xa >= za ) {
+                    i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+                }
+            } else {
+                if( ya < za ) {
+                    i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+                } else if( xa < za ) {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+                } else {
+                    i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+                }
+            }
+
+            float xb = xa - i1 + G3;
+            float yb = ya - j1 + G3;
+            float zb = za - k1 + G3;
+            float xc = xa - i2 + F3;
+            float yc = ya - j2 + F3;
+            float zc = za - k2 + F3;
+            float xd = xa - 0.5f;
+            float yd = ya - 0.5f;
+            float zd = za - 0.5f;
+            float n  = 0;
+            float nx = 0;
+            float ny = 0;
+            float nz = 0;
+
+            float t0 = 0.6f - xa * xa - ya * ya - za * za;
+            if( t0 > 0 ) {
+                float gx = grads[0];
+                float gy = grads[1];
+                float gz = grads[2];
+                float gd = gx * xa + gy * ya + gz * za;
+                float tt = t0 * t0;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t0 * gd;
+                n   = tq * gd;
+                nx  = tq * gx + a * xa;
+                ny  = tq * gy + a * ya;
+                nz  = tq * gz + a * za;
+            }
+            float t1 = 0.6f - xb * xb - yb * yb - zb * zb;
+            if( t1 > 0 ) {
+                int g = ( i1 * 4 + j1 * 2 + k1 ) * 3;
+                float gx = grads[g  ];
+                float gy = grads[g+1];
+                float gz = grads[g+2];
+                float gd = gx * xb + gy * yb + gz * zb;
+                float tt = t1 * t1;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t1 * gd;
+                n  += tq * gd;
+                nx += tq * gx + a * xb;
+                ny += tq * gy + a * yb;
+                nz += tq * gz + a * zb;
+            }
+            float t2 = 0.6f - xc * xc - yc * yc - zc * zc;
+            if( t2 > 0 ) {
+                int g = ( i2 * 4 + j2 * 2 + k2 ) * 3;
+                float gx = grads[g  ];
+                float gy = grads[g+1];
+                float gz = grads[g+2];
+                float gd = gx * xc + gy * yc + gz * zc;
+                float tt = t2 * t2;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t2 * gd;
+                n  += tq * gd;
+                nx += tq * gx + a * xc;
+                ny += tq * gy + a * yc;
+                nz += tq * gz + a * zc;
+            }
+            float t3 = 0.6f - xd * xd - yd * yd - zd * zd;
+            if( t3 > 0 ) {
+                float gx = grads[21];
+                float gy = grads[22];
+                float gz = grads[23];
+                float gd = gx * xd + gy * yd + gz * zd;
+                float tt = t3 * t3;
+                float tq = tt * tt;
+                float a  = -8.0f * tt * t3 * gd;
+                n  += tq * gd;
+                nx += tq * gx + a * xd;
+                ny += tq * gy + a * yd;
+                nz += tq * gz + a * zd;
+            }
+
+            if( out != null ) {
+                out[off + col] = 32.0f * n;
+            }
+            grad[gradOff + col * 3    ] = 32.0f * nx;
+            grad[gradOff + col * 3 + 1] = 32.0f * ny;
+            grad[gradOff + col * 3 + 2] = 32.0f * nz;
+        }
+    }
+
+    /**
+     * @return index into GRAD3 tables for lattice point (i,j).
+     */
+    private int hash( int i, int j ) {
+        return mPermMod12[ ( i & 0xFF ) + mPerm[ j & 0xFF ] ];
+    }
+
+    /**
+     * @return index into GRAD3 tables for lattice point (i,j,k).
+     */
+    private int hash( int i, int j, int k ) {
+        return mPermMod12[ ( i & 0xFF ) + mPerm[ ( j & 0xFF ) + mPerm[ k & 0xFF ] ] ];
+    }
+
+
+    private static final float F2  = (float)SimplexNoised.F2;
+    private static final float G2  = (float)SimplexNoised.G2;
+    private static final float G22 = (float)SimplexNoised.G22;
+
+    private static final float F3 = (float)SimplexNoised.F3;
+    private static final float G3 = (float)SimplexNoised.G3;
+
+    private static final float F4  = (float)SimplexNoised.F4;
+    private static final float G4  = (float)SimplexNoised.G4;
+    private static final float G42 = (float)SimplexNoised.G42;
+    private static final float G43 = (float)SimplexNoised.G43;
+    private static final float G44 = (float)SimplexNoised.G44;
+
+    /**
+     * Gradient vectors for 3D (pointing to mid points of all edges of a unit cube).
+     * The 2D noise uses the x and y components.
+     */
+    private static final float[] GRAD3_X = {  1, -1,  1, -1,  1, -1,  1, -1,  0,  0,  0,  0 };
+    private static final float[] GRAD3_Y = {  1,  1, -1, -1,  0,  0,  0,  0,  1, -1,  1, -1 };
+    private static final float[] GRAD3_Z = {  0,  0,  0,  0,  1,  1, -1, -1,  1,  1, -1, -1 };
+
+    /**
+     * Gradient vectors for 4D (pointing to mid points of all edges of a unit 4D hypercube)
+     */
+    private static final float[] GRAD4_X = {  0,  0,  0,  0,  0,  0,  0,  0,  1,  1,  1,  1, -1, -1, -1, -1,
+                                              1,  1,  1,  1, -1, -1, -1, -1,  1,  1,  1,  1, -1, -1, -1, -1 };
+    private static final float[] GRAD4_Y = {  1,  1,  1,  1, -1, -1, -1, -1,  0,  0,  0,  0,  0,  0,  0,  0,
+                                              1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1 };
+    private static final float[] GRAD4_Z = {  1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1,  1,  1, -1, -1,
+                                              0,  0,  0,  0,  0,  0,  0,  0,  1, -1,  1, -1,  1, -1,  1, -1 };
+    private static final float[] GRAD4_W = {  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,  1, -1,
+                                              1, -1,  1, -1,  1, -1,  1, -1,  0,  0,  0,  0,  0,  0,  0,  0 };
+
+    private static final int[][] SIMPLEX = SimplexNoised.SIMPLEX;
+
+
+    /**
+     * This method is a *lot* faster than using (int)Math.floor(x).
+     *
+     * @param x value to be floored
+     */
+    private static int fastfloor( float x ) {
+        return x >= 0 ? (int)x : (int)x - 1;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Sobol sequence with direction numbers from Joe and Kuo (new-joe-kuo-6.21201), in
+ * Gray-code order. Coordinates are generated with 64-bit direction numbers, so every
+ * nonnegative {@code long} index is valid. Starting at any index costs one XOR per set
+ * bit of the index; consecutive points cost one XOR per coordinate.
+ * <p>
+ * The first point is the origin. For integration with {@link #fill}, ranges usually
+ * start at index 1. {@link #fillGaussian} applies a fixed digital shift (an XOR of every
+ * coordinate with constant bits) before mapping, which preserves the stratification of the
+ * sequence and moves the origin to an ordinary point, so Gaussian ranges may start at 0.
+ *
+ * @author Philip DeCamp
+ */
+public final class Sobol extends QuasiRandom {
+
+    public static final int MAX_DIMS = 21;
+
+
+    private final int mDims;
+    /** Direction numbers, indexed {@code dim * 64 + bit}. **/
+    private final long[] mDir;
+    /** Digital shift applied in centered mode, one per dimension. **/
+    private final long[] mShift;
+
+
+    /**
+     * @param dims Number of dimensions, from 1 to {@link #MAX_DIMS}
+     */
+    public Sobol( int dims ) {
+        if( dims < 1 || dims > MAX_DIMS ) {
+            throw new IllegalArgumentException( "Invalid number of dimensions: " + dims );
+        }
+        mDims  = dims;
+        mDir   = new long[dims * 64];
+        mShift = new long[dims];
+
+        for( int k = 0; k < 64; k++ ) {
+            mDir[k] = 1L << ( 63 - k );
+        }
+
+        for( int d = 1; d < dims; d++ ) {
+            final int s   = POLY_DEGREE[d - 1];
+            final int a   = POLY_COEF[d - 1];
+            final int[] m = INIT_DIR[d - 1];
+            final int base = d * 64;
+            for( int k = 0; k < 64; k++ ) {
+                long v;
+                if( k < s ) {
+                    v = (long)m[k] << ( 63 - k );
+                } else {
+                    v = mDir[base + k - s];
+                    v ^= v >>> s;
+                    for( int j = 1; j < s; j++ ) {
+                        if( ( ( a >>> ( s - 1 - j ) ) & 1 ) != 0 ) {
+                            v ^= mDir[base + k - j];
+                        }
+                    }
+                }
+                mDir[base + k] = v;
+            }
+        }
+
+        for( int d = 0; d < dims; d++ ) {
+            mShift[d] = shiftBits( d );
+        }
+    }
+
+
+    @Override
+    public int dims() {
+        return mDims;
+    }
+
+    @Override
+    public long length() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    void generate( long index, int count, boolean centered, double[] out, int off ) {
+        final int dims      = mDims;
+        final long[] dir    = mDir;
+        final long[] x      = new long[dims];
+        // Centered values keep one bit less so that adding one half is exact.
+        final int shift     = centered ? 12 : 11;
+        final double bias   = centered ? 0.5 : 0.0;
+        final double scale  = centered ? SCALE_CENTERED : SCALE;
+
+        if( centered ) {
+            // Starting from the digital shift XORs it into every point.
+            System.arraycopy( mShift, 0, x, 0, dims );
+        }
+
+        // Skip ahead: point n is the XOR of the direction numbers selected by the Gray code of n.
+        long gray = index ^ ( index >>> 1 );
+        while( gray != 0 ) {
+            int bit = Long.numberOfTrailingZeros( gray );
+            gray &= gray - 1;
+            for( int d = 0; d < dims; d++ ) {
+                x[d] ^= dir[d * 64 + bit];
+            }
+        }
+
+        for( int i = 0; i < count; i++ ) {
+            for( int d = 0; d < dims; d++ ) {
+                out[off++] = ( ( x[d] >>> shift ) + bias ) * scale;
+            }
+            // Gray code of n + 1 differs from that of n in the lowest zero bit of n.
+            int bit = Long.numberOfTrailingZeros( ~( index + i ) );
+            for( int d = 0; d < dims; d++ ) {
+                x[d] ^= dir[d * 64 + bit];
+            }
+        }
+    }
+
+
+    private static final double SCALE          = 1.0 / ( 1L << 53 );
+    private static final double SCALE_CENTERED = 1.0 / ( 1L << 52 );
+
+    /** Degree of primitive polynomial for dimensions 2 and up. **/
+    private static final int[] POLY_DEGREE = { 1, 2, 3, 3, 4, 4, 5, 5, 5, 5, 5, 5, 6, 6, 6, 6, 6, 6, 7, 7 };
+
+    /** Interior coefficients of primitive polynomials. **/
+    private static final int[] POLY_COEF = { 0, 1, 1, 2, 1, 4, 2, 4, 7, 11, 13, 14, 1, 13, 16, 19, 22, 25, 1, 4 };
+
+    /** Initial direction numbers. **/
+    private static final int[][] INIT_DIR = {
+            { 1 },
+            { 1, 3 },
+            { 1, 3, 1 },
+            { 1, 1, 1 },
+            { 1, 1, 3, 3 },
+            { 1, 3, 5, 13 },
+            { 1, 1, 5, 5, 17 },
+            { 1, 1, 5, 5, 5 },
+            { 1, 1, 7, 11, 19 },
+            { 1, 1, 5, 1, 1 },
+            { 1, 1, 1, 3, 11 },
+            { 1, 3, 5, 5, 31 },
+            { 1, 3, 3, 9, 7, 49 },
+            { 1, 1, 1, 15, 21, 21 },
+            { 1, 3, 1, 13, 27, 49 },
+            { 1, 1, 1, 15, 7, 5 },
+            { 1, 3, 1, 15, 13, 25 },
+            { 1, 1, 5, 5, 19, 61 },
+            { 1, 3, 7, 11, 23, 15, 103 },
+            { 1, 3, 7, 13, 13, 15, 69 }
+    };
+
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import java.util.Arrays;
+
+
+/**
+ * Keyframe spline with precomputed per-segment coefficients. Each segment stores a cubic
+ * polynomial for each dimension in the segment's local parameter, so that evaluation is
+ * a segment lookup followed by one Horner evaluation per dimension.
+ * <p>
+ * Segment lookup starts from the segment found by the previous call, so playback that
+ * moves forward or backward through a spline finds its segment in constant time. Other
+ * lookups fall back to binary search. The cursor is only a hint and is checked before use,
+ * so a spline may be evaluated from multiple threads, though threads evaluating different
+ * times will defeat it.
+ * <p>
+ * Times before the first key or after the last key hold the first or last value.
+ * The {@link #CUBIC}, {@link #CATMULL} and {@link #HERMITE} types match the corresponding
+ * methods in {@link Interp} when keys are uniformly spaced. Missing neighbors at the ends
+ * are taken to be copies of the end keys.
+ *
+ * @author Philip DeCamp
+ */
+public final class Spline {
+
+    public static final int LINEAR  = 0;
+    public static final int CUBIC   = 1;
+    public static final int CATMULL = 2;
+    public static final int HERMITE = 3;
+
+
+    public static Spline linear( float[] times, float[] values, int dim ) {
+        return new Spline( LINEAR, times, 0, values, 0, times.length, dim, 0f, 0f );
+    }
+
+
+    public static Spline cubic( float[] times, float[] values, int dim ) {
+        return new Spline( CUBIC, times, 0, values, 0, times.length, dim, 0f, 0f );
+    }
+
+
+    public static Spline catmull( float[] times, float[] values, int dim ) {
+        return new Spline( CATMULL, times, 0, values, 0, times.length, dim, 0f, 0f );
+    }
+
+
+    public static Spline hermite( float[] times, float[] values, int dim, float tension, float bias ) {
+        return new Spline( HERMITE, times, 0, values, 0, times.length, dim, tension, bias );
+    }
+
+
+    private final int mType;
+    private final int mDim;
+    private final int mKeyCount;
+    private final float[] mTimes;
+    private final float[] mInvDur;
+    /** Coefficients, indexed {@code ( seg * dim + d ) * 4 + power}. **/
+    private final float[] mCoef;
+
+    private int mCursor = 0;
+
+
+    /**
+     * @param type      LINEAR, CUBIC, CATMULL or HERMITE
+     * @param times     Key times. Must be strictly increasing.
+     * @param timesOff  Offset into times
+     * @param values    Key values, packed with {@code dim} values per key.
+     * @param valuesOff Offset into values
+     * @param keyCount  Number of keys, 1 or more.
+     * @param dim       Dimensionality of values, 1 or more.
+     * @param tension   Tension for HERMITE splines. 1 is high, 0 is normal, -1 is low. Ignored for other types.
+     * @param bias      Bias for HERMITE splines. 0 is even, positive is towards first segment, negative is towards other.
+     *                  Ignored for other types.
+     */
+    public Spline( int type,
+                   float[] times,
+                   int timesOff,
+                   float[] values,
+                   int valuesOff,
+                   int keyCount,
+                   int dim,
+                   float tension,
+                   float bias )
+    {
+        if( type < LINEAR || type > HERMITE ) {
+            throw new IllegalArgumentException( "Invalid spline type: " + type );
+        }
+        if( keyCount < 1 ) {
+            throw new IllegalArgumentException( "Spline requires at least one key." );
+        }
+        if( dim < 1 ) {
+            throw new IllegalArgumentException( "Invalid dimensionality: " + dim );
+        }
+        for( int i = 1; i < keyCount; i++ ) {
+            if( !( times[timesOff + i] > times[timesOff + i - 1] ) ) {
+                throw new IllegalArgumentException( "Key times must be strictly increasing." );
+            }
+        }
+
+        final int segCount = Math.max( 1, keyCount - 1 );
+        mType     = type;
+        mDim      = dim;
+        mKeyCount = keyCount;
+        mTimes    = Arrays.copyOfRange( times, timesOff, timesOff + keyCount );
+        mInvDur   = new float[segCount];
+        mCoef     = new float[segCount * dim * 4];
+
+        if( keyCount == 1 ) {
+            for( int d = 0; d < dim; d++ ) {
+                mCoef[d * 4] = values[valuesOff + d];
+            }
+            return;
+        }
+
+        final float tens = 0.5f - 0.5f * tension;
+        for( int s = 0; s < segCount; s++ ) {
+            final int k0 = Math.max( 0, s - 1 );
+            final int k3 = Math.min( keyCount - 1, s + 2 );
+            final float t1 = mTimes[s];
+            final float t2 = mTimes[s + 1];
+            final float dur = t2 - t1;
+            // Phantom keys beyond the ends are spaced like the end segments.
+            final float t0 = k0 < s ? mTimes[k0] : t1 - dur;
+            final float t3 = k3 > s + 1 ? mTimes[k3] : t2 + dur;
+            mInvDur[s] = 1f / dur;
+
+            for( int d = 0; d < dim; d++ ) {
+                final float x0 = values[valuesOff + k0 * dim + d];
+                final float x1 = values[valuesOff + s * dim + d];
+                final float x2 = values[valuesOff + ( s + 1 ) * dim + d];
+                final float x3 = values[valuesOff + k3 * dim + d];
+                final int c = ( s * dim + d ) * 4;
+
+                switch( type ) {
+                case LINEAR:
+                    mCoef[c    ] = x1;
+                    mCoef[c + 1] = x2 - x1;
+                    break;
+
+                case CUBIC:
+                {
+                    float a0 = x3 - x2 - x0 + x1;
+                    mCoef[c    ] = x1;
+                    mCoef[c + 1] = x2 - x0;
+                    mCoef[c + 2] = x0 - x1 - a0;
+                    mCoef[c + 3] = a0;
+                    break;
+                }
+
+                case CATMULL:
+                {
+                    // Tangents in units of this segment's parameter.
+                    float m1 = ( x2 - x0 ) * dur / ( t2 - t0 );
+                    float m2 = ( x3 - x1 ) * dur / ( t3 - t1 );
+                    setHermite( x1, x2, m1, m2, mCoef, c );
+                    break;
+                }
+
+                default:
+                {
+                    float s0 = ( x1 - x0 ) * dur / ( t1 - t0 );
+                    float s1 = x2 - x1;
+                    float s2 = ( x3 - x2 ) * dur / ( t3 - t2 );
+                    float m1 = ( s0 * ( 1 + bias ) + s1 * ( 1 - bias ) ) * tens;
+                    float m2 = ( s1 * ( 1 + bias ) + s2 * ( 1 - bias ) ) * tens;
+                    setHermite( x1, x2, m1, m2, mCoef, c );
+                    break;
+                }
+                }
+            }
+        }
+    }
+
+
+    public int type() {
+        return mType;
+    }
+
+
+    public int dim() {
+        return mDim;
+    }
+
+
+    public int keyCount() {
+        return mKeyCount;
+    }
+
+
+    public float startTime() {
+        return mTimes[0];
+    }
+
+
+    public float endTime() {
+        return mTimes[mKeyCount - 1];
+    }
+
+    /**
+     * Evaluates spline.
+     *
+     * @param t      Time to sample
+     * @param out    Receives {@code dim()} values.
+     * @param outOff Offset into out
+     */
+    public void eval( float t, float[] out, int outOff ) {
+        final int dim   = mDim;
+        final float[] coef = mCoef;
+        final int seg   = segment( t );
+        final float u   = clampedParam( t, seg );
+        int c = seg * dim * 4;
+        for( int d = 0; d < dim; d++, c += 4 ) {
+            out[outOff + d] = ( ( coef[c + 3] * u + coef[c + 2] ) * u + coef[c + 1] ) * u + coef[c];
+        }
+    }
+
+    /**
+     * Evaluates single-dimensional spline, or the first dimension of a multi-dimensional spline.
+     *
+     * @param t Time to sample
+     * @return value of first dimension at {@code t}.
+     */
+    public float eval( float t ) {
+        final int seg = segment( t );
+        final float u = clampedParam( t, seg );
+        final float[] coef = mCoef;
+        final int c = seg * mDim * 4;
+        return ( ( coef[c + 3] * u + coef[c + 2] ) * u + coef[c + 1] ) * u + coef[c];
+    }
+
+    /**
+     * Evaluates spline at a sequence of times. Sequences that are sorted, in either
+     * direction, locate each segment in constant time.
+     *
+     * @param times    Times to sample
+     * @param timesOff Offset into times
+     * @param len      Number of times to sample
+     * @param out      Receives {@code len * dim()} values.
+     * @param outOff   Offset into out
+     */
+    public void eval( float[] times, int timesOff, int len, float[] out, int outOff ) {
+        final int dim = mDim;
+        for( int i = 0; i < len; i++ ) {
+            eval( times[timesOff + i], out, outOff + i * dim );
+        }
+    }
+
+    /**
+     * @param t Time
+     * @return index of segment containing {@code t}, clamped to valid segments.
+     */
+    public int segment( float t ) {
+        final int cursor = mCursor;
+        final int seg = findSegment( mTimes, 0, mKeyCount, cursor, t );
+        if( seg != cursor ) {
+            mCursor = seg;
+        }
+        return seg;
+    }
+
+
+    /**
+     * @return internal key time array. Not a copy.
+     */
+    float[] keyTimes() {
+        return mTimes;
+    }
+
+    /**
+     * @return internal array of inverse segment durations. Not a copy.
+     */
+    float[] invDurations() {
+        return mInvDur;
+    }
+
+    /**
+     * @return internal coefficient array, indexed {@code ( seg * dim + d ) * 4 + power}. Not a copy.
+     */
+    float[] coefficients() {
+        return mCoef;
+    }
+
+
+    /**
+     * Finds segment containing a time, checking the segment given by {@code cursor}
+     * and its neighbors before falling back to binary search.
+     *
+     * @param times    Key times
+     * @param off      Offset into times
+     * @param keyCount Number of keys
+     * @param cursor   Segment to check first. Must be a valid segment.
+     * @param t        Time
+     * @return index of segment containing {@code t}, clamped to valid segments.
+     */
+    static int findSegment( float[] times, int off, int keyCount, int cursor, float t ) {
+        final int last = keyCount - 2;
+        if( last <= 0 ) {
+            return 0;
+        }
+
+        int seg = cursor;
+        if( t >= times[off + seg] ) {
+            if( t < times[off + seg + 1] ) {
+                return seg;
+            }
+            if( seg < last && t < times[off + seg + 2] ) {
+                return seg + 1;
+            }
+        } else if( seg > 0 && t >= times[off + seg - 1] ) {
+            return seg - 1;
+        }
+
+        if( !( t >= times[off + 1] ) ) {
+            return 0;
+        }
+        if( t >= times[off + last] ) {
+            return last;
+        }
+
+        int lo = 1;
+        int hi = last;
+        // Invariant: times[lo] <= t < times[hi + 1]
+        while( lo < hi ) {
+            int mid = ( lo + hi + 1 ) >>> 1;
+            if( t < times[off + mid] ) {
+                hi = mid - 1;
+            } else {
+                lo = mid;
+            }
+        }
+        return lo;
+    }
+
+
+    private float clampedParam( float t, int seg ) {
+        float u = ( t - mTimes[seg] ) * mInvDur[seg];
+        return u <= 0f ? 0f : u >= 1f ? 1f : u;
+    }
+
+
+    private static void setHermite( float x1, float x2, float m1, float m2, float[] out, int off ) {
+        out[off    ] = x1;
+        out[off + 1] = m1;
+        out[off + 2] = 3f * ( x2 - x1 ) - 2f * m1 - m2;
+        out[off + 3] = 2f * ( x1 - x2 ) + m1 + m2;
+    }
+
+}
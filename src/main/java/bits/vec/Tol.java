@@ -257,6 +257,305 @@ public final class Tol {
         return v < relTol && -v < relTol;
     }
 
+
+    /**
+     * Receives the results of an array comparison.
+     */
+    public static final class Report {
+        /** Index of first mismatched element, relative to start of comparison, or -1 if none. **/
+        public int mFirst = -1;
+        /** Number of mismatched elements. **/
+        public int mCount;
+        /** Largest absolute difference between elements. Differences that are NaN are not included. **/
+        public double mMaxErr;
+        /** Largest distance between elements in units in the last place. Only computed by equalUlps. **/
+        public long mMaxUlps;
+
+
+        public void clear() {
+            mFirst   = -1;
+            mCount   = 0;
+            mMaxErr  = 0.0;
+            mMaxUlps = 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format( "Report[first=%d, count=%d, maxErr=%g, maxUlps=%d]", mFirst, mCount, mMaxErr, mMaxUlps );
+        }
+    }
+
+
+    /**
+     * Equivalent to {@code equal( a, aOff, b, bOff, len, REL_TOL, ABS_TOL, out );}
+     */
+    public static boolean equal( double[] a, int aOff, double[] b, int bOff, int len, Report out ) {
+        return equal( a, aOff, b, bOff, len, REL_TOL, ABS_TOL, out );
+    }
+
+    /**
+     * Equivalent to {@code equal( a, aOff, b, bOff, len, SQRT_REL_TOL, SQRT_ABS_TOL, out );}
+     */
+    public static boolean near( double[] a, int aOff, double[] b, int bOff, int len, Report out ) {
+        return equal( a, aOff, b, bOff, len, SQRT_REL_TOL, SQRT_ABS_TOL, out );
+    }
+
+    /**
+     * Array version of {@link #equal(double, double, double, double)}. Every element of
+     * {@code a} is compared to the corresponding element of {@code b}.
+     * <p>
+     * The main loop only accumulates the mismatch count and maximum error, without
+     * branches, so that it may be vectorized. If there are mismatches, a second pass
+     * locates the first one.
+     *
+     * @param a      Input array
+     * @param aOff   Offset into a
+     * @param b      Input array
+     * @param bOff   Offset into b
+     * @param len    Number of elements to compare
+     * @param relTol Maximum relative error.
+     * @param absTol Maximum absolute error.
+     * @param out    Receives comparison results. May be null.
+     * @return true iff all elements are approximately equal.
+     */
+    public static boolean equal( double[] a,
+                                 int aOff,
+                                 double[] b,
+                                 int bOff,
+                                 int len,
+                                 double relTol,
+                                 double absTol,
+                                 Report out )
+    {
+        int count = 0;
+        double maxErr = 0.0;
+        for( int i = 0; i < len; i++ ) {
+            double va = a[aOff + i];
+            double vb = b[bOff + i];
+            double diff = Math.abs( va - vb );
+            double mag  = Math.max( Math.abs( va ), Math.abs( vb ) );
+            count  += diff < absTol | diff < mag * relTol ? 0 : 1;
+            maxErr  = diff > maxErr ? diff : maxErr;
+        }
+
+        if( out != null ) {
+            out.clear();
+            out.mCount  = count;
+            out.mMaxErr = maxErr;
+            if( count > 0 ) {
+                for( int i = 0; i < len; i++ ) {
+                    if( !equal( a[aOff + i], b[bOff + i], relTol, absTol ) ) {
+                        out.mFirst = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return count == 0;
+    }
+
+    /**
+     * Equivalent to {@code equal( a, aOff, b, bOff, len, FREL_TOL, FABS_TOL, out );}
+     */
+    public static boolean equal( float[] a, int aOff, float[] b, int bOff, int len, Report out ) {
+        return equal( a, aOff, b, bOff, len, FREL_TOL, FABS_TOL, out );
+    }
+
+    /**
+     * Equivalent to {@code equal( a, aOff, b, bOff, len, FSQRT_REL_TOL, FSQRT_ABS_TOL, out );}
+     */
+    public static boolean near( float[] a, int aOff, float[] b, int bOff, int len, Report out ) {
+        return equal( a, aOff, b, bOff, len, FSQRT_REL_TOL, FSQRT_ABS_TOL, out );
+    }
+
+    /**
+     * Array version of {@link #equal(float, float, float, float)}.
+     *
+     * @see #equal(double[], int, double[], int, int, double, double, Report)
+     */
+    public static boolean equal( float[] a,
+                                 int aOff,
+                                 float[] b,
+                                 int bOff,
+                                 int len,
+                                 float relTol,
+                                 float absTol,
+                                 Report out )
+    {
+        int count = 0;
+        float maxErr = 0.0f;
+        for( int i = 0; i < len; i++ ) {
+            float va = a[aOff + i];
+            float vb = b[bOff + i];
+            float diff = Math.abs( va - vb );
+            float mag  = Math.max( Math.abs( va ), Math.abs( vb ) );
+            count  += diff < absTol | diff < mag * relTol ? 0 : 1;
+            maxErr  = diff > maxErr ? diff : maxErr;
+        }
+
+        if( out != null ) {
+            out.clear();
+            out.mCount  = count;
+            out.mMaxErr = maxErr;
+            if( count > 0 ) {
+                for( int i = 0; i < len; i++ ) {
+                    if( !equal( a[aOff + i], b[bOff + i], relTol, absTol ) ) {
+                        out.mFirst = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return count == 0;
+    }
+
+    /**
+     * Computes the number of representable doubles between two values. Positive and negative zero
+     * are treated as the same value.
+     *
+     * @return distance in units in the last place, or Long.MAX_VALUE if either value is NaN or distance does not fit.
+     */
+    public static long ulps( double a, double b ) {
+        if( a != a || b != b ) {
+            return Long.MAX_VALUE;
+        }
+        return ulpDist( orderedBits( a ), orderedBits( b ) );
+    }
+
+    /**
+     * Computes the number of representable floats between two values. Positive and negative zero
+     * are treated as the same value.
+     *
+     * @return distance in units in the last place, or Long.MAX_VALUE if either value is NaN.
+     */
+    public static long ulps( float a, float b ) {
+        if( a != a || b != b ) {
+            return Long.MAX_VALUE;
+        }
+        return Math.abs( (long)orderedBits( a ) - orderedBits( b ) );
+    }
+
+    /**
+     * @return true iff {@code ulps( a, b ) <= maxUlps}
+     */
+    public static boolean equalUlps( double a, double b, long maxUlps ) {
+        return ulps( a, b ) <= maxUlps;
+    }
+
+    /**
+     * @return true iff {@code ulps( a, b ) <= maxUlps}
+     */
+    public static boolean equalUlps( float a, float b, long maxUlps ) {
+        return ulps( a, b ) <= maxUlps;
+    }
+
+    /**
+     * Compares arrays by distance in units in the last place. Unlike relative tolerances,
+     * this scales with the precision available at each magnitude, but treats values near
+     * zero strictly, so it is best combined with a check against an absolute tolerance
+     * when values may be near zero. NaN never matches.
+     *
+     * @param a       Input array
+     * @param aOff    Offset into a
+     * @param b       Input array
+     * @param bOff    Offset into b
+     * @param len     Number of elements to compare
+     * @param maxUlps Maximum distance in units in the last place.
+     * @param out     Receives comparison results. May be null.
+     * @return true iff all elements are within {@code maxUlps}.
+     */
+    public static boolean equalUlps( double[] a, int aOff, double[] b, int bOff, int len, long maxUlps, Report out ) {
+        int count = 0;
+        long maxDist = 0;
+        double maxErr = 0.0;
+        for( int i = 0; i < len; i++ ) {
+            double va = a[aOff + i];
+            double vb = b[bOff + i];
+            double diff = Math.abs( va - vb );
+            // NaN bits map to distances greater than any between finite values, but NaN should never match.
+            long dist = va != va | vb != vb ? Long.MAX_VALUE : ulpDist( orderedBits( va ), orderedBits( vb ) );
+            count  += dist <= maxUlps ? 0 : 1;
+            maxDist = dist > maxDist ? dist : maxDist;
+            maxErr  = diff > maxErr ? diff : maxErr;
+        }
+
+        if( out != null ) {
+            out.clear();
+            out.mCount   = count;
+            out.mMaxErr  = maxErr;
+            out.mMaxUlps = maxDist;
+            if( count > 0 ) {
+                for( int i = 0; i < len; i++ ) {
+                    if( ulps( a[aOff + i], b[bOff + i] ) > maxUlps ) {
+                        out.mFirst = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return count == 0;
+    }
+
+    /**
+     * Float version of {@link #equalUlps(double[], int, double[], int, int, long, Report)}.
+     */
+    public static boolean equalUlps( float[] a, int aOff, float[] b, int bOff, int len, long maxUlps, Report out ) {
+        int count = 0;
+        long maxDist = 0;
+        float maxErr = 0.0f;
+        for( int i = 0; i < len; i++ ) {
+            float va = a[aOff + i];
+            float vb = b[bOff + i];
+            float diff = Math.abs( va - vb );
+            long dist = va != va | vb != vb ? Long.MAX_VALUE : Math.abs( (long)orderedBits( va ) - orderedBits( vb ) );
+            count  += dist <= maxUlps ? 0 : 1;
+            maxDist = dist > maxDist ? dist : maxDist;
+            maxErr  = diff > maxErr ? diff : maxErr;
+        }
+
+        if( out != null ) {
+            out.clear();
+            out.mCount   = count;
+            out.mMaxErr  = maxErr;
+            out.mMaxUlps = maxDist;
+            if( count > 0 ) {
+                for( int i = 0; i < len; i++ ) {
+                    if( ulps( a[aOff + i], b[bOff + i] ) > maxUlps ) {
+                        out.mFirst = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return count == 0;
+    }
+
+
+    /**
+     * Maps double to a long such that integer order matches floating point order, and
+     * positive and negative zero both map to zero.
+     */
+    private static long orderedBits( double v ) {
+        long bits = Double.doubleToRawLongBits( v );
+        return bits < 0 ? Long.MIN_VALUE - bits : bits;
+    }
+
+
+    private static int orderedBits( float v ) {
+        int bits = Float.floatToRawIntBits( v );
+        return bits < 0 ? Integer.MIN_VALUE - bits : bits;
+    }
+
+
+    private static long ulpDist( long a, long b ) {
+        long d = a - b;
+        // Overflow iff operands have different signs and result sign differs from a.
+        if( ( ( a ^ b ) & ( a ^ d ) ) < 0 ) {
+            return Long.MAX_VALUE;
+        }
+        return d < 0 ? -d : d;
+    }
+
     
         
     private Tol() {}
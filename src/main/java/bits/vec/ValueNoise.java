@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Seeded value noise in 2D and 3D. Each integer lattice point is assigned a pseudo-random
+ * value in [-1,1] by hashing its coordinates with a {@link NoisePerm}, and values between
+ * lattice points are blended with a quintic fade curve, so the result has continuous
+ * first and second derivatives.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @see SimplexNoised
+ * @see WorleyNoise
+ * @author Philip DeCamp
+ */
+public final class ValueNoise {
+
+    public static final ValueNoise DEFAULT = new ValueNoise( NoisePerm.DEFAULT );
+
+
+    private final NoisePerm mPermTable;
+    private final int[] mPerm;
+
+
+    public ValueNoise( long seed ) {
+        this( new NoisePerm( seed ) );
+    }
+
+
+    public ValueNoise( NoisePerm perm ) {
+        mPermTable = perm;
+        mPerm      = perm.mPerm;
+    }
+
+
+
+    public NoisePerm perm() {
+        return mPermTable;
+    }
+
+    /**
+     * Computes 2D value noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @return noise value in range -1 ... +1
+     */
+    public double noise( double x, double y ) {
+        final int[] perm = mPerm;
+        int i = fastfloor( x );
+        int j = fastfloor( y );
+        double u = fade( x - i );
+        double v = fade( y - j );
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+
+        int r0 = perm[jj];
+        int r1 = perm[jj + 1];
+        double a = lerp( perm[ ii + r0 ], perm[ ii + 1 + r0 ], u );
+        double b = lerp( perm[ ii + r1 ], perm[ ii + 1 + r1 ], u );
+        return lerp( a, b, v ) * SCALE - 1.0;
+    }
+
+    /**
+     * Computes 3D value noise.
+     *
+     * @param x coordinate
+     * @param y coordinate
+     * @param z coordinate
+     * @return noise value in range -1 ... +1
+     */
+    public double noise( double x, double y, double z ) {
+        final int[] perm = mPerm;
+        int i = fastfloor( x );
+        int j = fastfloor( y );
+        int k = fastfloor( z );
+        double u = fade( x - i );
+        double v = fade( y - j );
+        double w = fade( z - k );
+        int ii = i & 0xFF;
+        int jj = j & 0xFF;
+        int kk = k & 0xFF;
+
+        int r00 = perm[ jj +     perm[kk    ] ];
+        int r10 = perm[ jj + 1 + perm[kk    ] ];
+        int r01 = perm[ jj +     perm[kk + 1] ];
+        int r11 = perm[ jj + 1 + perm[kk + 1] ];
+
+        double a = lerp( perm[ ii + r00 ], perm[ ii + 1 + r00 ], u );
+        double b = lerp( perm[ ii + r10 ], perm[ ii + 1 + r10 ], u );
+        double c = lerp( perm[ ii + r01 ], perm[ ii + 1 + r01 ], u );
+        double d = lerp( perm[ ii + r11 ], perm[ ii + 1 + r11 ], u );
+        return lerp( lerp( a, b, v ), lerp( c, d, v ), w ) * SCALE - 1.0;
+    }
+
+    /**
+     * Computes 2D value noise over a regular lattice. Output is identical to calling
+     * {@code noise( x0 + col * dx, y0 + row * dy )} for each sample, but lattice values
+     * are looked up once for all samples along a scanline that fall in the same cell.
+     *
+     * @param x0  X-coordinate of first sample
+     * @param y0  Y-coordinate of first sample
+     * @param dx  Distance between samples along x-axis
+     * @param dy  Distance between samples along y-axis
+     * @param w   Number of samples along x-axis
+     * @param h   Number of samples along y-axis
+     * @param out Receives {@code w * h} samples in row-major order.
+     * @param off Offset into out
+     */
+    public void fill2( double x0, double y0, double dx, double dy, int w, int h, double[] out, int off ) {
+        for( int row = 0; row < h; row++ ) {
+            fillRow2( x0, y0 + row * dy, dx, w, out, off + row * w );
+        }
+    }
+
+    /**
+     * Float version of {@link #fill2(double, double, double, double, int, int, double[], int)}.
+     */
+    public void fill2( double x0, double y0, double dx, double dy, int w, int h, float[] out, int off ) {
+        double[] rowBuf = new double[w];
+        for( int row = 0; row < h; row++ ) {
+            fillRow2( x0, y0 + row * dy, dx, w, rowBuf, 0 );
+            Arr.put( rowBuf, 0, out, off + row * w, w );
+        }
+    }
+
+    /**
+     * Computes 3D value noise over a regular lattice. Output is identical to calling
+     * {@code noise( x0 + col * dx, y0 + row * dy, z0 + layer * dz )} for each sample.
+     *
+     * @param x0  X-coordinate of first sample
+     * @param y0  Y-coordinate of first sample
+     * @param z0  Z-coordinate of first sample
+     * @param dx  Distance between samples along x-axis
+     * @param dy  Distance between samples along y-axis
+     * @param dz  Distance between samples along z-axis
+     * @param w   Number of samples along x-axis
+     * @param h   Number of samples along y-axis
+     * @param d   Number of samples along z-axis
+     * @param out Receives {@code w * h * d} samples, indexed {@code off + col + w * ( row + h * layer )}.
+     * @param off Offset into out
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       double[] out,
+                       int off )
+    {
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                fillRow3( x0, y0 + row * dy, z, dx, w, out, off + ( layer * h + row ) * w );
+            }
+        }
+    }
+
+    /**
+     * Float version of {@link #fill3(double, double, double, double, double, double, int, int, int, double[], int)}.
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       float[] out,
+                       int off )
+    {
+        double[] rowBuf = new double[w];
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                fillRow3( x0, y0 + row * dy, z, dx, w, rowBuf, 0 );
+                Arr.put( rowBuf, 0, out, off + ( layer * h + row ) * w, w );
+            }
+        }
+    }
+
+
+    private void fillRow2( double x0, double y, double dx, int w, double[] out, int off ) {
+        final int[] perm = mPerm;
+        final int j  = fastfloor( y );
+        final int jj = j & 0xFF;
+        final int r0 = perm[jj];
+        final int r1 = perm[jj + 1];
+        final double v = fade( y - j );
+
+        boolean hasCell = false;
+        int ci = 0;
+        double p00 = 0, p10 = 0, p01 = 0, p11 = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            double x = x0 + col * dx;
+            int i = fastfloor( x );
+            if( !hasCell || i != ci ) {
+                int ii = i & 0xFF;
+                p00 = perm[ ii + r0 ];
+                p10 = perm[ ii + 1 + r0 ];
+                p01 = perm[ ii + r1 ];
+                p11 = perm[ ii + 1 + r1 ];
+                hasCell = true;
+                ci = i;
+            }
+            double u = fade( x - i );
+            out[off + col] = lerp( lerp( p00, p10, u ), lerp( p01, p11, u ), v ) * SCALE - 1.0;
+        }
+    }
+
+
+    private void fillRow3( double x0, double y, double z, double dx, int w, double[] out, int off ) {
+        final int[] perm = mPerm;
+        final int j  = fastfloor( y );
+        final int k  = fastfloor( z );
+        final int jj = j & 0xFF;
+        final int kk = k & 0xFF;
+        final int r00 = perm[ jj +     perm[kk    ] ];
+        final int r10 = perm[ jj + 1 + perm[kk    ] ];
+        final int r01 = perm[ jj +     perm[kk + 1] ];
+        final int r11 = perm[ jj + 1 + perm[kk + 1] ];
+        final double v = fade( y - j );
+        final double t = fade( z - k );
+
+        boolean hasCell = false;
+        int ci = 0;
+        double p000 = 0, p100 = 0, p010 = 0, p110 = 0;
+        double p001 = 0, p101 = 0, p011 = 0, p111 = 0;
+
+        for( int col = 0; col < w; col++ ) {
+            double x = x0 + col * dx;
+            int i = fastfloor( x );
+            if( !hasCell || i != ci ) {
+                int ii = i & 0xFF;
+                p000 = perm[ ii + r00 ];
+                p100 = perm[ ii + 1 + r00 ];
+                p010 = perm[ ii + r10 ];
+                p110 = perm[ ii + 1 + r10 ];
+                p001 = perm[ ii + r01 ];
+                p101 = perm[ ii + 1 + r01 ];
+                p011 = perm[ ii + r11 ];
+                p111 = perm[ ii + 1 + r11 ];
+                hasCell = true;
+                ci = i;
+            }
+            double u = fade( x - i );
+            double a = lerp( p000, p100, u );
+            double b = lerp( p010, p110, u );
+            double c = lerp( p001, p101, u );
+            double d = lerp( p011, p111, u );
+            out[off + col] = lerp( lerp( a, b, v ), lerp( c, d, v ), t ) * SCALE - 1.0;
+        }
+    }
+
+    /**
+     * Maps lattice values in [0,255] to [0,2].
+     */
+    private static final double SCALE = 2.0 / 255.0;
+
+
+    private static double fade( double t ) {
+        return t * t * t * ( t * ( t * 6.0 - 15.0 ) + 10.0 );
+    }
+
+
+    private static double lerp( double a, double b, double t ) {
+        return a + ( b - a ) * t;
+    }
+
+
+    private static int fastfloor( double x ) {
+        return x >= 0 ? (int)x : (int)x - 1;
+    }
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+
+/**
+ * Seeded cellular (Worley) noise in 2D and 3D. Space is divided into unit cells, and
+ * each cell contains one feature point at a pseudo-random position determined by
+ * hashing the cell coordinates with a {@link NoisePerm}. F1 is the Euclidean distance
+ * to the nearest feature point and F2 the distance to the second nearest.
+ * The cell that owns the nearest feature point identifies the Voronoi region
+ * containing a position.
+ * <p>
+ * Lookups start with the cell containing the sample and move outward ring by ring,
+ * skipping any cell whose bounds are farther than the current F1 (or F2, when requested)
+ * and stopping once a whole ring is out of range. In practice only the immediate
+ * neighbors are visited, and often only a few of them.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @see SimplexNoised
+ * @see ValueNoise
+ * @author Philip DeCamp
+ */
+public final class WorleyNoise {
+
+    public static final WorleyNoise DEFAULT = new WorleyNoise( NoisePerm.DEFAULT );
+
+
+    private final NoisePerm mPermTable;
+    private final int[] mPerm;
+
+
+    public WorleyNoise( long seed ) {
+        this( new NoisePerm( seed ) );
+    }
+
+
+    public WorleyNoise( NoisePerm perm ) {
+        mPermTable = perm;
+        mPerm      = perm.mPerm;
+    }
+
+
+
+    public NoisePerm perm() {
+        return mPermTable;
+    }
+
+    /**
+     * @return distance from (x,y) to nearest feature point.
+     */
+    public double f1( double x, double y ) {
+        return search2( x, y, null, 0, null, 0 );
+    }
+
+    /**
+     * @return distance from (x,y,z) to nearest feature point.
+     */
+    public double f1( double x, double y, double z ) {
+        return search3( x, y, z, null, 0, null, 0 );
+    }
+
+    /**
+     * Computes distances to the two nearest feature points.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param dist    Receives {@code [F1, F2]}
+     * @param distOff Offset into dist
+     * @param cell    Optional array that receives integer coordinates {@code [i, j]} of the cell
+     *                holding the nearest feature point. May be {@code null}.
+     * @param cellOff Offset into cell
+     */
+    public void f12( double x, double y, double[] dist, int distOff, int[] cell, int cellOff ) {
+        dist[distOff] = search2( x, y, dist, distOff + 1, cell, cellOff );
+    }
+
+    /**
+     * Computes distances to the two nearest feature points.
+     *
+     * @param x       coordinate
+     * @param y       coordinate
+     * @param z       coordinate
+     * @param dist    Receives {@code [F1, F2]}
+     * @param distOff Offset into dist
+     * @param cell    Optional array that receives integer coordinates {@code [i, j, k]} of the cell
+     *                holding the nearest feature point. May be {@code null}.
+     * @param cellOff Offset into cell
+     */
+    public void f12( double x, double y, double z, double[] dist, int distOff, int[] cell, int cellOff ) {
+        dist[distOff] = search3( x, y, z, dist, distOff + 1, cell, cellOff );
+    }
+
+    /**
+     * Computes feature distances over a regular 2D lattice.
+     *
+     * @param x0    X-coordinate of first sample
+     * @param y0    Y-coordinate of first sample
+     * @param dx    Distance between samples along x-axis
+     * @param dy    Distance between samples along y-axis
+     * @param w     Number of samples along x-axis
+     * @param h     Number of samples along y-axis
+     * @param f1    Receives {@code w * h} F1 values in row-major order, or {@code null}
+     * @param f1Off Offset into f1
+     * @param f2    Receives {@code w * h} F2 values in row-major order, or {@code null}
+     * @param f2Off Offset into f2
+     */
+    public void fill2( double x0,
+                       double y0,
+                       double dx,
+                       double dy,
+                       int w,
+                       int h,
+                       double[] f1,
+                       int f1Off,
+                       double[] f2,
+                       int f2Off )
+    {
+        for( int row = 0; row < h; row++ ) {
+            double y = y0 + row * dy;
+            for( int col = 0; col < w; col++ ) {
+                double d1 = search2( x0 + col * dx, y, f2, f2Off++, null, 0 );
+                if( f1 != null ) {
+                    f1[f1Off++] = d1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Float version of {@link #fill2(double, double, double, double, int, int, double[], int, double[], int)}.
+     */
+    public void fill2( double x0,
+                       double y0,
+                       double dx,
+                       double dy,
+                       int w,
+                       int h,
+                       float[] f1,
+                       int f1Off,
+                       float[] f2,
+                       int f2Off )
+    {
+        double[] d2 = f2 == null ? null : new double[1];
+        for( int row = 0; row < h; row++ ) {
+            double y = y0 + row * dy;
+            for( int col = 0; col < w; col++ ) {
+                double d1 = search2( x0 + col * dx, y, d2, 0, null, 0 );
+                if( f1 != null ) {
+                    f1[f1Off++] = (float)d1;
+                }
+                if( f2 != null ) {
+                    f2[f2Off++] = (float)d2[0];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes feature distances over a regular 3D lattice. Samples are indexed
+     * {@code col + w * ( row + h * layer )} from each offset.
+     *
+     * @param x0    X-coordinate of first sample
+     * @param y0    Y-coordinate of first sample
+     * @param z0    Z-coordinate of first sample
+     * @param dx    Distance between samples along x-axis
+     * @param dy    Distance between samples along y-axis
+     * @param dz    Distance between samples along z-axis
+     * @param w     Number of samples along x-axis
+     * @param h     Number of samples along y-axis
+     * @param d     Number of samples along z-axis
+     * @param f1    Receives {@code w * h * d} F1 values, or {@code null}
+     * @param f1Off Offset into f1
+     * @param f2    Receives {@code w * h * d} F2 values, or {@code null}
+     * @param f2Off Offset into f2
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       double[] f1,
+                       int f1Off,
+                       double[] f2,
+                       int f2Off )
+    {
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                double y = y0 + row * dy;
+                for( int col = 0; col < w; col++ ) {
+                    double d1 = search3( x0 + col * dx, y, z, f2, f2Off++, null, 0 );
+                    if( f1 != null ) {
+                        f1[f1Off++] = d1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Float version of {@link #fill3(double, double, double, double, double, double, int, int, int, double[], int, double[], int)}.
+     */
+    public void fill3( double x0,
+                       double y0,
+                       double z0,
+                       double dx,
+                       double dy,
+                       double dz,
+                       int w,
+                       int h,
+                       int d,
+                       float[] f1,
+                       int f1Off,
+                       float[] f2,
+                       int f2Off )
+    {
+        double[] d2 = f2 == null ? null : new double[1];
+        for( int layer = 0; layer < d; layer++ ) {
+            double z = z0 + layer * dz;
+            for( int row = 0; row < h; row++ ) {
+                double y = y0 + row * dy;
+                for( int col = 0; col < w; col++ ) {
+                    double d1 = search3( x0 + col * dx, y, z, d2, 0, null, 0 );
+                    if( f1 != null ) {
+                        f1[f1Off++] = (float)d1;
+                    }
+                    if( f2 != null ) {
+                        f2[f2Off++] = (float)d2[0];
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Finds the nearest feature point and, if {@code f2} is non-null, the second nearest.
+     * Cells are pruned against F2 when it is requested, and against F1 otherwise.
+     *
+     * @return F1
+     */
+    private double search2( double x, double y, double[] f2, int f2Off, int[] cell, int cellOff ) {
+        final int[] perm = mPerm;
+        final int i = fastfloor( x );
+        final int j = fastfloor( y );
+        final double fx = x - i;
+        final double fy = y - j;
+
+        // Distance from sample to nearest edge of its own cell. Every cell in ring r > 0
+        // is at least ( r - 1 + edge ) away.
+        double edge = Math.min( Math.min( fx, 1.0 - fx ), Math.min( fy, 1.0 - fy ) );
+        final boolean needF2 = f2 != null;
+        double d1  = Double.POSITIVE_INFINITY;
+        double d2  = Double.POSITIVE_INFINITY;
+        double lim = Double.POSITIVE_INFINITY;
+        int bi = i;
+        int bj = j;
+
+        for( int r = 0; ; r++ ) {
+            if( r > 0 ) {
+                double lo = r - 1 + edge;
+                if( lo * lo >= lim ) {
+                    break;
+                }
+            }
+            for( int oj = -r; oj <= r; oj++ ) {
+                // Distance along y to cell bounds.
+                double ey = oj < 0 ? fy - oj - 1 : oj > 0 ? oj - fy : 0.0;
+                double ey2 = ey * ey;
+                if( ey2 >= lim ) {
+                    continue;
+                }
+                int step = ( oj == -r || oj == r ) ? 1 : 2 * r;
+                for( int oi = -r; oi <= r; oi += step ) {
+                    double ex = oi < 0 ? fx - oi - 1 : oi > 0 ? oi - fx : 0.0;
+                    if( ex * ex + ey2 >= lim ) {
+                        continue;
+                    }
+                    int ci = i + oi;
+                    int cj = j + oj;
+                    int ii = ci & 0xFF;
+                    int jj = cj & 0xFF;
+                    // Hash cell once, then take successive entries so axes are independent.
+                    int h = perm[ ii + perm[jj] ];
+                    double px = oi + ( perm[h    ] + 0.5 ) * INV_256 - fx;
+                    double py = oj + ( perm[h + 1] + 0.5 ) * INV_256 - fy;
+                    double dd = px * px + py * py;
+                    if( dd < d1 ) {
+                        d2 = d1;
+                        d1 = dd;
+                        bi = ci;
+                        bj = cj;
+                    } else if( dd < d2 ) {
+                        d2 = dd;
+                    }
+                    lim = needF2 ? d2 : d1;
+                }
+            }
+        }
+
+        if( needF2 ) {
+            f2[f2Off] = Math.sqrt( d2 );
+        }
+        if( cell != null ) {
+            cell[cellOff  ] = bi;
+            cell[cellOff+1] = bj;
+        }
+        return Math.sqrt( d1 );
+    }
+
+
+    private double search3( double x, double y, double z, double[] f2, int f2Off, int[] cell, int cellOff ) {
+        final int[] perm = mPerm;
+        final int i = fastfloor( x );
+        final int j = fastfloor( y );
+        final int k = fastfloor( z );
+        final double fx = x - i;
+        final double fy = y - j;
+        final double fz = z - k;
+
+        double edge = Math.min( Math.min( Math.min( fx, 1.0 - fx ), Math.min( fy, 1.0 - fy ) ),
+                                Math.min( fz, 1.0 - fz ) );
+        final boolean needF2 = f2 != null;
+        double d1  = Double.POSITIVE_INFINITY;
+        double d2  = Double.POSITIVE_INFINITY;
+        double lim = Double.POSITIVE_INFINITY;
+        int bi = i;
+        int bj = j;
+        int bk = k;
+
+        for( int r = 0; ; r++ ) {
+            if( r > 0 ) {
+                double lo = r - 1 + edge;
+                if( lo * lo >= lim ) {
+                    break;
+                }
+            }
+            for( int ok = -r; ok <= r; ok++ ) {
+                double ez = ok < 0 ? fz - ok - 1 : ok > 0 ? ok - fz : 0.0;
+                double ez2 = ez * ez;
+                if( ez2 >= lim ) {
+                    continue;
+                }
+                boolean kFace = ok == -r || ok == r;
+                for( int oj = -r; oj <= r; oj++ ) {
+                    double ey = oj < 0 ? fy - oj - 1 : oj > 0 ? oj - fy : 0.0;
+                    double eyz2 = ey * ey + ez2;
+                    if( eyz2 >= lim ) {
+                        continue;
+                    }
+                    int step = ( kFace || oj == -r || oj == r ) ? 1 : 2 * r;
+                    for( int oi = -r; oi <= r; oi += step ) {
+                        double ex = oi < 0 ? fx - oi - 1 : oi > 0 ? oi - fx : 0.0;
+                        if( ex * ex + eyz2 >= lim ) {
+                            continue;
+                        }
+                        int ci = i + oi;
+                        int cj = j + oj;
+                        int ck = k + ok;
+                        int ii = ci & 0xFF;
+                        int jj = cj & 0xFF;
+                        int kk = ck & 0xFF;
+                        int h = perm[ ii + perm[ jj + perm[kk] ] ];
+                        double px = oi + ( perm[h    ] + 0.5 ) * INV_256 - fx;
+                        double py = oj + ( perm[h + 1] + 0.5 ) * INV_256 - fy;
+                        double pz = ok + ( perm[h + 2] + 0.5 ) * INV_256 - fz;
+                        double dd = px * px + py * py + pz * pz;
+                        if( dd < d1 ) {
+                            d2 = d1;
+                            d1 = dd;
+                            bi = ci;
+                            bj = cj;
+                            bk = ck;
+                        } else if( dd < d2 ) {
+                            d2 = dd;
+                        }
+                        lim = needF2 ? d2 : d1;
+                    }
+                }
+            }
+        }
+
+        if( needF2 ) {
+            f2[f2Off] = Math.sqrt( d2 );
+        }
+        if( cell != null ) {
+            cell[cellOff  ] = bi;
+            cell[cellOff+1] = bj;
+            cell[cellOff+2] = bk;
+        }
+        return Math.sqrt( d1 );
+    }
+
+
+    private static final double INV_256 = 1.0 / 256.0;
+
+
+    private static int fastfloor( double x ) {
+        return x >= 0 ? (int)x : (int)x - 1;
+    }
+
+}
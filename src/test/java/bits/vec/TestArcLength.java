@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestArcLength {
+
+    @Test
+    public void testBezier() {
+        Random rand = new Random( 21 );
+        float[] out = new float[3];
+        float[] ref = new float[3];
+
+        for( int trial = 0; trial < 20; trial++ ) {
+            float[][] p = new float[4][3];
+            for( float[] v : p ) {
+                for( int d = 0; d < 3; d++ ) {
+                    v[d] = rand.nextFloat() * 10f - 5f;
+                }
+            }
+
+            ArcLength quad  = ArcLength.quadBezier( p[0], p[1], p[2], 256 );
+            ArcLength cubic = ArcLength.cubicBezier( p[0], p[1], p[2], p[3], 256 );
+
+            for( int i = 0; i <= 10; i++ ) {
+                float t = i / 10f;
+                quad.pointAt( t, out, 0 );
+                Interp.bezier( p[0], p[1], p[2], t, ref );
+                assertEquals( ref[0], out[0], 1E-4f );
+                assertEquals( Interp.bezier( p[0][1], p[1][1], p[2][1], t ), out[1], 1E-4f );
+                cubic.pointAt( t, out, 0 );
+                Interp.bezier( p[0], p[1], p[2], p[3], t, ref );
+                assertEquals( ref[2], out[2], 1E-4f );
+            }
+
+            checkTable( quad );
+            checkTable( cubic );
+        }
+    }
+
+    @Test
+    public void testCatmull() {
+        // Evenly spaced collinear points produce a straight chain traversed at constant speed.
+        float[] line = new float[2 * 6];
+        for( int i = 0; i < 6; i++ ) {
+            line[i * 2    ] = 1f + 3f * i;
+            line[i * 2 + 1] = -4f * i;
+        }
+        ArcLength chain = ArcLength.catmull( line, 0, 6, 2, 100 );
+        assertEquals( 25f, chain.length(), 1E-4f );
+
+        Random rand = new Random( 22 );
+        float[] pts = new float[3 * 8];
+        for( int i = 0; i < pts.length; i++ ) {
+            pts[i] = rand.nextFloat() * 10f;
+        }
+        chain = ArcLength.catmull( pts, 0, 8, 3, 64 * 7 );
+        assertEquals( 7, chain.segmentCount() );
+        float[] out = new float[3];
+        chain.pointAt( 3.25f, out, 0 );
+        assertEquals( Interp.catmull( pts[2 * 3], pts[3 * 3], pts[4 * 3], pts[5 * 3], 0.25f ), out[0], 1E-4f );
+        chain.pointAt( 7f, out, 0 );
+        assertEquals( pts[7 * 3 + 1], out[1], 1E-4f );
+        checkTable( chain );
+    }
+
+    @Test
+    public void testDegenerate() {
+        float[] p = { 2f, 3f };
+        ArcLength a = ArcLength.cubicBezier( p, p, p, p, 16 );
+        assertEquals( 0f, a.length(), 0f );
+        float[] out = new float[2];
+        a.point( 1f, out, 0 );
+        assertEquals( 2f, out[0], 0f );
+        assertEquals( 3f, out[1], 0f );
+    }
+
+
+    private static void checkTable( ArcLength arc ) {
+        final int steps = 20000;
+        final float range = arc.segmentCount();
+        final float[] a = new float[arc.dim()];
+        final float[] b = new float[arc.dim()];
+
+        // Reference length by fine polyline.
+        double[] cum = new double[steps + 1];
+        arc.pointAt( 0f, a, 0 );
+        for( int i = 1; i <= steps; i++ ) {
+            arc.pointAt( range * i / steps, b, 0 );
+            double sum = 0.0;
+            for( int d = 0; d < a.length; d++ ) {
+                sum += ( b[d] - a[d] ) * ( b[d] - a[d] );
+            }
+            cum[i] = cum[i - 1] + Math.sqrt( sum );
+            System.arraycopy( b, 0, a, 0, a.length );
+        }
+        final double len = cum[steps];
+        assertEquals( len, arc.length(), len * 1E-5 );
+
+        float[] dists  = new float[101];
+        float[] params = new float[101];
+        for( int i = 0; i <= 100; i++ ) {
+            dists[i] = arc.length() * i / 100f;
+        }
+        arc.param( dists, 0, dists.length, params, 0 );
+        for( int i = 0; i <= 100; i++ ) {
+            assertEquals( params[i], arc.param( dists[i] ), 0f );
+            double refDist = cum[Math.round( params[i] / range * steps )];
+            assertEquals( dists[i], refDist, len * 2E-3 );
+            assertEquals( dists[i], arc.dist( params[i] ), len * 2E-3 );
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestClip {
+
+    @Test
+    public void testMatchesSplines() {
+        Random rand = new Random( 41 );
+        final int trackCount = 8000;
+        Spline[] tracks = new Spline[trackCount];
+        int channels = 0;
+        for( int i = 0; i < trackCount; i++ ) {
+            int keys = 1 + rand.nextInt( 12 );
+            int dim  = 1 + rand.nextInt( 4 );
+            float[] times  = new float[keys];
+            float[] values = new float[keys * dim];
+            float t = rand.nextFloat() * 2f;
+            for( int k = 0; k < keys; k++ ) {
+                times[k] = t;
+                t += 0.05f + rand.nextFloat();
+            }
+            for( int k = 0; k < values.length; k++ ) {
+                values[k] = rand.nextFloat() * 2f - 1f;
+            }
+            tracks[i] = new Spline( rand.nextInt( 4 ), times, 0, values, 0, keys, dim, 0.2f, 0.1f );
+            channels += dim;
+        }
+
+        Clip clip = new Clip( tracks );
+        assertEquals( trackCount, clip.trackCount() );
+        assertEquals( channels, clip.channelCount() );
+
+        ForkJoinPool pool = new ForkJoinPool( 3 );
+        float[] expect = new float[channels];
+        float[] serial = new float[channels + 2];
+        float[] para   = new float[channels];
+
+        for( int step = 0; step < 120; step++ ) {
+            // Mostly forward playback, with occasional jumps.
+            float t = step % 50 == 49 ? rand.nextFloat() * 15f - 1f : step * 0.05f - 1f;
+            for( int i = 0; i < trackCount; i++ ) {
+                tracks[i].eval( t, expect, clip.channelOffset( i ) );
+            }
+            clip.eval( t, serial, 2 );
+            clip.eval( t, para, 0, pool );
+            for( int c = 0; c < channels; c++ ) {
+                assertEquals( expect[c], serial[c + 2], 0f );
+                assertEquals( expect[c], para[c], 0f );
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testBake() {
+        Random rand = new Random( 42 );
+        final int trackCount = 500;
+        Spline[] tracks = new Spline[trackCount];
+        for( int i = 0; i < trackCount; i++ ) {
+            int keys = 1 + rand.nextInt( 8 );
+            int dim  = 1 + rand.nextInt( 3 );
+            float[] times  = new float[keys];
+            float[] values = new float[keys * dim];
+            float t = rand.nextFloat();
+            for( int k = 0; k < keys; k++ ) {
+                // Include keys that fall exactly on sample times.
+                times[k] = rand.nextInt( 4 ) == 0 ? (float)Math.ceil( t * 30.0 ) / 30f : t;
+                t = times[k] + 0.02f + rand.nextFloat();
+            }
+            for( int k = 0; k < values.length; k++ ) {
+                values[k] = rand.nextFloat() * 4f - 2f;
+            }
+            tracks[i] = new Spline( rand.nextInt( 4 ), times, 0, values, 0, keys, dim, -0.3f, 0.2f );
+        }
+
+        Clip clip = new Clip( tracks );
+        final int channels = clip.channelCount();
+        final double rate  = 30.0;
+        final double start = clip.startTime() - 0.25;
+        final int count    = (int)( ( clip.endTime() - start + 0.5 ) * rate );
+        assertEquals( (int)Math.floor( ( (double)clip.endTime() - clip.startTime() ) * rate ) + 1, clip.bakeCount( rate ) );
+
+        float[] baked = new float[count * channels + 3];
+        float[] para  = new float[count * channels];
+        float[] pose  = new float[channels];
+        ForkJoinPool pool = new ForkJoinPool( 3 );
+        clip.bake( start, rate, count, baked, 3 );
+        clip.bake( start, rate, count, para, 0, pool );
+        pool.shutdown();
+
+        for( int k = 0; k < count; k++ ) {
+            clip.eval( (float)( start + k / rate ), pose, 0 );
+            for( int c = 0; c < channels; c++ ) {
+                assertEquals( pose[c], baked[3 + k * channels + c], 1E-4f );
+                assertEquals( baked[3 + k * channels + c], para[k * channels + c], 0f );
+            }
+        }
+    }
+
+}
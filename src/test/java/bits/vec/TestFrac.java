@@ -11,6 +11,7 @@ import org.junit.Test;
 import java.io.*;
 import java.math.BigInteger;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -122,6 +123,60 @@ public class TestFrac {
         p.flush();
     }
     
+    @Test
+    public void testRescale() {
+        Random rand = new Random( 6 );
+        int[] roundSet = { Frac.ROUND_ZERO, Frac.ROUND_INF, Frac.ROUND_DOWN, Frac.ROUND_UP, Frac.ROUND_NEAR_INF };
+        long[] valSet  = { Long.MIN_VALUE, Long.MIN_VALUE + 1, -90000L * 3600 * 24, -3, -1, 0, 1, 2, 3, 1001, Long.MAX_VALUE };
+        Frac[] baseSet = { new Frac( 1, 90000 ), new Frac( 1001, 30000 ), new Frac( 1, 1000000000 ), new Frac( -7, 3 ),
+                           new Frac( Integer.MAX_VALUE, 1 ), new Frac( 1, Integer.MAX_VALUE ), new Frac( 0, 1 ), new Frac( 1, 0 ) };
+
+        final int len = 20000;
+        long[] vals = new long[len];
+        long[] out  = new long[len + 2];
+
+        for( int trial = 0; trial < 400; trial++ ) {
+            Frac from;
+            Frac to;
+            if( trial < baseSet.length * baseSet.length ) {
+                from = baseSet[trial % baseSet.length];
+                to   = baseSet[trial / baseSet.length];
+            } else {
+                from = new Frac( rand.nextInt() >> rand.nextInt( 31 ), rand.nextInt() >>> rand.nextInt( 32 ) );
+                to   = new Frac( rand.nextInt() >> rand.nextInt( 31 ), rand.nextInt() >>> rand.nextInt( 32 ) );
+            }
+            int round = roundSet[trial % roundSet.length];
+
+            for( int i = 0; i < len; i++ ) {
+                if( i < valSet.length ) {
+                    vals[i] = valSet[i];
+                } else {
+                    vals[i] = rand.nextLong() >> rand.nextInt( 64 );
+                }
+            }
+
+            Frac.rescale( vals, 0, out, 2, len, from, to, round );
+            for( int i = 0; i < len; i++ ) {
+                long expect = bigRescale( vals[i], (long)from.mNum * to.mDen, (long)from.mDen * to.mNum, round );
+                assertEquals( expect, Frac.rescale( vals[i], from, to, round ) );
+                assertEquals( expect, out[i + 2] );
+            }
+        }
+
+        // 90kHz to 1/1000 with each rounding mode.
+        Frac ms = new Frac( 1, 1000 );
+        Frac tb = new Frac( 1, 90000 );
+        assertEquals( 1, Frac.rescale( 134, tb, ms, Frac.ROUND_NEAR_INF ) );
+        assertEquals( 2, Frac.rescale( 135, tb, ms, Frac.ROUND_NEAR_INF ) );
+        assertEquals( -2, Frac.rescale( -135, tb, ms, Frac.ROUND_DOWN ) );
+        assertEquals( -1, Frac.rescale( -135, tb, ms, Frac.ROUND_UP ) );
+        assertEquals( -1, Frac.rescale( -135, tb, ms, Frac.ROUND_ZERO ) );
+        assertEquals( -2, Frac.rescale( -135, tb, ms, Frac.ROUND_INF ) );
+        assertEquals( Long.MIN_VALUE, Frac.rescale( Long.MIN_VALUE, tb, ms, Frac.ROUND_NEAR_INF | Frac.ROUND_PASS_MINMAX ) );
+        assertEquals( Long.MAX_VALUE, Frac.rescale( Long.MAX_VALUE, ms, tb, Frac.ROUND_NEAR_INF ) );
+    }
+
+
     @Test
     public void testGcd() {
         assertEquals( 4, Frac.gcd( 4 * 7, 4 * 13 ) );
@@ -217,6 +272,93 @@ public class TestFrac {
         assertCanonical( 1881244168, 598818617, ra );
     }
 
+    @Test
+    public void testDoubleToRationalCache() throws Exception {
+        final double[] vals = new double[4000];
+        final Random rand = new Random( 9 );
+        double[] common = { 24000 / 1001.0, 29.97, 59.94, 23.976, 48000, 44100 / 48000.0, 1001 / 24000.0, 1 / 90000.0 };
+        for( int i = 0; i < vals.length; i++ ) {
+            if( i % 3 == 0 ) {
+                vals[i] = common[i % common.length];
+            } else {
+                vals[i] = ( rand.nextDouble() - 0.3 ) * Math.pow( 10, rand.nextInt( 12 ) - 6 );
+            }
+        }
+        vals[5] = Double.NaN;
+        vals[6] = Double.NEGATIVE_INFINITY;
+        vals[7] = -0.0;
+
+        final int[] maxes = { Integer.MAX_VALUE, 1000, 1 << 16 };
+        final int[][] expect = new int[maxes.length][2 * vals.length];
+        Frac ref = new Frac();
+        for( int m = 0; m < maxes.length; m++ ) {
+            for( int i = 0; i < vals.length; i++ ) {
+                Frac.searchRational( vals[i], maxes[m], ref );
+                expect[m][2 * i    ] = ref.mNum;
+                expect[m][2 * i + 1] = ref.mDen;
+            }
+        }
+
+        Frac.doubleToRational( 30000 / 1001.0, ref );
+        assertCanonical( 30000, 1001, ref );
+
+        // Hammer the cache from several threads with more distinct values than it holds.
+        final AtomicInteger errors = new AtomicInteger( 0 );
+        Thread[] threads = new Thread[4];
+        for( int t = 0; t < threads.length; t++ ) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    Frac out = new Frac();
+                    Random r = new Random( seed );
+                    for( int k = 0; k < 100000; k++ ) {
+                        int m = r.nextInt( maxes.length );
+                        int i = r.nextInt( vals.length );
+                        Frac.doubleToRational( vals[i], maxes[m], out );
+                        if( out.mNum != expect[m][2 * i] || out.mDen != expect[m][2 * i + 1] ) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for( Thread t : threads ) {
+            t.join();
+        }
+        assertEquals( 0, errors.get() );
+
+        for( int m = 0; m < maxes.length; m++ ) {
+            int[] out = new int[2 * vals.length + 1];
+            Frac.doubleToRational( vals, 0, maxes[m], out, 1, vals.length );
+            for( int i = 0; i < expect[m].length; i++ ) {
+                assertEquals( expect[m][i], out[i + 1] );
+            }
+        }
+    }
+
+
+    @Test
+    public void testKnownRateCustomBound() {
+        double[] vals = { 24000 / 1001.0, 30000 / 1001.0, 1001 / 60000.0, 29.97, 44100, 1 / 48000.0, 44100 / 48000.0 };
+        Frac full = new Frac();
+        Frac ref  = new Frac();
+        Frac out  = new Frac();
+        for( double v : vals ) {
+            Frac.searchRational( v, Integer.MAX_VALUE, full );
+            int fit = Math.max( Math.abs( full.mNum ), full.mDen );
+            int[] maxes = { fit - 1, fit, fit + 1, 2 * fit, 1 << 24, Integer.MAX_VALUE - 1 };
+            for( int max : maxes ) {
+                Frac.searchRational( v, max, ref );
+                Frac.doubleToRational( v, max, out );
+                assertEquals( ref.mNum, out.mNum );
+                assertEquals( ref.mDen, out.mDen );
+            }
+        }
+    }
+
+
     @Test
     public void testPrint() {
         System.out.println( Frac.multLong( Long.MAX_VALUE, Integer.MAX_VALUE, 1 ) );
@@ -290,6 +432,57 @@ public class TestFrac {
     }
 
 
+    /**
+     * Reference for Frac.rescale.
+     */
+    static long bigRescale( long val, long num, long den, int round ) {
+        if( val == 0 || num == 0 ) {
+            return 0;
+        }
+        if( den == 0 ) {
+            return ( val ^ num ) < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+
+        BigInteger n = BigInteger.valueOf( val ).multiply( BigInteger.valueOf( num ) );
+        BigInteger d = BigInteger.valueOf( den );
+        if( d.signum() < 0 ) {
+            n = n.negate();
+            d = d.negate();
+        }
+        BigInteger[] qr = n.divideAndRemainder( d );
+        BigInteger q = qr[0];
+        int sign = n.signum();
+
+        if( qr[1].signum() != 0 ) {
+            boolean away;
+            switch( round ) {
+            case Frac.ROUND_ZERO:
+                away = false;
+                break;
+            case Frac.ROUND_INF:
+                away = true;
+                break;
+            case Frac.ROUND_DOWN:
+                away = sign < 0;
+                break;
+            case Frac.ROUND_UP:
+                away = sign > 0;
+                break;
+            default:
+                away = qr[1].abs().shiftLeft( 1 ).compareTo( d ) >= 0;
+                break;
+            }
+            if( away ) {
+                q = q.add( BigInteger.valueOf( sign ) );
+            }
+        }
+
+        q = q.max( BigInteger.valueOf( Long.MIN_VALUE ) );
+        q = q.min( BigInteger.valueOf( Long.MAX_VALUE ) );
+        return q.longValue();
+    }
+
+
     static int randRound( Random rand ) {
         switch( rand.nextInt( 5 ) ) {
         case 0:
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestFractalNoise {
+
+    @Test
+    public void testFillMatchesPointSamples() {
+        final int w = 301;
+        final int h = 257;
+        final int d = 3;
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+
+        try {
+            for( int type = FractalNoise.FBM; type <= FractalNoise.TURBULENCE; type++ ) {
+                FractalNoise noise = new FractalNoise( type, 5, 2.0, 0.5 );
+                noise.mFrequency = 0.75;
+
+                double[] serial   = new double[w * h];
+                double[] parallel = new double[w * h];
+                noise.fill2( -1.5, 2.25, 0.013, 0.017, w, h, serial, 0, null );
+                noise.fill2( -1.5, 2.25, 0.013, 0.017, w, h, parallel, 0, pool );
+                assertArrayEquals( serial, parallel, 0.0 );
+
+                for( int y = 0; y < h; y += 7 ) {
+                    for( int x = 0; x < w; x += 5 ) {
+                        double v = noise.noise( -1.5 + x * 0.013, 2.25 + y * 0.017 );
+                        assertEquals( v, serial[x + y * w], 1E-9 );
+                        assertTrue( v >= -1.0 && v <= 1.0 );
+                    }
+                }
+
+                // 3D simplex kernels use a radius of 0.6, which leaves small discontinuities
+                // at cell boundaries, so rounding differences in coordinates are amplified.
+                float[] vol = new float[w * h * d];
+                noise.fill3( 0.5, -0.5, 4.0, 0.011, 0.019, 0.1, w, h, d, vol, 0, pool );
+                for( int z = 0; z < d; z++ ) {
+                    for( int y = 0; y < h; y += 11 ) {
+                        for( int x = 0; x < w; x += 13 ) {
+                            double v = noise.noise( 0.5 + x * 0.011, -0.5 + y * 0.019, 4.0 + z * 0.1 );
+                            assertEquals( v, vol[x + w * ( y + h * z )], 1E-3 );
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestLongFrac {
+
+    @Test
+    public void testArithmetic() {
+        Random rand = new Random( 5 );
+        LongFrac a = new LongFrac();
+        LongFrac b = new LongFrac();
+        LongFrac out = new LongFrac();
+
+        for( int i = 0; i < 200000; i++ ) {
+            a.set( randTerm( rand ), randTerm( rand ) | 1 );
+            b.set( randTerm( rand ), randTerm( rand ) | 1 );
+
+            for( int op = 0; op < 4; op++ ) {
+                BigInteger[] expect;
+                boolean exact;
+                switch( op ) {
+                case 0:
+                    exact  = LongFrac.mult( a, b, out );
+                    expect = bigMult( a.mNum, a.mDen, b.mNum, b.mDen );
+                    break;
+                case 1:
+                    exact  = LongFrac.div( a, b, out );
+                    expect = bigMult( a.mNum, a.mDen, b.mDen, b.mNum );
+                    break;
+                case 2:
+                    exact  = LongFrac.add( a, b, out );
+                    expect = bigAdd( a.mNum, a.mDen, b.mNum, b.mDen );
+                    break;
+                default:
+                    exact  = LongFrac.sub( a, b, out );
+                    expect = bigAdd( a.mNum, a.mDen, -b.mNum, b.mDen );
+                    break;
+                }
+                assertTrue( out.mNum != Long.MIN_VALUE );
+                assertTrue( out.mDen > 0 || !exact || expect[1].signum() == 0 );
+
+                BigInteger lhs = BigInteger.valueOf( out.mNum ).multiply( expect[1] );
+                BigInteger rhs = expect[0].multiply( BigInteger.valueOf( out.mDen ) );
+                if( exact ) {
+                    assertEquals( rhs, lhs );
+                } else if( out.mDen == 0 ) {
+                    // Overflow only occurs for magnitudes near the range of long.
+                    assertTrue( expect[0].abs().compareTo( expect[1].abs().shiftLeft( 60 ) ) >= 0 );
+                } else {
+                    // Relative error is at most 2^-61 * max( |x|, 1/|x| ).
+                    BigInteger n = expect[0].abs();
+                    BigInteger d = expect[1].abs();
+                    BigInteger err = lhs.subtract( rhs ).abs().shiftLeft( 60 ).multiply( n.min( d ) );
+                    assertTrue( err.compareTo( rhs.abs().multiply( n.max( d ) ) ) <= 0 );
+                }
+            }
+
+            int cmp = a.compareTo( b );
+            BigInteger[] diff = bigAdd( a.mNum, a.mDen, -b.mNum, b.mDen );
+            assertEquals( diff[0].signum() * diff[1].signum(), cmp );
+        }
+    }
+
+
+    @Test
+    public void testTimeline() {
+        // One day of NTSC frames accumulated at 1/90000, then compared exactly.
+        LongFrac frame = new LongFrac( 1001, 30000 );
+        LongFrac t = new LongFrac( 0, 30000 );
+        final long frames = 24L * 60 * 60 * 30000 / 1001;
+        for( long i = 0; i < frames; i++ ) {
+            assertTrue( LongFrac.add( t, frame, t ) );
+        }
+        assertEquals( 30000, t.mDen );
+        assertEquals( new LongFrac( frames * 1001, 30000 ), t );
+
+        LongFrac ticks = new LongFrac();
+        assertTrue( LongFrac.mult( t, new LongFrac( 90000, 1 ), ticks ) );
+        assertEquals( frames * 1001 * 3, ticks.toLong( Frac.ROUND_ZERO ) );
+
+        // Large terms that only fit after cancellation.
+        LongFrac big = new LongFrac( 3L << 60, 7 );
+        LongFrac r = new LongFrac();
+        assertTrue( LongFrac.mult( big, new LongFrac( 7, 3L << 60 ), r ) );
+        assertEquals( new LongFrac( 1, 1 ), r );
+        assertTrue( LongFrac.compare( Long.MAX_VALUE, Long.MAX_VALUE - 1, Long.MAX_VALUE - 1, Long.MAX_VALUE - 2 ) < 0 );
+    }
+
+
+    @Test
+    public void testSpecialValues() {
+        LongFrac out = new LongFrac();
+        LongFrac.mult( new LongFrac( 5, 0 ), new LongFrac( -3, 2 ), out );
+        assertEquals( -1, out.mNum );
+        assertEquals( 0, out.mDen );
+        LongFrac.add( new LongFrac( 1, 0 ), new LongFrac( -1, 0 ), out );
+        assertTrue( Double.isNaN( out.toDouble() ) );
+        assertEquals( 1, LongFrac.compare( 1, 0, Long.MAX_VALUE, 1 ) );
+
+        LongFrac r = new LongFrac( 12, -8 );
+        r.reduce();
+        assertEquals( -3, r.mNum );
+        assertEquals( 2, r.mDen );
+        assertTrue( r.isCanonical() );
+        assertEquals( -2, r.toLong( Frac.ROUND_NEAR_INF ) );
+        assertEquals( -1, r.toLong( Frac.ROUND_UP ) );
+        assertEquals( -2, r.toLong( Frac.ROUND_DOWN ) );
+        assertEquals( new LongFrac( 6, -4 ).hashCode(), r.hashCode() );
+    }
+
+
+    private static long randTerm( Random rand ) {
+        long v = rand.nextLong() >> rand.nextInt( 63 );
+        return v == Long.MIN_VALUE ? 0 : v;
+    }
+
+
+    private static BigInteger[] bigMult( long aNum, long aDen, long bNum, long bDen ) {
+        return new BigInteger[]{ BigInteger.valueOf( aNum ).multiply( BigInteger.valueOf( bNum ) ),
+                                 BigInteger.valueOf( aDen ).multiply( BigInteger.valueOf( bDen ) ) };
+    }
+
+
+    private static BigInteger[] bigAdd( long aNum, long aDen, long bNum, long bDen ) {
+        BigInteger ad = BigInteger.valueOf( aDen );
+        BigInteger bd = BigInteger.valueOf( bDen );
+        return new BigInteger[]{ BigInteger.valueOf( aNum ).multiply( bd ).add( BigInteger.valueOf( bNum ).multiply( ad ) ),
+                                 ad.multiply( bd ) };
+    }
+
+}
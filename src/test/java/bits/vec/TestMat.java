@@ -96,6 +96,562 @@ public class TestMat {
     }
 
 
+    @Test
+    public void testInvertAffine4() {
+        Random rand = new Random( 4 );
+        Mat4 eye = new Mat4();
+        Mat.identity( eye );
+
+        for( int i = 0; i < 100; i++ ) {
+            Vec3 pos = Tests.randPos( rand );
+            Mat4 rigid = Tests.randRot4( rand );
+            Mat.translate( rigid, pos.x, pos.y, pos.z, rigid );
+            Mat4 affine = new Mat4( rigid );
+            Mat.scale( affine, rand.nextFloat() + 0.5f, rand.nextFloat() + 0.5f, rand.nextFloat() + 0.5f, 1f, affine );
+
+            Mat4 inv  = new Mat4();
+            Mat4 inv2 = new Mat4();
+            Mat4 prod = new Mat4();
+            assertTrue( Mat.invertAffine( affine, inv ) );
+            Mat.mult( affine, inv, prod );
+            Tests.assertNear( eye, prod );
+
+            Mat.invert( affine, inv2 );
+            Tests.assertNear( inv, inv2 );
+
+            Mat.invertRigid( rigid, inv );
+            Mat.invertAffine( rigid, inv2 );
+            Tests.assertNear( inv, inv2 );
+            Mat.invertRigid( inv, inv );
+            Tests.assertNear( rigid, inv );
+        }
+
+        Mat4 flat = new Mat4();
+        Mat.identity( flat );
+        flat.m22 = 0f;
+        assertFalse( Mat.invertAffine( flat, flat ) );
+    }
+
+    @Test
+    public void testInvertAffine4d() {
+        Random rand = new Random( 5 );
+        Mat4d eye = new Mat4d();
+        Mat.identity( eye );
+        double[] a = new double[16];
+        double[] b = new double[16];
+
+        for( int i = 0; i < 100; i++ ) {
+            rotXyz( rand.nextDouble() * 6, rand.nextDouble() * 6, rand.nextDouble() * 6, a );
+            a[12] = rand.nextDouble() * 20 - 10;
+            a[13] = rand.nextDouble() * 20 - 10;
+            a[14] = rand.nextDouble() * 20 - 10;
+            Mat4d rigid  = toMat4d( a, 0 );
+            Mat4d affine = new Mat4d( rigid );
+            Mat.scale( affine, rand.nextDouble() + 0.5, rand.nextDouble() + 0.5, rand.nextDouble() + 0.5, 1, affine );
+
+            Mat4d inv  = new Mat4d();
+            Mat4d inv2 = new Mat4d();
+            Mat4d prod = new Mat4d();
+            assertTrue( Mat.invertAffine( affine, inv ) );
+            Mat.mult( affine, inv, prod );
+            Tests.assertNear( eye, prod );
+
+            Mat.invertRigid( rigid, inv );
+            Mat.invert4( a, b );
+            Tests.assertNear( toMat4d( b, 0 ), inv );
+
+            Mat.invertAffine( rigid, inv2 );
+            Tests.assertNear( inv, inv2 );
+        }
+    }
+
+    @Test
+    public void testInvertBatch4() {
+        Random rand = new Random( 6 );
+        final int count = 50;
+        float[] src  = new float[count * 16 + 3];
+        float[] dst  = new float[count * 16 + 5];
+        float[] arr  = new float[16];
+        Mat4[] mats  = new Mat4[count];
+
+        for( int i = 0; i < count; i++ ) {
+            Vec3 pos = Tests.randPos( rand );
+            Mat4 mat = Tests.randRot4( rand );
+            Mat.translate( mat, pos.x, pos.y, pos.z, mat );
+            if( i % 5 == 0 ) {
+                // Projective matrix to exercise general path.
+                mat.m30 = rand.nextFloat() * 0.5f;
+                mat.m32 = rand.nextFloat() * 0.5f;
+            }
+            mats[i] = mat;
+            Mat.put( mat, arr );
+            System.arraycopy( arr, 0, src, 3 + i * 16, 16 );
+        }
+
+        Mat4 inv = new Mat4();
+        Mat4 out = new Mat4();
+        assertTrue( Mat.invert4( src, 3, dst, 5, count ) );
+        for( int i = 0; i < count; i++ ) {
+            Mat.invert( mats[i], inv );
+            System.arraycopy( dst, 5 + i * 16, arr, 0, 16 );
+            Mat.put( arr, out );
+            Tests.assertNear( inv, out );
+        }
+
+        // In-place, affine only.
+        double[] srcd = new double[count * 16];
+        double[] dstd = new double[count * 16];
+        for( int i = 0; i < count; i++ ) {
+            Mat4 mat = mats[i];
+            mat.m30 = 0;
+            mat.m32 = 0;
+            Mat.put( mat, arr );
+            for( int j = 0; j < 16; j++ ) {
+                srcd[i * 16 + j] = arr[j];
+            }
+        }
+        System.arraycopy( srcd, 0, dstd, 0, srcd.length );
+        assertTrue( Mat.invertAffine4( dstd, 0, dstd, 0, count ) );
+        Mat.invertRigid4( srcd, 0, srcd, 0, count );
+        for( int i = 0; i < count; i++ ) {
+            Tests.assertNear( toMat4d( dstd, i * 16 ), toMat4d( srcd, i * 16 ) );
+        }
+    }
+
+
+    @Test
+    public void testDecompose4() {
+        Random rand = new Random( 7 );
+        Vec3 trans = new Vec3();
+        Quat rot   = new Quat();
+        Vec3 scale = new Vec3();
+        Mat4 mat   = new Mat4();
+        Mat4 out   = new Mat4();
+
+        for( int i = 0; i < 100; i++ ) {
+            Vec3 t = Tests.randPos( rand );
+            Quat q = new Quat();
+            Quat.sampleUniform( rand, q );
+            float sign = i % 4 == 0 ? -1f : 1f;
+            Vec3 s = new Vec3( sign * ( rand.nextFloat() * 3f + 0.1f ),
+                               sign * ( rand.nextFloat() * 3f + 0.1f ),
+                               sign * ( rand.nextFloat() * 3f + 0.1f ) );
+            Mat.compose( t, q, s, mat );
+
+            for( int polar = 0; polar < 2; polar++ ) {
+                assertTrue( Mat.decompose( mat, polar == 1, trans, rot, scale ) );
+                assertTrue( rot.w >= 0f );
+                Tests.assertNear( t, trans );
+                Tests.assertNear( s, scale );
+                Mat.compose( trans, rot, scale, out );
+                Tests.assertNear( mat, out );
+            }
+        }
+    }
+
+    @Test
+    public void testDecomposeShear4() {
+        Random rand = new Random( 8 );
+        Vec3 trans  = new Vec3();
+        Quat rot    = new Quat();
+        Mat3 str    = new Mat3();
+        Mat4 mat    = new Mat4();
+        Mat4 out    = new Mat4();
+
+        for( int i = 0; i < 100; i++ ) {
+            Vec3 t = Tests.randPos( rand );
+            Quat q = new Quat();
+            Quat.sampleUniform( rand, q );
+            if( q.w < 0f ) {
+                q.x = -q.x;
+                q.y = -q.y;
+                q.z = -q.z;
+                q.w = -q.w;
+            }
+            // Symmetric, positive-definite stretch with shear.
+            Mat3 s = Tests.randMat3( rand, 0.6f );
+            s.m10 = s.m01;
+            s.m20 = s.m02;
+            s.m21 = s.m12;
+            s.m00 += 2f;
+            s.m11 += 2f;
+            s.m22 += 2f;
+            Mat.compose( t, q, s, mat );
+
+            assertTrue( Mat.decompose( mat, trans, rot, str ) );
+            Tests.assertNear( t, trans );
+            Tests.assertNear( q, rot );
+            Tests.assertNear( s, str );
+            Mat.compose( trans, rot, str, out );
+            Tests.assertNear( mat, out );
+        }
+    }
+
+    @Test
+    public void testDecomposeBatch() {
+        Random rand = new Random( 9 );
+        final int count = 40;
+        float[] mats  = new float[count * 16 + 1];
+        float[] parts = new float[count * 10 + 2];
+        float[] back  = new float[count * 16];
+        float[] arr   = new float[16];
+        double[] matsd  = new double[count * 16];
+        double[] partsd = new double[count * 10];
+        double[] backd  = new double[count * 16];
+        Vec3 trans = new Vec3();
+        Quat rot   = new Quat();
+        Vec3 scale = new Vec3();
+
+        for( int i = 0; i < count; i++ ) {
+            Mat4 mat = Tests.randRot4( rand );
+            Vec3 pos = Tests.randPos( rand );
+            Mat.scale( mat, rand.nextFloat() + 0.5f, rand.nextFloat() + 0.5f, rand.nextFloat() + 0.5f, 1f, mat );
+            mat.m01 += 0.2f * rand.nextFloat();
+            mat.m03 = pos.x;
+            mat.m13 = pos.y;
+            mat.m23 = pos.z;
+            Mat.put( mat, arr );
+            System.arraycopy( arr, 0, mats, 1 + i * 16, 16 );
+            for( int j = 0; j < 16; j++ ) {
+                matsd[i * 16 + j] = arr[j];
+            }
+        }
+
+        for( int polar = 0; polar < 2; polar++ ) {
+            assertTrue( Mat.decompose( mats, 1, parts, 2, count, polar == 1 ) );
+            assertTrue( Mat.decompose( matsd, 0, partsd, 0, count, polar == 1 ) );
+            for( int i = 0; i < count; i++ ) {
+                Mat4 mat = new Mat4();
+                System.arraycopy( mats, 1 + i * 16, arr, 0, 16 );
+                Mat.put( arr, mat );
+                Mat.decompose( mat, polar == 1, trans, rot, scale );
+                int p = 2 + i * 10;
+                float[] expect = { trans.x, trans.y, trans.z, rot.x, rot.y, rot.z, rot.w, scale.x, scale.y, scale.z };
+                for( int j = 0; j < 10; j++ ) {
+                    Tests.assertNear( expect[j], parts[p + j] );
+                    Tests.assertNear( expect[j], partsd[i * 10 + j] );
+                }
+            }
+        }
+
+        // Round trip without shear.
+        for( int i = 0; i < count; i++ ) {
+            Vec3 t = Tests.randPos( rand );
+            Quat q = new Quat();
+            Quat.sampleUniform( rand, q );
+            Vec3 s = new Vec3( rand.nextFloat() + 0.5f, rand.nextFloat() + 0.5f, rand.nextFloat() + 0.5f );
+            Mat4 mat = new Mat4();
+            Mat.compose( t, q, s, mat );
+            Mat.put( mat, arr );
+            System.arraycopy( arr, 0, mats, 1 + i * 16, 16 );
+            for( int j = 0; j < 16; j++ ) {
+                matsd[i * 16 + j] = arr[j];
+            }
+        }
+        Mat.decompose( mats, 1, parts, 2, count, false );
+        Mat.compose( parts, 2, back, 0, count );
+        Mat.decompose( matsd, 0, partsd, 0, count, true );
+        Mat.compose( partsd, 0, backd, 0, count );
+        for( int i = 0; i < count * 16; i++ ) {
+            Tests.assertNear( mats[1 + i], back[i] );
+            Tests.assertNear( matsd[i], backd[i] );
+        }
+    }
+
+    @Test
+    public void testDecomposeShear4d() {
+        Random rand = new Random( 10 );
+        Vec3d trans = new Vec3d();
+        Quatd rot   = new Quatd();
+        Mat3d str   = new Mat3d();
+        Mat4d mat   = new Mat4d();
+        Mat4d out   = new Mat4d();
+
+        for( int i = 0; i < 100; i++ ) {
+            Vec3d t = new Vec3d( rand.nextDouble(), rand.nextDouble(), rand.nextDouble() );
+            Quatd q = new Quatd();
+            Quat.sampleUniform( rand, q );
+            Mat3d s = new Mat3d();
+            s.m00 = 2.0 + rand.nextDouble();
+            s.m11 = 2.0 + rand.nextDouble();
+            s.m22 = -2.0 - rand.nextDouble();
+            s.m01 = s.m10 = rand.nextDouble() - 0.5;
+            s.m02 = s.m20 = rand.nextDouble() - 0.5;
+            s.m12 = s.m21 = rand.nextDouble() - 0.5;
+            Mat.compose( t, q, s, mat );
+
+            assertTrue( Mat.decompose( mat, trans, rot, str ) );
+            assertTrue( rot.w >= 0.0 );
+            Tests.assertNear( t, trans );
+            Mat.compose( trans, rot, str, out );
+            Tests.assertNear( mat, out );
+            // Stretch must be symmetric.
+            assertEquals( str.m01, str.m10, 0.0 );
+            assertEquals( str.m12, str.m21, 0.0 );
+        }
+    }
+
+
+    @Test
+    public void testSvd3() {
+        Random rand = new Random( 11 );
+        Mat3 u   = new Mat3();
+        Mat3 v   = new Mat3();
+        Vec3 sg  = new Vec3();
+        Mat3 tmp = new Mat3();
+        Mat3 eye = new Mat3();
+        Mat.identity( eye );
+
+        for( int i = 0; i < 300; i++ ) {
+            Mat3 mat = Tests.randMat3( rand, 4f );
+            if( i % 10 == 0 ) {
+                // Rank deficient
+                mat.m01 = mat.m00;
+                mat.m11 = mat.m10;
+                mat.m21 = mat.m20;
+            } else if( i % 10 == 1 ) {
+                // Repeated singular values
+                mat = Tests.randRot3( rand );
+            }
+            Mat.svd( mat, u, sg, v );
+
+            Mat.transpose( u, tmp );
+            Mat.mult( tmp, u, tmp );
+            Tests.assertNear( eye, tmp );
+            Mat.transpose( v, tmp );
+            Mat.mult( tmp, v, tmp );
+            Tests.assertNear( eye, tmp );
+            Tests.assertNear( 1f, Mat.det( u ) );
+            Tests.assertNear( 1f, Mat.det( v ) );
+
+            assertTrue( sg.x >= 0f && sg.y >= 0f );
+            assertTrue( sg.x >= sg.y - 1E-5f && sg.y >= Math.abs( sg.z ) - 1E-5f );
+
+            Mat3 diag = new Mat3( sg.x, 0, 0, 0, sg.y, 0, 0, 0, sg.z );
+            Mat.transpose( v, tmp );
+            Mat.mult( diag, tmp, tmp );
+            Mat.mult( u, tmp, tmp );
+            Tests.assertNear( mat, tmp );
+        }
+    }
+
+    @Test
+    public void testPolar3() {
+        Random rand = new Random( 12 );
+        Mat3 rot = new Mat3();
+        Mat3 str = new Mat3();
+        Mat3 tmp = new Mat3();
+        Mat4 mat4 = new Mat4();
+        Vec3 trans = new Vec3();
+        Quat quat  = new Quat();
+
+        for( int i = 0; i < 200; i++ ) {
+            Mat3 mat = Tests.randMat3( rand, 4f );
+            Mat.polar( mat, rot, str );
+            Tests.assertNear( 1f, Mat.det( rot ) );
+            assertEquals( str.m01, str.m10, 1E-5f );
+            assertEquals( str.m02, str.m20, 1E-5f );
+            assertEquals( str.m12, str.m21, 1E-5f );
+            Mat.mult( rot, str, tmp );
+            Tests.assertNear( mat, tmp );
+
+            if( Mat.det( mat ) > 0.01f ) {
+                // Must agree with Newton iteration used by decompose.
+                Mat.put( mat, mat4 );
+                Mat.decompose( mat4, true, trans, quat, null );
+                Quat.quatToMat( quat, tmp );
+                Tests.assertNear( rot, tmp );
+            }
+        }
+
+        // In place
+        Mat3 mat = Tests.randMat3( rand, 4f );
+        Mat.polar( mat, rot, null );
+        Mat.polar( mat, mat, null );
+        Tests.assertNear( rot, mat );
+    }
+
+    @Test
+    public void testSvdBatch3() {
+        Random rand = new Random( 13 );
+        final int count = 30;
+        float[] src  = new float[count * 9 + 1];
+        float[] u    = new float[count * 9];
+        float[] sg   = new float[count * 3 + 2];
+        float[] v    = new float[count * 9];
+        float[] rot  = new float[count * 9];
+        float[] str  = new float[count * 9];
+        double[] srcd = new double[count * 9];
+        double[] ud   = new double[count * 9];
+        double[] sgd  = new double[count * 3];
+        double[] vd   = new double[count * 9];
+        double[] rotd = new double[count * 9];
+
+        for( int i = 0; i < src.length; i++ ) {
+            src[i] = rand.nextFloat() * 4f - 2f;
+        }
+        for( int i = 0; i < srcd.length; i++ ) {
+            srcd[i] = src[i + 1];
+        }
+
+        Mat.svd( src, 1, u, 0, sg, 2, v, 0, count );
+        Mat.polar( src, 1, rot, 0, str, 0, count );
+        Mat.svd( srcd, 0, ud, 0, sgd, 0, vd, 0, count );
+        Mat.polar( srcd, 0, rotd, 0, null, 0, count );
+
+        Mat3d matd = new Mat3d();
+        Mat3d rotdm = new Mat3d();
+        Vec3d sgdv  = new Vec3d();
+        for( int i = 0; i < count; i++ ) {
+            int o = 1 + i * 9;
+            Mat3 mat = new Mat3( src[o], src[o + 1], src[o + 2], src[o + 3], src[o + 4], src[o + 5], src[o + 6], src[o + 7], src[o + 8] );
+            Mat3 eu = new Mat3();
+            Mat3 ev = new Mat3();
+            Vec3 es = new Vec3();
+            Mat3 er = new Mat3();
+            Mat3 et = new Mat3();
+            Mat.svd( mat, eu, es, ev );
+            Mat.polar( mat, er, et );
+            Tests.assertNear( es, new Vec3( sg[2 + i * 3], sg[3 + i * 3], sg[4 + i * 3] ) );
+            Tests.assertNear( es.x, (float)sgd[i * 3] );
+            Tests.assertNear( es.y, (float)sgd[i * 3 + 1] );
+            Tests.assertNear( es.z, (float)sgd[i * 3 + 2] );
+            for( int j = 0; j < 9; j++ ) {
+                Tests.assertNear( get( eu, j ), u[i * 9 + j] );
+                Tests.assertNear( get( ev, j ), v[i * 9 + j] );
+                Tests.assertNear( get( er, j ), rot[i * 9 + j] );
+                Tests.assertNear( get( et, j ), str[i * 9 + j] );
+                Tests.assertNear( get( er, j ), (float)rotd[i * 9 + j] );
+            }
+        }
+    }
+
+    @Test
+    public void testSvd3d() {
+        Random rand = new Random( 14 );
+        Mat3d u   = new Mat3d();
+        Mat3d v   = new Mat3d();
+        Vec3d sg  = new Vec3d();
+        Mat3d rot = new Mat3d();
+        Mat3d str = new Mat3d();
+        Mat3d tmp = new Mat3d();
+
+        for( int i = 0; i < 200; i++ ) {
+            Mat3d mat = new Mat3d();
+            mat.m00 = rand.nextDouble() * 2 - 1; mat.m01 = rand.nextDouble() * 2 - 1; mat.m02 = rand.nextDouble() * 2 - 1;
+            mat.m10 = rand.nextDouble() * 2 - 1; mat.m11 = rand.nextDouble() * 2 - 1; mat.m12 = rand.nextDouble() * 2 - 1;
+            mat.m20 = rand.nextDouble() * 2 - 1; mat.m21 = rand.nextDouble() * 2 - 1; mat.m22 = rand.nextDouble() * 2 - 1;
+            Mat.svd( mat, u, sg, v );
+            assertEquals( 1.0, Mat.det( u ), 1E-12 );
+            assertEquals( 1.0, Mat.det( v ), 1E-12 );
+            assertEquals( Mat.det( mat ), sg.x * sg.y * sg.z, 1E-12 );
+
+            Mat3d diag = new Mat3d();
+            diag.m00 = sg.x;
+            diag.m11 = sg.y;
+            diag.m22 = sg.z;
+            Mat.transpose( v, tmp );
+            Mat.mult( diag, tmp, tmp );
+            Mat.mult( u, tmp, tmp );
+            assertMat3dEquals( mat, tmp, 1E-12 );
+
+            Mat.polar( mat, rot, str );
+            Mat.mult( rot, str, tmp );
+            assertMat3dEquals( mat, tmp, 1E-12 );
+            assertEquals( 1.0, Mat.det( rot ), 1E-12 );
+        }
+    }
+
+
+    @Test
+    public void testSymmetricEigen3() {
+        Random rand = new Random( 15 );
+        Mat3 vec  = new Mat3();
+        Vec3 val  = new Vec3();
+        Mat3 tmp  = new Mat3();
+        Mat3 eye  = new Mat3();
+        Mat.identity( eye );
+
+        for( int i = 0; i < 300; i++ ) {
+            Mat3 mat = Tests.randMat3( rand, 4f );
+            mat.m10 = mat.m01;
+            mat.m20 = mat.m02;
+            mat.m21 = mat.m12;
+            if( i % 10 == 0 ) {
+                // Repeated eigenvalues
+                Mat.identity( mat );
+                mat.m22 = 3f;
+            }
+            Mat.symmetricEigen( mat, val, vec );
+
+            Mat.transpose( vec, tmp );
+            Mat.mult( tmp, vec, tmp );
+            Tests.assertNear( eye, tmp );
+            Tests.assertNear( 1f, Mat.det( vec ) );
+            assertTrue( val.x >= val.y && val.y >= val.z );
+
+            Mat3 diag = new Mat3( val.x, 0, 0, 0, val.y, 0, 0, 0, val.z );
+            Mat.transpose( vec, tmp );
+            Mat.mult( diag, tmp, tmp );
+            Mat.mult( vec, tmp, tmp );
+            Tests.assertNear( mat, tmp );
+        }
+    }
+
+    @Test
+    public void testSymmetricEigenBatch() {
+        Random rand = new Random( 16 );
+        final int count = 50;
+        float[] src   = new float[count * 6 + 2];
+        float[] vals  = new float[count * 3];
+        float[] vecs  = new float[count * 9 + 1];
+        double[] srcd = new double[count * 6];
+        double[] valsd = new double[count * 3];
+        double[] vecsd = new double[count * 9];
+        for( int i = 0; i < src.length; i++ ) {
+            src[i] = rand.nextFloat() * 2f - 1f;
+        }
+        for( int i = 0; i < srcd.length; i++ ) {
+            srcd[i] = src[i + 2];
+        }
+
+        Mat.symmetricEigen( src, 2, vals, 0, vecs, 1, count );
+        Mat.symmetricEigen( srcd, 0, valsd, 0, vecsd, 0, count );
+        for( int i = 0; i < count; i++ ) {
+            int o = 2 + i * 6;
+            Mat3 mat = new Mat3( src[o], src[o + 1], src[o + 2], src[o + 1], src[o + 3], src[o + 4], src[o + 2], src[o + 4], src[o + 5] );
+            Vec3 val = new Vec3();
+            Mat3 vec = new Mat3();
+            Mat.symmetricEigen( mat, val, vec );
+            Tests.assertNear( val, new Vec3( vals[i * 3], vals[i * 3 + 1], vals[i * 3 + 2] ) );
+            for( int j = 0; j < 9; j++ ) {
+                Tests.assertNear( get( vec, j ), vecs[1 + i * 9 + j] );
+            }
+
+            Mat3d matd = new Mat3d();
+            matd.m00 = srcd[i * 6];
+            matd.m01 = matd.m10 = srcd[i * 6 + 1];
+            matd.m02 = matd.m20 = srcd[i * 6 + 2];
+            matd.m11 = srcd[i * 6 + 3];
+            matd.m12 = matd.m21 = srcd[i * 6 + 4];
+            matd.m22 = srcd[i * 6 + 5];
+            // A v = lambda v for each column
+            for( int k = 0; k < 3; k++ ) {
+                double x = vecsd[i * 9 + k * 3], y = vecsd[i * 9 + k * 3 + 1], z = vecsd[i * 9 + k * 3 + 2];
+                double lam = valsd[i * 3 + k];
+                assertEquals( lam * x, matd.m00 * x + matd.m01 * y + matd.m02 * z, 1E-12 );
+                assertEquals( lam * y, matd.m10 * x + matd.m11 * y + matd.m12 * z, 1E-12 );
+                assertEquals( lam * z, matd.m20 * x + matd.m21 * y + matd.m22 * z, 1E-12 );
+            }
+        }
+
+        // Values only
+        float[] vals2 = new float[count * 3];
+        Mat.symmetricEigen( src, 2, vals2, 0, null, 0, count );
+        assertArrayEquals( vals, vals2, 0f );
+    }
+
+
     static void rotXyz( double rx, double ry, double rz, double[] out ) {
         double[] a = new double[16];
         double[] b = new double[16];
@@ -115,4 +671,40 @@ public class TestMat {
         Quat.quatToMat( quat, mat );
         return mat;
     }
+
+
+    static Mat4d toMat4d( double[] a, int off ) {
+        return new Mat4d( a[off     ], a[off +  1], a[off +  2], a[off +  3],
+                          a[off +  4], a[off +  5], a[off +  6], a[off +  7],
+                          a[off +  8], a[off +  9], a[off + 10], a[off + 11],
+                          a[off + 12], a[off + 13], a[off + 14], a[off + 15] );
+    }
+
+    static float get( Mat3 mat, int colMajorIndex ) {
+        switch( colMajorIndex ) {
+        case 0: return mat.m00;
+        case 1: return mat.m10;
+        case 2: return mat.m20;
+        case 3: return mat.m01;
+        case 4: return mat.m11;
+        case 5: return mat.m21;
+        case 6: return mat.m02;
+        case 7: return mat.m12;
+        default: return mat.m22;
+        }
+    }
+
+
+    static void assertMat3dEquals( Mat3d a, Mat3d b, double tol ) {
+        assertEquals( a.m00, b.m00, tol );
+        assertEquals( a.m01, b.m01, tol );
+        assertEquals( a.m02, b.m02, tol );
+        assertEquals( a.m10, b.m10, tol );
+        assertEquals( a.m11, b.m11, tol );
+        assertEquals( a.m12, b.m12, tol );
+        assertEquals( a.m20, b.m20, tol );
+        assertEquals( a.m21, b.m21, tol );
+        assertEquals( a.m22, b.m22, tol );
+    }
+
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestMorphology {
+
+    private static final int[] BORDERS = { Convolutions.BORDER_ZERO,
+                                           Convolutions.BORDER_CONSTANT,
+                                           Convolutions.BORDER_REPEAT,
+                                           Convolutions.BORDER_REFLECT_INNER,
+                                           Convolutions.BORDER_REFLECT_OUTER,
+                                           Convolutions.BORDER_WRAP };
+
+    @Test
+    public void testFilter1MatchesNaive() {
+        Random rand = new Random( 3 );
+        final int w = 23;
+        final int h = 4;
+        float[] src = new float[w * h];
+        float[] dst = new float[w * h];
+        float[] ans = new float[w * h];
+
+        for( int i = 0; i < src.length; i++ ) {
+            src[i] = rand.nextFloat() * 2f - 1f;
+        }
+
+        for( int border : BORDERS ) {
+            for( int win = 1; win < 60; win += 3 ) {
+                Morphology.erode1( src, 0, w, h, 1, w, win, border, 0.25f, dst, 0 );
+                naive1( src, w, h, 1, w, win, border, 0.25f, false, ans );
+                assertArrayEquals( ans, dst, 0f );
+
+                Morphology.dilate1( src, 0, w, h, 1, w, win, border, 0.25f, dst, 0 );
+                naive1( src, w, h, 1, w, win, border, 0.25f, true, ans );
+                assertArrayEquals( ans, dst, 0f );
+            }
+        }
+    }
+
+
+    @Test
+    public void testFilter2MatchesNaive() {
+        Random rand = new Random( 4 );
+        final int w = 17;
+        final int h = 13;
+        float[] src = new float[w * h];
+        float[] dst = new float[w * h];
+        float[] tmp = new float[w * h];
+        float[] ans = new float[w * h];
+
+        for( int i = 0; i < src.length; i++ ) {
+            src[i] = rand.nextInt( 2 );
+        }
+
+        for( int border : BORDERS ) {
+            Morphology.dilate2( src, 0, w, h, 1, w, 5, 7, border, 0f, dst, 0 );
+            naive1( src, w, h, 1, w, 5, border, 0f, true, tmp );
+            naive1( tmp, h, w, w, 1, 7, border, 0f, true, ans );
+            assertArrayEquals( ans, dst, 0f );
+
+            // In place.
+            System.arraycopy( src, 0, dst, 0, src.length );
+            Morphology.erode2( dst, 0, w, h, 1, w, 5, 7, border, 0f, dst, 0 );
+            naive1( src, w, h, 1, w, 5, border, 0f, false, tmp );
+            naive1( tmp, h, w, w, 1, 7, border, 0f, false, ans );
+            assertArrayEquals( ans, dst, 0f );
+        }
+    }
+
+
+    @Test
+    public void testBorderCol() {
+        // Columns -6 through 9 of a width 4 row, following the patterns documented in Convolutions.
+        int[][] expect = {
+            { -1, -1, -1, -1, -1, -1, 0, 1, 2, 3, -1, -1, -1, -1, -1, -1 }, // ZERO
+            { -1, -1, -1, -1, -1, -1, 0, 1, 2, 3, -1, -1, -1, -1, -1, -1 }, // CONSTANT
+            {  0,  0,  0,  0,  0,  0, 0, 1, 2, 3,  3,  3,  3,  3,  3,  3 }, // REPEAT
+            {  0,  1,  2,  3,  2,  1, 0, 1, 2, 3,  2,  1,  0,  1,  2,  3 }, // REFLECT_INNER
+            {  2,  3,  3,  2,  1,  0, 0, 1, 2, 3,  3,  2,  1,  0,  0,  1 }, // REFLECT_OUTER
+            {  2,  3,  0,  1,  2,  3, 0, 1, 2, 3,  0,  1,  2,  3,  0,  1 }  // WRAP
+        };
+
+        for( int b = 0; b < BORDERS.length; b++ ) {
+            for( int c = -6; c <= 9; c++ ) {
+                assertEquals( expect[b][c + 6], Morphology.borderCol( c, 4, BORDERS[b] ) );
+                assertEquals( expect[b][c + 6], refCol( c, 4, BORDERS[b] ) );
+            }
+        }
+
+        for( int b = 0; b < BORDERS.length; b++ ) {
+            for( int w = 1; w < 9; w++ ) {
+                for( int c = -40; c < 40; c++ ) {
+                    assertEquals( refCol( c, w, BORDERS[b] ), Morphology.borderCol( c, w, BORDERS[b] ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Reference border mapping, written independently of Morphology by walking
+     * outward from the row and turning around at the edges.
+     *
+     * @return source column, or -1 for constant samples.
+     */
+    private static int refCol( int col, int w, int border ) {
+        if( col >= 0 && col < w ) {
+            return col;
+        }
+        switch( border ) {
+        case Convolutions.BORDER_ZERO:
+        case Convolutions.BORDER_CONSTANT:
+            return -1;
+
+        case Convolutions.BORDER_REPEAT:
+            return col < 0 ? 0 : w - 1;
+
+        case Convolutions.BORDER_WRAP:
+        {
+            int c = col;
+            while( c < 0 ) {
+                c += w;
+            }
+            while( c >= w ) {
+                c -= w;
+            }
+            return c;
+        }
+
+        case Convolutions.BORDER_REFLECT_INNER:
+        {
+            // abcd|cbabcdcb: edge samples are not repeated.
+            if( w == 1 ) {
+                return 0;
+            }
+            int steps = col < 0 ? -col : col;
+            int p = 0;
+            int d = 1;
+            for( int i = 0; i < steps; i++ ) {
+                if( p + d < 0 || p + d >= w ) {
+                    d = -d;
+                }
+                p += d;
+            }
+            return p;
+        }
+
+        default:
+        {
+            // abcd|dcbaabcd: edge samples are repeated.
+            int steps = col < 0 ? -1 - col : col;
+            int p = 0;
+            int d = 1;
+            for( int i = 0; i < steps; i++ ) {
+                if( p + d < 0 || p + d >= w ) {
+                    d = -d;
+                } else {
+                    p += d;
+                }
+            }
+            return p;
+        }
+        }
+    }
+
+
+    private static void naive1( float[] src,
+                                int w,
+                                int h,
+                                int xStride,
+                                int yStride,
+                                int win,
+                                int border,
+                                float constant,
+                                boolean isMax,
+                                float[] out )
+    {
+        float fill = border == Convolutions.BORDER_ZERO ? 0f : constant;
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                float v = isMax ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+                for( int i = 0; i < win; i++ ) {
+                    int col = refCol( x - win / 2 + i, w, border );
+                    float s = col < 0 ? fill : src[col * xStride + y * yStride];
+                    v = isMax ? Math.max( v, s ) : Math.min( v, s );
+                }
+                out[x * xStride + y * yStride] = v;
+            }
+        }
+    }
+
+}
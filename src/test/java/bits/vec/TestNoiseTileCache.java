@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestNoiseTileCache {
+
+    @Test
+    public void testLru() {
+        final int size = 16;
+        SimplexNoised noise = new SimplexNoised( 11L );
+        NoiseTileCache cache = new NoiseTileCache( NoiseTileCache.simplexSource( noise, 0.05 ), size, 3 * 4 * size * size );
+
+        float[] a = cache.tile( 0, 0 );
+        float[] expect = new float[size * size];
+        noise.fill2( 0, 0, 0.05, 0.05, size, size, expect, 0 );
+        assertArrayEquals( expect, a, 0f );
+
+        cache.tile( -1, 0 );
+        cache.tile( 0, -1 );
+        assertSame( a, cache.tile( 0, 0 ) );
+        assertEquals( 3, cache.missCount() );
+        assertEquals( 1, cache.hitCount() );
+        assertEquals( 0, cache.evictionCount() );
+
+        // Tile (-1,0) is now least recently used.
+        cache.tile( 5, 5 );
+        assertEquals( 1, cache.evictionCount() );
+        assertEquals( 3, cache.tileCount() );
+        assertEquals( 3 * 4 * size * size, cache.bytes() );
+        assertSame( a, cache.tile( 0, 0 ) );
+        cache.tile( -1, 0 );
+        assertEquals( 5, cache.missCount() );
+
+        float v = (float)noise.noise( -3 * 0.05, 17 * 0.05 );
+        assertEquals( v, cache.sample( -3, 17 ), 1E-6f );
+    }
+
+
+    @Test
+    public void testSingleGeneration() throws Exception {
+        final AtomicInteger calls = new AtomicInteger( 0 );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final NoiseTileCache cache = new NoiseTileCache( new NoiseTileCache.Source() {
+            @Override
+            public void fillTile( int tileX, int tileY, int size, float[] out ) {
+                calls.incrementAndGet();
+                try {
+                    Thread.sleep( 50 );
+                } catch( InterruptedException ignored ) {}
+                out[0] = tileX + tileY;
+            }
+        }, 8, 1 << 20 );
+
+        final float[][] results = new float[8][];
+        Thread[] threads = new Thread[results.length];
+        for( int i = 0; i < threads.length; i++ ) {
+            final int idx = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch( InterruptedException ignored ) {}
+                    results[idx] = cache.tile( 3, 4 );
+                }
+            };
+            threads[i].start();
+        }
+
+        start.countDown();
+        for( Thread t : threads ) {
+            t.join();
+        }
+
+        assertEquals( 1, calls.get() );
+        assertEquals( 1, cache.missCount() );
+        assertEquals( results.length - 1, cache.hitCount() );
+        for( float[] r : results ) {
+            assertSame( results[0], r );
+        }
+        assertEquals( 7f, results[0][0], 0f );
+    }
+
+}
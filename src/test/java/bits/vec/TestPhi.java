@@ -9,6 +9,7 @@ package bits.vec;
 import org.junit.Test;
 
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 import static bits.vec.Tests.*;
@@ -36,4 +37,78 @@ public class TestPhi {
         assertTrue( Double.POSITIVE_INFINITY == Phi.ncdfInv( 1.0 ) );
     }
 
+
+    @Test
+    public void testErfcTail() {
+        // Reference values computed to double precision.
+        assertEquals( 1.5374597944280351E-12, Phi.erfc( 5.0 ), 1E-25 );
+        assertEquals( 3.8421483271206475E-20, Phi.erfc( 6.5 ), 1E-32 );
+        assertEquals( 0.056140992743822594, Phi.erfcx( 10.0 ), 1E-15 );
+        assertEquals( 2.0 - 1.5374597944280351E-12, Phi.erfc( -5.0 ), 1E-15 );
+    }
+
+
+    @Test
+    public void testArrayMatchesScalar() {
+        final int len = 100003;
+        double[] x = new double[len + 5];
+        double[] p = new double[len + 5];
+        for( int i = 0; i < x.length; i++ ) {
+            x[i] = rand.nextGaussian() * ( i % 3 == 0 ? 0.3 : 4.0 );
+            p[i] = rand.nextDouble();
+        }
+        double[] special = { 0.0, -0.0, 1.0, -1E-20, 0.46875, -0.46875, 4.0, -4.0, 9.5, -9.5, 30.0,
+                             Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                             0.02425, 0.97575, 1E-300, 1.5 };
+        for( int i = 0; i < special.length; i++ ) {
+            x[i * 7] = special[i];
+            p[i * 7] = special[i];
+        }
+
+        double[] out = new double[len + 9];
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        try {
+            for( int func = 0; func < 7; func++ ) {
+                double[] src = func == 2 || func == 3 ? p : x;
+                for( int mode = 0; mode < 3; mode++ ) {
+                    ForkJoinPool pp = mode == 1 ? pool : null;
+                    double[] in = src;
+                    double[] dst = out;
+                    int dstOff = 9;
+                    if( mode == 2 ) {
+                        // In place
+                        in = dst = src.clone();
+                        dstOff = 5;
+                    }
+                    switch( func ) {
+                    case 0: Phi.n( in, 5, dst, dstOff, len, pp ); break;
+                    case 1: Phi.ncdf( in, 5, dst, dstOff, len, pp ); break;
+                    case 2: Phi.ncdfInv( in, 5, dst, dstOff, len, pp ); break;
+                    case 3: Phi.ncdfInvFast( in, 5, dst, dstOff, len, pp ); break;
+                    case 4: Phi.erf( in, 5, dst, dstOff, len, pp ); break;
+                    case 5: Phi.erfc( in, 5, dst, dstOff, len, pp ); break;
+                    default: Phi.erfcx( in, 5, dst, dstOff, len, pp ); break;
+                    }
+
+                    for( int i = 0; i < len; i++ ) {
+                        double v = src[i + 5];
+                        double expect;
+                        switch( func ) {
+                        case 0: expect = Phi.n( v ); break;
+                        case 1: expect = Phi.ncdf( v ); break;
+                        case 2: expect = Phi.ncdfInv( v ); break;
+                        case 3: expect = Phi.ncdfInvFast( v ); break;
+                        case 4: expect = Phi.erf( v ); break;
+                        case 5: expect = Phi.erfc( v ); break;
+                        default: expect = Phi.erfcx( v ); break;
+                        }
+                        assertEquals( Double.doubleToLongBits( expect ), Double.doubleToLongBits( dst[i + dstOff] ) );
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 }
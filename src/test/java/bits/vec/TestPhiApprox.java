@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Verifies the documented error bounds of PhiApprox against the precise Phi functions.
+ *
+ * @author Philip DeCamp
+ */
+public class TestPhiApprox {
+
+    private static final double INV_SQRT_2 = 1.0 / Math.sqrt( 2.0 );
+
+    Random rand = new Random( 12 );
+
+
+    @Test
+    public void testErfBounds() {
+        for( double bound : new double[]{ PhiApprox.ERR_LOW, PhiApprox.ERR_MEDIUM, PhiApprox.ERR_HIGH } ) {
+            PhiApprox approx = PhiApprox.forError( bound );
+            assertEquals( bound, approx.maxError(), 0.0 );
+
+            double maxErf  = 0.0;
+            double maxErfc = 0.0;
+            double maxNcdf = 0.0;
+            for( int i = 0; i < 200000; i++ ) {
+                // Dense sweep, then random samples.
+                double x = i < 100000 ? -8.0 + 16.0 * i / 100000 : rand.nextDouble() * 16.0 - 8.0;
+                maxErf  = Math.max( maxErf, Math.abs( approx.erf( x ) - Phi.erf( x ) ) );
+                maxErfc = Math.max( maxErfc, Math.abs( approx.erfc( x ) - Phi.erfc( x ) ) );
+                maxNcdf = Math.max( maxNcdf, Math.abs( approx.ncdf( x ) - 0.5 * Phi.erfc( -x * INV_SQRT_2 ) ) );
+            }
+            assertTrue( "erf " + bound + ": " + maxErf, maxErf <= bound );
+            assertTrue( "erfc " + bound + ": " + maxErfc, maxErfc <= bound );
+            assertTrue( "ncdf " + bound + ": " + maxNcdf, maxNcdf <= bound );
+        }
+    }
+
+
+    @Test
+    public void testNcdfInvBounds() {
+        for( double bound : new double[]{ PhiApprox.ERR_LOW, PhiApprox.ERR_MEDIUM, PhiApprox.ERR_HIGH } ) {
+            PhiApprox approx = PhiApprox.forError( bound );
+            double maxErr = 0.0;
+
+            for( int i = 0; i < 200000; i++ ) {
+                // Lower half, down to p = 1E-300, where p = ncdf( x ) is represented accurately.
+                double x = i % 2 == 0 ? -rand.nextDouble() * 37.0 : -rand.nextDouble() * 3.0;
+                double p = 0.5 * Phi.erfc( -x * INV_SQRT_2 );
+                maxErr = Math.max( maxErr, Math.abs( approx.ncdfInv( p ) - x ) );
+
+                // Upper half is limited by the resolution of p near 1.
+                x = rand.nextDouble() * 3.0;
+                p = 0.5 * Phi.erfc( -x * INV_SQRT_2 );
+                double slack = Math.ulp( p ) / Phi.n( x );
+                maxErr = Math.max( maxErr, Math.abs( approx.ncdfInv( p ) - x ) - slack );
+            }
+            assertTrue( "ncdfInv " + bound + ": " + maxErr, maxErr <= bound );
+
+            double[] p = new double[1000];
+            double[] out = new double[1003];
+            for( int i = 0; i < p.length; i++ ) {
+                p[i] = rand.nextDouble();
+            }
+            approx.ncdfInv( p, 0, out, 3, p.length );
+            for( int i = 0; i < p.length; i++ ) {
+                assertEquals( approx.ncdfInv( p[i] ), out[i + 3], 0.0 );
+            }
+        }
+    }
+
+
+    @Test
+    public void testSpecialValues() {
+        PhiApprox approx = PhiApprox.forError( 1E-6 );
+        assertSame( PhiApprox.forError( PhiApprox.ERR_MEDIUM ), approx );
+        assertEquals( 0.0, approx.erf( 0.0 ), PhiApprox.ERR_MEDIUM );
+        assertEquals( 1.0, approx.erf( Double.POSITIVE_INFINITY ), 0.0 );
+        assertEquals( -1.0, approx.erf( Double.NEGATIVE_INFINITY ), 0.0 );
+        assertTrue( Double.isNaN( approx.erf( Double.NaN ) ) );
+        assertEquals( 0.5, approx.ncdf( 0.0 ), PhiApprox.ERR_MEDIUM );
+        assertEquals( 0.0, approx.ncdfInv( 0.5 ), PhiApprox.ERR_MEDIUM );
+        assertTrue( Double.NEGATIVE_INFINITY == approx.ncdfInv( 0.0 ) );
+        assertTrue( Double.POSITIVE_INFINITY == approx.ncdfInv( 1.0 ) );
+        assertTrue( Double.isNaN( approx.ncdfInv( -0.1 ) ) );
+        assertTrue( Double.isNaN( approx.ncdfInv( 1.1 ) ) );
+        assertTrue( Double.isNaN( approx.ncdfInv( Double.NaN ) ) );
+
+        // Below table range.
+        double x = approx.ncdfInv( 1E-310 );
+        double p = 0.5 * Phi.erfcx( -x * INV_SQRT_2 ) * Math.exp( -0.5 * x * x + 310 * Math.log( 10 ) );
+        assertEquals( 1.0, p, 1E-9 );
+        x = approx.ncdfInv( Double.MIN_VALUE );
+        assertTrue( x < -38.0 && x > -39.0 );
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestPolyline {
+
+    @Test
+    public void testFlattenTolerance() {
+        Random rand = new Random( 31 );
+        Polyline line = new Polyline( 2, 1 );
+        float[] pts = new float[8];
+        float[] pt  = new float[2];
+
+        for( int trial = 0; trial < 200; trial++ ) {
+            for( int i = 0; i < pts.length; i++ ) {
+                pts[i] = rand.nextFloat() * 100f;
+            }
+            final float tol = 0.01f + rand.nextFloat();
+            final boolean cubic = ( trial & 1 ) == 0;
+
+            line.clear();
+            line.add( pts, 0 );
+            int n = cubic ? line.cubicBezier( pts, 0, tol ) : line.quadBezier( pts, 0, tol );
+            assertEquals( n + 1, line.vertexCount() );
+            assertEquals( n, cubic ? Polyline.cubicSegments( pts, 0, 2, tol ) : Polyline.quadSegments( pts, 0, 2, tol ) );
+
+            float[] v = line.array();
+            assertEquals( pts[cubic ? 6 : 4], v[n * 2], 0f );
+            assertEquals( pts[cubic ? 7 : 5], v[n * 2 + 1], 0f );
+
+            // Every point on curve must be within tolerance of polyline, and vertices must lie on curve.
+            for( int i = 0; i <= 500; i++ ) {
+                float t = i / 500f;
+                if( cubic ) {
+                    pt[0] = Interp.bezier( pts[0], pts[2], pts[4], pts[6], t );
+                    pt[1] = Interp.bezier( pts[1], pts[3], pts[5], pts[7], t );
+                } else {
+                    pt[0] = Interp.bezier( pts[0], pts[2], pts[4], t );
+                    pt[1] = Interp.bezier( pts[1], pts[3], pts[5], t );
+                }
+                assertTrue( distToPolyline( pt[0], pt[1], v, n + 1 ) <= tol * 1.001f + 1E-4f );
+            }
+            for( int i = 1; i < n; i++ ) {
+                float t = (float)i / n;
+                float x = cubic ? Interp.bezier( pts[0], pts[2], pts[4], pts[6], t ) : Interp.bezier( pts[0], pts[2], pts[4], t );
+                assertEquals( x, v[i * 2], 1E-3f );
+            }
+        }
+    }
+
+    @Test
+    public void testPath() {
+        // Collinear control points produce a single segment.
+        float[] flat = { 0, 0, 1, 1, 2, 2, 3, 3 };
+        Polyline line = new Polyline( 2 );
+        line.add( flat, 0 );
+        assertEquals( 1, line.cubicBezier( flat, 0, 0.001f ) );
+        assertEquals( 1, line.quadBezier( flat, 2, 0.001f ) );
+        assertEquals( 3, line.vertexCount() );
+
+        // Tighter tolerance produces more segments.
+        float[] a = { 0, 0, 0 };
+        float[] b = { 10, 20, 0 };
+        float[] c = { 20, -20, 5 };
+        float[] d = { 30, 0, 0 };
+        Polyline line3 = new Polyline( 3 );
+        int coarse = line3.cubicBezier( a, b, c, d, 1f );
+        int fine   = line3.cubicBezier( a, b, c, d, 0.01f );
+        assertTrue( fine > coarse * 5 );
+        assertEquals( coarse + fine, line3.vertexCount() );
+    }
+
+
+    @Test
+    public void testNonFinite() {
+        float[] pts = { 0, 0, Float.NaN, 1, 2, 2, 3, 3 };
+        assertEquals( 1, Polyline.quadSegments( pts, 0, 2, 0.1f ) );
+        assertEquals( 1, Polyline.cubicSegments( pts, 0, 2, 0.1f ) );
+
+        // Buffer is exactly full after the start point.
+        Polyline line = new Polyline( 2, 1 );
+        line.add( pts, 0 );
+        assertEquals( 1, line.cubicBezier( pts, 0, 0.1f ) );
+        assertEquals( 2, line.vertexCount() );
+        assertEquals( 3f, line.array()[3], 0f );
+    }
+
+
+    @Test
+    public void testSegmentCap() {
+        float[] pts = { 0, 0, 1E6f, 1E6f, 0, 2E6f, 1E6f, 0 };
+        assertEquals( Polyline.MAX_SEGMENTS, Polyline.cubicSegments( pts, 0, 2, 1E-6f ) );
+        Polyline line = new Polyline( 2 );
+        line.add( pts, 0 );
+        assertEquals( Polyline.MAX_SEGMENTS, line.quadBezier( pts, 0, 1E-6f ) );
+        assertEquals( Polyline.MAX_SEGMENTS + 1, line.vertexCount() );
+    }
+
+    private static float distToPolyline( float x, float y, float[] v, int count ) {
+        double best = Double.POSITIVE_INFINITY;
+        for( int i = 0; i + 1 < count; i++ ) {
+            double ax = v[i * 2], ay = v[i * 2 + 1];
+            double dx = v[i * 2 + 2] - ax, dy = v[i * 2 + 3] - ay;
+            double len = dx * dx + dy * dy;
+            double t = len > 0 ? ( ( x - ax ) * dx + ( y - ay ) * dy ) / len : 0;
+            t = Math.max( 0, Math.min( 1, t ) );
+            double ex = ax + t * dx - x, ey = ay + t * dy - y;
+            best = Math.min( best, Math.sqrt( ex * ex + ey * ey ) );
+        }
+        return (float)best;
+    }
+
+}
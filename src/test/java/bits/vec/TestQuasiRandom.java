@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestQuasiRandom {
+
+    @Test
+    public void testSobolValues() {
+        Sobol seq = new Sobol( 2 );
+        double[] out = new double[12];
+        seq.fill( 0, 6, out, 0 );
+        double[] expect = { 0, 0, 0.5, 0.5, 0.75, 0.25, 0.25, 0.75, 0.375, 0.375, 0.875, 0.875 };
+        assertArrayEquals( expect, out, 0.0 );
+
+        // Each coordinate of the first 2^m points falls into a distinct interval of width 2^-m.
+        final int m = 10;
+        seq = new Sobol( Sobol.MAX_DIMS );
+        out = new double[( 1 << m ) * Sobol.MAX_DIMS];
+        seq.fill( 0, 1 << m, out, 0 );
+        for( int d = 0; d < Sobol.MAX_DIMS; d++ ) {
+            boolean[] hit = new boolean[1 << m];
+            for( int i = 0; i < 1 << m; i++ ) {
+                int cell = (int)( out[i * Sobol.MAX_DIMS + d] * ( 1 << m ) );
+                assertFalse( hit[cell] );
+                hit[cell] = true;
+            }
+        }
+    }
+
+
+    @Test
+    public void testHaltonValues() {
+        Halton seq = new Halton( 3 );
+        double[] out = new double[15];
+        seq.fill( 0, 5, out, 0 );
+        double[] expect = { 0,    0,       0,
+                            0.5,  1 / 3.0, 0.2,
+                            0.25, 2 / 3.0, 0.4,
+                            0.75, 1 / 9.0, 0.6,
+                            0.125, 4 / 9.0, 0.8 };
+        assertArrayEquals( expect, out, 1E-15 );
+        // Limited by largest power of 3 that does not exceed 2^52.
+        assertEquals( 1853020188851841L, seq.length() );
+    }
+
+
+    @Test
+    public void testRobertsValues() {
+        Roberts seq = new Roberts( 2 );
+        assertEquals( 0.7548776662466927, seq.alpha( 0 ), 1E-15 );
+        assertEquals( 0.5698402909980532, seq.alpha( 1 ), 1E-15 );
+
+        double[] out = new double[200];
+        seq.fill( 0, 100, out, 0 );
+        for( int i = 0; i < 100; i++ ) {
+            for( int d = 0; d < 2; d++ ) {
+                double v = 0.5 + i * seq.alpha( d );
+                assertEquals( v - Math.floor( v ), out[i * 2 + d], 1E-12 );
+            }
+        }
+    }
+
+
+    @Test
+    public void testSkipAhead() {
+        QuasiRandom[] seqs = { new Sobol( 5 ), new Halton( 5 ), new Roberts( 5 ) };
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        try {
+            for( QuasiRandom seq : seqs ) {
+                final int count = 20000;
+                final int dims  = seq.dims();
+                double[] all = new double[count * dims];
+                seq.fill( 0, count, all, 0 );
+
+                double[] part = new double[count * dims];
+                int index = 0;
+                for( int chunk = 1; index < count; chunk = chunk * 3 + 1 ) {
+                    int n = Math.min( chunk, count - index );
+                    seq.fill( index, n, part, index * dims );
+                    index += n;
+                }
+                assertArrayEquals( all, part, 0.0 );
+
+                double[] par = new double[count * dims + 3];
+                seq.fill( 0, count, par, 3, pool );
+                for( int i = 0; i < all.length; i++ ) {
+                    assertEquals( all[i], par[i + 3], 0.0 );
+                }
+
+                for( double v : all ) {
+                    assertTrue( v >= 0.0 && v < 1.0 );
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testGaussian() {
+        QuasiRandom[] seqs = { new Sobol( 4 ), new Halton( 4 ), new Roberts( 4 ) };
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        try {
+            for( QuasiRandom seq : seqs ) {
+                final int count = 1 << 14;
+                final int dims  = seq.dims();
+                double[] g = new double[count * dims];
+                seq.fillGaussian( 0, count, g, 0 );
+
+                double[] mean = new double[dims];
+                double[] var  = new double[dims];
+                for( int i = 0; i < g.length; i++ ) {
+                    assertFalse( Double.isInfinite( g[i] ) || Double.isNaN( g[i] ) );
+                    mean[i % dims] += g[i] / count;
+                    var[i % dims]  += g[i] * g[i] / count;
+                }
+                for( int d = 0; d < dims; d++ ) {
+                    assertEquals( 0.0, mean[d], 0.01 );
+                    assertEquals( 1.0, var[d], 0.02 );
+                }
+
+                double[] par = new double[count * dims];
+                seq.fillGaussian( 0, count, par, 0, null, pool );
+                assertArrayEquals( g, par, 0.0 );
+
+                PhiApprox approx = PhiApprox.forError( PhiApprox.ERR_MEDIUM );
+                seq.fillGaussian( 0, count, par, 0, approx, pool );
+                for( int i = 0; i < g.length; i++ ) {
+                    // Phi.ncdfInv loses accuracy in the far tails.
+                    if( Math.abs( g[i] ) < 5.0 ) {
+                        assertEquals( g[i], par[i], 1E-6 );
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testGaussianStartsAtZero() {
+        QuasiRandom[] seqs = { new Sobol( Sobol.MAX_DIMS ), new Halton( 8 ), new Roberts( 8 ) };
+        for( QuasiRandom seq : seqs ) {
+            final int count = 1 << 10;
+            final int dims  = seq.dims();
+            double[] g = new double[count * dims];
+            seq.fillGaussian( 0, count, g, 0 );
+            // Origin would map to about -8.2 on every coordinate.
+            for( int d = 0; d < dims; d++ ) {
+                assertTrue( Math.abs( g[d] ) < 4.0 );
+            }
+            for( double v : g ) {
+                assertTrue( Math.abs( v ) < 6.0 );
+            }
+        }
+
+        // Digital shift keeps each coordinate of the first 2^m Sobol points in a distinct interval.
+        final int m = 10;
+        Sobol seq = new Sobol( Sobol.MAX_DIMS );
+        double[] g = new double[( 1 << m ) * Sobol.MAX_DIMS];
+        seq.fillGaussian( 0, 1 << m, g, 0 );
+        for( int d = 0; d < Sobol.MAX_DIMS; d++ ) {
+            boolean[] hit = new boolean[1 << m];
+            for( int i = 0; i < 1 << m; i++ ) {
+                int cell = (int)( Phi.ncdf( g[i * Sobol.MAX_DIMS + d] ) * ( 1 << m ) );
+                assertFalse( hit[cell] );
+                hit[cell] = true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestSegmentGrid {
+
+    @Test
+    public void testIntersections() {
+        Random rand = new Random( 51 );
+        final int n = 6000;
+        double[] segs = new double[n * 4 + 2];
+        for( int i = 0; i < n; i++ ) {
+            double x = rand.nextDouble() * 1000.0;
+            double y = rand.nextDouble() * 1000.0;
+            double len = rand.nextInt( 20 ) == 0 ? 200.0 : 15.0;
+            segs[2 + i * 4    ] = x;
+            segs[2 + i * 4 + 1] = y;
+            segs[2 + i * 4 + 2] = x + ( rand.nextDouble() - 0.5 ) * len;
+            segs[2 + i * 4 + 3] = y + ( rand.nextDouble() - 0.5 ) * len;
+        }
+
+        Set<Long> expect = new HashSet<Long>();
+        Vec2d a0 = new Vec2d(), a1 = new Vec2d(), b0 = new Vec2d(), b1 = new Vec2d(), p = new Vec2d();
+        for( int i = 0; i < n; i++ ) {
+            a0.set( segs[2 + i * 4], segs[3 + i * 4] );
+            a1.set( segs[4 + i * 4], segs[5 + i * 4] );
+            for( int j = i + 1; j < n; j++ ) {
+                b0.set( segs[2 + j * 4], segs[3 + j * 4] );
+                b1.set( segs[4 + j * 4], segs[5 + j * 4] );
+                if( Vec.segmentIntersection( a0, a1, b0, b1, p ) ) {
+                    expect.add( (long)i * n + j );
+                }
+            }
+        }
+        assertTrue( expect.size() > 100 );
+
+        SegmentGrid grid = new SegmentGrid( segs, 2, n );
+        SegmentGrid.Hits hits = new SegmentGrid.Hits();
+        grid.intersections( false, hits );
+        checkHits( segs, n, hits, expect );
+
+        ForkJoinPool pool = new ForkJoinPool( 3 );
+        SegmentGrid.Hits para = new SegmentGrid.Hits();
+        grid.intersections( false, para, pool );
+        pool.shutdown();
+        assertEquals( hits.mCount, para.mCount );
+        for( int i = 0; i < hits.mCount * 2; i++ ) {
+            assertEquals( hits.mPairs[i], para.mPairs[i] );
+            assertEquals( hits.mPoints[i], para.mPoints[i], 0.0 );
+        }
+
+        // Fixed cell size must not change results.
+        hits.clear();
+        new SegmentGrid( segs, 2, n, 7.0 ).intersections( false, hits );
+        checkHits( segs, n, hits, expect );
+    }
+
+    @Test
+    public void testSharedEndpoints() {
+        // Zigzag polyline that crosses itself once, plus a segment touching it at a vertex.
+        double[] segs = {  0, 0,  4, 4,
+                           4, 4,  4, 0,
+                           4, 0,  0, 4,
+                           4, 4,  9, 4 };
+        SegmentGrid grid = new SegmentGrid( segs, 0, 4 );
+        SegmentGrid.Hits hits = new SegmentGrid.Hits();
+        grid.intersections( true, hits );
+        assertEquals( 1, hits.mCount );
+        assertEquals( 0, hits.mPairs[0] );
+        assertEquals( 2, hits.mPairs[1] );
+        assertEquals( 2.0, hits.mPoints[0], 1E-12 );
+        assertEquals( 2.0, hits.mPoints[1], 1E-12 );
+        assertEquals( 0.5, hits.mParams[0], 1E-12 );
+        assertEquals( 0.5, hits.mParams[1], 1E-12 );
+
+        hits.clear();
+        grid.intersections( false, hits );
+        // Adds 0-1, 1-2, 0-3, 1-3 at shared vertices.
+        assertEquals( 5, hits.mCount );
+    }
+
+
+    @Test
+    public void testPointDistance() {
+        Random rand = new Random( 52 );
+        final int n = 500;
+        double[] segs = new double[n * 4];
+        double[] pts  = new double[n * 2];
+        for( int i = 0; i < segs.length; i++ ) {
+            segs[i] = rand.nextDouble() * 10.0 - 5.0;
+        }
+        for( int i = 0; i < pts.length; i++ ) {
+            pts[i] = rand.nextDouble() * 10.0 - 5.0;
+        }
+        segs[4] = segs[6];
+        segs[5] = segs[7];
+
+        double[] dist = new double[n + 1];
+        double[] t    = new double[n + 1];
+        double[] q    = new double[n * 2 + 2];
+        double[] ldist = new double[n];
+        double[] lt    = new double[n];
+        SegmentGrid.segmentPointDistance( segs, 0, pts, 0, n, dist, t, q, 1 );
+        SegmentGrid.linePointDistance( segs, 0, pts, 0, n, ldist, lt, null, 0 );
+
+        Vec2d a = new Vec2d(), b = new Vec2d(), p = new Vec2d();
+        for( int i = 0; i < n; i++ ) {
+            a.set( segs[i * 4], segs[i * 4 + 1] );
+            b.set( segs[i * 4 + 2], segs[i * 4 + 3] );
+            p.set( pts[i * 2], pts[i * 2 + 1] );
+            assertEquals( Vec.segmentPointDistance( a, b, p ), dist[i + 1], 1E-9 );
+            assertTrue( t[i + 1] >= 0.0 && t[i + 1] <= 1.0 );
+            double qx = q[i * 2 + 2], qy = q[i * 2 + 3];
+            assertEquals( dist[i + 1], Math.hypot( qx - p.x, qy - p.y ), 1E-9 );
+            assertEquals( qx, a.x + t[i + 1] * ( b.x - a.x ), 1E-9 );
+            if( i != 1 ) {
+                assertEquals( Math.abs( Vec.linePointDistance( a, b, p ) ), ldist[i], 1E-9 );
+                assertTrue( ldist[i] <= dist[i + 1] + 1E-12 );
+                if( lt[i] >= 0.0 && lt[i] <= 1.0 ) {
+                    assertEquals( dist[i + 1], ldist[i], 1E-9 );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        Random rand = new Random( 53 );
+        final int n = 4000;
+        double[] segs = new double[n * 4];
+        for( int i = 0; i < n; i++ ) {
+            double x = rand.nextDouble() * 500.0;
+            double y = rand.nextDouble() * 200.0;
+            segs[i * 4    ] = x;
+            segs[i * 4 + 1] = y;
+            segs[i * 4 + 2] = x + rand.nextGaussian() * 5.0;
+            segs[i * 4 + 3] = y + rand.nextGaussian() * 5.0;
+        }
+        SegmentGrid grid = new SegmentGrid( segs, 0, n );
+
+        final int m = 10000;
+        double[] pts = new double[m * 2];
+        for( int i = 0; i < m; i++ ) {
+            // Include points outside the grid.
+            pts[i * 2    ] = rand.nextDouble() * 700.0 - 100.0;
+            pts[i * 2 + 1] = rand.nextDouble() * 400.0 - 100.0;
+        }
+
+        int[] index   = new int[m];
+        double[] dist = new double[m];
+        double[] t    = new double[m];
+        double[] q    = new double[m * 2];
+        assertEquals( m, grid.nearest( pts, 0, m, Double.POSITIVE_INFINITY, index, dist, t, q, 0 ) );
+
+        int[] limIndex   = new int[m];
+        double[] limDist = new double[m];
+        ForkJoinPool pool = new ForkJoinPool( 3 );
+        int found = grid.nearest( pts, 0, m, 3.0, limIndex, limDist, null, null, 0, pool );
+        pool.shutdown();
+
+        double[] all = new double[n];
+        double[] rep = new double[n * 2];
+        int expectFound = 0;
+        for( int i = 0; i < m; i++ ) {
+            for( int j = 0; j < n; j++ ) {
+                rep[j * 2] = pts[i * 2];
+                rep[j * 2 + 1] = pts[i * 2 + 1];
+            }
+            SegmentGrid.segmentPointDistance( segs, 0, rep, 0, n, all, null, null, 0 );
+            double best = Double.POSITIVE_INFINITY;
+            for( int j = 0; j < n; j++ ) {
+                best = Math.min( best, all[j] );
+            }
+            assertEquals( best, dist[i], 1E-9 );
+            assertEquals( best, all[index[i]], 1E-9 );
+            assertEquals( q[i * 2], segs[index[i] * 4] + t[i] * ( segs[index[i] * 4 + 2] - segs[index[i] * 4] ), 1E-9 );
+            if( best <= 3.0 ) {
+                expectFound++;
+                assertEquals( best, limDist[i], 1E-9 );
+            } else {
+                assertEquals( -1, limIndex[i] );
+                assertTrue( Double.isNaN( limDist[i] ) );
+            }
+        }
+        assertEquals( expectFound, found );
+    }
+
+
+    private static void checkHits( double[] segs, int n, SegmentGrid.Hits hits, Set<Long> expect ) {
+        Set<Long> found = new HashSet<Long>();
+        for( int k = 0; k < hits.mCount; k++ ) {
+            int i = hits.mPairs[k * 2];
+            int j = hits.mPairs[k * 2 + 1];
+            assertTrue( i < j );
+            assertTrue( "Duplicate pair", found.add( (long)i * n + j ) );
+            double t = hits.mParams[k * 2];
+            double u = hits.mParams[k * 2 + 1];
+            assertEquals( hits.mPoints[k * 2], segs[2 + i * 4] + t * ( segs[4 + i * 4] - segs[2 + i * 4] ), 1E-9 );
+            assertEquals( hits.mPoints[k * 2 + 1], segs[3 + j * 4] + u * ( segs[5 + j * 4] - segs[3 + j * 4] ), 1E-9 );
+        }
+        assertEquals( expect, found );
+    }
+
+}
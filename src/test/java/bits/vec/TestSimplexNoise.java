@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestSimplexNoise {
+
+    @Test
+    public void testFill2MatchesNoise() {
+        final int w = 67;
+        final int h = 31;
+        double[] out  = new double[w * h + 3];
+        float[] fout = new float[w * h];
+
+        double[][] params = { { -3.1, 7.25, 0.037, 0.051 },
+                              { 100.5, -200.25, 0.7, 1.3 },
+                              { 0.0, 0.0, -0.01, 0.2 } };
+
+        for( double[] p : params ) {
+            SimplexNoise.fill2( p[0], p[1], p[2], p[3], w, h, out, 3 );
+            SimplexNoise.fill2( p[0], p[1], p[2], p[3], w, h, fout, 0 );
+            for( int y = 0; y < h; y++ ) {
+                for( int x = 0; x < w; x++ ) {
+                    double v = SimplexNoise.noise( p[0] + x * p[2], p[1] + y * p[3] );
+                    assertEquals( v, out[3 + x + y * w], 0.0 );
+                    assertEquals( (float)v, fout[x + y * w], 0f );
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void testFill3MatchesNoise() {
+        final int w = 29;
+        final int h = 7;
+        final int d = 5;
+        double[] out  = new double[w * h * d];
+        float[] fout = new float[w * h * d];
+
+        double[][] params = { { -3.1, 7.25, 1.5, 0.037, 0.051, 0.11 },
+                              { 100.5, -200.25, -9.0, 0.7, 1.3, 0.9 } };
+
+        for( double[] p : params ) {
+            SimplexNoise.fill3( p[0], p[1], p[2], p[3], p[4], p[5], w, h, d, out, 0 );
+            SimplexNoise.fill3( p[0], p[1], p[2], p[3], p[4], p[5], w, h, d, fout, 0 );
+            for( int z = 0; z < d; z++ ) {
+                for( int y = 0; y < h; y++ ) {
+                    for( int x = 0; x < w; x++ ) {
+                        double v = SimplexNoise.noise( p[0] + x * p[3], p[1] + y * p[4], p[2] + z * p[5] );
+                        int idx = x + w * ( y + h * z );
+                        assertEquals( v, out[idx], 0.0 );
+                        assertEquals( (float)v, fout[idx], 0f );
+                    }
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void testSeeded() {
+        SimplexNoised a = new SimplexNoised( 17L );
+        SimplexNoised b = new SimplexNoised( new NoisePerm( 17L ) );
+        SimplexNoised c = new SimplexNoised( 18L );
+        assertEquals( a.perm(), b.perm() );
+        assertFalse( a.perm().equals( c.perm() ) );
+
+        int diff = 0;
+        for( int i = 0; i < 200; i++ ) {
+            double x = i * 0.173 - 11.0;
+            double y = i * 0.311 + 3.0;
+            double z = i * -0.057;
+            assertEquals( a.noise( x, y ), b.noise( x, y ), 0.0 );
+            assertEquals( a.noise( x, y, z ), b.noise( x, y, z ), 0.0 );
+            assertEquals( a.noise( x, y, z, x - y ), b.noise( x, y, z, x - y ), 0.0 );
+            if( a.noise( x, y ) != c.noise( x, y ) ) {
+                diff++;
+            }
+            assertEquals( SimplexNoise.noise( x, y, z ), SimplexNoised.DEFAULT.noise( x, y, z ), 0.0 );
+        }
+        assertTrue( diff > 150 );
+
+        final int w = 41;
+        final int h = 9;
+        double[] out = new double[w * h];
+        a.fill2( -2.5, 1.0, 0.09, 0.13, w, h, out, 0 );
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                assertEquals( a.noise( -2.5 + x * 0.09, 1.0 + y * 0.13 ), out[x + y * w], 0.0 );
+            }
+        }
+    }
+
+
+    @Test
+    public void testFloatMatchesDouble() {
+        NoisePerm perm = new NoisePerm( 5L );
+        SimplexNoised nd = new SimplexNoised( perm );
+        SimplexNoisef nf = new SimplexNoisef( perm );
+
+        for( int i = 0; i < 500; i++ ) {
+            float x = i * 0.0731f - 7.0f;
+            float y = i * 0.1137f + 2.0f;
+            float z = i * -0.0419f + 1.0f;
+            float w = i * 0.0233f;
+            assertEquals( nd.noise( x, y ), nf.noise( x, y ), 1E-4 );
+            assertEquals( nd.noise( x, y, z ), nf.noise( x, y, z ), 1E-3 );
+            assertEquals( nd.noise( x, y, z, w ), nf.noise( x, y, z, w ), 1E-3 );
+        }
+
+        final int w = 37;
+        final int h = 5;
+        final int d = 3;
+        float[] out = new float[w * h * d];
+        nf.fill2( 0.25f, -1.5f, 0.071f, 0.093f, w, h, out, 0 );
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                assertEquals( nf.noise( 0.25f + x * 0.071f, -1.5f + y * 0.093f ), out[x + y * w], 0f );
+            }
+        }
+
+        nf.fill3( 0.25f, -1.5f, 3.0f, 0.071f, 0.093f, 0.2f, w, h, d, out, 0 );
+        for( int z = 0; z < d; z++ ) {
+            for( int y = 0; y < h; y++ ) {
+                for( int x = 0; x < w; x++ ) {
+                    float v = nf.noise( 0.25f + x * 0.071f, -1.5f + y * 0.093f, 3.0f + z * 0.2f );
+                    assertEquals( v, out[x + w * ( y + h * z )], 0f );
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void testNoiseGrad() {
+        SimplexNoised noise = new SimplexNoised( 3L );
+        java.util.Random rand = new java.util.Random( 9 );
+        final double e = 1E-6;
+        double[] g = new double[4];
+        int bad3 = 0;
+        int bad4 = 0;
+
+        for( int i = 0; i < 2000; i++ ) {
+            double x = rand.nextDouble() * 20 - 10;
+            double y = rand.nextDouble() * 20 - 10;
+            double z = rand.nextDouble() * 20 - 10;
+            double w = rand.nextDouble() * 20 - 10;
+
+            assertEquals( noise.noise( x, y ), noise.noiseGrad( x, y, g, 0 ), 0.0 );
+            assertEquals( ( noise.noise( x + e, y ) - noise.noise( x - e, y ) ) / ( 2 * e ), g[0], 1E-5 );
+            assertEquals( ( noise.noise( x, y + e ) - noise.noise( x, y - e ) ) / ( 2 * e ), g[1], 1E-5 );
+
+            // 3D and 4D kernels are truncated at simplex boundaries, so finite differences
+            // occasionally straddle a small step.
+            assertEquals( noise.noise( x, y, z ), noise.noiseGrad( x, y, z, g, 1 ), 0.0 );
+            if( Math.abs( ( noise.noise( x + e, y, z ) - noise.noise( x - e, y, z ) ) / ( 2 * e ) - g[1] ) > 1E-4 ||
+                Math.abs( ( noise.noise( x, y, z + e ) - noise.noise( x, y, z - e ) ) / ( 2 * e ) - g[3] ) > 1E-4 )
+            {
+                bad3++;
+            }
+
+            assertEquals( noise.noise( x, y, z, w ), noise.noiseGrad( x, y, z, w, g, 0 ), 0.0 );
+            if( Math.abs( ( noise.noise( x, y + e, z, w ) - noise.noise( x, y - e, z, w ) ) / ( 2 * e ) - g[1] ) > 1E-4 ||
+                Math.abs( ( noise.noise( x, y, z, w + e ) - noise.noise( x, y, z, w - e ) ) / ( 2 * e ) - g[3] ) > 1E-4 )
+            {
+                bad4++;
+            }
+        }
+
+        assertTrue( bad3 < 20 );
+        assertTrue( bad4 < 20 );
+
+        final int w = 13;
+        final int h = 4;
+        final int d = 2;
+        double[] out  = new double[w * h * d];
+        double[] grad = new double[3 * w * h * d + 1];
+        noise.fillGrad3( 0.5, 1.5, -2.5, 0.21, 0.17, 0.3, w, h, d, out, 0, grad, 1 );
+        for( int z = 0; z < d; z++ ) {
+            for( int y = 0; y < h; y++ ) {
+                for( int x = 0; x < w; x++ ) {
+                    int idx = x + w * ( y + h * z );
+                    double v = noise.noiseGrad( 0.5 + x * 0.21, 1.5 + y * 0.17, -2.5 + z * 0.3, g, 0 );
+                    assertEquals( v, out[idx], 0.0 );
+                    assertEquals( g[0], grad[1 + idx * 3], 0.0 );
+                    assertEquals( g[2], grad[3 + idx * 3], 0.0 );
+                }
+            }
+        }
+
+        noise.fillGrad2( 0.5, 1.5, 0.21, 0.17, w, h, null, 0, grad, 0 );
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                noise.noiseGrad( 0.5 + x * 0.21, 1.5 + y * 0.17, g, 0 );
+                assertEquals( g[1], grad[( x + y * w ) * 2 + 1], 0.0 );
+            }
+        }
+    }
+
+
+    @Test
+    public void testFloatNoiseGrad() {
+        NoisePerm perm = new NoisePerm( 5L );
+        SimplexNoised nd = new SimplexNoised( perm );
+        SimplexNoisef nf = new SimplexNoisef( perm );
+        double[] gd = new double[4];
+        float[] gf  = new float[4];
+
+        for( int i = 0; i < 500; i++ ) {
+            float x = i * 0.0731f - 7.0f;
+            float y = i * 0.1137f + 2.0f;
+            float z = i * -0.0419f + 1.0f;
+            float w = i * 0.0233f;
+
+            assertEquals( nf.noise( x, y ), nf.noiseGrad( x, y, gf, 0 ), 0f );
+            nd.noiseGrad( x, y, gd, 0 );
+            assertEquals( gd[0], gf[0], 1E-3 );
+            assertEquals( gd[1], gf[1], 1E-3 );
+
+            assertEquals( nf.noise( x, y, z ), nf.noiseGrad( x, y, z, gf, 1 ), 0f );
+            nd.noiseGrad( x, y, z, gd, 1 );
+            assertEquals( gd[1], gf[1], 1E-2 );
+            assertEquals( gd[3], gf[3], 1E-2 );
+
+            assertEquals( nf.noise( x, y, z, w ), nf.noiseGrad( x, y, z, w, gf, 0 ), 0f );
+            nd.noiseGrad( x, y, z, w, gd, 0 );
+            assertEquals( gd[0], gf[0], 1E-2 );
+            assertEquals( gd[3], gf[3], 1E-2 );
+        }
+
+        final int w = 29;
+        final int h = 4;
+        final int d = 3;
+        float[] out  = new float[w * h * d];
+        float[] grad = new float[3 * w * h * d];
+
+        nf.fillGrad2( 0.25f, -1.5f, 0.071f, 0.093f, w, h, out, 0, grad, 0 );
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                int idx = x + y * w;
+                assertEquals( nf.noiseGrad( 0.25f + x * 0.071f, -1.5f + y * 0.093f, gf, 0 ), out[idx], 0f );
+                assertEquals( gf[0], grad[idx * 2    ], 0f );
+                assertEquals( gf[1], grad[idx * 2 + 1], 0f );
+            }
+        }
+
+        // Narrow steps share cells along each scanline; wide steps fall back to per-sample evaluation.
+        float[] steps = { 0.071f, 0.7f };
+        for( float dx : steps ) {
+            nf.fillGrad3( 0.25f, -1.5f, 3.0f, dx, 0.093f, 0.2f, w, h, d, out, 0, grad, 0 );
+            for( int z = 0; z < d; z++ ) {
+                for( int y = 0; y < h; y++ ) {
+                    for( int x = 0; x < w; x++ ) {
+                        int idx = x + w * ( y + h * z );
+                        float v = nf.noiseGrad( 0.25f + x * dx, -1.5f + y * 0.093f, 3.0f + z * 0.2f, gf, 0 );
+                        assertEquals( v, out[idx], 0f );
+                        assertEquals( gf[0], grad[idx * 3    ], 0f );
+                        assertEquals( gf[1], grad[idx * 3 + 1], 0f );
+                        assertEquals( gf[2], grad[idx * 3 + 2], 0f );
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestSpline {
+
+    @Test
+    public void testMatchesInterp() {
+        Random rand = new Random( 11 );
+        final int keys = 9;
+        final int dim  = 3;
+        float[] times  = new float[keys];
+        float[] values = new float[keys * dim];
+        for( int i = 0; i < keys; i++ ) {
+            times[i] = 2f + 0.5f * i;
+        }
+        for( int i = 0; i < values.length; i++ ) {
+            values[i] = rand.nextFloat() * 10f - 5f;
+        }
+
+        Spline[] splines = { Spline.linear( times, values, dim ),
+                             Spline.cubic( times, values, dim ),
+                             Spline.catmull( times, values, dim ),
+                             Spline.hermite( times, values, dim, 0.3f, -0.2f ) };
+        float[] out = new float[dim];
+
+        for( int i = 0; i < 2000; i++ ) {
+            float t = 1.5f + rand.nextFloat() * 5.5f;
+            float x = ( t - times[0] ) / 0.5f;
+            int seg = Math.max( 0, Math.min( keys - 2, (int)Math.floor( x ) ) );
+            float u = Math.max( 0f, Math.min( 1f, x - seg ) );
+
+            for( Spline s : splines ) {
+                s.eval( t, out, 0 );
+                for( int d = 0; d < dim; d++ ) {
+                    float x0 = values[Math.max( 0, seg - 1 ) * dim + d];
+                    float x1 = values[seg * dim + d];
+                    float x2 = values[( seg + 1 ) * dim + d];
+                    float x3 = values[Math.min( keys - 1, seg + 2 ) * dim + d];
+                    float expect;
+                    switch( s.type() ) {
+                    case Spline.LINEAR:
+                        expect = Interp.lerp( x1, x2, u );
+                        break;
+                    case Spline.CUBIC:
+                        expect = Interp.cubic( x0, x1, x2, x3, u );
+                        break;
+                    case Spline.CATMULL:
+                        expect = Interp.catmull( x0, x1, x2, x3, u );
+                        break;
+                    default:
+                        expect = Interp.hermite( x0, x1, x2, x3, u, 0.3f, -0.2f );
+                    }
+                    assertEquals( expect, out[d], 1E-4f );
+                }
+                assertEquals( out[0], s.eval( t ), 0f );
+            }
+        }
+    }
+
+    @Test
+    public void testCursor() {
+        Random rand = new Random( 12 );
+        final int keys = 200;
+        float[] times = new float[keys];
+        float[] values = new float[keys];
+        float t = 0f;
+        for( int i = 0; i < keys; i++ ) {
+            t += 0.01f + rand.nextFloat();
+            times[i] = t;
+            values[i] = rand.nextFloat();
+        }
+        Spline s = Spline.catmull( times, values, 1 );
+
+        // Keys are continuous, so any access order must produce identical results.
+        float[] samples = new float[5000];
+        for( int i = 0; i < samples.length; i++ ) {
+            samples[i] = times[0] - 1f + ( t - times[0] + 2f ) * i / ( samples.length - 1 );
+        }
+        float[] forward = new float[samples.length];
+        s.eval( samples, 0, samples.length, forward, 0 );
+
+        for( int i = 0; i < 20000; i++ ) {
+            int j = rand.nextInt( samples.length );
+            if( rand.nextBoolean() ) {
+                j = samples.length - 1 - ( i % samples.length );
+            }
+            assertEquals( forward[j], s.eval( samples[j] ), 0f );
+            int seg = s.segment( samples[j] );
+            assertTrue( seg >= 0 && seg < keys - 1 );
+            assertTrue( seg == 0 || samples[j] >= times[seg] );
+            assertTrue( seg == keys - 2 || samples[j] < times[seg + 1] );
+        }
+
+        assertEquals( values[0], s.eval( times[0] - 5f ), 0f );
+        assertEquals( values[keys - 1], s.eval( t + 5f ), 1E-6f );
+        assertEquals( 0.25f, Spline.linear( new float[]{ 1f }, new float[]{ 0.25f }, 1 ).eval( 3f ), 0f );
+    }
+
+}
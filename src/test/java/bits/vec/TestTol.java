@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2015. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestTol {
+
+    @Test
+    public void testArrayEqual() {
+        Random rand = new Random( 3 );
+        final int len = 1000;
+        double[] a = new double[len + 3];
+        double[] b = new double[len + 5];
+        float[] fa = new float[len];
+        float[] fb = new float[len];
+
+        for( int trial = 0; trial < 200; trial++ ) {
+            for( int i = 0; i < len; i++ ) {
+                double v = ( rand.nextDouble() - 0.5 ) * Math.pow( 10, rand.nextInt( 12 ) - 6 );
+                double e = rand.nextInt( 50 ) == 0 ? v * 1E-6 + 1E-9 : v * 1E-12;
+                a[3 + i] = v;
+                b[5 + i] = v + e;
+                fa[i] = (float)v;
+                fb[i] = (float)( v + ( rand.nextInt( 50 ) == 0 ? v * 1E-3 + 1E-3 : 0 ) );
+            }
+            if( trial % 7 == 0 ) {
+                b[5 + rand.nextInt( len )] = Double.NaN;
+            }
+
+            int first = -1;
+            int count = 0;
+            double maxErr = 0.0;
+            for( int i = 0; i < len; i++ ) {
+                double diff = Math.abs( a[3 + i] - b[5 + i] );
+                if( !Tol.equal( a[3 + i], b[5 + i] ) ) {
+                    count++;
+                    if( first < 0 ) {
+                        first = i;
+                    }
+                }
+                if( diff > maxErr ) {
+                    maxErr = diff;
+                }
+            }
+
+            Tol.Report r = new Tol.Report();
+            assertEquals( count == 0, Tol.equal( a, 3, b, 5, len, r ) );
+            assertEquals( first, r.mFirst );
+            assertEquals( count, r.mCount );
+            assertEquals( maxErr, r.mMaxErr, 0.0 );
+            assertEquals( count == 0, Tol.equal( a, 3, b, 5, len, null ) );
+
+            first = -1;
+            count = 0;
+            for( int i = 0; i < len; i++ ) {
+                if( !Tol.near( fa[i], fb[i] ) ) {
+                    count++;
+                    if( first < 0 ) {
+                        first = i;
+                    }
+                }
+            }
+            assertEquals( count == 0, Tol.near( fa, 0, fb, 0, len, r ) );
+            assertEquals( first, r.mFirst );
+            assertEquals( count, r.mCount );
+        }
+    }
+
+    @Test
+    public void testUlps() {
+        assertEquals( 0, Tol.ulps( 0.0, -0.0 ) );
+        assertEquals( 0, Tol.ulps( 0.0f, -0.0f ) );
+        assertEquals( 1, Tol.ulps( 1.0, Math.nextUp( 1.0 ) ) );
+        assertEquals( 1, Tol.ulps( 1.0f, Math.nextUp( 1.0f ) ) );
+        assertEquals( 2, Tol.ulps( Double.MIN_VALUE, -Double.MIN_VALUE ) );
+        assertEquals( 2, Tol.ulps( -Float.MIN_VALUE, Float.MIN_VALUE ) );
+        assertEquals( 1, Tol.ulps( Double.MAX_VALUE, Double.POSITIVE_INFINITY ) );
+        assertEquals( Long.MAX_VALUE, Tol.ulps( Double.NaN, Double.NaN ) );
+        assertEquals( Long.MAX_VALUE, Tol.ulps( 1.0f, Float.NaN ) );
+        assertEquals( Long.MAX_VALUE, Tol.ulps( -Double.MAX_VALUE, Double.MAX_VALUE ) );
+        assertEquals( 0x7F7FFFFFL * 2, Tol.ulps( -Float.MAX_VALUE, Float.MAX_VALUE ) );
+        assertTrue( Tol.equalUlps( 3.0, Math.nextAfter( Math.nextAfter( 3.0, 0.0 ), 0.0 ), 2 ) );
+        assertFalse( Tol.equalUlps( 3.0, Math.nextAfter( Math.nextAfter( 3.0, 0.0 ), 0.0 ), 1 ) );
+
+        double[] a = { 1.0, -2.0,  0.0, 5.0, 7.0 };
+        double[] b = { 1.0, -2.0, -0.0, 5.0, 7.0 };
+        b[1] = Math.nextUp( Math.nextUp( b[1] ) );
+        b[4] = Math.nextUp( Math.nextUp( Math.nextUp( b[4] ) ) );
+        Tol.Report r = new Tol.Report();
+        assertFalse( Tol.equalUlps( a, 0, b, 0, a.length, 2, r ) );
+        assertEquals( 4, r.mFirst );
+        assertEquals( 1, r.mCount );
+        assertEquals( 3, r.mMaxUlps );
+        assertEquals( b[4] - a[4], r.mMaxErr, 0.0 );
+        assertTrue( Tol.equalUlps( a, 0, b, 0, a.length, 3, r ) );
+        assertEquals( -1, r.mFirst );
+        assertEquals( 0, r.mCount );
+
+        float[] fa = { 1f, Float.NaN, 4f };
+        float[] fb = { 1f, Float.NaN, Math.nextUp( 4f ) };
+        assertFalse( Tol.equalUlps( fa, 0, fb, 0, 3, 1, r ) );
+        assertEquals( 1, r.mFirst );
+        assertEquals( 1, r.mCount );
+        assertEquals( Long.MAX_VALUE, r.mMaxUlps );
+        assertTrue( Tol.equalUlps( fa, 2, fb, 2, 1, 1, r ) );
+    }
+
+}
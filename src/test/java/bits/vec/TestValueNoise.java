@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestValueNoise {
+
+    @Test
+    public void testLatticeAndFill() {
+        NoisePerm perm = new NoisePerm( 77L );
+        ValueNoise noise = new ValueNoise( perm );
+
+        // At integer coordinates, noise equals the hashed lattice value.
+        for( int j = -5; j < 5; j++ ) {
+            for( int i = -5; i < 5; i++ ) {
+                double v = perm.perm( i + perm.perm( j ) ) * ( 2.0 / 255.0 ) - 1.0;
+                assertEquals( v, noise.noise( i, j ), 1E-12 );
+            }
+        }
+
+        final int w = 31;
+        final int h = 7;
+        final int d = 4;
+        double[] out = new double[w * h * d];
+        float[] fout = new float[w * h * d];
+
+        noise.fill2( -2.3, 5.1, 0.13, 0.31, w, h, out, 0 );
+        noise.fill2( -2.3, 5.1, 0.13, 0.31, w, h, fout, 0 );
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                double v = noise.noise( -2.3 + x * 0.13, 5.1 + y * 0.31 );
+                assertEquals( v, out[x + y * w], 0.0 );
+                assertEquals( (float)v, fout[x + y * w], 0f );
+                assertTrue( v >= -1.0 && v <= 1.0 );
+            }
+        }
+
+        noise.fill3( -2.3, 5.1, -0.7, 0.13, 0.31, 0.27, w, h, d, out, 0 );
+        for( int z = 0; z < d; z++ ) {
+            for( int y = 0; y < h; y++ ) {
+                for( int x = 0; x < w; x++ ) {
+                    double v = noise.noise( -2.3 + x * 0.13, 5.1 + y * 0.31, -0.7 + z * 0.27 );
+                    assertEquals( v, out[x + w * ( y + h * z )], 0.0 );
+                }
+            }
+        }
+
+        // Continuity across cell boundaries.
+        final double e = 1E-7;
+        assertEquals( noise.noise( 3.0 - e, 0.5 ), noise.noise( 3.0 + e, 0.5 ), 1E-5 );
+        assertEquals( noise.noise( 0.5, 2.0 - e, 0.25 ), noise.noise( 0.5, 2.0 + e, 0.25 ), 1E-5 );
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2014. Massachusetts Institute of Technology
+ * Released under the BSD 2-Clause License
+ * http://opensource.org/licenses/BSD-2-Clause
+ */
+
+package bits.vec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Philip DeCamp
+ */
+public class TestWorleyNoise {
+
+    @Test
+    public void test2dMatchesBruteForce() {
+        NoisePerm perm = new NoisePerm( 21L );
+        WorleyNoise noise = new WorleyNoise( perm );
+        Random rand = new Random( 4 );
+        double[] dist = new double[2];
+        int[] cell = new int[2];
+
+        for( int n = 0; n < 5000; n++ ) {
+            double x = rand.nextDouble() * 600 - 300;
+            double y = rand.nextDouble() * 600 - 300;
+            int i0 = (int)Math.floor( x );
+            int j0 = (int)Math.floor( y );
+            double b1 = Double.POSITIVE_INFINITY;
+            double b2 = Double.POSITIVE_INFINITY;
+            int bi = 0;
+            int bj = 0;
+
+            for( int j = j0 - 3; j <= j0 + 3; j++ ) {
+                for( int i = i0 - 3; i <= i0 + 3; i++ ) {
+                    int h = perm.perm( i + perm.perm( j ) );
+                    double px = i + ( perm.perm( h ) + 0.5 ) / 256.0;
+                    double py = j + ( perm.perm( h + 1 ) + 0.5 ) / 256.0;
+                    double d = Math.sqrt( ( px - x ) * ( px - x ) + ( py - y ) * ( py - y ) );
+                    if( d < b1 ) {
+                        b2 = b1;
+                        b1 = d;
+                        bi = i;
+                        bj = j;
+                    } else if( d < b2 ) {
+                        b2 = d;
+                    }
+                }
+            }
+
+            noise.f12( x, y, dist, 0, cell, 0 );
+            assertEquals( b1, dist[0], 1E-9 );
+            assertEquals( b2, dist[1], 1E-9 );
+            assertEquals( b1, noise.f1( x, y ), 1E-9 );
+            assertEquals( bi, cell[0] );
+            assertEquals( bj, cell[1] );
+        }
+    }
+
+
+    @Test
+    public void test3dMatchesBruteForce() {
+        NoisePerm perm = new NoisePerm( 8L );
+        WorleyNoise noise = new WorleyNoise( perm );
+        Random rand = new Random( 5 );
+        double[] dist = new double[2];
+
+        for( int n = 0; n < 2000; n++ ) {
+            double x = rand.nextDouble() * 100 - 50;
+            double y = rand.nextDouble() * 100 - 50;
+            double z = rand.nextDouble() * 100 - 50;
+            int i0 = (int)Math.floor( x );
+            int j0 = (int)Math.floor( y );
+            int k0 = (int)Math.floor( z );
+            double b1 = Double.POSITIVE_INFINITY;
+            double b2 = Double.POSITIVE_INFINITY;
+
+            for( int k = k0 - 2; k <= k0 + 2; k++ ) {
+                for( int j = j0 - 2; j <= j0 + 2; j++ ) {
+                    for( int i = i0 - 2; i <= i0 + 2; i++ ) {
+                        int h = perm.perm( i + perm.perm( j + perm.perm( k ) ) );
+                        double px = i + ( perm.perm( h ) + 0.5 ) / 256.0;
+                        double py = j + ( perm.perm( h + 1 ) + 0.5 ) / 256.0;
+                        double pz = k + ( perm.perm( h + 2 ) + 0.5 ) / 256.0;
+                        double d = Math.sqrt( ( px - x ) * ( px - x ) + ( py - y ) * ( py - y ) + ( pz - z ) * ( pz - z ) );
+                        if( d < b1 ) {
+                            b2 = b1;
+                            b1 = d;
+                        } else if( d < b2 ) {
+                            b2 = d;
+                        }
+                    }
+                }
+            }
+
+            noise.f12( x, y, z, dist, 0, null, 0 );
+            assertEquals( b1, dist[0], 1E-9 );
+            assertEquals( b2, dist[1], 1E-9 );
+            assertEquals( b1, noise.f1( x, y, z ), 1E-9 );
+        }
+    }
+
+
+    @Test
+    public void testNoAxisSymmetry() {
+        WorleyNoise noise = new WorleyNoise( 13L );
+        Random rand = new Random( 6 );
+        int same2 = 0;
+        int same3 = 0;
+        final int count = 1000;
+
+        for( int n = 0; n < count; n++ ) {
+            double x = rand.nextDouble() * 200 - 100;
+            double y = rand.nextDouble() * 200 - 100;
+            double z = rand.nextDouble() * 200 - 100;
+            if( Math.abs( noise.f1( x, y ) - noise.f1( y, x ) ) < 1E-9 ) {
+                same2++;
+            }
+            if( Math.abs( noise.f1( x, y, z ) - noise.f1( y, z, x ) ) < 1E-9 ) {
+                same3++;
+            }
+        }
+
+        // Coincidences are possible, but should be rare.
+        assertTrue( same2 < count / 100 );
+        assertTrue( same3 < count / 100 );
+    }
+
+
+    @Test
+    public void testFill() {
+        WorleyNoise noise = new WorleyNoise( 2L );
+        final int w = 23;
+        final int h = 6;
+        final int d = 3;
+        double[] f1 = new double[w * h * d];
+        double[] f2 = new double[w * h * d];
+        float[] ff2 = new float[w * h * d];
+        double[] dist = new double[2];
+
+        noise.fill2( -4.0, 7.5, 0.37, 0.29, w, h, f1, 0, f2, 0 );
+        noise.fill2( -4.0, 7.5, 0.37, 0.29, w, h, null, 0, ff2, 0 );
+        for( int y = 0; y < h; y++ ) {
+            for( int x = 0; x < w; x++ ) {
+                noise.f12( -4.0 + x * 0.37, 7.5 + y * 0.29, dist, 0, null, 0 );
+                assertEquals( dist[0], f1[x + y * w], 0.0 );
+                assertEquals( dist[1], f2[x + y * w], 0.0 );
+                assertEquals( (float)dist[1], ff2[x + y * w], 0f );
+            }
+        }
+
+        noise.fill3( -4.0, 7.5, 1.0, 0.37, 0.29, 0.41, w, h, d, f1, 0, null, 0 );
+        for( int z = 0; z < d; z++ ) {
+            for( int y = 0; y < h; y++ ) {
+                for( int x = 0; x < w; x++ ) {
+                    double v = noise.f1( -4.0 + x * 0.37, 7.5 + y * 0.29, 1.0 + z * 0.41 );
+                    assertEquals( v, f1[x + w * ( y + h * z )], 0.0 );
+                }
+            }
+        }
+    }
+
+}